@@ -18,6 +18,7 @@ package org.apache.sis.openoffice;
 
 import java.util.Arrays;
 import org.apache.sis.util.collection.Cache;
+import org.apache.sis.internal.system.CacheStatistics;
 
 // Branch-dependent imports
 import java.util.Objects;
@@ -39,6 +40,9 @@ final class CacheKey<T> {
      * The cache shared by all formulas.
      */
     private static final Cache<CacheKey<?>, Object> cache = new Cache<>(32, 10, true);
+    static {
+        CacheStatistics.register("openoffice.CacheKey.cache", cache);
+    }
 
     /**
      * The type of cached value.
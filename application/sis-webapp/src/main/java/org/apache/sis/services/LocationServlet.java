@@ -55,11 +55,15 @@ import org.apache.sis.geometry.DirectPosition2D;
 import org.apache.sis.geometry.Envelope2D;
 import org.apache.sis.distance.DistanceUtils;
 import org.apache.sis.index.tree.GeoRSSData;
+import org.apache.sis.index.tree.PackedQuadTree;
 import org.apache.sis.index.tree.QuadTree;
 import org.apache.sis.index.tree.QuadTreeData;
 import org.apache.sis.index.tree.QuadTreeReader;
 import org.apache.sis.index.tree.QuadTreeWriter;
 
+// Branch-dependent imports
+import org.apache.sis.internal.jdk8.Consumer;
+
 //ROME imports
 import com.sun.syndication.feed.WireFeed;
 import com.sun.syndication.feed.module.georss.GeoRSSModule;
@@ -79,6 +83,7 @@ public class LocationServlet extends HttpServlet {
 
   private static final long serialVersionUID = 731743219362175102L;
   private QuadTree tree;
+  private PackedQuadTree packedTree;
   private ServletContext context;
   private String timeToLoad;
   private String qtreeIdxPath;
@@ -227,6 +232,26 @@ public class LocationServlet extends HttpServlet {
             "Unable to read location service XML config: null!");
       }
     }
+    // searches are done on a packed copy, which does not allocate per node.
+    if (this.tree != null) {
+      this.packedTree = new PackedQuadTree(this.tree);
+    }
+  }
+
+  /**
+   * Returns a consumer adding the search results to the given list.
+   *
+   * @param results
+   *          the list where to add search results
+   * @return a consumer adding to the given list
+   */
+  private static Consumer<QuadTreeData> addTo(final List<QuadTreeData> results) {
+    return new Consumer<QuadTreeData>() {
+      @Override
+      public void accept(final QuadTreeData data) {
+        results.add(data);
+      }
+    };
   }
 
   /**
@@ -268,7 +293,7 @@ public class LocationServlet extends HttpServlet {
               new DirectPosition2D(Double.parseDouble(urLon), Double.parseDouble(urLat)));
 
           beforeTime = System.currentTimeMillis();
-          results = tree.queryByBoundingBox(bbox);
+          packedTree.queryByBoundingBox(bbox, addTo(results));
           afterTime = System.currentTimeMillis();
           // get the polygon that approximates the region
           Rectangle2D[] rects = bbox.toRectangles();
@@ -315,7 +340,7 @@ public class LocationServlet extends HttpServlet {
         regions.add(regionStr.substring(0, regionStr.length() - 1));
 
         beforeTime = System.currentTimeMillis();
-        results = tree.queryByPointRadius(point, radiusKM);
+        packedTree.queryByPointRadius(point, radiusKM, addTo(results));
         afterTime = System.currentTimeMillis();
 
       }
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.util.Random;
+import org.opengis.util.FactoryException;
+import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.referencing.datum.Ellipsoid;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.MathTransformFactory;
+import org.opengis.referencing.operation.NoninvertibleTransformException;
+import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.internal.util.Constants;
+import org.apache.sis.referencing.CommonCRS;
+import org.apache.sis.referencing.datum.BursaWolfParameters;
+import org.apache.sis.referencing.operation.transform.EllipsoidToCentricTransform;
+import org.apache.sis.referencing.operation.transform.InterpolatedTransform;
+import org.apache.sis.referencing.operation.transform.MathTransforms;
+import org.apache.sis.referencing.operation.transform.MolodenskyTransform;
+import org.openjdk.jmh.annotations.Param;
+
+
+/**
+ * Benchmarks chains of transforms as typically created by {@code CRS.findOperation(…)},
+ * for measuring the overhead of {@link org.apache.sis.referencing.operation.transform.ConcatenatedTransform}
+ * (intermediate buffers, multiple passes over the arrays) compared to the cost of individual steps.
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public class ConcatenatedTransformBenchmark extends TransformBenchmark {
+    /**
+     * The chains of transforms to benchmark.
+     */
+    public enum Chain {
+        /** Inverse of a Transverse Mercator projection followed by a Lambert Conic Conformal projection. */
+        PROJECTION_TO_PROJECTION,
+
+        /** Geographic to geocentric conversion, Bursa-Wolf transformation, then geocentric to geographic. */
+        GEOCENTRIC_BURSA_WOLF,
+
+        /** Molodensky transformation followed by a Transverse Mercator projection. */
+        MOLODENSKY_AND_PROJECTION,
+
+        /** Interpolation in a datum shift grid followed by a Transverse Mercator projection. */
+        INTERPOLATION_AND_PROJECTION
+    }
+
+    /**
+     * The chain of transforms to benchmark.
+     */
+    @Param
+    public Chain chain;
+
+    /**
+     * Conversion from geographic coordinates to the source coordinates of the chain,
+     * or {@code null} if the chain source coordinates are already geographic.
+     */
+    private MathTransform geographicToSource;
+
+    /**
+     * Creates a new benchmark. Fields will be initialized by JMH.
+     */
+    public ConcatenatedTransformBenchmark() {
+    }
+
+    /**
+     * Creates a Transverse Mercator projection on the WGS84 ellipsoid for the UTM zone 31.
+     */
+    private static MathTransform createUTM(final MathTransformFactory factory) throws FactoryException {
+        final Ellipsoid ellipsoid = CommonCRS.WGS84.ellipsoid();
+        final ParameterValueGroup values = factory.getDefaultParameters("Transverse Mercator");
+        values.parameter(Constants.SEMI_MAJOR).setValue(ellipsoid.getSemiMajorAxis());
+        values.parameter(Constants.SEMI_MINOR).setValue(ellipsoid.getSemiMinorAxis());
+        values.parameter("Longitude of natural origin").setValue(3);
+        values.parameter("Scale factor at natural origin").setValue(0.9996);
+        values.parameter("False easting").setValue(500000);
+        return factory.createParameterizedTransform(values);
+    }
+
+    /**
+     * Creates the chain of transforms to benchmark.
+     *
+     * @param  factory  the factory to use for creating the transform.
+     * @return the chain of transforms to benchmark.
+     * @throws FactoryException if an error occurred while creating the transform.
+     */
+    @Override
+    protected MathTransform createTransform(final MathTransformFactory factory) throws FactoryException {
+        final Ellipsoid source = CommonCRS.ED50.ellipsoid();
+        final Ellipsoid target = CommonCRS.WGS84.ellipsoid();
+        geographicToSource = null;
+        switch (chain) {
+            case PROJECTION_TO_PROJECTION: {
+                final ParameterValueGroup values = factory.getDefaultParameters("Lambert Conic Conformal (2SP)");
+                values.parameter(Constants.SEMI_MAJOR).setValue(target.getSemiMajorAxis());
+                values.parameter(Constants.SEMI_MINOR).setValue(target.getSemiMinorAxis());
+                values.parameter("Latitude of false origin").setValue(46.5);
+                values.parameter("Longitude of false origin").setValue(3);
+                values.parameter("Latitude of 1st standard parallel").setValue(49);
+                values.parameter("Latitude of 2nd standard parallel").setValue(44);
+                values.parameter("Easting at false origin").setValue(700000);
+                values.parameter("Northing at false origin").setValue(6600000);
+                geographicToSource = createUTM(factory);
+                try {
+                    return MathTransforms.concatenate(geographicToSource.inverse(), factory.createParameterizedTransform(values));
+                } catch (NoninvertibleTransformException e) {
+                    throw new FactoryException(e.getLocalizedMessage(), e);
+                }
+            }
+            case GEOCENTRIC_BURSA_WOLF: {
+                final BursaWolfParameters bw = new BursaWolfParameters(CommonCRS.WGS84.datum(), null);
+                bw.setValues(-84.1, -101.8, -129.7, 0, 0, 0.468, 1.05);
+                try {
+                    return MathTransforms.concatenate(
+                            EllipsoidToCentricTransform.createGeodeticConversion(factory, source, true),
+                            MathTransforms.linear(bw.getPositionVectorTransformation(null)),
+                            EllipsoidToCentricTransform.createGeodeticConversion(factory, target, true).inverse());
+                } catch (NoninvertibleTransformException e) {
+                    throw new FactoryException(e.getLocalizedMessage(), e);
+                }
+            }
+            case MOLODENSKY_AND_PROJECTION: {
+                return MathTransforms.concatenate(MolodenskyTransform.createGeodeticTransformation(
+                        factory, source, false, target, false, -87, -98, -121, false), createUTM(factory));
+            }
+            case INTERPOLATION_AND_PROJECTION: {
+                return MathTransforms.concatenate(InterpolatedTransform.createGeodeticTransformation(
+                        factory, new SyntheticDatumShiftGrid()), createUTM(factory));
+            }
+            default: throw new AssertionError(chain);
+        }
+    }
+
+    /**
+     * Returns random coordinates over Western Europe, converted to the source coordinate system of the chain.
+     */
+    @Override
+    protected double[] createSourceCoordinates(final MathTransform transform, final Random random) throws TransformException {
+        final double[] coordinates;
+        if (transform.getSourceDimensions() == 3) {
+            coordinates = randomPoints(random, -3, 9, 42, 51, -100, 4000);
+        } else {
+            coordinates = randomPoints(random, -3, 9, 42, 51);
+        }
+        if (geographicToSource != null) {
+            geographicToSource.transform(coordinates, 0, coordinates, 0, numPoints);
+        }
+        return coordinates;
+    }
+}
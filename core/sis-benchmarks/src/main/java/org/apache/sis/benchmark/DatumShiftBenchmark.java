@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.util.Random;
+import org.opengis.util.FactoryException;
+import org.opengis.referencing.datum.Ellipsoid;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.MathTransformFactory;
+import org.apache.sis.referencing.CommonCRS;
+import org.apache.sis.referencing.operation.transform.EllipsoidToCentricTransform;
+import org.apache.sis.referencing.operation.transform.InterpolatedTransform;
+import org.apache.sis.referencing.operation.transform.MolodenskyTransform;
+import org.openjdk.jmh.annotations.Param;
+
+
+/**
+ * Benchmarks the transforms used for datum shifts: conversions between geographic and geocentric
+ * coordinates, Molodensky transformations and interpolations in a datum shift grid.
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public class DatumShiftBenchmark extends TransformBenchmark {
+    /**
+     * The operations to benchmark.
+     */
+    public enum Operation {
+        /** Two-dimensional {@link EllipsoidToCentricTransform}. */
+        GEOCENTRIC_CONVERSION_2D,
+
+        /** Three-dimensional {@link EllipsoidToCentricTransform}. */
+        GEOCENTRIC_CONVERSION_3D,
+
+        /** Two-dimensional {@link MolodenskyTransform}. */
+        MOLODENSKY_2D,
+
+        /** Three-dimensional {@link MolodenskyTransform}. */
+        MOLODENSKY_3D,
+
+        /** Two-dimensional {@link MolodenskyTransform} using the abridged formulas. */
+        ABRIDGED_MOLODENSKY_2D,
+
+        /** {@link InterpolatedTransform} in a {@link SyntheticDatumShiftGrid}. */
+        INTERPOLATED
+    }
+
+    /**
+     * The operation to benchmark.
+     */
+    @Param
+    public Operation operation;
+
+    /**
+     * Creates a new benchmark. Fields will be initialized by JMH.
+     */
+    public DatumShiftBenchmark() {
+    }
+
+    /**
+     * Creates the transform for the {@linkplain #operation} to benchmark.
+     *
+     * @param  factory  the factory to use for creating the transform.
+     * @return the transform to benchmark.
+     * @throws FactoryException if an error occurred while creating the transform.
+     */
+    @Override
+    protected MathTransform createTransform(final MathTransformFactory factory) throws FactoryException {
+        final Ellipsoid source = CommonCRS.ED50.ellipsoid();
+        final Ellipsoid target = CommonCRS.WGS84.ellipsoid();
+        switch (operation) {
+            case GEOCENTRIC_CONVERSION_2D: return EllipsoidToCentricTransform.createGeodeticConversion(factory, target, false);
+            case GEOCENTRIC_CONVERSION_3D: return EllipsoidToCentricTransform.createGeodeticConversion(factory, target, true);
+            case MOLODENSKY_2D:            return MolodenskyTransform.createGeodeticTransformation(factory, source, false, target, false, -87, -98, -121, false);
+            case MOLODENSKY_3D:            return MolodenskyTransform.createGeodeticTransformation(factory, source, true,  target, true,  -87, -98, -121, false);
+            case ABRIDGED_MOLODENSKY_2D:   return MolodenskyTransform.createGeodeticTransformation(factory, source, false, target, false, -87, -98, -121, true);
+            case INTERPOLATED:             return InterpolatedTransform.createGeodeticTransformation(factory, new SyntheticDatumShiftGrid());
+            default: throw new AssertionError(operation);
+        }
+    }
+
+    /**
+     * Returns random (<var>longitude</var>, <var>latitude</var>) or (<var>longitude</var>, <var>latitude</var>,
+     * <var>height</var>) coordinates over Europe, which is inside the domain of {@link SyntheticDatumShiftGrid}.
+     */
+    @Override
+    protected double[] createSourceCoordinates(final MathTransform transform, final Random random) {
+        if (transform.getSourceDimensions() == 3) {
+            return randomPoints(random, SyntheticDatumShiftGrid.λmin, SyntheticDatumShiftGrid.λmax,
+                                        SyntheticDatumShiftGrid.φmin, SyntheticDatumShiftGrid.φmax, -100, 4000);
+        } else {
+            return randomPoints(random, SyntheticDatumShiftGrid.λmin, SyntheticDatumShiftGrid.λmax,
+                                        SyntheticDatumShiftGrid.φmin, SyntheticDatumShiftGrid.φmax);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.util.Random;
+import org.opengis.util.FactoryException;
+import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.referencing.datum.Ellipsoid;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.MathTransformFactory;
+import org.apache.sis.internal.util.Constants;
+import org.apache.sis.referencing.CommonCRS;
+import org.openjdk.jmh.annotations.Param;
+
+
+/**
+ * Benchmarks the map projections, including the normalization and denormalization steps.
+ * This benchmark covers every {@link org.apache.sis.referencing.operation.projection.NormalizedProjection}
+ * subclass, in their ellipsoidal and spherical forms.
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public class MapProjectionBenchmark extends TransformBenchmark {
+    /**
+     * The map projections to benchmark, together with the geographic area where to generate random points.
+     * Parameters not listed here are left to their default values.
+     */
+    public enum Projection {
+        /** Projected by {@code TransverseMercator}. */
+        TRANSVERSE_MERCATOR("Transverse Mercator", 6, 12, 0, 70,
+                "Longitude of natural origin", 9),
+
+        /** Projected by {@code ZonedGridSystem}. */
+        ZONED_TRANSVERSE_MERCATOR("Transverse Mercator Zoned Grid System", -180, 180, -80, 80),
+
+        /** Projected by {@code LambertConicConformal}. */
+        LAMBERT_CONIC_CONFORMAL_1SP("Lambert Conic Conformal (1SP)", -20, 40, 30, 60,
+                "Latitude of natural origin",  46.5,
+                "Longitude of natural origin", 3),
+
+        /** Projected by {@code LambertConicConformal}. */
+        LAMBERT_CONIC_CONFORMAL_2SP("Lambert Conic Conformal (2SP)", -32, 48, 18, 50,
+                "Longitude of false origin",         8,
+                "Latitude of 1st standard parallel", 25,
+                "Latitude of 2nd standard parallel", 40),
+
+        /** Projected by {@code Mercator}. */
+        MERCATOR("Mercator (variant A)", -180, 180, -80, 80),
+
+        /** Projected by {@code Mercator}. */
+        PSEUDO_MERCATOR("Popular Visualisation Pseudo Mercator", -180, 180, -80, 80),
+
+        /** Projected by {@code PolarStereographic}. */
+        POLAR_STEREOGRAPHIC("Polar Stereographic (variant A)", -180, 180, 60, 90,
+                "Latitude of natural origin", 90),
+
+        /** Projected by {@code ObliqueStereographic}. */
+        OBLIQUE_STEREOGRAPHIC("Oblique Stereographic", 3, 8, 50, 54,
+                "Latitude of natural origin",  52.156,
+                "Longitude of natural origin", 5.387),
+
+        /** Projected by {@code AlbersEqualArea}. */
+        ALBERS_EQUAL_AREA("Albers Equal Area", -130, -60, 20, 55,
+                "Latitude of false origin",          23,
+                "Longitude of false origin",         -96,
+                "Latitude of 1st standard parallel", 29.5,
+                "Latitude of 2nd standard parallel", 45.5),
+
+        /** Projected by {@code CylindricalEqualArea}. */
+        CYLINDRICAL_EQUAL_AREA("Lambert Cylindrical Equal Area", -180, 180, -80, 80,
+                "Latitude of 1st standard parallel", 30),
+
+        /** Projected by an affine transform (no {@code NormalizedProjection}), for comparison purpose. */
+        EQUIRECTANGULAR("Equidistant Cylindrical (Spherical)", -180, 180, -90, 90);
+
+        /** Name of the operation method. */
+        final String method;
+
+        /** Geographic area where to generate random points, in degrees. */
+        final double λmin, λmax, φmin, φmax;
+
+        /** Parameter names and values, in (name, value) pairs. */
+        private final Object[] parameters;
+
+        /** Creates a new enumeration value. */
+        private Projection(final String method, final double λmin, final double λmax,
+                final double φmin, final double φmax, final Object... parameters)
+        {
+            this.method = method;
+            this.λmin   = λmin;
+            this.λmax   = λmax;
+            this.φmin   = φmin;
+            this.φmax   = φmax;
+            this.parameters = parameters;
+        }
+
+        /** Sets the projection-specific parameter values. */
+        final void setParameters(final ParameterValueGroup values) {
+            for (int i=0; i<parameters.length;) {
+                values.parameter((String) parameters[i++]).setValue(((Number) parameters[i++]).doubleValue());
+            }
+        }
+    }
+
+    /**
+     * The map projection to benchmark.
+     */
+    @Param
+    public Projection projection;
+
+    /**
+     * Whether to use the spherical formulas instead of the ellipsoidal ones.
+     */
+    @Param({"false", "true"})
+    public boolean spherical;
+
+    /**
+     * Creates a new benchmark. Fields will be initialized by JMH.
+     */
+    public MapProjectionBenchmark() {
+    }
+
+    /**
+     * Creates the map projection, including the conversion of input angles from degrees to radians
+     * and the scale and translation of output values by the ellipsoid axis length and false easting/northing.
+     *
+     * @param  factory  the factory to use for creating the transform.
+     * @return the complete map projection.
+     * @throws FactoryException if an error occurred while creating the transform.
+     */
+    @Override
+    protected MathTransform createTransform(final MathTransformFactory factory) throws FactoryException {
+        final Ellipsoid ellipsoid = (spherical ? CommonCRS.SPHERE : CommonCRS.WGS84).ellipsoid();
+        final ParameterValueGroup values = factory.getDefaultParameters(projection.method);
+        values.parameter(Constants.SEMI_MAJOR).setValue(ellipsoid.getSemiMajorAxis());
+        values.parameter(Constants.SEMI_MINOR).setValue(ellipsoid.getSemiMinorAxis());
+        projection.setParameters(values);
+        return factory.createParameterizedTransform(values);
+    }
+
+    /**
+     * Returns random (<var>longitude</var>, <var>latitude</var>) coordinates
+     * in the domain of validity declared by {@link #projection}.
+     */
+    @Override
+    protected double[] createSourceCoordinates(final MathTransform transform, final Random random) {
+        return randomPoints(random, projection.λmin, projection.λmax,
+                                    projection.φmin, projection.φmax);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import javax.measure.quantity.Angle;
+import org.apache.sis.measure.Units;
+import org.apache.sis.referencing.datum.DatumShiftGrid;
+import org.apache.sis.referencing.operation.matrix.Matrix3;
+import org.apache.sis.referencing.operation.transform.MathTransforms;
+
+
+/**
+ * A datum shift grid with values computed from an analytic function, so the benchmarks do not need
+ * to read a NTv2 or NADCON file. The grid covers Europe with cells of {@value #CELL_SIZE} degrees.
+ * Translations are small (less than 0.001°) and vary smoothly, in order to keep the inverse
+ * transform convergent everywhere in the grid.
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class SyntheticDatumShiftGrid extends DatumShiftGrid<Angle,Angle> {
+    /**
+     * For cross-version compatibility.
+     */
+    private static final long serialVersionUID = -5462803924417350148L;
+
+    /**
+     * Size of grid cells, in degrees.
+     */
+    static final double CELL_SIZE = 0.25;
+
+    /**
+     * Geographic area where benchmarks should generate points, in degrees.
+     * This is a little bit smaller than the grid area for keeping shifted points inside the grid.
+     */
+    static final double λmin = -10, λmax = 20, φmin = 35, φmax = 60;
+
+    /**
+     * Number of cells outside the area of benchmark points, on each border.
+     */
+    private static final int MARGIN = 20;
+
+    /**
+     * Creates a new grid.
+     */
+    SyntheticDatumShiftGrid() {
+        super(Units.DEGREE, MathTransforms.linear(new Matrix3(
+                1/CELL_SIZE, 0, MARGIN - λmin/CELL_SIZE,
+                0, 1/CELL_SIZE, MARGIN - φmin/CELL_SIZE,
+                0, 0, 1)),
+              new int[] {(int) ((λmax - λmin) / CELL_SIZE) + 2*MARGIN + 1,
+                         (int) ((φmax - φmin) / CELL_SIZE) + 2*MARGIN + 1},
+              true, Units.DEGREE);
+    }
+
+    /**
+     * Returns the number of dimensions of the translation vectors, which is 2 for (Δλ, Δφ).
+     */
+    @Override
+    public int getTranslationDimensions() {
+        return 2;
+    }
+
+    /**
+     * Returns the translation at the given grid indices, in units of grid cell size.
+     */
+    @Override
+    public double getCellValue(final int dim, final int gridX, final int gridY) {
+        final double v = (dim == 0) ? Math.sin(gridX * 0.05) + Math.cos(gridY * 0.03)
+                                    : Math.cos(gridX * 0.02) - Math.sin(gridY * 0.07);
+        return v * (0.0004 / CELL_SIZE);
+    }
+
+    /**
+     * Returns an estimation of the precision of cell values, in units of grid cell size.
+     */
+    @Override
+    public double getCellPrecision() {
+        return 1E-8 / CELL_SIZE;
+    }
+}
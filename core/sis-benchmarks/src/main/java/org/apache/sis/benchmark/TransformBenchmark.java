@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.opengis.util.FactoryException;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.MathTransformFactory;
+import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.internal.system.DefaultFactories;
+import org.apache.sis.referencing.operation.transform.MathTransforms;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Base class of benchmarks measuring the performance of a {@link MathTransform}.
+ * Each benchmark method transforms the same set of {@link #numPoints} random points
+ * in one of the following ways:
+ *
+ * <ul>
+ *   <li>{@link #transformDoubleArray()}: a single call to {@code transform(double[], …, numPoints)}.</li>
+ *   <li>{@link #transformFloatArray()}:  a single call to {@code transform(float[], …, numPoints)}.</li>
+ *   <li>{@link #transformPointByPoint(Blackhole)}: one call to {@code transform(double[], …, 1)} per point.</li>
+ *   <li>{@link #transformWithDerivative(Blackhole)}: one call to
+ *       {@link MathTransforms#derivativeAndTransform MathTransforms.derivativeAndTransform(…)} per point.</li>
+ * </ul>
+ *
+ * Scores are reported as the average time for transforming the whole set of points,
+ * so the time per point is the score divided by {@link #numPoints}.
+ *
+ * <p>If {@link #inverse} is {@code true}, the source points are first transformed by the forward transform
+ * and the benchmarks measure the inverse transform applied on the result. This allows subclasses to declare
+ * only the domain of the forward transform.</p>
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public abstract class TransformBenchmark {
+    /**
+     * The seed of the random number generator, fixed for making the benchmarks reproducible.
+     */
+    private static final long SEED = 9158274236504827751L;
+
+    /**
+     * Number of points to transform in each benchmark method invocation.
+     */
+    @Param("10000")
+    public int numPoints;
+
+    /**
+     * Whether to benchmark the inverse transform instead than the forward one.
+     */
+    @Param({"false", "true"})
+    public boolean inverse;
+
+    /**
+     * The transform to benchmark.
+     */
+    protected MathTransform transform;
+
+    /**
+     * Source coordinates, as double and single precision numbers.
+     */
+    private double[] sourceDoubles;
+    private float [] sourceFloats;
+
+    /**
+     * Arrays where to store the transformed coordinates.
+     */
+    private double[] targetDoubles;
+    private float [] targetFloats;
+
+    /**
+     * For subclasses constructors.
+     */
+    protected TransformBenchmark() {
+    }
+
+    /**
+     * Creates the transform to benchmark. This method is invoked once per trial,
+     * after JMH has assigned the {@link Param} fields.
+     *
+     * @param  factory  the factory to use for creating the transform.
+     * @return the forward transform to benchmark.
+     * @throws FactoryException if an error occurred while creating the transform.
+     */
+    protected abstract MathTransform createTransform(MathTransformFactory factory) throws FactoryException;
+
+    /**
+     * Creates random coordinates in the domain of validity of the forward transform.
+     * The returned array shall contain {@code numPoints × sourceDimensions} values.
+     *
+     * @param  transform  the transform returned by {@link #createTransform(MathTransformFactory)}.
+     * @param  random     the random number generator to use.
+     * @return the source coordinates of the forward transform.
+     * @throws TransformException if an error occurred while computing the coordinates.
+     */
+    protected abstract double[] createSourceCoordinates(MathTransform transform, Random random) throws TransformException;
+
+    /**
+     * Creates the transform and the coordinates to transform.
+     *
+     * @throws FactoryException if an error occurred while creating the transform.
+     * @throws TransformException if an error occurred while preparing the source coordinates.
+     */
+    @Setup(Level.Trial)
+    public void prepare() throws FactoryException, TransformException {
+        MathTransform tr = createTransform(DefaultFactories.forBuildin(MathTransformFactory.class));
+        double[] source = createSourceCoordinates(tr, new Random(SEED));
+        if (inverse) {
+            final double[] target = new double[numPoints * tr.getTargetDimensions()];
+            tr.transform(source, 0, target, 0, numPoints);
+            source = target;
+            tr = tr.inverse();
+        }
+        transform     = tr;
+        sourceDoubles = source;
+        sourceFloats  = new float [source.length];
+        targetDoubles = new double[numPoints * tr.getTargetDimensions()];
+        targetFloats  = new float [targetDoubles.length];
+        for (int i=0; i<source.length; i++) {
+            sourceFloats[i] = (float) source[i];
+        }
+    }
+
+    /**
+     * Creates an array of {@link #numPoints} points with ordinate values uniformly distributed
+     * in the given ranges. This is a helper method for {@link #createSourceCoordinates}.
+     *
+     * @param  random  the random number generator to use.
+     * @param  ranges  minimal and maximal values for each dimension, in (<var>min</var>, <var>max</var>) pairs.
+     * @return the random coordinates.
+     */
+    protected final double[] randomPoints(final Random random, final double... ranges) {
+        final int dimension = ranges.length / 2;
+        final double[] coordinates = new double[numPoints * dimension];
+        for (int i=0; i<coordinates.length; i++) {
+            final int r = (i % dimension) * 2;
+            final double min = ranges[r];
+            coordinates[i] = min + (ranges[r+1] - min) * random.nextDouble();
+        }
+        return coordinates;
+    }
+
+    /**
+     * Transforms all points with a single call to the {@code transform(double[], …)} method.
+     *
+     * @return the transformed coordinates, for preventing dead-code elimination.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Benchmark
+    public double[] transformDoubleArray() throws TransformException {
+        transform.transform(sourceDoubles, 0, targetDoubles, 0, numPoints);
+        return targetDoubles;
+    }
+
+    /**
+     * Transforms all points with a single call to the {@code transform(float[], …)} method.
+     *
+     * @return the transformed coordinates, for preventing dead-code elimination.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Benchmark
+    public float[] transformFloatArray() throws TransformException {
+        transform.transform(sourceFloats, 0, targetFloats, 0, numPoints);
+        return targetFloats;
+    }
+
+    /**
+     * Transforms all points with one call to the {@code transform(double[], …)} method per point.
+     *
+     * @param  bh  where to send the transformed coordinates.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Benchmark
+    public void transformPointByPoint(final Blackhole bh) throws TransformException {
+        final int srcDim = transform.getSourceDimensions();
+        final int tgtDim = transform.getTargetDimensions();
+        for (int i=0; i<numPoints; i++) {
+            transform.transform(sourceDoubles, i*srcDim, targetDoubles, i*tgtDim, 1);
+        }
+        bh.consume(targetDoubles);
+    }
+
+    /**
+     * Transforms all points and computes the derivative at each point.
+     *
+     * @param  bh  where to send the derivatives and the transformed coordinates.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Benchmark
+    public void transformWithDerivative(final Blackhole bh) throws TransformException {
+        final int srcDim = transform.getSourceDimensions();
+        final int tgtDim = transform.getTargetDimensions();
+        for (int i=0; i<numPoints; i++) {
+            bh.consume(MathTransforms.derivativeAndTransform(transform, sourceDoubles, i*srcDim, targetDoubles, i*tgtDim));
+        }
+        bh.consume(targetDoubles);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Micro-benchmarks of Apache SIS, to be executed with the
+ * <a href="http://openjdk.java.net/projects/code-tools/jmh/">Java Microbenchmark Harness</a> (JMH).
+ * Those benchmarks are used for detecting performance regressions between releases.
+ * They are not executed as part of the tests.
+ *
+ * <div class="section">Usage</div>
+ * Build this module, then run the benchmarks from the command-line:
+ *
+ * {@preformat shell
+ *     mvn install --projects core/sis-benchmarks --also-make
+ *     java -jar core/sis-benchmarks/target/benchmarks.jar
+ * }
+ *
+ * A subset of the benchmarks can be selected by a regular expression, and parameters can be restricted
+ * to some values. For example the following command benchmarks only the Transverse Mercator projection:
+ *
+ * {@preformat shell
+ *     java -jar core/sis-benchmarks/target/benchmarks.jar MapProjectionBenchmark -p projection=TRANSVERSE_MERCATOR
+ * }
+ *
+ * The {@code -rf json -rff result.json} options save the results in a file which can be compared
+ * with the results of a previous release. The {@code -h} option lists all other JMH options.
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+package org.apache.sis.benchmark;
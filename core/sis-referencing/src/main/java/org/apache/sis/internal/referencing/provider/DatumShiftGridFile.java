@@ -34,6 +34,7 @@ import org.apache.sis.referencing.datum.DatumShiftGrid;
 import org.apache.sis.referencing.operation.transform.LinearTransform;
 import org.apache.sis.internal.referencing.j2d.AffineTransform2D;
 import org.apache.sis.internal.util.Utilities;
+import org.apache.sis.internal.system.CacheStatistics;
 
 import org.apache.sis.internal.jdk8.JDK8;
 
@@ -86,6 +87,9 @@ public abstract class DatumShiftGridFile<C extends Quantity<C>, T extends Quanti
             return p;
         }
     };
+    static {
+        CacheStatistics.register("DatumShiftGridFile.CACHE", CACHE);
+    }
 
     /**
      * The parameter descriptor of the provider that created this grid.
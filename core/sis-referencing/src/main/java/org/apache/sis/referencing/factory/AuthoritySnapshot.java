@@ -0,0 +1,535 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.referencing.factory;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.InvalidClassException;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.opengis.util.FactoryException;
+import org.opengis.util.InternationalString;
+import org.opengis.metadata.citation.Citation;
+import org.opengis.referencing.IdentifiedObject;
+import org.apache.sis.metadata.iso.citation.Citations;
+import org.apache.sis.internal.system.Loggers;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.Version;
+import org.apache.sis.util.logging.Logging;
+import org.apache.sis.util.resources.Errors;
+
+
+/**
+ * A read-only file of geodetic objects created in advance by an authority factory.
+ * Creating an object from a database like EPSG requires many SQL queries, which may be a significant
+ * part of the execution time of short-lived applications. A snapshot stores the objects in their
+ * serialized form, so they can be restored without database access when a new Java Virtual Machine starts.
+ *
+ * <p>A snapshot is created once by {@link #write(GeodeticAuthorityFactory, Path, Class[]) write(…)}, then
+ * opened by {@link #open(Path)} and given to {@link ConcurrentAuthorityFactory#setSnapshot(AuthoritySnapshot)}.
+ * The factory consults the snapshot before to delegate to its Data Access Object. Example:</p>
+ *
+ * {@preformat java
+ *     // Done once, for example at application installation time.
+ *     AuthoritySnapshot.write(factory, file, CoordinateReferenceSystem.class);
+ *
+ *     // Done at every application start.
+ *     factory.setSnapshot(AuthoritySnapshot.open(file));
+ * }
+ *
+ * <div class="section">File format</div>
+ * The file is memory-mapped. Only the index from authority codes to object positions is read when the
+ * snapshot is opened; each object is deserialized only when first requested. Since each object is serialized
+ * independently, the components shared by many objects (for example a datum shared by many CRS) are duplicated
+ * in the file and are not shared between the restored objects.
+ *
+ * <div class="section">Compatibility</div>
+ * The file content is specific to the Apache SIS version and to the authority database version which created it.
+ * Those versions are recorded in the file, and {@link ConcurrentAuthorityFactory#setSnapshot(AuthoritySnapshot)}
+ * ignores the snapshot if they do not match the running Apache SIS and the factory {@linkplain
+ * GeodeticAuthorityFactory#getAuthority() authority}. The snapshot needs to be recreated after an update of either.
+ * Only the classes of Apache SIS, GeoAPI, units of measurement and a few core Java packages are accepted
+ * during deserialization.
+ *
+ * <div class="section">Multi-threading</div>
+ * This class is thread-safe.
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final class AuthoritySnapshot implements AutoCloseable {
+    /**
+     * A number identifying the file format, written at the beginning of the file.
+     */
+    private static final int MAGIC_NUMBER = 0x53495341;         // "SISA" in ASCII.
+
+    /**
+     * Version of the file format. Shall be incremented on any incompatible change.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Number of bytes in the file header: magic number, version and position of the index.
+     */
+    private static final int HEADER_LENGTH = 16;
+
+    /**
+     * Maximal number of types in a snapshot. The type of each entry is stored as an index in an unsigned byte.
+     */
+    private static final int MAX_TYPES = 256;
+
+    /**
+     * Position and length of a serialized object in the file.
+     * Entries having the same authority code are chained in a linked list.
+     */
+    private static final class Entry {
+        /** The type given to {@code write(…)} when this object has been stored. */
+        final Class<?> type;
+
+        /** Position and length of the serialized object. */
+        final int position, length;
+
+        /** The next entry with the same code, or {@code null} if none. */
+        final Entry next;
+
+        /** Creates a new entry. */
+        Entry(final Class<?> type, final int position, final int length, final Entry next) {
+            this.type     = type;
+            this.position = position;
+            this.length   = length;
+            this.next     = next;
+        }
+    }
+
+    /**
+     * An object stream accepting only the classes that may appear in the serialized form of geodetic objects.
+     * This is a protection against a snapshot file modified by a third party for creating arbitrary objects.
+     */
+    private static final class Deserializer extends ObjectInputStream {
+        /** Creates a new deserializer for the given stream. */
+        Deserializer(final InputStream in) throws IOException {
+            super(in);
+        }
+
+        /** Resolves the given class only if it is in the list of accepted packages. */
+        @Override protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (!isAccepted(desc.getName())) {
+                throw new InvalidClassException(desc.getName());
+            }
+            return super.resolveClass(desc);
+        }
+
+        /** Rejects all proxy classes, since geodetic objects do not use them. */
+        @Override protected Class<?> resolveProxyClass(final String[] interfaces) throws IOException {
+            throw new InvalidClassException(java.lang.reflect.Proxy.class.getName());
+        }
+    }
+
+    /**
+     * Packages (including sub-packages) of the classes accepted during deserialization.
+     */
+    private static final String[] ACCEPTED_PACKAGES = {"org.apache.sis.", "org.opengis.", "javax.measure."};
+
+    /**
+     * Packages (excluding sub-packages) of the classes accepted during deserialization.
+     */
+    private static final String[] ACCEPTED_MEMBERS = {"java.lang.", "java.util.", "java.math."};
+
+    /**
+     * Other classes accepted during deserialization.
+     */
+    private static final String[] ACCEPTED_CLASSES = {"java.net.URI", "java.awt.geom.AffineTransform"};
+
+    /**
+     * Returns {@code true} if the class of the given name can be deserialized from a snapshot.
+     * Accepted classes are primitive types, Apache SIS, GeoAPI and units of measurement classes,
+     * the classes directly in the {@code java.lang}, {@code java.util} and {@code java.math} packages
+     * (not their sub-packages), a few other classes used by geodetic objects, and arrays of those.
+     *
+     * @param  name  the class name as given by {@link ObjectStreamClass#getName()}.
+     * @return whether the class can be deserialized.
+     */
+    static boolean isAccepted(String name) {
+        if (name.startsWith("[")) {
+            int i = 0;
+            while (name.charAt(++i) == '[');
+            if (name.length() == i + 1) {
+                return true;                                            // Array of primitive type.
+            }
+            if (name.charAt(i) != 'L' || !name.endsWith(";")) {
+                return false;
+            }
+            name = name.substring(i + 1, name.length() - 1);
+        }
+        for (final String pkg : ACCEPTED_PACKAGES) {
+            if (name.startsWith(pkg)) {
+                return true;
+            }
+        }
+        for (final String pkg : ACCEPTED_MEMBERS) {
+            if (name.startsWith(pkg)) {
+                return name.indexOf('.', pkg.length()) < 0;
+            }
+        }
+        for (final String accepted : ACCEPTED_CLASSES) {
+            if (name.equals(accepted)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * An input stream reading bytes from a slice of the memory-mapped file.
+     */
+    private static final class Input extends InputStream {
+        /** The bytes to read. */
+        private final ByteBuffer buffer;
+
+        /** Creates a new stream for the given buffer. */
+        Input(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /** Returns the next byte, or -1 if there is no more bytes to read. */
+        @Override public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        /** Reads up to {@code length} bytes. */
+        @Override public int read(final byte[] bytes, final int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            length = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, length);
+            return length;
+        }
+
+        /** Returns the number of bytes that are remaining. */
+        @Override public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    /**
+     * The file content. Shall not be modified; use {@link ByteBuffer#duplicate()} for reading.
+     */
+    private volatile ByteBuffer content;
+
+    /**
+     * The serialized objects for each authority code.
+     */
+    private final Map<String,Entry> index;
+
+    /**
+     * The file from which this snapshot has been read, for error messages.
+     */
+    private final Path file;
+
+    /**
+     * The Apache SIS version and the authority version which created this snapshot.
+     *
+     * @see #fingerprint(Citation)
+     */
+    private final String sisVersion, authorityVersion;
+
+    /**
+     * Creates a snapshot from the given memory-mapped file content.
+     */
+    private AuthoritySnapshot(final Path file, final ByteBuffer content, final Map<String,Entry> index,
+                              final String sisVersion, final String authorityVersion)
+    {
+        this.file             = file;
+        this.content          = content;
+        this.index            = index;
+        this.sisVersion       = sisVersion;
+        this.authorityVersion = authorityVersion;
+    }
+
+    /**
+     * Returns a string identifying the given authority and its version, for example {@code "EPSG 9.0"}.
+     * This is used for verifying that a snapshot has been created from the same database than the factory
+     * which will consult it.
+     */
+    private static String fingerprint(final Citation authority) {
+        final StringBuilder buffer = new StringBuilder();
+        if (authority != null) {
+            final String identifier = Citations.getIdentifier(authority);
+            if (identifier != null) {
+                buffer.append(identifier);
+            }
+            final InternationalString edition = authority.getEdition();
+            if (edition != null) {
+                buffer.append(' ').append(edition.toString());
+            }
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Creates all objects of the given types known to the given factory, and stores them in the given file.
+     * The codes of objects to create are given by {@link GeodeticAuthorityFactory#getAuthorityCodes(Class)}.
+     * Codes for which the factory can not create an object are logged and skipped.
+     *
+     * @param  factory  the factory to use for creating the objects to store.
+     * @param  file     the file to create. If the file already exists, it will be overwritten.
+     * @param  types    the types of objects to store, for example {@code CoordinateReferenceSystem.class}.
+     *                  At most 256 types can be specified.
+     * @return number of objects written in the file.
+     * @throws FactoryException if the factory can not provide the authority codes.
+     * @throws IOException if an error occurred while writing the file.
+     */
+    @SafeVarargs
+    public static int write(final GeodeticAuthorityFactory factory, final Path file,
+            final Class<? extends IdentifiedObject>... types) throws FactoryException, IOException
+    {
+        ArgumentChecks.ensureNonNull("factory", factory);
+        ArgumentChecks.ensureNonNull("file",    file);
+        ArgumentChecks.ensureBetween("types.length", 0, MAX_TYPES, types.length);
+        for (int i=0; i<types.length; i++) {
+            ArgumentChecks.ensureNonNullElement("types", i, types[i]);
+        }
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+        final ByteArrayOutputStream indexBuffer = new ByteArrayOutputStream(8192);
+        final DataOutputStream idx = new DataOutputStream(indexBuffer);
+        idx.writeUTF(Version.SIS.toString());
+        idx.writeUTF(fingerprint(factory.getAuthority()));
+        idx.writeInt(types.length);
+        for (final Class<? extends IdentifiedObject> type : types) {
+            idx.writeUTF(type.getName());
+        }
+        int count = 0;
+        final ByteArrayOutputStream entries = new ByteArrayOutputStream(8192);
+        final DataOutputStream out = new DataOutputStream(entries);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                          StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            long position = HEADER_LENGTH;
+            channel.position(position);
+            for (int t=0; t<types.length; t++) {
+                final Class<? extends IdentifiedObject> type = types[t];
+                final AuthorityFactoryProxy<?> proxy = AuthorityFactoryProxy.getInstance(type);
+                for (final String code : factory.getAuthorityCodes(type)) {
+                    final Object object;
+                    try {
+                        object = proxy.create(factory, code);
+                    } catch (FactoryException e) {
+                        Logging.recoverableException(Logging.getLogger(Loggers.CRS_FACTORY),
+                                AuthoritySnapshot.class, "write", e);
+                        continue;
+                    }
+                    buffer.reset();
+                    try (ObjectOutputStream s = new ObjectOutputStream(buffer)) {
+                        s.writeObject(object);
+                    }
+                    final int length = buffer.size();
+                    if (position + length > Integer.MAX_VALUE) {
+                        throw new IOException(Errors.format(Errors.Keys.ValueOutOfRange_4,
+                                "position", HEADER_LENGTH, Integer.MAX_VALUE, position + length));
+                    }
+                    out.writeUTF(code);
+                    out.writeByte(t);
+                    out.writeInt((int) position);
+                    out.writeInt(length);
+                    writeFully(channel, ByteBuffer.wrap(buffer.toByteArray(), 0, length));
+                    position += length;
+                    count++;
+                }
+            }
+            out.flush();
+            idx.writeInt(count);
+            entries.writeTo(idx);
+            idx.flush();
+            writeFully(channel, ByteBuffer.wrap(indexBuffer.toByteArray()));
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            header.putInt(MAGIC_NUMBER).putInt(VERSION).putLong(position).flip();
+            channel.position(0);
+            writeFully(channel, header);
+        }
+        return count;
+    }
+
+    /**
+     * Writes all remaining bytes of the given buffer.
+     */
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        do channel.write(buffer);
+        while (buffer.hasRemaining());
+    }
+
+    /**
+     * Opens a snapshot previously created by {@link #write(GeodeticAuthorityFactory, Path, Class[]) write(…)}.
+     * This method reads only the index of authority codes.
+     *
+     * @param  file  the file to open.
+     * @return the snapshot.
+     * @throws IOException if an error occurred while reading the file, or if the file is not a snapshot.
+     */
+    public static AuthoritySnapshot open(final Path file) throws IOException {
+        ArgumentChecks.ensureNonNull("file", file);
+        final ByteBuffer content;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (content.remaining() < HEADER_LENGTH || content.getInt() != MAGIC_NUMBER) {
+            throw new IOException(Errors.format(Errors.Keys.UnexpectedFileFormat_2, "AuthoritySnapshot", file));
+        }
+        final int version = content.getInt();
+        if (version != VERSION) {
+            throw new IOException(Errors.format(Errors.Keys.UnsupportedFormatVersion_2, "AuthoritySnapshot", version));
+        }
+        final ByteBuffer slice = content.duplicate();
+        slice.position((int) content.getLong());
+        final DataInputStream in = new DataInputStream(new Input(slice));
+        final String sisVersion = in.readUTF();
+        final String authorityVersion = in.readUTF();
+        final int numTypes = in.readInt();
+        if (numTypes < 0 || numTypes > MAX_TYPES) {
+            throw new IOException(Errors.format(Errors.Keys.CanNotRead_1, file));
+        }
+        final Class<?>[] types = new Class<?>[numTypes];
+        for (int i=0; i<types.length; i++) {
+            final String name = in.readUTF();
+            if (!isAccepted(name)) {                    // Check before to load (and maybe initialize) the class.
+                throw new IOException(Errors.format(Errors.Keys.CanNotRead_1, file));
+            }
+            try {
+                types[i] = Class.forName(name, false, AuthoritySnapshot.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new IOException(Errors.format(Errors.Keys.CanNotRead_1, file), e);
+            }
+            if (!IdentifiedObject.class.isAssignableFrom(types[i])) {
+                throw new IOException(Errors.format(Errors.Keys.CanNotRead_1, file));
+            }
+        }
+        final int count = in.readInt();
+        final Map<String,Entry> index = new HashMap<>(count + count/3 + 1);
+        for (int i=0; i<count; i++) {
+            final String code = in.readUTF();
+            final int t = in.readUnsignedByte();
+            if (t >= types.length) {
+                throw new IOException(Errors.format(Errors.Keys.CanNotRead_1, file));
+            }
+            final Class<?> type = types[t];
+            final int position = in.readInt();
+            final int length   = in.readInt();
+            index.put(code, new Entry(type, position, length, index.get(code)));
+        }
+        return new AuthoritySnapshot(file, content, index, sisVersion, authorityVersion);
+    }
+
+    /**
+     * Returns {@code true} if this snapshot has been created by the running Apache SIS version
+     * from a factory having the given authority. The authority version is part of the comparison.
+     *
+     * @param  authority  the authority of the factory which would consult this snapshot.
+     * @return whether this snapshot can be consulted by a factory having the given authority.
+     */
+    public boolean isCompatible(final Citation authority) {
+        return Version.SIS.toString().equals(sisVersion) && fingerprint(authority).equals(authorityVersion);
+    }
+
+    /**
+     * Returns the Apache SIS version and the authority version which created this snapshot.
+     * This is used for warning messages.
+     */
+    final String version() {
+        return "SIS " + sisVersion + ", " + authorityVersion;
+    }
+
+    /**
+     * Returns the number of objects in this snapshot.
+     *
+     * @return number of objects in this snapshot.
+     */
+    public int size() {
+        int n = 0;
+        for (Entry entry : index.values()) {
+            do n++;
+            while ((entry = entry.next) != null);
+        }
+        return n;
+    }
+
+    /**
+     * Returns the object for the given code, or {@code null} if none.
+     * The code shall be in the form returned by {@link GeodeticAuthorityFactory#getAuthorityCodes(Class)}
+     * at the time the snapshot has been written. A new instance is deserialized on every call.
+     *
+     * @param  <T>   the type of the object to return.
+     * @param  type  the type of the object to return.
+     * @param  code  the authority code of the object to return.
+     * @return the object for the given code, or {@code null} if this snapshot has no such object
+     *         or has been {@linkplain #close() closed}.
+     * @throws FactoryException if an error occurred while deserializing the object.
+     */
+    public <T> T get(final Class<T> type, final String code) throws FactoryException {
+        ArgumentChecks.ensureNonNull("type", type);
+        final ByteBuffer content = this.content;
+        if (content == null || code == null) {
+            return null;
+        }
+        for (Entry entry = index.get(code); entry != null; entry = entry.next) {
+            if (type.isAssignableFrom(entry.type) || entry.type.isAssignableFrom(type)) {
+                final ByteBuffer slice = content.duplicate();
+                slice.limit(entry.position + entry.length).position(entry.position);
+                final Object object;
+                try (ObjectInputStream in = new Deserializer(new Input(slice))) {
+                    object = in.readObject();
+                } catch (IOException | ClassNotFoundException e) {
+                    throw new FactoryException(Errors.format(Errors.Keys.CanNotRead_1, file), e);
+                }
+                if (type.isInstance(object)) {
+                    return type.cast(object);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Releases the reference to the file content. After this method call, {@link #get(Class, String)}
+     * returns {@code null} for all codes. The memory-mapped region is released by the garbage collector.
+     */
+    @Override
+    public void close() {
+        content = null;
+    }
+
+    /**
+     * Returns a string representation of this snapshot for debugging purpose.
+     *
+     * @return a string representation of this snapshot.
+     */
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[“" + file + "”: " + index.size() + " codes]";
+    }
+}
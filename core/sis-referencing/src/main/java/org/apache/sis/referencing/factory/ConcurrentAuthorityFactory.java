@@ -22,11 +22,15 @@ import java.util.List;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.WeakHashMap;
 import java.util.IdentityHashMap;
+import java.util.Locale;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.lang.ref.WeakReference;
 import java.lang.ref.PhantomReference;
@@ -54,6 +58,7 @@ import org.apache.sis.internal.system.ReferenceQueueConsumer;
 import org.apache.sis.internal.system.DelayedExecutor;
 import org.apache.sis.internal.system.DelayedRunnable;
 import org.apache.sis.internal.system.Shutdown;
+import org.apache.sis.internal.system.CacheStatistics;
 import org.apache.sis.internal.system.Loggers;
 import org.apache.sis.internal.util.CollectionsExt;
 import org.apache.sis.util.logging.PerformanceLevel;
@@ -89,6 +94,13 @@ import org.apache.sis.internal.jdk8.JDK8;
  * construction time. If more Data Access Object instances are needed, some of the threads will block until an
  * instance become available.
  *
+ * <p>The Data Access Objects are managed as a pool. The minimal and maximal number of instances can be specified
+ * by {@link #setPoolSize(int, int)}, and {@link #prestartDataAccess()} creates the minimal amount of instances in
+ * advance, for example at application startup in order to avoid a burst of connections when many threads request
+ * uncached objects at the same time. Idle instances are closed after the {@linkplain #getTimeout(TimeUnit) timeout},
+ * except the minimal amount which are kept open. The {@link #getQueueLength()}, {@link #getWaitCount()} and
+ * {@link #getWaitTime(TimeUnit)} methods can be used for checking whether the maximal pool size is sufficient.</p>
+ *
  * <div class="section">Note for subclasses</div>
  * This abstract class does not implement any of the {@link DatumAuthorityFactory}, {@link CSAuthorityFactory},
  * {@link CRSAuthorityFactory} and {@link CoordinateOperationAuthorityFactory} interfaces.
@@ -130,6 +142,14 @@ public abstract class ConcurrentAuthorityFactory<DAO extends GeodeticAuthorityFa
      */
     private final Cache<Key,Object> cache;
 
+    /**
+     * Objects created in advance, to be consulted before to delegate to the Data Access Object,
+     * or {@code null} if none.
+     *
+     * @see #setSnapshot(AuthoritySnapshot)
+     */
+    private volatile AuthoritySnapshot snapshot;
+
     /**
      * The pool of objects identified by {@link Finder#find(IdentifiedObject)}.
      * Values may be an empty set if an object has been searched but has not been found.
@@ -217,6 +237,32 @@ public abstract class ConcurrentAuthorityFactory<DAO extends GeodeticAuthorityFa
      */
     private int remainingDAOs;
 
+    /**
+     * The minimal and maximal amount of Data Access Objects. The minimal amount of instances are not closed
+     * after the timeout. The maximal amount is the initial value of {@link #remainingDAOs}.
+     * Every access to those fields must be performed in a block synchronized on {@link #availableDAOs}.
+     *
+     * @see #setPoolSize(int, int)
+     */
+    private int minimumDAOs, maximumDAOs;
+
+    /**
+     * Number of threads currently waiting for a Data Access Object to become available.
+     * Every access to this field must be performed in a block synchronized on {@link #availableDAOs}.
+     *
+     * @see #getQueueLength()
+     */
+    private int waitingThreads;
+
+    /**
+     * Number of times that a thread had to wait for a Data Access Object, and cumulative waiting time in nanoseconds.
+     * Every access to those fields must be performed in a block synchronized on {@link #availableDAOs}.
+     *
+     * @see #getWaitCount()
+     * @see #getWaitTime(TimeUnit)
+     */
+    private long waitCount, waitTime;
+
     /**
      * {@code true} if the call to {@link #closeExpired()} is scheduled for future execution in the background
      * cleaner thread. A value of {@code true} implies that this factory contains at least one active data access.
@@ -296,9 +342,10 @@ public abstract class ConcurrentAuthorityFactory<DAO extends GeodeticAuthorityFa
          * object (using the same key), then the default Cache implementation considers that situation as an
          * error unless the above property has been set to 'true'.
          */
-        remainingDAOs = maxConcurrentQueries;
+        remainingDAOs = maximumDAOs = maxConcurrentQueries;
         cache = new Cache<>(20, maxStrongReferences, false);
         cache.setKeyCollisionAllowed(true);
+        CacheStatistics.register(Classes.getShortClassName(this) + ".cache", cache);
         /*
          * The shutdown hook serves two purposes:
          *
@@ -367,12 +414,20 @@ public abstract class ConcurrentAuthorityFactory<DAO extends GeodeticAuthorityFa
                  * safety in case we fail to invoke a notify() matching this wait(), for example someone else
                  * is waiting on this monitor or because the release(…) method threw an exception.
                  */
-                while (remainingDAOs == 0) {
+                if (remainingDAOs <= 0) {
+                    final long startTime = System.nanoTime();
+                    waitingThreads++;
                     try {
-                        availableDAOs.wait(TIMEOUT_RESOLUTION);
+                        do {
+                            availableDAOs.wait(TIMEOUT_RESOLUTION);
+                        } while (remainingDAOs <= 0);
                     } catch (InterruptedException e) {
                         // Someone does not want to let us sleep.
                         throw new FactoryException(e.getLocalizedMessage(), e);
+                    } finally {
+                        waitingThreads--;
+                        waitCount++;
+                        waitTime += System.nanoTime() - startTime;
                     }
                 }
                 /*
@@ -555,7 +610,14 @@ public abstract class ConcurrentAuthorityFactory<DAO extends GeodeticAuthorityFa
             factories = new ArrayList<>(availableDAOs.size());
             final Iterator<DataAccessRef<DAO>> it = availableDAOs.iterator();
             final long nanoTime = System.nanoTime();
-            while (it.hasNext()) {
+            /*
+             * Number of Data Access Objects that we can close without going below the minimal pool size.
+             * The number of open DAOs is the number of DAOs in use (computed from the remaining count)
+             * plus the number of DAOs available for reuse.
+             */
+            int excess = (maximumDAOs - remainingDAOs) + availableDAOs.size() - minimumDAOs;
+            boolean scheduled = false;
+            while (excess > 0 && it.hasNext()) {
                 final DataAccessRef<DAO> dao = it.next();
                 /*
                  * Computes how much time we need to wait again before we can close the factory.
@@ -569,6 +631,7 @@ public abstract class ConcurrentAuthorityFactory<DAO extends GeodeticAuthorityFa
                      * since the iteration is expected to be ordered.
                      */
                     DelayedExecutor.schedule(new CloseTask(nextTime));
+                    scheduled = true;
                     break;
                 }
                 /*
@@ -577,14 +640,16 @@ public abstract class ConcurrentAuthorityFactory<DAO extends GeodeticAuthorityFa
                  */
                 factories.add(dao.factory);
                 it.remove();
+                excess--;
             }
             /*
-             * The DAOs list is empty if all Data Access Objects in the queue have been closed.
-             * Note that some DAOs may still be in use outside the queue, because the DAOs are
-             * added to the queue only after completion of their work.
+             * The DAOs list is empty if all Data Access Objects in the queue have been closed, or if the remaining
+             * ones are kept only for honoring the minimal pool size. Note that some DAOs may still be in use outside
+             * the queue, because the DAOs are added to the queue only after completion of their work.
              * In the later case, release() will reschedule a new task.
              */
-            isCleanScheduled = !(isEmpty = availableDAOs.isEmpty());
+            isCleanScheduled = scheduled;
+            isEmpty = !scheduled;
         }
         /*
          * We must close the factories from outside the synchronized block.
@@ -679,6 +744,195 @@ public abstract class ConcurrentAuthorityFactory<DAO extends GeodeticAuthorityFa
         }
     }
 
+    /**
+     * Returns the minimal amount of Data Access Objects to keep open, even after the timeout.
+     * The default value is 0.
+     *
+     * @return the minimal amount of Data Access Objects.
+     *
+     * @see #setPoolSize(int, int)
+     *
+     * @since 0.8
+     */
+    public int getMinimumPoolSize() {
+        synchronized (availableDAOs) {
+            return minimumDAOs;
+        }
+    }
+
+    /**
+     * Returns the maximal amount of Data Access Objects that can be used concurrently.
+     * The default value is the {@code maxConcurrentQueries} argument given at construction time.
+     *
+     * @return the maximal amount of Data Access Objects.
+     *
+     * @see #setPoolSize(int, int)
+     *
+     * @since 0.8
+     */
+    public int getMaximumPoolSize() {
+        synchronized (availableDAOs) {
+            return maximumDAOs;
+        }
+    }
+
+    /**
+     * Sets the minimal and maximal amount of Data Access Objects. The minimal amount of instances are kept open
+     * after the {@linkplain #getTimeout(TimeUnit) timeout}, which avoid the cost of creating new instances (for
+     * example establishing new database connections and preparing statements again) after periods of inactivity.
+     * The maximal amount of instances is the maximal number of threads that can query this factory concurrently;
+     * additional threads are blocked until a Data Access Object become available.
+     *
+     * <p>If the maximal amount is reduced below the number of Data Access Objects currently in use,
+     * the excess instances will continue their work and the new limit will be honored after they
+     * have been released.</p>
+     *
+     * @param  minimum  the minimal amount of Data Access Objects to keep open.
+     * @param  maximum  the maximal amount of Data Access Objects to use concurrently.
+     *
+     * @see #prestartDataAccess()
+     *
+     * @since 0.8
+     */
+    public void setPoolSize(final int minimum, final int maximum) {
+        ArgumentChecks.ensurePositive("minimum", minimum);
+        ArgumentChecks.ensureStrictlyPositive("maximum", maximum);
+        if (minimum > maximum) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.IllegalRange_2, minimum, maximum));
+        }
+        synchronized (availableDAOs) {
+            remainingDAOs += maximum - maximumDAOs;
+            maximumDAOs = maximum;
+            minimumDAOs = minimum;
+            availableDAOs.notifyAll();
+        }
+    }
+
+    /**
+     * Creates Data Access Objects in advance until the {@linkplain #getMinimumPoolSize() minimal pool size}
+     * is reached. This method can be invoked at application startup for avoiding the cost of Data Access Object
+     * creations when the first objects are requested. Invoking this method has no effect if the minimal pool size
+     * is zero or if the minimal amount of Data Access Objects are already open.
+     *
+     * @return the number of Data Access Objects created by this method.
+     * @throws FactoryException if the creation of a Data Access Object failed.
+     *
+     * @since 0.8
+     */
+    public int prestartDataAccess() throws FactoryException {
+        int count = 0;
+        while (true) {
+            synchronized (availableDAOs) {
+                if (remainingDAOs <= 0 || (maximumDAOs - remainingDAOs) + availableDAOs.size() >= minimumDAOs) {
+                    return count;
+                }
+                remainingDAOs--;                // Reserve a slot for the DAO to create.
+            }
+            DAO factory = null;
+            try {
+                factory = newDataAccess();
+                if (factory == null) {
+                    UnavailableFactoryException e = new UnavailableFactoryException(Errors.format(
+                            Errors.Keys.FactoryNotFound_1, GeodeticAuthorityFactory.class));
+                    e.setUnavailableFactory(this);
+                    throw e;
+                }
+            } finally {
+                synchronized (availableDAOs) {
+                    remainingDAOs++;
+                    if (factory != null) {
+                        recycle(new DataAccessRef<>(factory));
+                        availableDAOs.notify();
+                    }
+                }
+            }
+            count++;
+        }
+    }
+
+    /**
+     * Returns the number of threads currently waiting for a Data Access Object to become available.
+     * A value frequently greater than zero suggests that the {@linkplain #getMaximumPoolSize() maximal
+     * pool size} is too small for the application workload.
+     *
+     * @return number of threads waiting for a Data Access Object.
+     *
+     * @since 0.8
+     */
+    public int getQueueLength() {
+        synchronized (availableDAOs) {
+            return waitingThreads;
+        }
+    }
+
+    /**
+     * Returns the number of times that a thread had to wait for a Data Access Object to become available,
+     * since this factory creation.
+     *
+     * @return number of times that a thread waited for a Data Access Object.
+     *
+     * @since 0.8
+     */
+    public long getWaitCount() {
+        synchronized (availableDAOs) {
+            return waitCount;
+        }
+    }
+
+    /**
+     * Returns the cumulative amount of time that threads waited for a Data Access Object to become available,
+     * since this factory creation.
+     *
+     * @param  unit  the desired unit of measurement for the waiting time.
+     * @return cumulative waiting time in the given unit of measurement.
+     *
+     * @since 0.8
+     */
+    public long getWaitTime(final TimeUnit unit) {
+        synchronized (availableDAOs) {
+            return unit.convert(waitTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Returns the objects created in advance which are consulted before to delegate to the Data Access Object.
+     *
+     * @return the objects created in advance, or {@code null} if none.
+     *
+     * @since 0.8
+     */
+    public AuthoritySnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Sets the objects created in advance to be consulted before to delegate to the Data Access Object.
+     * When a {@code createFoo(String)} method is invoked for an object which is not in the cache, this
+     * factory first searches the given snapshot. If the object is found there, it is returned and cached
+     * without creating any Data Access Object. Otherwise the object creation is delegated as usual.
+     *
+     * <p>The snapshot shall have been created by the same Apache SIS version from the same authority and
+     * the same database version than this factory. This method {@linkplain AuthoritySnapshot#isCompatible
+     * verifies} those versions (this may require a Data Access Object for getting the authority) and ignores
+     * the snapshot with a warning if they do not match.</p>
+     *
+     * @param  objects  the objects created in advance, or {@code null} if none.
+     *
+     * @see AuthoritySnapshot#open(java.nio.file.Path)
+     *
+     * @since 0.8
+     */
+    public void setSnapshot(AuthoritySnapshot objects) {
+        if (objects != null && !objects.isCompatible(getAuthority())) {
+            final LogRecord record = Errors.getResources((Locale) null).getLogRecord(Level.WARNING,
+                    Errors.Keys.UnsupportedFormatVersion_2, AuthoritySnapshot.class.getSimpleName(), objects.version());
+            record.setLoggerName(Loggers.CRS_FACTORY);
+            Logging.log(ConcurrentAuthorityFactory.class, "setSnapshot", record);
+            objects = null;
+        }
+        snapshot = objects;
+    }
+
     /**
      * Returns the database or specification that defines the codes recognized by this factory.
      * The default implementation performs the following steps:
@@ -857,6 +1111,111 @@ public abstract class ConcurrentAuthorityFactory<DAO extends GeodeticAuthorityFa
         return create(AuthorityFactoryProxy.CRS, code);
     }
 
+    /**
+     * Returns many coordinate reference systems from a collection of codes.
+     * The default implementation performs the following steps:
+     * <ul>
+     *   <li>Use the cached instances for the codes having such instance already in the cache.</li>
+     *   <li>Search the remaining codes in the {@linkplain #getSnapshot() snapshot}, if any.</li>
+     *   <li>If some codes are still missing, get an instance of the Data Access Object and delegate
+     *       to its {@link GeodeticAuthorityFactory#createCoordinateReferenceSystems(Collection)} method
+     *       with all missing codes in a single call.</li>
+     *   <li>Cache all results for future use, including by {@link #createCoordinateReferenceSystem(String)}.</li>
+     * </ul>
+     *
+     * If the Data Access Object does not override the {@code createCoordinateReferenceSystem(String)} method,
+     * then this method delegates to the parent class for the same reasons than the single-code method.
+     *
+     * @return the coordinate reference systems for the given codes, in iteration order of the given collection.
+     * @throws FactoryException if the object creation failed.
+     *
+     * @since 0.8
+     */
+    @Override
+    public Map<String,CoordinateReferenceSystem> createCoordinateReferenceSystems(final Collection<String> codes)
+            throws FactoryException
+    {
+        ArgumentChecks.ensureNonNull("codes", codes);
+        if (isDefault(CoordinateReferenceSystem.class)) {
+            return super.createCoordinateReferenceSystems(codes);
+        }
+        final Class<CoordinateReferenceSystem> type = CoordinateReferenceSystem.class;
+        final Map<String,String> normalized = new LinkedHashMap<>();                    // Given code → key code.
+        final Map<String,CoordinateReferenceSystem> found = new LinkedHashMap<>();      // Key code → CRS.
+        final Map<String,String> missing = new LinkedHashMap<>();                       // Key code → given code.
+        int i = 0;
+        for (final String code : codes) {
+            ArgumentChecks.ensureNonNullElement("codes", i++, code);
+            if (!normalized.containsKey(code)) {
+                final String key = normalizeCode(code);
+                normalized.put(code, key);
+                if (!found.containsKey(key) && !missing.containsKey(key)) {
+                    final Object value = cache.peek(new Key(type, key));
+                    if (type.isInstance(value)) {
+                        found.put(key, type.cast(value));
+                    } else {
+                        missing.put(key, code);
+                    }
+                }
+            }
+        }
+        /*
+         * Objects available in the snapshot do not need to be requested to the Data Access Object.
+         * All other objects are requested in a single call, which allow the DAO to fetch them in a
+         * single pass. Creation failure of any object cause the failure of the whole operation.
+         */
+        final AuthoritySnapshot snapshot = this.snapshot;
+        final Map<String,CoordinateReferenceSystem> created = new LinkedHashMap<>();
+        if (snapshot != null) {
+            for (final String key : missing.keySet()) {
+                final CoordinateReferenceSystem crs = snapshot.get(type, key);
+                if (crs != null) {
+                    created.put(key, crs);
+                }
+            }
+        }
+        if (created.size() < missing.size()) {
+            final List<String> request = new ArrayList<>(missing.keySet());
+            request.removeAll(created.keySet());
+            final DAO factory = getDataAccess();
+            try {
+                created.putAll(factory.createCoordinateReferenceSystems(request));
+            } finally {
+                release("createCoordinateReferenceSystems", type, null);
+            }
+        }
+        /*
+         * Store the new objects in the cache. If another thread cached an object for the same code
+         * in the meantime, use the cached instance for consistency with createCoordinateReferenceSystem(String).
+         */
+        for (final Map.Entry<String,String> entry : missing.entrySet()) {
+            final String key = entry.getKey();
+            CoordinateReferenceSystem crs = created.get(key);
+            if (crs == null) {
+                crs = create(AuthorityFactoryProxy.CRS, key);       // Should not happen with a well-behaving DAO.
+            } else {
+                final Cache.Handler<Object> handler = cache.lock(new Key(type, key));
+                Object value = null;
+                try {
+                    value = handler.peek();
+                    if (type.isInstance(value)) {
+                        crs = type.cast(value);
+                    } else if (isCacheable(entry.getValue(), crs)) {
+                        value = crs;
+                    }
+                } finally {
+                    handler.putAndUnlock(value);
+                }
+            }
+            found.put(key, crs);
+        }
+        final Map<String,CoordinateReferenceSystem> result = new LinkedHashMap<>();
+        for (final Map.Entry<String,String> entry : normalized.entrySet()) {
+            result.put(entry.getKey(), found.get(entry.getValue()));
+        }
+        return result;
+    }
+
     /**
      * Returns a 2- or 3-dimensional coordinate reference system based on an ellipsoidal approximation of the geoid.
      * The default implementation performs the following steps:
@@ -1634,6 +1993,7 @@ public abstract class ConcurrentAuthorityFactory<DAO extends GeodeticAuthorityFa
     /**
      * Returns an object from a code using the given proxy. This method first checks in the cache.
      * If no object exists in the cache for the given code, then a lock is created and the object
+     * is searched in the {@linkplain #getSnapshot() snapshot}, if any. If not found there, the object
      * creation is delegated to the {@linkplain #getDataAccess() Data Access Object}.
      * The result is then stored in the cache and returned.
      *
@@ -1653,12 +2013,15 @@ public abstract class ConcurrentAuthorityFactory<DAO extends GeodeticAuthorityFa
             try {
                 value = handler.peek();
                 if (!type.isInstance(value)) {
-                    final T result;
-                    final DAO factory = getDataAccess();
-                    try {
-                        result = proxy.create(factory, key.code);
-                    } finally {
-                        release(null, type, code);
+                    final AuthoritySnapshot snapshot = this.snapshot;
+                    T result = (snapshot != null) ? snapshot.get(type, key.code) : null;
+                    if (result == null) {
+                        final DAO factory = getDataAccess();
+                        try {
+                            result = proxy.create(factory, key.code);
+                        } finally {
+                            release(null, type, code);
+                        }
                     }
                     if (isCacheable(code, result)) {
                         value = result;                                 // For the finally block below.
@@ -16,8 +16,11 @@
  */
 package org.apache.sis.referencing.factory;
 
+import java.util.Map;
 import java.util.Set;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import javax.measure.Unit;
 import org.opengis.referencing.*;
 import org.opengis.referencing.cs.*;
@@ -68,7 +71,7 @@ import org.apache.sis.referencing.datum.DefaultParametricDatum;
  *
  * @author  Martin Desruisseaux (IRD, Geomatys)
  * @author  Johann Sorel (Geomatys)
- * @version 0.7
+ * @version 0.8
  * @since   0.7
  * @module
  */
@@ -236,6 +239,36 @@ public abstract class GeodeticAuthorityFactory extends AbstractFactory implement
         return cast(CoordinateReferenceSystem.class, createObject(code), code);
     }
 
+    /**
+     * Creates many coordinate reference systems from a collection of codes.
+     * This method is equivalent to invoking {@link #createCoordinateReferenceSystem(String)} for each code,
+     * but subclasses may override it for fetching all objects in a single pass. For example a factory backed
+     * by a database may fetch the records of all requested objects with a few queries instead of executing
+     * at least one query per object.
+     *
+     * <div class="section">Default implementation</div>
+     * The default implementation invokes {@link #createCoordinateReferenceSystem(String)} for each code.
+     *
+     * @param  codes  values allocated by authority.
+     * @return the coordinate reference systems for the given codes, in iteration order of the given collection.
+     *         Keys are the given codes.
+     * @throws NoSuchAuthorityCodeException if a specified code was not found.
+     * @throws FactoryException if the object creation failed for some other reason.
+     *
+     * @since 0.8
+     */
+    public Map<String,CoordinateReferenceSystem> createCoordinateReferenceSystems(final Collection<String> codes)
+            throws NoSuchAuthorityCodeException, FactoryException
+    {
+        final Map<String,CoordinateReferenceSystem> result = new LinkedHashMap<>();
+        for (final String code : codes) {
+            if (!result.containsKey(code)) {
+                result.put(code, createCoordinateReferenceSystem(code));
+            }
+        }
+        return result;
+    }
+
     /**
      * Creates a 2- or 3-dimensional coordinate reference system based on an ellipsoidal approximation of the geoid.
      * This provides an accurate representation of the geometry of geographic features
@@ -53,6 +53,7 @@ import org.apache.sis.referencing.AbstractIdentifiedObject;
 import org.apache.sis.internal.metadata.ReferencingServices;
 import org.apache.sis.internal.referencing.MergedProperties;
 import org.apache.sis.internal.system.DefaultFactories;
+import org.apache.sis.internal.system.CacheStatistics;
 import org.apache.sis.internal.system.Loggers;
 import org.apache.sis.internal.util.CollectionsExt;
 import org.apache.sis.util.collection.WeakHashSet;
@@ -259,6 +260,7 @@ public class GeodeticObjectFactory extends AbstractFactory implements CRSFactory
         defaultProperties = properties;
         pool = new WeakHashSet<>(AbstractIdentifiedObject.class);
         parser = new AtomicReference<>();
+        CacheStatistics.register("GeodeticObjectFactory.pool", pool);
     }
 
     /**
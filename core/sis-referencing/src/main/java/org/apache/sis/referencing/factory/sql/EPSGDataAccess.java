@@ -19,7 +19,9 @@ package org.apache.sis.referencing.factory.sql;
 import java.util.Set;
 import java.util.Map;
 import java.util.List;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedHashMap;
 import java.util.ArrayList;
@@ -151,6 +153,8 @@ import org.apache.sis.referencing.datum.DefaultParametricDatum;
  * the amount of {@code EPSGDataAccess} instantiations (and consequently the amount of database accesses)
  * in the common case where only a few EPSG codes are used by an application.
  * {@code EPSGDataAccess.createFoo(String)} methods do not cache by themselves and query the database on every invocation.
+ * Applications needing many coordinate reference systems can use {@link #createCoordinateReferenceSystems(Collection)},
+ * which fetches the records of all requested objects with a few queries before to create them through the owner.
  *
  * <div class="section">SQL dialects</div>
  * Because the primary distribution format for the EPSG dataset is MS-Access, this class uses SQL statements formatted
@@ -173,6 +177,13 @@ import org.apache.sis.referencing.datum.DefaultParametricDatum;
 public class EPSGDataAccess extends GeodeticAuthorityFactory implements CRSAuthorityFactory,
         CSAuthorityFactory, DatumAuthorityFactory, CoordinateOperationAuthorityFactory, Localized, AutoCloseable
 {
+    /**
+     * Maximal number of codes in the {@code "IN (…)"} clause of queries executed by
+     * {@link #createCoordinateReferenceSystems(Collection)}. Some databases have a limit
+     * on the number of parameters in a statement, and large statements are costly to parse.
+     */
+    static final int MAXIMUM_BATCH_SIZE = 100;
+
     /**
      * The deprecated ellipsoidal coordinate systems and their replacements. Those coordinate systems are deprecated
      * because they use a unit of measurement which is no longer supported by OGC (for example degree-minute-second).
@@ -328,6 +339,20 @@ public class EPSGDataAccess extends GeodeticAuthorityFactory implements CRSAutho
      */
     private transient boolean replaceDeprecatedCS;
 
+    /**
+     * Records of the {@code [Coordinate Reference System]} table fetched in advance by
+     * {@link #createCoordinateReferenceSystems(Collection)}, or {@code null} if none.
+     * Keys are the codes as given to {@link #createCoordinateReferenceSystem(String)}.
+     */
+    private transient Map<String,List<CRSRecord>> prefetchedCRS;
+
+    /**
+     * Records of the {@code [Alias]} table fetched in advance by {@link #createCoordinateReferenceSystems(Collection)},
+     * or {@code null} if none. Keys are object codes and values are (table name, naming system, alias) tuples.
+     * An empty list means that the object has no alias.
+     */
+    private transient Map<Integer,List<String[]>> prefetchedAliases;
+
     /**
      * The {@code ConcurrentAuthorityFactory} that created this Data Access Object (DAO).
      * The owner supplies caching for all {@code createFoo(String)} methods.
@@ -789,6 +814,48 @@ addURIs:    for (int i=0; ; i++) {
         return stmt.executeQuery();
     }
 
+    /**
+     * Creates a statement and executes for the codes in the given range. The given SQL statement shall
+     * end with {@code "IN (?)"}; that single parameter will be expanded to the number of codes to query.
+     * Statements for {@value #MAXIMUM_BATCH_SIZE} codes are cached for reuse; other statements
+     * are closed when the returned result set is closed.
+     *
+     * @param  table  a key uniquely identifying the caller.
+     * @param  sql    the SQL statement to use for creating the {@link PreparedStatement} object.
+     * @param  codes  the codes of the objects to fetch.
+     * @param  lower  index of the first code to fetch, inclusive.
+     * @param  upper  index of the last code to fetch, exclusive.
+     * @return the result of the query.
+     * @throws SQLException if an error occurred while querying the database.
+     */
+    private ResultSet executeBatchQuery(final String table, String sql, final Integer[] codes, final int lower, final int upper)
+            throws SQLException
+    {
+        assert Thread.holdsLock(this);
+        assert sql.endsWith("IN (?)") && upper - lower <= MAXIMUM_BATCH_SIZE : sql;
+        final int length = upper - lower;
+        final boolean reusable = (length == MAXIMUM_BATCH_SIZE);
+        final String key = table + " (batch)";
+        PreparedStatement stmt = reusable ? statements.get(key) : null;
+        if (stmt == null) {
+            final StringBuilder buffer = new StringBuilder(sql.length() + 2*length).append(sql, 0, sql.length() - 1);
+            for (int i=1; i<length; i++) {
+                buffer.append("?,");
+            }
+            sql = buffer.append("?)").toString();
+            stmt = connection.prepareStatement(translator.apply(sql));
+            if (reusable) {
+                statements.put(key, stmt);
+            } else {
+                stmt.closeOnCompletion();
+            }
+        }
+        for (int i=0; i<length; i++) {
+            stmt.setInt(i+1, codes[lower + i]);
+        }
+        return stmt.executeQuery();
+    }
+
     /**
      * Gets the value from the specified {@link ResultSet}, or {@code null} if none.
      *
@@ -1053,6 +1120,40 @@ addURIs:    for (int i=0; ; i++) {
         return (String) replacedBy;
     }
 
+    /**
+     * Returns the aliases of all objects having the given code, regardless the table of those objects.
+     * Each element is a (table name, naming system, alias) tuple. The naming system may be null.
+     * This method uses the records fetched in advance if available, or queries the database otherwise.
+     *
+     * @param  code  the EPSG code of the object for which to get the aliases.
+     * @return the (table name, naming system, alias) tuples for the given code.
+     */
+    private List<String[]> getAliases(final Integer code) throws SQLException, FactoryDataException {
+        if (prefetchedAliases != null) {
+            final List<String[]> records = prefetchedAliases.get(code);
+            if (records != null) {
+                return records;
+            }
+        }
+        final List<String[]> records = new ArrayList<>();
+        try (ResultSet result = executeQuery("Alias",
+                "SELECT OBJECT_TABLE_NAME, NAMING_SYSTEM_NAME, ALIAS" +
+                " FROM [Alias] INNER JOIN [Naming System]" +
+                  " ON [Alias].NAMING_SYSTEM_CODE =" +
+                " [Naming System].NAMING_SYSTEM_CODE" +
+                " WHERE OBJECT_CODE = ?", code))
+        {
+            while (result.next()) {
+                records.add(new String[] {
+                    result.getString(1),
+                    getOptionalString(result, 2),
+                    getString(code, result, 3)
+                });
+            }
+        }
+        return records;
+    }
+
     /**
      * Returns the name and aliases for the {@link IdentifiedObject} to construct.
      *
@@ -1081,31 +1182,23 @@ addURIs:    for (int i=0; ; i++) {
          *     convenient for implementing accent-insensitive searches.
          */
         final List<GenericName> aliases = new ArrayList<>();
-        try (ResultSet result = executeQuery("Alias",
-                "SELECT OBJECT_TABLE_NAME, NAMING_SYSTEM_NAME, ALIAS" +
-                " FROM [Alias] INNER JOIN [Naming System]" +
-                  " ON [Alias].NAMING_SYSTEM_CODE =" +
-                " [Naming System].NAMING_SYSTEM_CODE" +
-                " WHERE OBJECT_CODE = ?", code))
-        {
-            while (result.next()) {
-                if (tableMatches(table, result.getString(1))) {
-                    final String naming = getOptionalString(result, 2);
-                    final String alias  = getString(code,   result, 3);
-                    NameSpace ns = null;
-                    if (naming != null) {
-                        ns = namingSystems.get(naming);
-                        if (ns == null) {
-                            ns = owner.nameFactory.createNameSpace(owner.nameFactory.createLocalName(null, naming), null);
-                            namingSystems.put(naming, ns);
-                        }
-                    }
-                    if (CharSequences.toASCII(alias).toString().equals(name)) {
-                        name = alias;
-                    } else {
-                        aliases.add(owner.nameFactory.createLocalName(ns, alias));
+        for (final String[] record : getAliases(code)) {
+            if (tableMatches(table, record[0])) {
+                final String naming = record[1];
+                final String alias  = record[2];
+                NameSpace ns = null;
+                if (naming != null) {
+                    ns = namingSystems.get(naming);
+                    if (ns == null) {
+                        ns = owner.nameFactory.createNameSpace(owner.nameFactory.createLocalName(null, naming), null);
+                        namingSystems.put(naming, ns);
                     }
                 }
+                if (CharSequences.toASCII(alias).toString().equals(name)) {
+                    name = alias;
+                } else {
+                    aliases.add(owner.nameFactory.createLocalName(ns, alias));
+                }
             }
         }
         /*
@@ -1312,256 +1405,484 @@ addURIs:    for (int i=0; ; i++) {
     {
         ArgumentChecks.ensureNonNull("code", code);
         CoordinateReferenceSystem returnValue = null;
-        try (ResultSet result = executeQuery("Coordinate Reference System", "COORD_REF_SYS_CODE", "COORD_REF_SYS_NAME",
-                "SELECT COORD_REF_SYS_CODE,"          +     // [ 1]
-                      " COORD_REF_SYS_NAME,"          +     // [ 2]
-                      " AREA_OF_USE_CODE,"            +     // [ 3]
-                      " CRS_SCOPE,"                   +     // [ 4]
-                      " REMARKS,"                     +     // [ 5]
-                      " DEPRECATED,"                  +     // [ 6]
-                      " COORD_REF_SYS_KIND,"          +     // [ 7]
-                      " COORD_SYS_CODE,"              +     // [ 8] Null for CompoundCRS
-                      " DATUM_CODE,"                  +     // [ 9] Null for ProjectedCRS
-                      " SOURCE_GEOGCRS_CODE,"         +     // [10] For ProjectedCRS
-                      " PROJECTION_CONV_CODE,"        +     // [11] For ProjectedCRS
-                      " CMPD_HORIZCRS_CODE,"          +     // [12] For CompoundCRS only
-                      " CMPD_VERTCRS_CODE"            +     // [13] For CompoundCRS only
-                " FROM [Coordinate Reference System]" +
-                " WHERE COORD_REF_SYS_CODE = ?", code))
-        {
-            while (result.next()) {
-                final Integer epsg       = getInteger  (code, result, 1);
-                final String  name       = getString   (code, result, 2);
-                final String  area       = getOptionalString (result, 3);
-                final String  scope      = getOptionalString (result, 4);
-                final String  remarks    = getOptionalString (result, 5);
-                final boolean deprecated = getOptionalBoolean(result, 6);
-                final String  type       = getString   (code, result, 7);
-                /*
-                 * Note: Do not invoke 'createProperties' now, even if we have all required informations,
-                 *       because the 'properties' map is going to overwritten by calls to 'createDatum', etc.
-                 *
-                 * The following switch statement should have a case for all "epsg_crs_kind" values enumerated
-                 * in the "EPSG_Prepare.sql" file, except that the values in this Java code are in lower cases.
-                 */
-                final CRSFactory crsFactory = owner.crsFactory;
-                final CoordinateReferenceSystem crs;
-                switch (type.toLowerCase(Locale.US)) {
-                    /* ----------------------------------------------------------------------
-                     *   GEOGRAPHIC CRS
-                     *
-                     *   NOTE: 'createProperties' MUST be invoked after any call to an other
-                     *         'createFoo' method. Consequently, do not factor out.
-                     * ---------------------------------------------------------------------- */
-                    case "geographic 2d":
-                    case "geographic 3d": {
-                        Integer csCode = getInteger(code, result, 8);
-                        if (replaceDeprecatedCS) {
-                            csCode = JDK8.getOrDefault(DEPRECATED_CS, csCode, csCode);
-                        }
-                        final EllipsoidalCS cs = owner.createEllipsoidalCS(csCode.toString());
-                        final String datumCode = getOptionalString(result, 9);
-                        final GeodeticDatum datum;
-                        if (datumCode != null) {
-                            datum = owner.createGeodeticDatum(datumCode);
-                        } else {
-                            final String geoCode = getString(code, result, 10, 9);
-                            result.close();     // Must be closed before call to createGeographicCRS(String)
-                            ensureNoCycle(GeographicCRS.class, epsg);
-                            try {
-                                datum = owner.createGeographicCRS(geoCode).getDatum();
-                            } finally {
-                                endOfRecursivity(GeographicCRS.class, epsg);
-                            }
-                        }
-                        crs = crsFactory.createGeographicCRS(createProperties("Coordinate Reference System",
-                                name, epsg, area, scope, remarks, deprecated), datum, cs);
-                        break;
-                    }
-                    /* ----------------------------------------------------------------------
-                     *   PROJECTED CRS
-                     *
-                     *   NOTE: This method invokes itself indirectly, through createGeographicCRS.
-                     *         Consequently we can not use 'result' anymore after this block.
-                     * ---------------------------------------------------------------------- */
-                    case "projected": {
-                        final String csCode  = getString(code, result,  8);
-                        final String geoCode = getString(code, result, 10);
-                        final String opCode  = getString(code, result, 11);
-                        result.close();      // Must be closed before call to createFoo(String)
-                        ensureNoCycle(ProjectedCRS.class, epsg);
-                        try {
-                            final CartesianCS cs = owner.createCartesianCS(csCode);
-                            final Conversion op;
-                            try {
-                                op = (Conversion) owner.createCoordinateOperation(opCode);
-                            } catch (ClassCastException e) {
-                                // Should never happen in a well-formed EPSG database.
-                                // If happen anyway, the ClassCastException cause will give more hints than just the message.
-                                throw (NoSuchAuthorityCodeException) noSuchAuthorityCode(Projection.class, opCode).initCause(e);
-                            }
-                            final CoordinateReferenceSystem baseCRS;
-                            final boolean resumeParamChecks;
-                            if (!deprecated) {
-                                baseCRS = owner.createCoordinateReferenceSystem(geoCode);
-                                resumeParamChecks = false;
-                            } else {
-                                /*
-                                 * If the ProjectedCRS is deprecated, one reason among others may be that it uses one of
-                                 * the deprecated coordinate systems. Those deprecated CS used non-linear units like DMS.
-                                 * Apache SIS can not instantiate a ProjectedCRS when the baseCRS uses such units, so we
-                                 * set a flag asking to replace the deprecated CS by a supported one. Since that baseCRS
-                                 * would not be exactly as defined by EPSG, we must not cache it because we do not want
-                                 * 'owner.createGeographicCRS(geoCode)' to return that modified CRS. Since the same CRS
-                                 * may be recreated every time a deprecated ProjectedCRS is created, we temporarily
-                                 * shutdown the loggings in order to avoid the same warning to be logged many time.
-                                 */
-                                final boolean old = quiet;
-                                try {
-                                    quiet = true;
-                                    replaceDeprecatedCS = true;
-                                    baseCRS = createCoordinateReferenceSystem(geoCode);         // Do not cache that CRS.
-                                } finally {
-                                    replaceDeprecatedCS = false;
-                                    quiet = old;
-                                }
-                                /*
-                                 * The crsFactory method calls will indirectly create a parameterized MathTransform.
-                                 * Their constructor will try to verify the parameter validity. But some deprecated
-                                 * CRS had invalid parameter values (they were deprecated precisely for that reason).
-                                 * If and only if we are creating a deprecated CRS, temporarily suspend the parameter
-                                 * checks.
-                                 */
-                                resumeParamChecks = !Semaphores.queryAndSet(Semaphores.SUSPEND_PARAMETER_CHECK);
-                                // Try block must be immediately after above line (do not insert any code between).
-                            }
-                            try {
-                                /*
-                                 * For a ProjectedCRS, the baseCRS is always geographic. So in theory we would not
-                                 * need the 'instanceof' check. However the EPSG dataset version 8.9 also uses the
-                                 * "projected" type for CRS that are actually derived CRS. See EPSG:5820 and 5821.
-                                 */
-                                final Map<String, Object> properties = createProperties("Coordinate Reference System",
-                                                                        name, epsg, area, scope, remarks, deprecated);
-                                if (baseCRS instanceof GeographicCRS) {
-                                    crs = crsFactory.createProjectedCRS(properties, (GeographicCRS) baseCRS, op, cs);
-                                } else {
-                                    crs = crsFactory.createDerivedCRS(properties, baseCRS, op, cs);
-                                }
-                            } finally {
-                                if (resumeParamChecks) {
-                                    Semaphores.clear(Semaphores.SUSPEND_PARAMETER_CHECK);
+        try {
+            for (final CRSRecord record : getCRSRecords(code)) {
+                returnValue = ensureSingleton(createCoordinateReferenceSystem(code, record), returnValue, code);
+            }
+        } catch (SQLException exception) {
+            throw databaseFailure(CoordinateReferenceSystem.class, code, exception);
+        }
+        if (returnValue == null) {
+             throw noSuchAuthorityCode(CoordinateReferenceSystem.class, code);
+        }
+        return returnValue;
+    }
+
+    /**
+     * Creates many coordinate reference systems from a collection of codes. This method fetches the records
+     * of all requested CRS with a few {@code "IN (…)"} queries on the {@code [Coordinate Reference System]} table,
+     * then the records of the CRS on which they depend (base CRS of projected CRS, components of compound CRS)
+     * until all CRS in the dependency graph have been fetched. The aliases of all those CRS, together with the
+     * aliases of their coordinate systems, datums and conversions, are fetched in the same way.
+     *
+     * <p>The objects are then created by the {@linkplain #owner}, which store them in its cache.
+     * Coordinate systems, datums and other dependencies shared by many CRS are consequently created only once,
+     * and the CRS are created from the records fetched in advance instead than by new queries.</p>
+     *
+     * @param  codes  values allocated by EPSG.
+     * @return the coordinate reference systems for the given codes, in iteration order of the given collection.
+     * @throws NoSuchAuthorityCodeException if a specified code was not found.
+     * @throws FactoryException if the object creation failed for some other reason.
+     *
+     * @since 0.8
+     */
+    @Override
+    public synchronized Map<String,CoordinateReferenceSystem> createCoordinateReferenceSystems(final Collection<String> codes)
+            throws NoSuchAuthorityCodeException, FactoryException
+    {
+        ArgumentChecks.ensureNonNull("codes", codes);
+        final boolean isFirst = (prefetchedCRS == null);
+        if (isFirst) {
+            prefetchedCRS     = new HashMap<>();
+            prefetchedAliases = new HashMap<>();
+        }
+        String code = null;
+        try {
+            /*
+             * Converts the codes to primary keys. Codes that are names are remembered in order to make the
+             * records available under those names too, since the owner will invoke createCRS(String) with
+             * the names as given by the user.
+             */
+            final Map<Integer,String> names = new HashMap<>();
+            Set<Integer> request = new LinkedHashSet<>();
+            int i = 0;
+            for (final String c : codes) {
+                ArgumentChecks.ensureNonNullElement("codes", i++, c);
+                code = c;
+                final Integer key = toPrimaryKeys("Coordinate Reference System",
+                        "COORD_REF_SYS_CODE", "COORD_REF_SYS_NAME", code)[0];
+                if (!isPrimaryKey(code)) {
+                    names.put(key, code);
+                }
+                request.add(key);
+            }
+            code = null;
+            /*
+             * Fetch the records of requested CRS, then the records of the CRS used by the previous ones, etc.
+             * The 'queried' set prevents never-ending loops if the database contains cyclic dependencies.
+             */
+            final Set<Integer> queried = new HashSet<>();
+            final Set<Integer> objects = new LinkedHashSet<>();
+            while (!request.isEmpty()) {
+                request.removeAll(queried);
+                queried.addAll(request);
+                final Integer[] keys = request.toArray(new Integer[request.size()]);
+                request = new LinkedHashSet<>();
+                for (int lower=0; lower < keys.length; lower += MAXIMUM_BATCH_SIZE) {
+                    final int upper = Math.min(lower + MAXIMUM_BATCH_SIZE, keys.length);
+                    try (ResultSet result = executeBatchQuery("Coordinate Reference System",
+                            "SELECT " + CRSRecord.COLUMNS + " FROM [Coordinate Reference System]" +
+                            " WHERE COORD_REF_SYS_CODE IN (?)", keys, lower, upper))
+                    {
+                        while (result.next()) {
+                            final CRSRecord record = new CRSRecord(this, result);
+                            final String key = record.epsg.toString();
+                            List<CRSRecord> records = prefetchedCRS.get(key);
+                            if (records == null) {
+                                records = new ArrayList<>(1);
+                                prefetchedCRS.put(key, records);
+                                final String name = names.get(record.epsg);
+                                if (name != null) {
+                                    prefetchedCRS.put(name, records);
                                 }
                             }
-                        } finally {
-                            endOfRecursivity(ProjectedCRS.class, epsg);
+                            records.add(record);
+                            record.dependencies(request, objects);
                         }
-                        break;
                     }
-                    /* ----------------------------------------------------------------------
-                     *   VERTICAL CRS
-                     * ---------------------------------------------------------------------- */
-                    case "vertical": {
-                        final VerticalCS    cs    = owner.createVerticalCS   (getString(code, result, 8));
-                        final VerticalDatum datum = owner.createVerticalDatum(getString(code, result, 9));
-                        crs = crsFactory.createVerticalCRS(createProperties("Coordinate Reference System",
-                                name, epsg, area, scope, remarks, deprecated), datum, cs);
-                        break;
+                }
+            }
+            /*
+             * Fetch the aliases of all objects identified in the above loop. Objects without alias
+             * are associated to an empty list for making clear that there is no need to query them.
+             */
+            objects.removeAll(prefetchedAliases.keySet());
+            final Integer[] keys = objects.toArray(new Integer[objects.size()]);
+            for (final Integer key : keys) {
+                prefetchedAliases.put(key, new ArrayList<String[]>(1));
+            }
+            for (int lower=0; lower < keys.length; lower += MAXIMUM_BATCH_SIZE) {
+                final int upper = Math.min(lower + MAXIMUM_BATCH_SIZE, keys.length);
+                try (ResultSet result = executeBatchQuery("Alias",
+                        "SELECT OBJECT_CODE, OBJECT_TABLE_NAME, NAMING_SYSTEM_NAME, ALIAS" +
+                        " FROM [Alias] INNER JOIN [Naming System]" +
+                          " ON [Alias].NAMING_SYSTEM_CODE =" +
+                        " [Naming System].NAMING_SYSTEM_CODE" +
+                        " WHERE OBJECT_CODE IN (?)", keys, lower, upper))
+                {
+                    while (result.next()) {
+                        final Integer key = getInteger("Alias", result, 1);
+                        prefetchedAliases.get(key).add(new String[] {
+                            result.getString(2),
+                            getOptionalString(result, 3),
+                            getString(key, result, 4)
+                        });
                     }
-                    /* ----------------------------------------------------------------------
-                     *   TEMPORAL CRS
-                     *
-                     *   NOTE : The original EPSG database does not define any temporal CRS.
-                     *          This block is a SIS-specific extension.
-                     * ---------------------------------------------------------------------- */
-                    case "time":
-                    case "temporal": {
-                        final TimeCS        cs    = owner.createTimeCS       (getString(code, result, 8));
-                        final TemporalDatum datum = owner.createTemporalDatum(getString(code, result, 9));
-                        crs = crsFactory.createTemporalCRS(createProperties("Coordinate Reference System",
-                                name, epsg, area, scope, remarks, deprecated), datum, cs);
-                        break;
+                }
+            }
+            /*
+             * Create all objects through the owner in order to store them in the cache.
+             * Dependencies are created when first needed, only once since they are cached.
+             */
+            final Map<String,CoordinateReferenceSystem> result = new LinkedHashMap<>();
+            for (final String c : codes) {
+                if (!result.containsKey(c)) {
+                    result.put(c, owner.createCoordinateReferenceSystem(c));
+                }
+            }
+            return result;
+        } catch (SQLException exception) {
+            throw databaseFailure(CoordinateReferenceSystem.class, code, exception);
+        } finally {
+            if (isFirst) {
+                prefetchedCRS     = null;
+                prefetchedAliases = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the records of the {@code [Coordinate Reference System]} table for the given code.
+     * This method uses the records fetched in advance if available, or queries the database otherwise.
+     * The returned list should contain exactly one element, unless the code was not found or the
+     * database is inconsistent.
+     *
+     * @param  code  the EPSG code or name of the CRS to create.
+     * @return the records for the given code.
+     */
+    private List<CRSRecord> getCRSRecords(final String code) throws SQLException, FactoryException {
+        if (prefetchedCRS != null) {
+            final List<CRSRecord> records = prefetchedCRS.get(code);
+            if (records != null) {
+                return records;
+            }
+        }
+        final List<CRSRecord> records = new ArrayList<>(1);
+        try (ResultSet result = executeQuery("Coordinate Reference System", "COORD_REF_SYS_CODE", "COORD_REF_SYS_NAME",
+                "SELECT " + CRSRecord.COLUMNS + " FROM [Coordinate Reference System]" +
+                " WHERE COORD_REF_SYS_CODE = ?", code))
+        {
+            while (result.next()) {
+                records.add(new CRSRecord(this, result));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * A record of the {@code [Coordinate Reference System]} table. We read all columns before to create the CRS
+     * because creating the CRS may require recursive queries on the same table, which would close the result set.
+     * This also allows {@link #createCoordinateReferenceSystems(Collection)} to fetch many records in advance.
+     */
+    private static final class CRSRecord {
+        /**
+         * The columns to read, in the order expected by the constructor.
+         */
+        static final String COLUMNS =
+                "COORD_REF_SYS_CODE,"          +     // [ 1]
+                " COORD_REF_SYS_NAME,"         +     // [ 2]
+                " AREA_OF_USE_CODE,"           +     // [ 3]
+                " CRS_SCOPE,"                  +     // [ 4]
+                " REMARKS,"                    +     // [ 5]
+                " DEPRECATED,"                 +     // [ 6]
+                " COORD_REF_SYS_KIND,"         +     // [ 7]
+                " COORD_SYS_CODE,"             +     // [ 8] Null for CompoundCRS
+                " DATUM_CODE,"                 +     // [ 9] Null for ProjectedCRS
+                " SOURCE_GEOGCRS_CODE,"        +     // [10] For ProjectedCRS
+                " PROJECTION_CONV_CODE,"       +     // [11] For ProjectedCRS
+                " CMPD_HORIZCRS_CODE,"         +     // [12] For CompoundCRS only
+                " CMPD_VERTCRS_CODE";                // [13] For CompoundCRS only
+
+        /** Values of the columns at the same index in {@link #COLUMNS}. */
+        final Integer epsg;
+        final String  name, area, scope, remarks;
+        final boolean deprecated;
+        final String  type;
+        final Integer csCode, datumCode, geoCode, opCode, code1, code2;
+
+        /**
+         * Reads the record at the current position of the given result set.
+         */
+        CRSRecord(final EPSGDataAccess factory, final ResultSet result) throws SQLException, FactoryDataException {
+            epsg       = factory.getInteger("Coordinate Reference System", result, 1);
+            name       = factory.getString (epsg, result, 2);
+            area       = getOptionalString (result, 3);
+            scope      = getOptionalString (result, 4);
+            remarks    = getOptionalString (result, 5);
+            deprecated = factory.getOptionalBoolean(result, 6);
+            type       = factory.getString (epsg, result, 7);
+            csCode     = getOptionalInteger(result, 8);
+            datumCode  = getOptionalInteger(result, 9);
+            geoCode    = getOptionalInteger(result, 10);
+            opCode     = getOptionalInteger(result, 11);
+            code1      = getOptionalInteger(result, 12);
+            code2      = getOptionalInteger(result, 13);
+        }
+
+        /**
+         * Adds the codes of CRS used by this CRS in the given {@code crs} set, and the codes
+         * of all objects (including this CRS) for which aliases may be needed in {@code objects}.
+         */
+        void dependencies(final Set<Integer> crs, final Set<Integer> objects) {
+            for (final Integer code : new Integer[] {geoCode, code1, code2}) {
+                if (code != null) {
+                    crs.add(code);
+                }
+            }
+            for (final Integer code : new Integer[] {epsg, csCode, datumCode, opCode}) {
+                if (code != null) {
+                    objects.add(code);
+                }
+            }
+        }
+
+        /**
+         * Returns the given value as a string, or throws an exception if the value is null.
+         */
+        String require(final EPSGDataAccess factory, final Integer value, final String column) throws FactoryDataException {
+            if (value == null) {
+                throw new FactoryDataException(factory.error().getString(Errors.Keys.NullValueInTable_3,
+                        "Coordinate Reference System", column, epsg));
+            }
+            return value.toString();
+        }
+    }
+
+    /**
+     * Creates a coordinate reference system from the given record.
+     *
+     * @param  code    the code specified by the user, for error messages.
+     * @param  record  the record of the CRS to create.
+     * @return the coordinate reference system for the given record.
+     */
+    private CoordinateReferenceSystem createCoordinateReferenceSystem(final String code, final CRSRecord record)
+            throws SQLException, FactoryException
+    {
+        final Integer epsg       = record.epsg;
+        final String  name       = record.name;
+        final String  area       = record.area;
+        final String  scope      = record.scope;
+        final String  remarks    = record.remarks;
+        final boolean deprecated = record.deprecated;
+        final String  type       = record.type;
+        /*
+         * Note: Do not invoke 'createProperties' now, even if we have all required informations,
+         *       because the 'properties' map is going to overwritten by calls to 'createDatum', etc.
+         *
+         * The following switch statement should have a case for all "epsg_crs_kind" values enumerated
+         * in the "EPSG_Prepare.sql" file, except that the values in this Java code are in lower cases.
+         */
+        final CRSFactory crsFactory = owner.crsFactory;
+        final CoordinateReferenceSystem crs;
+        switch (type.toLowerCase(Locale.US)) {
+            /* ----------------------------------------------------------------------
+             *   GEOGRAPHIC CRS
+             *
+             *   NOTE: 'createProperties' MUST be invoked after any call to an other
+             *         'createFoo' method. Consequently, do not factor out.
+             * ---------------------------------------------------------------------- */
+            case "geographic 2d":
+            case "geographic 3d": {
+                Integer csCode = Integer.valueOf(record.require(this, record.csCode, "COORD_SYS_CODE"));
+                if (replaceDeprecatedCS) {
+                    csCode = JDK8.getOrDefault(DEPRECATED_CS, csCode, csCode);
+                }
+                final EllipsoidalCS cs = owner.createEllipsoidalCS(csCode.toString());
+                final GeodeticDatum datum;
+                if (record.datumCode != null) {
+                    datum = owner.createGeodeticDatum(record.datumCode.toString());
+                } else {
+                    final String geoCode = record.require(this, record.geoCode, "DATUM_CODE");
+                    ensureNoCycle(GeographicCRS.class, epsg);
+                    try {
+                        datum = owner.createGeographicCRS(geoCode).getDatum();
+                    } finally {
+                        endOfRecursivity(GeographicCRS.class, epsg);
                     }
-                    /* ----------------------------------------------------------------------
-                     *   COMPOUND CRS
-                     *
-                     *   NOTE: This method invokes itself recursively.
-                     *         Consequently, we can not use 'result' anymore.
-                     * ---------------------------------------------------------------------- */
-                    case "compound": {
-                        final String code1 = getString(code, result, 12);
-                        final String code2 = getString(code, result, 13);
-                        result.close();
-                        final CoordinateReferenceSystem crs1, crs2;
-                        ensureNoCycle(CompoundCRS.class, epsg);
+                }
+                crs = crsFactory.createGeographicCRS(createProperties("Coordinate Reference System",
+                        name, epsg, area, scope, remarks, deprecated), datum, cs);
+                break;
+            }
+            /* ----------------------------------------------------------------------
+             *   PROJECTED CRS
+             *
+             *   NOTE: This method invokes itself indirectly, through createGeographicCRS.
+             * ---------------------------------------------------------------------- */
+            case "projected": {
+                final String csCode  = record.require(this, record.csCode,  "COORD_SYS_CODE");
+                final String geoCode = record.require(this, record.geoCode, "SOURCE_GEOGCRS_CODE");
+                final String opCode  = record.require(this, record.opCode,  "PROJECTION_CONV_CODE");
+                ensureNoCycle(ProjectedCRS.class, epsg);
+                try {
+                    final CartesianCS cs = owner.createCartesianCS(csCode);
+                    final Conversion op;
+                    try {
+                        op = (Conversion) owner.createCoordinateOperation(opCode);
+                    } catch (ClassCastException e) {
+                        // Should never happen in a well-formed EPSG database.
+                        // If happen anyway, the ClassCastException cause will give more hints than just the message.
+                        throw (NoSuchAuthorityCodeException) noSuchAuthorityCode(Projection.class, opCode).initCause(e);
+                    }
+                    final CoordinateReferenceSystem baseCRS;
+                    final boolean resumeParamChecks;
+                    if (!deprecated) {
+                        baseCRS = owner.createCoordinateReferenceSystem(geoCode);
+                        resumeParamChecks = false;
+                    } else {
+                        /*
+                         * If the ProjectedCRS is deprecated, one reason among others may be that it uses one of
+                         * the deprecated coordinate systems. Those deprecated CS used non-linear units like DMS.
+                         * Apache SIS can not instantiate a ProjectedCRS when the baseCRS uses such units, so we
+                         * set a flag asking to replace the deprecated CS by a supported one. Since that baseCRS
+                         * would not be exactly as defined by EPSG, we must not cache it because we do not want
+                         * 'owner.createGeographicCRS(geoCode)' to return that modified CRS. Since the same CRS
+                         * may be recreated every time a deprecated ProjectedCRS is created, we temporarily
+                         * shutdown the loggings in order to avoid the same warning to be logged many time.
+                         */
+                        final boolean old = quiet;
                         try {
-                            crs1 = owner.createCoordinateReferenceSystem(code1);
-                            crs2 = owner.createCoordinateReferenceSystem(code2);
+                            quiet = true;
+                            replaceDeprecatedCS = true;
+                            baseCRS = createCoordinateReferenceSystem(geoCode);         // Do not cache that CRS.
                         } finally {
-                            endOfRecursivity(CompoundCRS.class, epsg);
+                            replaceDeprecatedCS = false;
+                            quiet = old;
                         }
-                        // Note: Do not invoke 'createProperties' sooner.
-                        crs  = crsFactory.createCompoundCRS(createProperties("Coordinate Reference System",
-                                name, epsg, area, scope, remarks, deprecated), crs1, crs2);
-                        break;
+                        /*
+                         * The crsFactory method calls will indirectly create a parameterized MathTransform.
+                         * Their constructor will try to verify the parameter validity. But some deprecated
+                         * CRS had invalid parameter values (they were deprecated precisely for that reason).
+                         * If and only if we are creating a deprecated CRS, temporarily suspend the parameter
+                         * checks.
+                         */
+                        resumeParamChecks = !Semaphores.queryAndSet(Semaphores.SUSPEND_PARAMETER_CHECK);
+                        // Try block must be immediately after above line (do not insert any code between).
                     }
-                    /* ----------------------------------------------------------------------
-                     *   GEOCENTRIC CRS
-                     * ---------------------------------------------------------------------- */
-                    case "geocentric": {
-                        final CoordinateSystem cs = owner.createCoordinateSystem(getString(code, result, 8));
-                        final GeodeticDatum datum = owner.createGeodeticDatum   (getString(code, result, 9));
-                        final Map<String,Object> properties = createProperties("Coordinate Reference System",
-                                name, epsg, area, scope, remarks, deprecated);
-                        if (cs instanceof CartesianCS) {
-                            crs = crsFactory.createGeocentricCRS(properties, datum, (CartesianCS) cs);
-                        } else if (cs instanceof SphericalCS) {
-                            crs = crsFactory.createGeocentricCRS(properties, datum, (SphericalCS) cs);
+                    try {
+                        /*
+                         * For a ProjectedCRS, the baseCRS is always geographic. So in theory we would not
+                         * need the 'instanceof' check. However the EPSG dataset version 8.9 also uses the
+                         * "projected" type for CRS that are actually derived CRS. See EPSG:5820 and 5821.
+                         */
+                        final Map<String, Object> properties = createProperties("Coordinate Reference System",
+                                                                name, epsg, area, scope, remarks, deprecated);
+                        if (baseCRS instanceof GeographicCRS) {
+                            crs = crsFactory.createProjectedCRS(properties, (GeographicCRS) baseCRS, op, cs);
                         } else {
-                            throw new FactoryDataException(error().getString(
-                                    Errors.Keys.IllegalCoordinateSystem_1, cs.getName()));
+                            crs = crsFactory.createDerivedCRS(properties, baseCRS, op, cs);
+                        }
+                    } finally {
+                        if (resumeParamChecks) {
+                            Semaphores.clear(Semaphores.SUSPEND_PARAMETER_CHECK);
                         }
-                        break;
-                    }
-                    /* ----------------------------------------------------------------------
-                     *   ENGINEERING CRS
-                     * ---------------------------------------------------------------------- */
-                    case "engineering": {
-                        final CoordinateSystem cs    = owner.createCoordinateSystem(getString(code, result, 8));
-                        final EngineeringDatum datum = owner.createEngineeringDatum(getString(code, result, 9));
-                        crs = crsFactory.createEngineeringCRS(createProperties("Coordinate Reference System",
-                                name, epsg, area, scope, remarks, deprecated), datum, cs);
-                        break;
-                    }
-                    /* ----------------------------------------------------------------------
-                     *   PARAMETRIC CRS
-                     * ---------------------------------------------------------------------- */
-                    case "parametric": {
-                        final DefaultParametricCS    cs    = owner.createParametricCS   (getString(code, result, 8));
-                        final DefaultParametricDatum datum = owner.createParametricDatum(getString(code, result, 9));
-                        crs = ReferencingServices.getInstance().createParametricCRS(createProperties("Coordinate Reference System",
-                                name, epsg, area, scope, remarks, deprecated), datum, cs, crsFactory);
-                        break;
-                    }
-                    /* ----------------------------------------------------------------------
-                     *   UNKNOWN CRS
-                     * ---------------------------------------------------------------------- */
-                    default: {
-                        throw new FactoryDataException(error().getString(Errors.Keys.UnknownType_1, type));
                     }
+                } finally {
+                    endOfRecursivity(ProjectedCRS.class, epsg);
                 }
-                returnValue = ensureSingleton(crs, returnValue, code);
-                if (result.isClosed()) {
-                    return returnValue;
+                break;
+            }
+            /* ----------------------------------------------------------------------
+             *   VERTICAL CRS
+             * ---------------------------------------------------------------------- */
+            case "vertical": {
+                final VerticalCS    cs    = owner.createVerticalCS   (record.require(this, record.csCode,    "COORD_SYS_CODE"));
+                final VerticalDatum datum = owner.createVerticalDatum(record.require(this, record.datumCode, "DATUM_CODE"));
+                crs = crsFactory.createVerticalCRS(createProperties("Coordinate Reference System",
+                        name, epsg, area, scope, remarks, deprecated), datum, cs);
+                break;
+            }
+            /* ----------------------------------------------------------------------
+             *   TEMPORAL CRS
+             *
+             *   NOTE : The original EPSG database does not define any temporal CRS.
+             *          This block is a SIS-specific extension.
+             * ---------------------------------------------------------------------- */
+            case "time":
+            case "temporal": {
+                final TimeCS        cs    = owner.createTimeCS       (record.require(this, record.csCode,    "COORD_SYS_CODE"));
+                final TemporalDatum datum = owner.createTemporalDatum(record.require(this, record.datumCode, "DATUM_CODE"));
+                crs = crsFactory.createTemporalCRS(createProperties("Coordinate Reference System",
+                        name, epsg, area, scope, remarks, deprecated), datum, cs);
+                break;
+            }
+            /* ----------------------------------------------------------------------
+             *   COMPOUND CRS
+             *
+             *   NOTE: This method invokes itself recursively.
+             * ---------------------------------------------------------------------- */
+            case "compound": {
+                final String code1 = record.require(this, record.code1, "CMPD_HORIZCRS_CODE");
+                final String code2 = record.require(this, record.code2, "CMPD_VERTCRS_CODE");
+                final CoordinateReferenceSystem crs1, crs2;
+                ensureNoCycle(CompoundCRS.class, epsg);
+                try {
+                    crs1 = owner.createCoordinateReferenceSystem(code1);
+                    crs2 = owner.createCoordinateReferenceSystem(code2);
+                } finally {
+                    endOfRecursivity(CompoundCRS.class, epsg);
                 }
+                // Note: Do not invoke 'createProperties' sooner.
+                crs  = crsFactory.createCompoundCRS(createProperties("Coordinate Reference System",
+                        name, epsg, area, scope, remarks, deprecated), crs1, crs2);
+                break;
+            }
+            /* ----------------------------------------------------------------------
+             *   GEOCENTRIC CRS
+             * ---------------------------------------------------------------------- */
+            case "geocentric": {
+                final CoordinateSystem cs = owner.createCoordinateSystem(record.require(this, record.csCode,    "COORD_SYS_CODE"));
+                final GeodeticDatum datum = owner.createGeodeticDatum   (record.require(this, record.datumCode, "DATUM_CODE"));
+                final Map<String,Object> properties = createProperties("Coordinate Reference System",
+                        name, epsg, area, scope, remarks, deprecated);
+                if (cs instanceof CartesianCS) {
+                    crs = crsFactory.createGeocentricCRS(properties, datum, (CartesianCS) cs);
+                } else if (cs instanceof SphericalCS) {
+                    crs = crsFactory.createGeocentricCRS(properties, datum, (SphericalCS) cs);
+                } else {
+                    throw new FactoryDataException(error().getString(
+                            Errors.Keys.IllegalCoordinateSystem_1, cs.getName()));
+                }
+                break;
+            }
+            /* ----------------------------------------------------------------------
+             *   ENGINEERING CRS
+             * ---------------------------------------------------------------------- */
+            case "engineering": {
+                final CoordinateSystem cs    = owner.createCoordinateSystem(record.require(this, record.csCode,    "COORD_SYS_CODE"));
+                final EngineeringDatum datum = owner.createEngineeringDatum(record.require(this, record.datumCode, "DATUM_CODE"));
+                crs = crsFactory.createEngineeringCRS(createProperties("Coordinate Reference System",
+                        name, epsg, area, scope, remarks, deprecated), datum, cs);
+                break;
+            }
+            /* ----------------------------------------------------------------------
+             *   PARAMETRIC CRS
+             * ---------------------------------------------------------------------- */
+            case "parametric": {
+                final DefaultParametricCS    cs    = owner.createParametricCS   (record.require(this, record.csCode,    "COORD_SYS_CODE"));
+                final DefaultParametricDatum datum = owner.createParametricDatum(record.require(this, record.datumCode, "DATUM_CODE"));
+                crs = ReferencingServices.getInstance().createParametricCRS(createProperties("Coordinate Reference System",
+                        name, epsg, area, scope, remarks, deprecated), datum, cs, crsFactory);
+                break;
+            }
+            /* ----------------------------------------------------------------------
+             *   UNKNOWN CRS
+             * ---------------------------------------------------------------------- */
+            default: {
+                throw new FactoryDataException(error().getString(Errors.Keys.UnknownType_1, type));
             }
-        } catch (SQLException exception) {
-            throw databaseFailure(CoordinateReferenceSystem.class, code, exception);
-        }
-        if (returnValue == null) {
-             throw noSuchAuthorityCode(CoordinateReferenceSystem.class, code);
         }
-        return returnValue;
+        return crs;
     }
 
     /**
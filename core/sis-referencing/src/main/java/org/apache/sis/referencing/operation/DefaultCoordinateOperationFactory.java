@@ -38,6 +38,7 @@ import org.apache.sis.internal.referencing.Resources;
 import org.apache.sis.internal.referencing.MergedProperties;
 import org.apache.sis.internal.metadata.ReferencingServices;
 import org.apache.sis.internal.system.DefaultFactories;
+import org.apache.sis.internal.system.CacheStatistics;
 import org.apache.sis.internal.util.CollectionsExt;
 import org.apache.sis.internal.util.Constants;
 import org.apache.sis.referencing.CRS;
@@ -182,6 +183,8 @@ public class DefaultCoordinateOperationFactory extends AbstractFactory implement
         }
         pool = new WeakHashSet<>(IdentifiedObject.class);
         cache = new Cache<>(12, 50, true);
+        CacheStatistics.register("DefaultCoordinateOperationFactory.pool",  pool);
+        CacheStatistics.register("DefaultCoordinateOperationFactory.cache", cache);
     }
 
     /**
@@ -28,7 +28,7 @@ import org.apache.sis.geometry.DirectPosition1D;
  * Concatenated transform in which the resulting transform is one-dimensional.
  *
  * @author  Martin Desruisseaux (IRD, Geomatys)
- * @version 0.5
+ * @version 0.8
  * @since   0.5
  * @module
  */
@@ -60,11 +60,16 @@ final class ConcatenatedTransform1D extends ConcatenatedTransform implements Mat
      */
     @Override
     public double transform(final double value) throws TransformException {
-        final double[] values = new double[] {value};
-        final double[] buffer = new double[] {transform1.getTargetDimensions()};
-        transform1.transform(values, 0, buffer, 0, 1);
-        transform2.transform(buffer, 0, values, 0, 1);
-        return values[0];
+        final ScratchBuffer scratch = ScratchBuffer.current();
+        final double[] buffer = scratch.acquire(transform1.getTargetDimensions());
+        try {
+            buffer[0] = value;
+            transform1.transform(buffer, 0, buffer, 0, 1);
+            transform2.transform(buffer, 0, buffer, 0, 1);
+            return buffer[0];
+        } finally {
+            scratch.release();
+        }
     }
 
     /**
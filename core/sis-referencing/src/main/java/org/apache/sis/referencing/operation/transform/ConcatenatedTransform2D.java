@@ -31,7 +31,7 @@ import org.apache.sis.geometry.DirectPosition2D;
  * Concatenated transform in which the resulting transform is two-dimensional.
  *
  * @author  Martin Desruisseaux (IRD, Geomatys)
- * @version 0.5
+ * @version 0.8
  * @since   0.5
  * @module
  */
@@ -64,13 +64,20 @@ final class ConcatenatedTransform2D extends ConcatenatedTransform implements Mat
      */
     @Override
     public Point2D transform(final Point2D ptSrc, final Point2D ptDst) throws TransformException {
-        final double[] ord = new double[] {ptSrc.getX(), ptSrc.getY()};
-        transform(ord, 0, ord, 0, false);
-        if (ptDst != null) {
-            ptDst.setLocation(ord[0], ord[1]);
-            return ptDst;
-        } else {
-            return new Point2D.Double(ord[0], ord[1]);
+        final ScratchBuffer scratch = ScratchBuffer.current();
+        final double[] ord = scratch.acquire(2);
+        try {
+            ord[0] = ptSrc.getX();
+            ord[1] = ptSrc.getY();
+            transform(ord, 0, ord, 0, false);
+            if (ptDst != null) {
+                ptDst.setLocation(ord[0], ord[1]);
+                return ptDst;
+            } else {
+                return new Point2D.Double(ord[0], ord[1]);
+            }
+        } finally {
+            scratch.release();
         }
     }
 
@@ -26,8 +26,14 @@ import org.opengis.referencing.operation.TransformException;
  * This fact allows some optimizations, the most important one being the possibility to avoid the use
  * of an intermediate buffer in some case.
  *
+ * <p>Arrays of coordinates are transformed by blocks of {@value #BLOCK_SIZE} ordinates, each block being
+ * processed by all steps before to move to the next block. Since a block fits in the processor cache,
+ * the array is fetched from main memory only once regardless the number of steps. This is significant
+ * for the usual <cite>normalize</cite> → <cite>projection</cite> → <cite>denormalize</cite> chain of map
+ * projections, where the cost of the affine steps is dominated by memory bandwidth on large arrays.</p>
+ *
  * @author  Martin Desruisseaux (IRD, Geomatys)
- * @version 0.5
+ * @version 0.8
  * @since   0.5
  * @module
  */
@@ -37,6 +43,12 @@ class ConcatenatedTransformDirect extends ConcatenatedTransform {
      */
     private static final long serialVersionUID = -3568975979013908920L;
 
+    /**
+     * Maximal number of ordinate values to transform by all steps before to move to the next block.
+     * The 16 kb occupied by this amount of {@code double} values fits in the L1 cache of most processors.
+     */
+    static final int BLOCK_SIZE = 2048;
+
     /**
      * Constructs a concatenated transform.
      */
@@ -72,26 +84,67 @@ class ConcatenatedTransformDirect extends ConcatenatedTransform {
      * Transforms many coordinates in a list of ordinal values.
      */
     @Override
-    public void transform(final double[] srcPts, final int srcOff,
-                          final double[] dstPts, final int dstOff,
-                          final int numPts) throws TransformException
+    public void transform(final double[] srcPts, int srcOff,
+                          final double[] dstPts, int dstOff,
+                          int numPts) throws TransformException
     {
         assert isValid();
-        transform1.transform(srcPts, srcOff, dstPts, dstOff, numPts);
-        transform2.transform(dstPts, dstOff, dstPts, dstOff, numPts);
+        int dimension = transform1.getSourceDimensions();       // Same for all steps.
+        int numBlk = Math.max(1, BLOCK_SIZE / dimension);
+        boolean descending = false;
+        if (numPts > numBlk && srcPts == dstPts) {
+            /*
+             * Since the whole block is fully read before to be written, the block is like a single
+             * coordinate point. Because all steps have the same number of dimensions, the blocks
+             * can always be processed in ascending or descending order without intermediate buffer
+             * (IterationStrategy returns BUFFER_* values only when source and target dimensions differ).
+             */
+            final int length    = numBlk * dimension;
+            final int numBlocks = (numPts - 1) / numBlk + 1;
+            final IterationStrategy strategy = IterationStrategy.suggest(srcOff, length, dstOff, length, numBlocks);
+            assert !strategy.needBuffer : strategy;
+            if (strategy == IterationStrategy.DESCENDING) {
+                final int shift = (numPts - numBlk) * dimension;
+                srcOff += shift;
+                dstOff += shift;
+                dimension = -dimension;
+                descending = true;
+            }
+        }
+        while (numPts > 0) {
+            if (!descending && numBlk > numPts) {
+                numBlk = numPts;            // Must be done before transforms if iterating in ascending order.
+            }
+            transform1.transform(srcPts, srcOff, dstPts, dstOff, numBlk);
+            transform2.transform(dstPts, dstOff, dstPts, dstOff, numBlk);
+            numPts -= numBlk;
+            if (descending && numBlk > numPts) {
+                numBlk = numPts;            // Must be done after transforms if iterating in descending order.
+            }
+            srcOff += numBlk * dimension;
+            dstOff += numBlk * dimension;
+        }
     }
 
     /**
      * Transforms many coordinates in a list of ordinal values.
      */
     @Override
-    public void transform(final float[]  srcPts, final int srcOff,
-                          final double[] dstPts, final int dstOff,
-                          final int numPts) throws TransformException
+    public void transform(final float[]  srcPts, int srcOff,
+                          final double[] dstPts, int dstOff,
+                          int numPts) throws TransformException
     {
         assert isValid();
-        transform1.transform(srcPts, srcOff, dstPts, dstOff, numPts);
-        transform2.transform(dstPts, dstOff, dstPts, dstOff, numPts);
+        final int dimension = transform1.getSourceDimensions();
+        final int numBlk = Math.max(1, BLOCK_SIZE / dimension);
+        while (numPts > 0) {
+            final int n = Math.min(numBlk, numPts);
+            transform1.transform(srcPts, srcOff, dstPts, dstOff, n);
+            transform2.transform(dstPts, dstOff, dstPts, dstOff, n);
+            srcOff += n * dimension;
+            dstOff += n * dimension;
+            numPts -= n;
+        }
     }
 
     /*
@@ -58,6 +58,7 @@ import org.apache.sis.internal.referencing.Formulas;
 import org.apache.sis.internal.metadata.ReferencingServices;
 import org.apache.sis.internal.referencing.ReferencingUtilities;
 import org.apache.sis.internal.referencing.j2d.ParameterizedAffine;
+import org.apache.sis.internal.system.CacheStatistics;
 import org.apache.sis.internal.referencing.provider.AbstractProvider;
 import org.apache.sis.internal.referencing.provider.VerticalOffset;
 import org.apache.sis.internal.referencing.provider.Providers;
@@ -310,6 +311,7 @@ public class DefaultMathTransformFactory extends AbstractFactory implements Math
         lastMethod    = new ThreadLocal<>();
         pool          = new WeakHashSet<>(MathTransform.class);
         parser        = new AtomicReference<>();
+        CacheStatistics.register("DefaultMathTransformFactory.pool", pool);
     }
 
     /**
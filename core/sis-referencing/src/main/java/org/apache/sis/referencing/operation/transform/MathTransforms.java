@@ -51,7 +51,7 @@ import org.apache.sis.util.Static;
  * GeoAPI factory interfaces instead.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 0.8
  *
  * @see MathTransformFactory
  *
@@ -449,4 +449,77 @@ public final class MathTransforms extends Static {
         }
         return derivative;
     }
+
+    /**
+     * Transforms a list of coordinate points using many threads. The points are divided in chunks of at least
+     * {@code threshold} points, and the chunks are transformed in parallel in a pool shared by all SIS tasks.
+     * The result is the same than invoking {@code transform.transform(srcPts, srcOff, dstPts, dstOff, numPts)},
+     * including when the source and destination arrays are the same and the two regions overlap
+     * (in which case the source coordinates may be copied in a temporary array before the transformation).
+     *
+     * <p>This method can be used with any {@code MathTransform} implementation, including chains of
+     * concatenated transforms and datum shift grids, since math transforms are immutable and thread-safe.
+     * If the number of points is lower than {@code 2 × threshold}, then this method transforms the points
+     * in the current thread.</p>
+     *
+     * <div class="note"><b>Note:</b>
+     * the {@code threshold} value should be large enough for making the cost of the transformation of a chunk
+     * much higher than the cost of task scheduling. For map projections, values in the order of 10000 points
+     * are typical.</div>
+     *
+     * @param  transform  the transform to apply on the points.
+     * @param  srcPts     the array containing the source point coordinates.
+     * @param  srcOff     the offset to the first point to be transformed in the source array.
+     * @param  dstPts     the array into which the transformed point coordinates are returned.
+     *                    May be the same than {@code srcPts}.
+     * @param  dstOff     the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts     the number of point objects to be transformed.
+     * @param  threshold  the minimal number of points to transform in a single thread.
+     * @throws TransformException if a point can not be transformed. This exception is thrown only after all other
+     *         points have been transformed. Points that can not be transformed are set to {@link Double#NaN}
+     *         if the transform implementation supports that.
+     *
+     * @since 0.8
+     */
+    public static void transformInParallel(final MathTransform transform, final double[] srcPts, final int srcOff,
+            final double[] dstPts, final int dstOff, final int numPts, final int threshold) throws TransformException
+    {
+        ArgumentChecks.ensureNonNull("transform", transform);
+        ArgumentChecks.ensureStrictlyPositive("threshold", threshold);
+        if (numPts < 2*threshold) {
+            transform.transform(srcPts, srcOff, dstPts, dstOff, numPts);
+        } else {
+            ParallelTransform.transform(transform, srcPts, srcOff, dstPts, dstOff, numPts, threshold);
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate points using many threads. This method performs the same work than
+     * {@link #transformInParallel(MathTransform, double[], int, double[], int, int, int)}, but with arrays
+     * of single-precision floating point numbers.
+     *
+     * @param  transform  the transform to apply on the points.
+     * @param  srcPts     the array containing the source point coordinates.
+     * @param  srcOff     the offset to the first point to be transformed in the source array.
+     * @param  dstPts     the array into which the transformed point coordinates are returned.
+     *                    May be the same than {@code srcPts}.
+     * @param  dstOff     the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts     the number of point objects to be transformed.
+     * @param  threshold  the minimal number of points to transform in a single thread.
+     * @throws TransformException if a point can not be transformed. This exception is thrown only after all other
+     *         points have been transformed.
+     *
+     * @since 0.8
+     */
+    public static void transformInParallel(final MathTransform transform, final float[] srcPts, final int srcOff,
+            final float[] dstPts, final int dstOff, final int numPts, final int threshold) throws TransformException
+    {
+        ArgumentChecks.ensureNonNull("transform", transform);
+        ArgumentChecks.ensureStrictlyPositive("threshold", threshold);
+        if (numPts < 2*threshold) {
+            transform.transform(srcPts, srcOff, dstPts, dstOff, numPts);
+        } else {
+            ParallelTransform.transform(transform, srcPts, srcOff, dstPts, dstOff, numPts, threshold);
+        }
+    }
 }
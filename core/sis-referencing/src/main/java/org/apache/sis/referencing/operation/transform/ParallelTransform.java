@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.referencing.operation.transform;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.internal.system.CommonExecutor;
+
+
+/**
+ * A task transforming a range of points in an array, splitting itself in smaller tasks executed in parallel
+ * until the number of points is below a threshold. This task relies on the {@link MathTransform} contract
+ * saying that implementations should be immutable and thread-safe.
+ *
+ * <p>Failures do not stop the other tasks: like {@link AbstractMathTransform#transform(double[], int, double[],
+ * int, int)}, the first {@link TransformException} is remembered and thrown after all points have been processed,
+ * with other exceptions added as suppressed exceptions.</p>
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ *
+ * @see MathTransforms#transformInParallel(MathTransform, double[], int, double[], int, int, int)
+ */
+abstract class ParallelTransform extends RecursiveAction {
+    /**
+     * For cross-version compatibility.
+     */
+    private static final long serialVersionUID = -3206148591467043224L;
+
+    /**
+     * The transform to apply. Shared by all tasks.
+     */
+    final MathTransform transform;
+
+    /**
+     * The root task, which holds the failure (if any).
+     * This is {@code this} for the root task.
+     */
+    private final ParallelTransform root;
+
+    /**
+     * The first failure that occurred in any task, or {@code null} if none.
+     * This field is used only in the root task.
+     */
+    private TransformException failure;
+
+    /**
+     * Index of the first ordinate to read in the source array and to write in the destination array.
+     */
+    final int srcOff, dstOff;
+
+    /**
+     * Number of points to transform by this task.
+     */
+    final int numPts;
+
+    /**
+     * Minimal number of points that a task shall transform before to consider splitting it.
+     */
+    private final int threshold;
+
+    /**
+     * Creates the root task.
+     */
+    ParallelTransform(final MathTransform transform, final int srcOff, final int dstOff, final int numPts, final int threshold) {
+        this.transform = transform;
+        this.root      = this;
+        this.srcOff    = srcOff;
+        this.dstOff    = dstOff;
+        this.numPts    = numPts;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Creates a sub-task for the given range of points.
+     */
+    ParallelTransform(final ParallelTransform parent, final int srcOff, final int dstOff, final int numPts) {
+        transform = parent.transform;
+        root      = parent.root;
+        threshold = parent.threshold;
+        this.srcOff = srcOff;
+        this.dstOff = dstOff;
+        this.numPts = numPts;
+    }
+
+    /**
+     * Creates a sub-task for the given range of points, using the same arrays than this task.
+     */
+    abstract ParallelTransform subtask(int srcOff, int dstOff, int numPts);
+
+    /**
+     * Transforms sequentially all points in the range of this task.
+     */
+    abstract void transform() throws TransformException;
+
+    /**
+     * Transforms the points, either directly or by splitting this task in two sub-tasks.
+     */
+    @Override
+    protected final void compute() {
+        if (numPts >= 2*threshold) {
+            final int n = numPts >>> 1;
+            invokeAll(subtask(srcOff, dstOff, n),
+                      subtask(srcOff + n * transform.getSourceDimensions(),
+                              dstOff + n * transform.getTargetDimensions(), numPts - n));
+        } else try {
+            transform();
+        } catch (TransformException e) {
+            synchronized (root) {
+                if (root.failure == null) {
+                    root.failure = e;
+                } else {
+                    root.failure.addSuppressed(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Executes the root task in the shared pool and waits for its completion.
+     */
+    final void run() throws TransformException {
+        if (inForkJoinPool()) {
+            invoke();                               // Nested parallel transform: use the current pool.
+        } else {
+            CommonExecutor.instance().invoke(this);
+        }
+        final TransformException e;
+        synchronized (this) {
+            e = failure;
+        }
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    /**
+     * Returns {@code true} if the given array regions overlap. In such case, transforming a sub-region
+     * may overwrite the source ordinates of an other sub-region before those ordinates have been read.
+     * The only exception is when each point is written at the same location than it has been read.
+     */
+    private static boolean overlap(final MathTransform transform, final int srcOff, final int dstOff, final int numPts) {
+        final int srcDim = transform.getSourceDimensions();
+        final int dstDim = transform.getTargetDimensions();
+        if (srcOff == dstOff && srcDim == dstDim) {
+            return false;
+        }
+        return srcOff < dstOff + numPts * dstDim && dstOff < srcOff + numPts * srcDim;
+    }
+
+    /**
+     * Transforms an array of double-precision coordinates.
+     */
+    static void transform(final MathTransform transform, double[] srcPts, int srcOff,
+            final double[] dstPts, final int dstOff, final int numPts, final int threshold) throws TransformException
+    {
+        if (srcPts == dstPts && overlap(transform, srcOff, dstOff, numPts)) {
+            srcPts = Arrays.copyOfRange(srcPts, srcOff, srcOff + numPts * transform.getSourceDimensions());
+            srcOff = 0;
+        }
+        new Doubles(transform, srcPts, srcOff, dstPts, dstOff, numPts, threshold).run();
+    }
+
+    /**
+     * Transforms an array of single-precision coordinates.
+     */
+    static void transform(final MathTransform transform, float[] srcPts, int srcOff,
+            final float[] dstPts, final int dstOff, final int numPts, final int threshold) throws TransformException
+    {
+        if (srcPts == dstPts && overlap(transform, srcOff, dstOff, numPts)) {
+            srcPts = Arrays.copyOfRange(srcPts, srcOff, srcOff + numPts * transform.getSourceDimensions());
+            srcOff = 0;
+        }
+        new Floats(transform, srcPts, srcOff, dstPts, dstOff, numPts, threshold).run();
+    }
+
+    /**
+     * A task transforming an array of {@code double} values.
+     */
+    private static final class Doubles extends ParallelTransform {
+        /** For cross-version compatibility. */
+        private static final long serialVersionUID = 2411327284096386128L;
+
+        /** The source and destination arrays. */
+        private final double[] srcPts, dstPts;
+
+        /** Creates the root task. */
+        Doubles(MathTransform transform, double[] srcPts, int srcOff, double[] dstPts, int dstOff, int numPts, int threshold) {
+            super(transform, srcOff, dstOff, numPts, threshold);
+            this.srcPts = srcPts;
+            this.dstPts = dstPts;
+        }
+
+        /** Creates a sub-task. */
+        private Doubles(final Doubles parent, final int srcOff, final int dstOff, final int numPts) {
+            super(parent, srcOff, dstOff, numPts);
+            srcPts = parent.srcPts;
+            dstPts = parent.dstPts;
+        }
+
+        @Override ParallelTransform subtask(int srcOff, int dstOff, int numPts) {
+            return new Doubles(this, srcOff, dstOff, numPts);
+        }
+
+        @Override void transform() throws TransformException {
+            transform.transform(srcPts, srcOff, dstPts, dstOff, numPts);
+        }
+    }
+
+    /**
+     * A task transforming an array of {@code float} values.
+     */
+    private static final class Floats extends ParallelTransform {
+        /** For cross-version compatibility. */
+        private static final long serialVersionUID = -6930184536742215541L;
+
+        /** The source and destination arrays. */
+        private final float[] srcPts, dstPts;
+
+        /** Creates the root task. */
+        Floats(MathTransform transform, float[] srcPts, int srcOff, float[] dstPts, int dstOff, int numPts, int threshold) {
+            super(transform, srcOff, dstOff, numPts, threshold);
+            this.srcPts = srcPts;
+            this.dstPts = dstPts;
+        }
+
+        /** Creates a sub-task. */
+        private Floats(final Floats parent, final int srcOff, final int dstOff, final int numPts) {
+            super(parent, srcOff, dstOff, numPts);
+            srcPts = parent.srcPts;
+            dstPts = parent.dstPts;
+        }
+
+        @Override ParallelTransform subtask(int srcOff, int dstOff, int numPts) {
+            return new Floats(this, srcOff, dstOff, numPts);
+        }
+
+        @Override void transform() throws TransformException {
+            transform.transform(srcPts, srcOff, dstPts, dstOff, numPts);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.referencing.operation.transform;
+
+import java.util.Arrays;
+import java.lang.ref.WeakReference;
+
+
+/**
+ * Per-thread arrays for intermediate results of chained transforms. Concatenated transforms need a temporary
+ * array between two steps, and allocating a new one on every call produces many short-lived objects when the
+ * transform is invoked often on small arrays (for example when rendering tiles). This class keeps those arrays
+ * for reuse by subsequent calls in the same thread.
+ *
+ * <p>Since a step may itself be a concatenated transform, buffers are managed as a stack: each call to
+ * {@link #acquire(int)} returns an array which is not used by any caller higher in the stack of the current
+ * thread. The {@link #release()} method <strong>must</strong> be invoked in a {@code try ... finally} block:</p>
+ *
+ * {@preformat java
+ *     final ScratchBuffer scratch = ScratchBuffer.current();
+ *     final double[] buffer = scratch.acquire(length);
+ *     try {
+ *         // Use the buffer here.
+ *     } finally {
+ *         scratch.release();
+ *     }
+ * }
+ *
+ * Arrays are sized according to the requested lengths, and are never larger than
+ * {@value AbstractMathTransform#MAXIMUM_BUFFER_SIZE} elements except for requests exceeding that size,
+ * which are allocated on every call (this happen only when a single point, or the whole data in case of
+ * overlapping source and target arrays, does not fit in the maximum buffer size). Arrays which are not
+ * in use are only weakly referenced, so the garbage collector can reclaim the arrays of idle threads.
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class ScratchBuffer {
+    /**
+     * The buffers of each thread.
+     */
+    private static final ThreadLocal<ScratchBuffer> BUFFERS = new ThreadLocal<>();
+
+    /**
+     * The arrays available for reuse, indexed by nesting depth. Elements may be {@code null}
+     * if no array has been requested yet at the corresponding depth.
+     */
+    private WeakReference<double[]>[] arrays;
+
+    /**
+     * Number of arrays currently in use by the current thread.
+     */
+    private int depth;
+
+    /**
+     * Creates an initially empty set of buffers.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private ScratchBuffer() {
+        arrays = new WeakReference[4];
+    }
+
+    /**
+     * Returns the buffers of the current thread.
+     *
+     * @return buffers for use by the current thread only.
+     */
+    static ScratchBuffer current() {
+        ScratchBuffer s = BUFFERS.get();
+        if (s == null) {
+            s = new ScratchBuffer();
+            BUFFERS.set(s);
+        }
+        return s;
+    }
+
+    /**
+     * Returns an array of length equals or greater than the given length.
+     * The array content is undetermined.
+     *
+     * @param  length  minimal length of the requested array.
+     * @return an array of at least the requested length, for exclusive use until {@link #release()}.
+     */
+    double[] acquire(final int length) {
+        if (depth >= arrays.length) {
+            arrays = Arrays.copyOf(arrays, depth * 2);
+        }
+        if (length > AbstractMathTransform.MAXIMUM_BUFFER_SIZE) {
+            depth++;
+            return new double[length];                  // Too large for being cached.
+        }
+        final WeakReference<double[]> ref = arrays[depth];
+        double[] buffer = (ref != null) ? ref.get() : null;
+        if (buffer == null || buffer.length < length) {
+            /*
+             * Grow by at least a factor 2 for avoiding frequent reallocations
+             * when callers request slightly increasing lengths.
+             */
+            int capacity = length;
+            if (buffer != null) {
+                capacity = Math.max(capacity, Math.min(buffer.length * 2, AbstractMathTransform.MAXIMUM_BUFFER_SIZE));
+            }
+            buffer = new double[capacity];
+            arrays[depth] = new WeakReference<>(buffer);
+        }
+        depth++;
+        return buffer;
+    }
+
+    /**
+     * Makes the array returned by the last call to {@link #acquire(int)} available for reuse.
+     */
+    void release() {
+        depth--;
+        assert depth >= 0 : depth;
+    }
+}
@@ -16,16 +16,35 @@
  */
 package org.apache.sis.referencing.factory;
 
+import java.util.Map;
 import java.util.List;
+import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import org.opengis.util.FactoryException;
+import org.opengis.referencing.crs.GeographicCRS;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.datum.Ellipsoid;
+import org.opengis.referencing.datum.GeodeticDatum;
+import org.apache.sis.referencing.crs.HardCodedCRS;
+import org.apache.sis.referencing.datum.HardCodedDatum;
 import org.apache.sis.internal.system.Loggers;
 import org.apache.sis.util.logging.Logging;
 import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.LoggingWatcher;
 import org.apache.sis.test.TestCase;
+import org.junit.After;
+import org.junit.Rule;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -36,7 +55,7 @@ import static org.junit.Assume.assumeTrue;
  * Tests {@link ConcurrentAuthorityFactory}.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 0.8
  * @since   0.7
  * @module
  */
@@ -47,6 +66,21 @@ public final strictfp class ConcurrentAuthorityFactoryTest extends TestCase {
      */
     private static final long TIMEOUT = ConcurrentAuthorityFactory.TIMEOUT_RESOLUTION * 4;
 
+    /**
+     * A JUnit {@link Rule} for listening to log events. This field is public because JUnit requires us to
+     * do so, but should be considered as an implementation details (it should have been a private field).
+     */
+    @Rule
+    public final LoggingWatcher loggings = new LoggingWatcher(Loggers.CRS_FACTORY);
+
+    /**
+     * Verifies that no unexpected warning has been emitted in any test defined in this class.
+     */
+    @After
+    public void assertNoUnexpectedLog() {
+        loggings.assertNoUnexpectedLog();
+    }
+
     /**
      * A concurrent factory which creates new instances of {@link AuthorityFactoryMock}.
      */
@@ -75,6 +109,188 @@ public final strictfp class ConcurrentAuthorityFactoryTest extends TestCase {
     }
 
 
+    /**
+     * Tests {@link AuthoritySnapshot} and its use by {@link ConcurrentAuthorityFactory}.
+     * Objects found in the snapshot shall be returned without creation of Data Access Object.
+     *
+     * @throws FactoryException if an error occurred while creating or restoring an object.
+     * @throws IOException if an error occurred while writing or reading the snapshot file.
+     *
+     * @since 0.8
+     */
+    @Test
+    public void testSnapshot() throws FactoryException, IOException {
+        final Path file = Files.createTempFile("AuthoritySnapshot", ".bin");
+        try {
+            assertEquals("Number of objects written.", 5, AuthoritySnapshot.write(new AuthorityFactoryMock("Mock", null),
+                    file, CoordinateReferenceSystem.class));
+            try (AuthoritySnapshot snapshot = AuthoritySnapshot.open(file)) {
+                assertEquals(5, snapshot.size());
+                assertEquals(HardCodedCRS.WGS84_φλ, snapshot.get(GeographicCRS.class, "4326"));
+                assertNull("Not in snapshot.", snapshot.get(GeodeticDatum.class, "6326"));
+                assertNull("Wrong type.", snapshot.get(Ellipsoid.class, "4326"));
+
+                /*
+                 * The factory needs a DAO for verifying the authority version. Objects found in the snapshot
+                 * are deserialized copies, while objects created by the DAO are the hard-coded constants.
+                 */
+                final Mock factory = new Mock();
+                factory.setSnapshot(snapshot);
+                assertSame(snapshot, factory.getSnapshot());
+                assertEquals("DAO used for verifying the authority.", 1, factory.createdDAOs().size());
+                final GeographicCRS crs = factory.createGeographicCRS("84");
+                assertEquals(HardCodedCRS.WGS84, crs);
+                assertNotSame("Expected an object from the snapshot.", HardCodedCRS.WGS84, crs);
+                assertSame("Expected an object from the DAO.", HardCodedDatum.WGS84, factory.createGeodeticDatum("6326"));
+            }
+            /*
+             * A snapshot created from another version of the authority database shall be ignored.
+             */
+            AuthoritySnapshot.write(new AuthorityFactoryMock("Mock", "2"), file, CoordinateReferenceSystem.class);
+            try (AuthoritySnapshot snapshot = AuthoritySnapshot.open(file)) {
+                assertFalse(snapshot.isCompatible(new AuthorityFactoryMock("Mock", null).getAuthority()));
+                assertTrue (snapshot.isCompatible(new AuthorityFactoryMock("Mock", "2" ).getAuthority()));
+                final Mock factory = new Mock();
+                factory.setSnapshot(snapshot);
+                loggings.assertNextLogContains("AuthoritySnapshot", "Mock 2");
+                assertNull("Incompatible snapshot shall be ignored.", factory.getSnapshot());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests the rejection of snapshot files having an unexpected type name or type index.
+     *
+     * @throws FactoryException if an error occurred while creating an object.
+     * @throws IOException if an error occurred while writing or modifying the snapshot file.
+     *
+     * @since 0.8
+     */
+    @Test
+    @DependsOnMethod("testSnapshot")
+    public void testCorruptedSnapshot() throws FactoryException, IOException {
+        final Path file = Files.createTempFile("AuthoritySnapshot", ".bin");
+        try {
+            AuthoritySnapshot.write(new AuthorityFactoryMock("Mock", null), file, CoordinateReferenceSystem.class);
+            final byte[] content = Files.readAllBytes(file);
+            /*
+             * Locate the type name and the type index of the first entry in the index at the end of the file.
+             */
+            final int start = (int) ByteBuffer.wrap(content).getLong(8);
+            final ByteArrayInputStream bytes = new ByteArrayInputStream(content, start, content.length - start);
+            final DataInputStream in = new DataInputStream(bytes);
+            in.readUTF();                                               // Apache SIS version.
+            in.readUTF();                                               // Authority version.
+            assertEquals("Number of types.", 1, in.readInt());
+            final int typeName = content.length - bytes.available() + 2;     // Skip the UTF length.
+            assertEquals(CoordinateReferenceSystem.class.getName(), in.readUTF());
+            in.readInt();                                               // Number of entries.
+            in.readUTF();                                               // Code of first entry.
+            final int typeIndex = content.length - bytes.available();
+            /*
+             * A type index out of bounds, and a type name which is not accepted for deserialization.
+             */
+            content[typeIndex] = 1;
+            assertUnreadable(file, content);
+            content[typeIndex] = 0;
+            final byte[] replacement = "com.example".getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(replacement, 0, content, typeName, replacement.length);
+            assertUnreadable(file, content);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Writes the given content in the given file and verifies that {@link AuthoritySnapshot} rejects it.
+     */
+    private static void assertUnreadable(final Path file, final byte[] content) throws IOException {
+        Files.write(file, content);
+        try {
+            AuthoritySnapshot.open(file).close();
+            fail("Expected an exception.");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(file.getFileName().toString()));
+        }
+    }
+
+    /**
+     * Tests the list of classes accepted by {@link AuthoritySnapshot} during deserialization.
+     *
+     * @since 0.8
+     */
+    @Test
+    public void testSnapshotAcceptedClasses() {
+        assertTrue (AuthoritySnapshot.isAccepted("org.apache.sis.referencing.crs.DefaultGeographicCRS"));
+        assertTrue (AuthoritySnapshot.isAccepted("org.opengis.referencing.cs.AxisDirection"));
+        assertTrue (AuthoritySnapshot.isAccepted("java.lang.String"));
+        assertTrue (AuthoritySnapshot.isAccepted("java.util.Collections$UnmodifiableSet"));
+        assertTrue (AuthoritySnapshot.isAccepted("java.net.URI"));
+        assertTrue (AuthoritySnapshot.isAccepted("javax.measure.quantity.Length"));
+        assertTrue (AuthoritySnapshot.isAccepted("[D"));
+        assertTrue (AuthoritySnapshot.isAccepted("[[Lorg.apache.sis.measure.Units;"));
+        assertFalse(AuthoritySnapshot.isAccepted("java.lang.reflect.Proxy"));
+        assertFalse(AuthoritySnapshot.isAccepted("java.util.concurrent.ConcurrentHashMap"));
+        assertFalse(AuthoritySnapshot.isAccepted("[Ljava.net.URL;"));
+        assertFalse(AuthoritySnapshot.isAccepted("com.example.Gadget"));
+    }
+
+    /**
+     * Tests {@link ConcurrentAuthorityFactory#createCoordinateReferenceSystems(java.util.Collection)}.
+     * The objects shall be returned in iteration order and be the same instances than the cached ones.
+     *
+     * @throws FactoryException if an error occurred while creating an object.
+     *
+     * @since 0.8
+     */
+    @Test
+    public void testCreateCoordinateReferenceSystems() throws FactoryException {
+        final Mock factory = new Mock();
+        final Map<String,CoordinateReferenceSystem> crs = factory.createCoordinateReferenceSystems(
+                Arrays.asList("4326", "5714", "84", "4326"));
+        assertArrayEquals(new String[] {"4326", "5714", "84"}, crs.keySet().toArray());
+        assertEquals(HardCodedCRS.WGS84_φλ,               crs.get("4326"));
+        assertEquals(HardCodedCRS.GRAVITY_RELATED_HEIGHT, crs.get("5714"));
+        assertEquals(HardCodedCRS.WGS84,                  crs.get("84"));
+        assertEquals("Expected a single DAO.", 1, factory.createdDAOs().size());
+        assertSame("Expected the cached instance.", crs.get("5714"), factory.createCoordinateReferenceSystem("5714"));
+    }
+
+    /**
+     * Tests {@link ConcurrentAuthorityFactory#setPoolSize(int, int)} and
+     * {@link ConcurrentAuthorityFactory#prestartDataAccess()}. The minimal amount
+     * of Data Access Objects shall be created in advance and kept after the timeout.
+     *
+     * @throws FactoryException if an error occurred while creating an object.
+     * @throws InterruptedException if the test has been interrupted.
+     *
+     * @since 0.8
+     */
+    @Test
+    public void testPoolSize() throws FactoryException, InterruptedException {
+        final Mock factory = new Mock();
+        factory.setPoolSize(2, 4);
+        assertEquals("minimum", 2, factory.getMinimumPoolSize());
+        assertEquals("maximum", 4, factory.getMaximumPoolSize());
+        assertEquals("Expected two new DAOs.", 2, factory.prestartDataAccess());
+        assertEquals("Minimum already reached.", 0, factory.prestartDataAccess());
+        assertEquals(2, factory.countAvailableDataAccess());
+        assertNotNull(factory.createObject("84"));
+        assertEquals("Should reuse a prestarted DAO.", 2, factory.createdDAOs().size());
+
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(TIMEOUT + 2 * ConcurrentAuthorityFactory.TIMEOUT_RESOLUTION));
+        factory.closeExpired();
+        assertEquals("Minimal amount of DAOs shall be kept.", 2, factory.countAvailableDataAccess());
+        for (final AuthorityFactoryMock dao : factory.createdDAOs()) {
+            assertFalse("Should not be disposed.", dao.isClosed());
+        }
+        assertEquals("queueLength", 0, factory.getQueueLength());
+        assertEquals("waitCount",   0, factory.getWaitCount());
+        factory.close();
+    }
+
     /**
      * Tests the disposal of Data Access Objects (DAO) after the timeout.
      *
@@ -20,8 +20,12 @@ import java.util.Map;
 import java.util.Set;
 import java.util.List;
 import java.util.Locale;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.Iterator;
 import java.util.Collections;
+import java.util.Collection;
 import javax.measure.Unit;
 import org.opengis.metadata.extent.GeographicBoundingBox;
 import org.opengis.parameter.ParameterDescriptor;
@@ -453,6 +457,54 @@ public final strictfp class EPSGFactoryTest extends TestCase {
         assertSame("CRS shall be cached", crs, factory.createCoordinateReferenceSystem("7400"));
     }
 
+    /**
+     * Tests {@link EPSGFactory#createCoordinateReferenceSystems(Collection)} with a mix of geographic,
+     * projected and compound CRS. The number of codes is greater than {@link EPSGDataAccess#MAXIMUM_BATCH_SIZE}
+     * in order to test the split of the request in many queries. The CRS shall be equal, aliases included,
+     * to the ones created one by one. A request containing an unknown code shall fail.
+     *
+     * @throws FactoryException if an error occurred while querying the factory.
+     */
+    @Test
+    @DependsOnMethod({"testProjected", "testCompound"})
+    public void testCreateCoordinateReferenceSystems() throws FactoryException {
+        final EPSGFactory factory = GIGS2001.factory;
+        assumeNotNull(factory);
+        final List<String> codes = new ArrayList<>();
+        Collections.addAll(codes, "4326", "EPSG:4230", "4993", "4807", "7400");
+        for (int zone = 1; zone <= 60; zone++) {
+            codes.add(String.valueOf(32600 + zone));        // WGS 84 / UTM zone <zone>N
+            codes.add(String.valueOf(32700 + zone));        // WGS 84 / UTM zone <zone>S
+        }
+        codes.add("4326");                                  // Duplicated code shall be ignored.
+        assertTrue(codes.size() > EPSGDataAccess.MAXIMUM_BATCH_SIZE);
+
+        final Map<String,CoordinateReferenceSystem> batch = factory.createCoordinateReferenceSystems(codes);
+        assertArrayEquals("keys", new LinkedHashSet<>(codes).toArray(), batch.keySet().toArray());
+        try (EPSGDataAccess dao = factory.newDataAccess()) {
+            for (final Map.Entry<String,CoordinateReferenceSystem> entry : batch.entrySet()) {
+                final String code = entry.getKey();
+                final CoordinateReferenceSystem crs = entry.getValue();
+                final CoordinateReferenceSystem expected = dao.createCoordinateReferenceSystem(code);
+                assertEquals(code, expected, crs);
+                assertEquals(code, expected.getAlias(), crs.getAlias());
+                assertSame("CRS shall be cached", crs, factory.createCoordinateReferenceSystem(code));
+            }
+        }
+        assertInstanceOf("EPSG:4230",  GeographicCRS.class, batch.get("EPSG:4230"));
+        assertInstanceOf("EPSG:32631", ProjectedCRS .class, batch.get("32631"));
+        assertInstanceOf("EPSG:7400",  CompoundCRS  .class, batch.get("7400"));
+        /*
+         * Unknown code mixed with codes not yet in the cache ("RGF93" and "RGF93 / Lambert-93").
+         */
+        try {
+            factory.createCoordinateReferenceSystems(Arrays.asList("4171", "2154", "9999999"));
+            fail("Expected NoSuchAuthorityCodeException.");
+        } catch (NoSuchAuthorityCodeException e) {
+            assertEquals("9999999", e.getAuthorityCode());
+        }
+    }
+
     /**
      * Tests creation of deprecated coordinate systems.
      *
@@ -42,6 +42,9 @@ import org.apache.sis.referencing.operation.transform.MathTransformFactoryMock;
  * <p><b>Usage:</b> modify the provider created in the {@code main} method if needed, and run. Change map projection
  * implementation (for example by changing a {@code ALLOW_TRIGONOMETRIC_IDENTITIES} flag value) and run again.</p>
  *
+ * <p>This class is for quick experiments during development. Performance regressions between releases
+ * are tracked by the JMH benchmarks in the {@code sis-benchmarks} module instead.</p>
+ *
  * @author  Martin Desruisseaux (Geomatys)
  * @version 0.8
  * @since   0.8
@@ -16,12 +16,15 @@
  */
 package org.apache.sis.referencing.operation.transform;
 
+import java.util.Arrays;
+import java.util.Random;
 import org.opengis.util.FactoryException;
 import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.TransformException;
 import org.apache.sis.internal.referencing.j2d.AffineTransform2D;
 import org.apache.sis.referencing.operation.matrix.Matrix4;
 import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.TestUtilities;
 import org.junit.Test;
 
 import static org.opengis.test.Assert.*;
@@ -31,7 +34,7 @@ import static org.opengis.test.Assert.*;
  * Tests the {@link ConcatenatedTransform} class.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 0.8
  * @since   0.5
  * @module
  */
@@ -149,4 +152,96 @@ public final strictfp class ConcatenatedTransformTest extends MathTransformTestC
         assertEquals("Source dimensions", 3, transform.getSourceDimensions());
         assertEquals("Target dimensions", 4, transform.getTargetDimensions());
     }
+
+    /**
+     * Tests the transformation of an array larger than {@link ConcatenatedTransformDirect#BLOCK_SIZE},
+     * which is transformed by blocks. This test uses separated arrays, then the same array with
+     * overlapping regions requiring iteration in ascending or descending order.
+     *
+     * @throws TransformException if an error occurred while transforming the test coordinates.
+     */
+    @Test
+    public void testBlockedTransform() throws TransformException {
+        final MathTransform first  = new PseudoTransform(2, 2);
+        final MathTransform second = new PseudoTransform(2, 2);
+        transform = new ConcatenatedTransformDirect(first, second);
+        final int numPts = ConcatenatedTransformDirect.BLOCK_SIZE * 2 + 17;
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final double[] source = new double[numPts * 2];
+        for (int i=0; i<source.length; i++) {
+            source[i] = random.nextDouble();
+        }
+        final double[] expected = new double[source.length];
+        first .transform(source,   0, expected, 0, numPts);
+        second.transform(expected, 0, expected, 0, numPts);
+        final double[] target = new double[source.length];
+        transform.transform(source, 0, target, 0, numPts);
+        assertArrayEquals(expected, target, 0);
+        /*
+         * Same array with shifted regions. The shifts are in number of ordinates. Small shifts overlap
+         * inside a block, while the large one overlaps only with a subsequent or previous block.
+         */
+        final int margin = ConcatenatedTransformDirect.BLOCK_SIZE + 10;
+        for (final int shift : new int[] {0, -6, 6, -margin, margin}) {
+            final double[] array = new double[source.length + 2*margin];
+            System.arraycopy(source, 0, array, margin, source.length);
+            transform.transform(array, margin, array, margin + shift, numPts);
+            assertArrayEquals(expected, Arrays.copyOfRange(array, margin + shift, margin + shift + source.length), 0);
+        }
+    }
+
+    /**
+     * Tests a chain of transforms requiring intermediate buffers, including nested concatenations.
+     * After a warm-up, repeated transformations shall not allocate any object: the intermediate
+     * buffers shall be reused from one call to the next.
+     *
+     * @throws TransformException if an error occurred while transforming the test coordinates.
+     */
+    @Test
+    public void testBufferReuse() throws TransformException {
+        final MathTransform[] steps = {
+            new PseudoTransform(2, 4), new PseudoTransform(4, 3),
+            new PseudoTransform(3, 5), new PseudoTransform(5, 2)
+        };
+        transform = new ConcatenatedTransform(new ConcatenatedTransform(steps[0], steps[1]),
+                                              new ConcatenatedTransform(steps[2], steps[3]));
+        final int numPts = 1000;                            // Large enough for requiring many passes.
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final double[] source = new double[numPts * 2];
+        for (int i=0; i<source.length; i++) {
+            source[i] = random.nextDouble();
+        }
+        /*
+         * Compute the expected values by applying each step on an array large enough for all dimensions.
+         */
+        final double[] expected = new double[numPts * 5];
+        System.arraycopy(source, 0, expected, 0, source.length);
+        for (final MathTransform step : steps) {
+            final double[] result = new double[expected.length];
+            step.transform(expected, 0, result, 0, numPts);
+            System.arraycopy(result, 0, expected, 0, result.length);
+        }
+        final double[] target = new double[numPts * 2];
+        final double[] point  = new double[2];
+        for (int i=0; i<10; i++) {                          // Warm-up before to measure allocations.
+            transform.transform(source, 0, target, 0, numPts);
+            transform.transform(source, 0, point, 0, 1);
+        }
+        assertArrayEquals(Arrays.copyOf(expected, target.length), target, 0);
+        assertArrayEquals(Arrays.copyOf(expected, 2), point, 0);
+        /*
+         * Measure the memory allocated by repeated transformations. The measurement itself allocates
+         * a few hundred bytes, so we check that the amount per iteration is less than one byte.
+         * Without buffer reuse, each iteration would allocate at least 4 kb.
+         */
+        final int iterations = 2000;
+        final long start = TestUtilities.allocatedBytes();
+        for (int i=0; i<iterations; i++) {
+            transform.transform(source, 0, target, 0, numPts);
+            transform.transform(source, 0, point, 0, 1);
+        }
+        final long allocated = TestUtilities.allocatedBytes() - start;
+        assertTrue("Unexpected allocation of " + allocated + " bytes.", allocated < iterations);
+        assertArrayEquals(Arrays.copyOf(expected, target.length), target, 0);
+    }
 }
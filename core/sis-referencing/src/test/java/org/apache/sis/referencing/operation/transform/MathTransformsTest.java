@@ -17,7 +17,10 @@
 package org.apache.sis.referencing.operation.transform;
 
 import java.util.List;
+import java.util.Arrays;
+import java.util.Random;
 import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
 import org.apache.sis.referencing.operation.matrix.Matrices;
 import org.apache.sis.referencing.operation.matrix.Matrix2;
 import org.apache.sis.referencing.operation.matrix.Matrix3;
@@ -32,7 +35,7 @@ import static org.apache.sis.test.Assert.*;
  * Tests {@link MathTransforms}.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.6
+ * @version 0.8
  * @since   0.5
  * @module
  */
@@ -120,4 +123,64 @@ public final strictfp class MathTransformsTest extends TestCase {
             0,  0,  0,  0,  0,  0,  1
         }), MathTransforms.getMatrix(r), STRICT);
     }
+
+    /**
+     * Tests {@link MathTransforms#transformInParallel(MathTransform, double[], int, double[], int, int, int)}.
+     * The result shall be the same than a sequential transformation, including when the source and target
+     * regions overlap in the same array.
+     *
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testTransformInParallel() throws TransformException {
+        final MathTransform tr = createConcatenateAndPassThrough();
+        final int numPts = 1000;
+        final Random random = new Random(7406853284619240473L);
+        final double[] source = new double[numPts * 3];
+        for (int i=0; i<source.length; i++) {
+            source[i] = random.nextDouble() * 10;
+        }
+        final double[] expected = new double[source.length];
+        tr.transform(source, 0, expected, 0, numPts);
+        /*
+         * Separated source and target arrays.
+         */
+        final double[] actual = new double[source.length];
+        MathTransforms.transformInParallel(tr, source, 0, actual, 0, numPts, 10);
+        assertArrayEquals(expected, actual, STRICT);
+        /*
+         * Same array with overlapping regions, with target before and after source.
+         */
+        for (final int shift : new int[] {-7, 0, 7}) {
+            final double[] array = new double[source.length + 20];
+            final int srcOff = 10;
+            System.arraycopy(source, 0, array, srcOff, source.length);
+            MathTransforms.transformInParallel(tr, array, srcOff, array, srcOff + shift, numPts, 10);
+            assertArrayEquals(expected, Arrays.copyOfRange(array, srcOff + shift, srcOff + shift + expected.length), STRICT);
+        }
+    }
+
+    /**
+     * Tests {@link MathTransforms#transformInParallel(MathTransform, float[], int, float[], int, int, int)}
+     * with a transform having a target dimension greater than the source dimension, in the same array.
+     *
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testTransformFloatsInParallel() throws TransformException {
+        final MathTransform tr = MathTransforms.linear(Matrices.create(4, 3, new double[] {
+            2, 0,  3,
+            0, 4, -1,
+            1, 1,  0,
+            0, 0,  1}));
+        final int numPts = 500;
+        final float[] array = new float[numPts * 3];
+        for (int i=0; i<numPts*2; i++) {
+            array[i] = i;
+        }
+        final float[] expected = new float[array.length];
+        tr.transform(array, 0, expected, 0, numPts);
+        MathTransforms.transformInParallel(tr, array, 0, array, 0, numPts, 16);
+        assertArrayEquals(expected, array, (float) STRICT);
+    }
 }
@@ -33,6 +33,11 @@ public interface Spliterator<T> {
      */
     int ORDERED = 0x10;
 
+    /**
+     * Flag for iterators that know the exact number of values before the iteration.
+     */
+    int SIZED = 0x40;
+
     /**
      * Flag for iterators that do not return null values.
      */
@@ -43,6 +48,11 @@ public interface Spliterator<T> {
      */
     int IMMUTABLE  = 0x400;
 
+    /**
+     * Flag telling that all iterators created by {@link #trySplit()} are {@link #SIZED}.
+     */
+    int SUBSIZED = 0x4000;
+
     /**
      * Performs the given action on it on the next element, if it exists.
      *
@@ -17,9 +17,16 @@
 package org.apache.sis.internal.jdk8;
 
 import java.util.List;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.apache.sis.internal.system.CommonExecutor;
+import org.apache.sis.util.collection.BackingStoreException;
 
 
 /**
@@ -38,11 +45,17 @@ public final class Stream<T> implements AutoCloseable {
      */
     private final List<Runnable> closeHandlers = new LinkedList<>();
 
+    /**
+     * Whether the {@code forEach} methods may process the elements in parallel.
+     */
+    private boolean parallel;
+
     /**
      * Wraps the given iterator.
      */
-    Stream(final Spliterator<T> it) {
+    Stream(final Spliterator<T> it, final boolean parallel) {
         this.it = it;
+        this.parallel = parallel;
     }
 
     /**
@@ -65,12 +78,129 @@ public final class Stream<T> implements AutoCloseable {
      * @param  action  a non-interfering action to perform on the elements.
      */
     public void forEachOrdered(final Consumer<? super T> action) {
+        if (parallel) {
+            forEachParallel(action, true);
+            return;
+        }
         final Iterator<T> it = iterator();
         while (it.hasNext()) {
             action.accept(it.next());
         }
     }
 
+    /**
+     * Performs an action for each element of this stream, in no particular order.
+     * If this stream is parallel, then the action may be executed concurrently in different threads.
+     *
+     * @param  action  a non-interfering action to perform on the elements.
+     */
+    public void forEach(final Consumer<? super T> action) {
+        if (parallel) {
+            forEachParallel(action, false);
+        } else {
+            it.forEachRemaining(action);
+        }
+    }
+
+    /**
+     * Returns an equivalent stream that is parallel.
+     *
+     * @return a parallel stream.
+     */
+    public Stream<T> parallel() {
+        parallel = true;
+        return this;
+    }
+
+    /**
+     * Returns an equivalent stream that is sequential.
+     *
+     * @return a sequential stream.
+     */
+    public Stream<T> sequential() {
+        parallel = false;
+        return this;
+    }
+
+    /**
+     * Returns whether the {@code forEach} methods may process the elements in parallel.
+     *
+     * @return whether this stream is parallel.
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Performs an action for each element of this stream, processing the chunks created by
+     * {@link Spliterator#trySplit()} in the common executor. The number of chunks in progress
+     * is bounded in order to avoid loading all elements in memory if the split iterator reads
+     * its chunks from a sequential source. If {@code ordered} is {@code true}, the elements of
+     * each chunk are collected in a list and the action is executed in the current thread in
+     * the encounter order.
+     */
+    private void forEachParallel(final Consumer<? super T> action, final boolean ordered) {
+        final ForkJoinPool executor = CommonExecutor.instance();
+        final int maxPending = 2 * CommonExecutor.parallelism();
+        final LinkedList<Future<List<T>>> pending = new LinkedList<>();
+        try {
+            Spliterator<T> chunk;
+            while ((chunk = it.trySplit()) != null) {
+                final Spliterator<T> prefix = chunk;
+                pending.add(executor.submit(new Callable<List<T>>() {
+                    @Override public List<T> call() {
+                        if (!ordered) {
+                            prefix.forEachRemaining(action);
+                            return null;
+                        }
+                        final List<T> elements = new ArrayList<>();
+                        prefix.forEachRemaining(new Consumer<T>() {
+                            @Override public void accept(final T element) {
+                                elements.add(element);
+                            }
+                        });
+                        return elements;
+                    }
+                }));
+                if (pending.size() >= maxPending) {
+                    deliver(pending.removeFirst().get(), action);
+                }
+            }
+            if (ordered) {
+                while (!pending.isEmpty()) {
+                    deliver(pending.removeFirst().get(), action);
+                }
+            }
+            it.forEachRemaining(action);
+            while (!pending.isEmpty()) {
+                deliver(pending.removeFirst().get(), action);
+            }
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error)            throw (Error) cause;
+            throw new BackingStoreException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BackingStoreException(e);
+        } finally {
+            for (final Future<List<T>> task : pending) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Executes the given action on all elements collected by a task, if any.
+     */
+    private static <T> void deliver(final List<T> elements, final Consumer<? super T> action) {
+        if (elements != null) {
+            for (final T element : elements) {
+                action.accept(element);
+            }
+        }
+    }
+
     /**
      * Returns an iterator for this stream elements.
      *
@@ -34,11 +34,11 @@ public final class StreamSupport {
      *
      * @param   <T>       type of values.
      * @param   it        the iterator to wrap.
-     * @param   parallel  ignored.
+     * @param   parallel  whether the {@code forEach} methods may process the elements in parallel.
      * @return  given iterator wrapped in a stream.
      */
     public static <T> Stream<T> stream(final Spliterator<T> it, boolean parallel) {
         Objects.requireNonNull(it);
-        return new Stream<>(it);
+        return new Stream<>(it, parallel);
     }
 }
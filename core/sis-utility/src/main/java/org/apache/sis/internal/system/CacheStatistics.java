@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.system;
+
+import java.util.Map;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Collection;
+import java.lang.ref.WeakReference;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.collection.Cache;
+import org.apache.sis.util.collection.TreeTable;
+import org.apache.sis.util.collection.DefaultTreeTable;
+import org.apache.sis.util.collection.WeakValueHashMap;
+
+import static org.apache.sis.util.collection.TableColumn.NAME;
+import static org.apache.sis.util.collection.TableColumn.VALUE_AS_TEXT;
+
+
+/**
+ * Registry of the caches and pools for which statistics can be reported by the {@link Supervisor}.
+ * Caches are registered by the code creating them, typically in a static initializer or in a factory constructor.
+ * This class keeps only weak references to the caches, so registration does not prevent garbage collection.
+ *
+ * <p>The statistics reported for each cache depend on the cache type:</p>
+ * <ul>
+ *   <li>For {@link Cache}: size, hits, misses, evictions, garbage-collected values and load time.</li>
+ *   <li>For {@link WeakValueHashMap}: size, hits, misses and garbage-collected values.</li>
+ *   <li>For other maps or collections (e.g. {@link org.apache.sis.util.collection.WeakHashSet}): size only.</li>
+ * </ul>
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final class CacheStatistics {
+    /**
+     * All caches registered so far. Elements are removed when their cache has been garbage-collected.
+     * All accesses to this list shall be synchronized on {@code CACHES}.
+     */
+    private static final List<Registered> CACHES = new ArrayList<>();
+
+    /**
+     * A weak reference to a registered cache, together with the name of that cache.
+     */
+    private static final class Registered extends WeakReference<Object> {
+        /** The name under which the cache has been registered. */
+        final String name;
+
+        /** Creates a new reference to the given cache. */
+        Registered(final String name, final Object cache) {
+            super(cache);
+            this.name = name;
+        }
+    }
+
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private CacheStatistics() {
+    }
+
+    /**
+     * Registers the given cache for inclusion in the statistics reported by the {@link Supervisor}.
+     * The name should be human-readable, for example the simple name of the class declaring the cache
+     * followed by the field name. Many caches may be registered under the same name.
+     *
+     * @param  name   a human-readable name for the cache.
+     * @param  cache  the {@link Cache}, {@link WeakValueHashMap}, or any other map or collection to monitor.
+     */
+    public static void register(final String name, final Object cache) {
+        ArgumentChecks.ensureNonNull("name",  name);
+        ArgumentChecks.ensureNonNull("cache", cache);
+        synchronized (CACHES) {
+            removeCollected();
+            CACHES.add(new Registered(name, cache));
+        }
+    }
+
+    /**
+     * Removes the references to caches that have been garbage-collected.
+     * Shall be invoked in a block synchronized on {@link #CACHES}.
+     */
+    private static void removeCollected() {
+        final Iterator<Registered> it = CACHES.iterator();
+        while (it.hasNext()) {
+            if (it.next().get() == null) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the statistics of all registered caches that are still in use.
+     * The root node contains one child per cache, and each cache node contains one child per statistic.
+     *
+     * @return statistics about the registered caches.
+     */
+    public static TreeTable table() {
+        final DefaultTreeTable table = new DefaultTreeTable(NAME, VALUE_AS_TEXT);
+        final TreeTable.Node root = table.getRoot();
+        root.setValue(NAME, "Caches");
+        final Registered[] caches;
+        synchronized (CACHES) {
+            removeCollected();
+            caches = CACHES.toArray(new Registered[CACHES.size()]);
+        }
+        for (final Registered ref : caches) {
+            final Object cache = ref.get();
+            if (cache == null) {
+                continue;
+            }
+            final TreeTable.Node node = root.newChild();
+            node.setValue(NAME, ref.name);
+            if (cache instanceof Map<?,?>) {
+                add(node, "size", ((Map<?,?>) cache).size());
+            } else if (cache instanceof Collection<?>) {
+                add(node, "size", ((Collection<?>) cache).size());
+            }
+            if (cache instanceof Cache<?,?>) {
+                final Cache<?,?> c = (Cache<?,?>) cache;
+                add(node, "hits",            c.getHitCount());
+                add(node, "misses",          c.getMissCount());
+                add(node, "evictions",       c.getEvictionCount());
+                add(node, "collected",       c.getCollectedCount());
+                add(node, "load time (ms)",  c.getTotalLoadTime() / 1000000);
+            } else if (cache instanceof WeakValueHashMap<?,?>) {
+                final WeakValueHashMap<?,?> c = (WeakValueHashMap<?,?>) cache;
+                add(node, "hits",            c.getHitCount());
+                add(node, "misses",          c.getMissCount());
+                add(node, "collected",       c.getCollectedCount());
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Adds a statistic value in the given node.
+     */
+    private static void add(final TreeTable.Node node, final String name, final long value) {
+        final TreeTable.Node child = node.newChild();
+        child.setValue(NAME, name);
+        child.setValue(VALUE_AS_TEXT, String.valueOf(value));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.system;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import org.apache.sis.util.logging.Logging;
+
+
+/**
+ * The pool of worker threads shared by all SIS tasks executed in parallel (bulk coordinate operations,
+ * decoding of raster tiles, <i>etc.</i>). This pool is a placeholder for {@code ForkJoinPool.commonPool()},
+ * which is not available on JDK7. Contrarily to {@link DelayedExecutor}, the tasks submitted to this pool
+ * may be long.
+ *
+ * <p>Tasks may read local files, which is how data stores decode features or rasters in parallel.
+ * The preferred way is to read a memory-mapped buffer (shapefile records, GPX fragments, raster runs),
+ * in which case blocking is limited to page faults and a number of worker threads equal to the number
+ * of processors is still appropriate. Tasks doing explicit reads on a channel shall execute them inside
+ * {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)}, which allows the pool to temporarily
+ * create a compensating thread. Tasks shall not wait for network resources or for other unbounded delays.</p>
+ *
+ * <p>The pool is created when first needed and shutdown by {@link Shutdown#stop(Class)}.
+ * Its parallelism is the number of available processors.</p>
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final class CommonExecutor implements ForkJoinPool.ForkJoinWorkerThreadFactory, Thread.UncaughtExceptionHandler,
+        Callable<Object>
+{
+    /**
+     * The shared pool, created when first needed.
+     */
+    private static ForkJoinPool pool;
+
+    /**
+     * Number of threads created by this factory, used for assigning thread names.
+     */
+    private int count;
+
+    /**
+     * Creates the singleton factory.
+     */
+    private CommonExecutor() {
+    }
+
+    /**
+     * Returns the pool of worker threads shared by all SIS tasks executed in parallel.
+     *
+     * @return the shared fork-join pool.
+     */
+    public static synchronized ForkJoinPool instance() {
+        if (pool == null) {
+            final CommonExecutor factory = new CommonExecutor();
+            pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), factory, factory, false);
+            Shutdown.register(factory);
+        }
+        return pool;
+    }
+
+    /**
+     * Returns the parallelism of the shared pool, without creating the pool if it does not exist yet.
+     *
+     * @return the number of worker threads that the shared pool may use.
+     */
+    public static int parallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Creates a new worker thread for the shared pool.
+     * This method is public as an implementation side-effect; do not invoke.
+     *
+     * @param  owner  the pool for which to create a thread.
+     * @return the new worker thread.
+     */
+    @Override
+    public synchronized ForkJoinWorkerThread newThread(final ForkJoinPool owner) {
+        final ForkJoinWorkerThread thread = new ForkJoinWorkerThread(owner) {};
+        thread.setName("SIS worker #" + (++count));
+        return thread;
+    }
+
+    /**
+     * Logs an exception thrown by a task which did not handle it.
+     * This method is public as an implementation side-effect; do not invoke.
+     *
+     * @param  thread     the thread which was executing the task.
+     * @param  exception  the exception thrown by the task.
+     */
+    @Override
+    public void uncaughtException(final Thread thread, final Throwable exception) {
+        Logging.severeException(Logging.getLogger(Loggers.SYSTEM), CommonExecutor.class, "run", exception);
+    }
+
+    /**
+     * Shutdowns the pool and waits a short time for the running tasks to complete.
+     * This method is invoked by {@link Shutdown} and shall not be invoked directly.
+     *
+     * @return {@code null}.
+     * @throws InterruptedException if interrupted while waiting for the tasks to complete.
+     */
+    @Override
+    public Object call() throws InterruptedException {
+        final ForkJoinPool p;
+        synchronized (CommonExecutor.class) {
+            p = pool;
+            pool = null;
+        }
+        if (p != null) {
+            p.shutdown();
+            p.awaitTermination(4, TimeUnit.SECONDS);
+        }
+        return null;
+    }
+}
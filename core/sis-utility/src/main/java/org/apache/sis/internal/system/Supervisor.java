@@ -50,7 +50,7 @@ import org.apache.sis.util.collection.TreeTable;
  * eventually perform some operations like clearing a cache.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 0.8
  * @since   0.3
  * @module
  */
@@ -209,6 +209,16 @@ public final class Supervisor extends StandardMBean implements SupervisorMBean {
         return About.configuration(sections, locale, timezone);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @see CacheStatistics#register(String, Object)
+     */
+    @Override
+    public TreeTable caches() {
+        return CacheStatistics.table();
+    }
+
     /**
      * {@inheritDoc}
      */
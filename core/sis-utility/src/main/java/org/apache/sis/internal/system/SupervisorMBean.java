@@ -27,7 +27,7 @@ import org.apache.sis.util.collection.TreeTable;
  * Provides information about the state of a running Apache SIS instance.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 0.8
  * @since   0.3
  * @module
  */
@@ -46,6 +46,17 @@ public interface SupervisorMBean {
      */
     TreeTable configuration(EnumSet<About> sections, Locale locale, TimeZone timezone);
 
+    /**
+     * Returns statistics about the caches and pools used by Apache SIS. For each cache, the statistics
+     * include the number of elements and, when available, the number of cache hits, cache misses,
+     * evictions, values reclaimed by the garbage collector and the time spent in computing new values.
+     *
+     * @return cache statistics, as a tree with one node per cache.
+     *
+     * @since 0.8
+     */
+    TreeTable caches();
+
     /**
      * If there is something wrong with the current Apache SIS status,
      * returns descriptions of the problems. Otherwise returns {@code null}.
@@ -24,6 +24,8 @@ import java.util.LinkedHashMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.ReentrantLock;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
@@ -31,8 +33,6 @@ import java.lang.ref.SoftReference;
 import org.apache.sis.util.Disposable;
 import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.resources.Errors;
-import org.apache.sis.internal.system.DelayedRunnable;
-import org.apache.sis.internal.system.DelayedExecutor;
 import org.apache.sis.internal.system.ReferenceQueueConsumer;
 
 // Branch-dependent imports
@@ -122,6 +122,23 @@ import org.apache.sis.internal.jdk8.Supplier;
  * overridden, then the total cost is the maximal amount of values to keep by strong references.
  *
  *
+ * <div class="section">Concurrency</div>
+ *
+ * Values are stored in a {@link ConcurrentHashMap}, so lookups for values that are already cached
+ * do not acquire any lock. The bookkeeping of recently used entries and of their costs is not done
+ * immediately on each access. Instead, accesses are recorded in small lock-free buffers which are
+ * drained in batches by whichever thread succeeds in acquiring the lock on the bookkeeping structures
+ * without waiting. Consequently the replacement of strong references by weak or soft references may
+ * happen slightly after the cost limit has been exceeded. Recording of read accesses is lossy: under
+ * heavy contention some accesses may be ignored, in which case the order of eviction is only an
+ * approximation of the least-recently used order.
+ *
+ * <p>The number of cache hits, cache misses and evictions can be obtained by {@link #getHitCount()},
+ * {@link #getMissCount()} and {@link #getEvictionCount()}. The time spent in computing new values
+ * and the number of values reclaimed by the garbage collector are given by {@link #getTotalLoadTime()}
+ * and {@link #getCollectedCount()}.</p>
+ *
+ *
  * <div class="section">Circular dependencies</div>
  *
  * This implementation assumes that there is no circular dependencies (or cyclic graph) between
@@ -130,7 +147,7 @@ import org.apache.sis.internal.jdk8.Supplier;
  * <var>A</var>. If this rule is not meet, deadlock may occur randomly.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.4
+ * @version 0.8
  *
  * @param <K>  the type of key objects.
  * @param <V>  the type of value objects.
@@ -149,19 +166,68 @@ public class Cache<K,V> extends AbstractMap<K,V> {
     /**
      * The keys of values that are retained in the {@linkplain #map} by strong references,
      * together with an estimation of their cost. This map is <strong>not</strong> thread
-     * safe. For this reason, it must be used by a single thread at a given time, even
-     * for read-only operations.
+     * safe. For this reason, it must be used only by the thread holding {@link #costsLock},
+     * even for read-only operations.
      *
      * <p>Entries in this map are ordered from least-recently accessed to most-recently accessed.</p>
      */
     private final Map<K,Integer> costs;
 
     /**
-     * The sum of all values in the {@link #costs} map. This field must be used in the
-     * same thread than {@link #costs}.
+     * The sum of all values in the {@link #costs} map. This field must be used only
+     * by the thread holding {@link #costsLock}.
      */
     private long totalCost;
 
+    /**
+     * The lock to hold when using {@link #costs} and {@link #totalCost}.
+     * This lock is acquired with {@link ReentrantLock#tryLock()} by the threads
+     * which {@linkplain #drain() drain} the buffers of pending tasks.
+     */
+    private final ReentrantLock costsLock;
+
+    /**
+     * Number of slots in the {@link #pendingTasks} and {@link #recentReads} buffers.
+     * Must be a power of 2.
+     */
+    private static final int BUFFER_SIZE = 32;
+
+    /**
+     * Tasks to execute on the {@link #costs} map after a value held by strong reference has been stored in
+     * or removed from the cache. Threads add tasks in empty slots with compare-and-set operations and do not
+     * wait for their execution. Tasks are removed only by the thread holding {@link #costsLock}. Those tasks
+     * can not be lost, otherwise the cost of some values would not be taken in account.
+     */
+    private final AtomicReferenceArray<Runnable> pendingTasks;
+
+    /**
+     * Number of non-null elements in {@link #pendingTasks}.
+     */
+    private final AtomicInteger pendingCount;
+
+    /**
+     * Keys of values recently read by strong references, to be moved at the end of the {@link #costs} map
+     * in order to keep an approximation of least-recently used order. Contrarily to {@link #pendingTasks},
+     * keys are discarded if the slot for the current thread is already occupied.
+     */
+    private final AtomicReferenceArray<Object> recentReads;
+
+    /**
+     * Counters for cache hits, cache misses, evictions, garbage-collected values and load time.
+     *
+     * @see #HIT
+     * @see #MISS
+     * @see #EVICTION
+     * @see #COLLECTED
+     * @see #LOAD_TIME
+     */
+    private final StripedCounters counters;
+
+    /**
+     * Index of counters in {@link #counters}.
+     */
+    private static final int HIT = 0, MISS = 1, EVICTION = 2, COLLECTED = 3, LOAD_TIME = 4;
+
     /**
      * The maximal cost allowed. If the {@link #totalCost} is above that limit, then the eldest
      * strong references will be replaced by {@linkplain Reference weak or soft references}.
@@ -217,6 +283,11 @@ public class Cache<K,V> extends AbstractMap<K,V> {
         this.costs      = new LinkedHashMap<>((int) Math.min(initialCapacity, costLimit), 0.75f, true);
         this.costLimit  = costLimit;
         this.soft       = soft;
+        costsLock       = new ReentrantLock();
+        pendingTasks    = new AtomicReferenceArray<>(BUFFER_SIZE);
+        pendingCount    = new AtomicInteger();
+        recentReads     = new AtomicReferenceArray<>(BUFFER_SIZE);
+        counters        = new StripedCounters(5);
     }
 
     /**
@@ -227,7 +298,7 @@ public class Cache<K,V> extends AbstractMap<K,V> {
         map.clear();
         /*
          * Do not update "costs" and "totalCost". Instead let adjustReferences(…)
-         * do its job, which needs to be done in a different thread.
+         * do its job, which will be done the next time that the buffers are drained.
          */
     }
 
@@ -306,7 +377,7 @@ public class Cache<K,V> extends AbstractMap<K,V> {
         final Object previous;
         if (value != null) {
             previous = map.put(key, value);
-            DelayedExecutor.schedule(new Strong(key, value));
+            execute(new Strong(key, value));
         } else {
             previous = map.remove(key);
         }
@@ -321,7 +392,11 @@ public class Cache<K,V> extends AbstractMap<K,V> {
      */
     @Override
     public V remove(final Object key) {
-        return Cache.<V>valueOf(map.remove(key));
+        final Object value = map.remove(key);
+        if (value != null && !isReservedType(value)) {
+            execute(new Removal(key));          // Only values held by strong references have a cost.
+        }
+        return Cache.<V>valueOf(value);
     }
 
     /**
@@ -334,7 +409,17 @@ public class Cache<K,V> extends AbstractMap<K,V> {
      */
     @Override
     public V get(final Object key) {
-        return Cache.<V>valueOf(map.get(key));
+        final Object value = map.get(key);
+        if (value == null || isReservedType(value)) {
+            final V result = Cache.<V>valueOf(value);
+            counters.increment(result != null ? HIT : MISS);
+            return result;
+        }
+        counters.increment(HIT);
+        recordRead(key);
+        @SuppressWarnings("unchecked")
+        final V result = (V) value;
+        return result;
     }
 
     /**
@@ -384,24 +469,31 @@ public class Cache<K,V> extends AbstractMap<K,V> {
             @SuppressWarnings("unchecked")
             final Reference<V> ref = (Reference<V>) value;
             final V result = ref.get();
-            if (result != null && map.replace(key, ref, result)) {
-                ref.clear();                        // Prevents the reference from being enqueued.
-                DelayedExecutor.schedule(new Strong(key, result));
+            if (result != null) {
+                counters.increment(HIT);
+                if (map.replace(key, ref, result)) {
+                    ref.clear();                    // Prevents the reference from being enqueued.
+                    execute(new Strong(key, result));
+                }
             }
             return result;
         }
+        if (value != null) {
+            counters.increment(HIT);
+            recordRead(key);
+        }
         @SuppressWarnings("unchecked")
         final V result = (V) value;
         return result;
     }
 
     /**
-     * Invoked from the a background thread after a {@linkplain WeakReference weak}
-     * or {@linkplain SoftReference soft} reference has been replaced by a strong one. It will
-     * looks for older strong references to replace by weak references so that the total cost
-     * stay below the cost limit.
+     * A task to execute after a value has been stored in the map by strong reference, either by a call to
+     * {@link #put(Object, Object)} or because a {@linkplain WeakReference weak} or {@linkplain SoftReference
+     * soft} reference has been replaced by a strong one. It will looks for older strong references to replace
+     * by weak references so that the total cost stay below the cost limit.
      */
-    private final class Strong extends DelayedRunnable.Immediate {
+    private final class Strong implements Runnable {
         private final K key;
         private final V value;
 
@@ -412,13 +504,40 @@ public class Cache<K,V> extends AbstractMap<K,V> {
 
         /**
          * Process to the replacement of eldest strong references by weak references.
-         * This method should be invoked from the background thread only.
+         * This method shall be invoked by the thread holding {@link Cache#costsLock}.
          */
         @Override public void run() {
             Cache.this.adjustReferences(key, value);
         }
     }
 
+    /**
+     * A task to execute after a value held by strong reference has been removed from the map.
+     * It removes the cost of that value from the total cost, unless another value has been
+     * stored by strong reference for the same key in the meantime.
+     */
+    private final class Removal implements Runnable {
+        private final Object key;
+
+        Removal(final Object key) {
+            this.key = key;
+        }
+
+        /**
+         * Removes the cost of the value associated to the key.
+         * This method shall be invoked by the thread holding {@link Cache#costsLock}.
+         */
+        @Override public void run() {
+            final Object value = map.get(key);
+            if (value == null || isReservedType(value)) {
+                final Integer cost = costs.remove(key);
+                if (cost != null) {
+                    totalCost -= cost;
+                }
+            }
+        }
+    }
+
     /**
      * Gets a lock for the entry at the given key and returns a handler to be used by the caller
      * for unlocking and storing the result. This method <strong>must</strong> be used together
@@ -440,7 +559,7 @@ public class Cache<K,V> extends AbstractMap<K,V> {
     public Handler<V> lock(final K key) {
         final Work handler = new Work(key);
         boolean unlock = true;
-        handler.lock.lock();
+        handler.lock();
         Object value;
         try {
             do {
@@ -457,6 +576,7 @@ public class Cache<K,V> extends AbstractMap<K,V> {
                      * unlock in the finally clause (we want the lock to still active).
                      */
                     unlock = false;
+                    counters.increment(MISS);
                     return handler;
                 }
                 /*
@@ -479,8 +599,9 @@ public class Cache<K,V> extends AbstractMap<K,V> {
                      */
                     if (map.replace(key, ref, result)) {
                         ref.clear();                        // Prevents the reference from being enqueued.
-                        DelayedExecutor.schedule(new Strong(key, result));
+                        execute(new Strong(key, result));
                     }
+                    counters.increment(HIT);
                     return new Simple<>(result);
                 }
                 /*
@@ -490,13 +611,14 @@ public class Cache<K,V> extends AbstractMap<K,V> {
                  */
                 if (map.replace(key, ref, handler)) {
                     unlock = false;
+                    counters.increment(MISS);
                     return handler;
                 }
                 // The map content changed. Try again.
             } while (true);
         } finally {
             if (unlock) {
-                handler.lock.unlock();
+                handler.unlock();
             }
         }
         /*
@@ -512,7 +634,7 @@ public class Cache<K,V> extends AbstractMap<K,V> {
              */
             @SuppressWarnings("unchecked")
             final Work work = (Work) value;
-            if (work.lock.isHeldByCurrentThread()) {
+            if (work.isHeldByCurrentThread()) {
                 if (isKeyCollisionAllowed()) {
                     /*
                      * Example of key collision: the EPSG database defines the CoordinateOperation
@@ -527,6 +649,7 @@ public class Cache<K,V> extends AbstractMap<K,V> {
                 }
                 throw new IllegalStateException(Errors.format(Errors.Keys.RecursiveCreateCallForKey_1, key));
             }
+            counters.increment(HIT);
             return work.new Wait();
         }
         /*
@@ -534,6 +657,8 @@ public class Cache<K,V> extends AbstractMap<K,V> {
          * which will just return the result without any processing.
          */
         assert !isReservedType(value) : value;
+        counters.increment(HIT);
+        recordRead(key);
         @SuppressWarnings("unchecked")
         final V result = (V) value;
         return new Simple<>(result);
@@ -635,14 +760,11 @@ public class Cache<K,V> extends AbstractMap<K,V> {
 
     /**
      * A handler implementation used for telling to other threads that the current thread is
-     * computing a value.
+     * computing a value. This handler is also the synchronization lock; it extends
+     * {@link ReentrantLock} for avoiding the creation of a separated lock object on every cache miss.
      */
-    final class Work extends DelayedRunnable.Immediate implements Handler<V>, Supplier<V> {
-        /**
-         * The synchronization lock.
-         */
-        final ReentrantLock lock;
-
+    @SuppressWarnings("serial")             // Not intended to be serialized.
+    final class Work extends ReentrantLock implements Handler<V>, Supplier<V>, Runnable {
         /**
          * The key to use for storing the result in the map.
          */
@@ -654,12 +776,18 @@ public class Cache<K,V> extends AbstractMap<K,V> {
          */
         private V value;
 
+        /**
+         * Value of {@link System#nanoTime()} when this handler has been created.
+         * Used for measuring the time spent in computing the value.
+         */
+        private final long startTime;
+
         /**
          * Creates a new handler which will store the result in the given map at the given key.
          */
         Work(final K key) {
-            lock = new ReentrantLock();
             this.key = key;
+            startTime = System.nanoTime();
         }
 
         /**
@@ -668,13 +796,13 @@ public class Cache<K,V> extends AbstractMap<K,V> {
          */
         @Override
         public V get() {
-            if (lock.isHeldByCurrentThread()) {
+            if (isHeldByCurrentThread()) {
                 return null;
             }
             final V v;
-            lock.lock();
+            lock();
             v = value;
-            lock.unlock();
+            unlock();
             return v;
         }
 
@@ -709,10 +837,11 @@ public class Cache<K,V> extends AbstractMap<K,V> {
                     done = map.remove(key, this);
                 }
             } finally {
-                lock.unlock();
+                unlock();
             }
-            if (done) {
-                DelayedExecutor.schedule(this);
+            counters.add(LOAD_TIME, System.nanoTime() - startTime);
+            if (done && result != null) {
+                execute(this);
             }
         }
 
@@ -747,7 +876,7 @@ public class Cache<K,V> extends AbstractMap<K,V> {
         }
 
         /**
-         * Invoked in a background thread after a value has been set in the map.
+         * Invoked by the thread holding {@link Cache#costsLock} after a value has been set in the map.
          * This method computes a cost estimation of the new value. If the total cost is greater
          * than the cost limit, then oldest strong references are replaced by weak references.
          */
@@ -761,43 +890,139 @@ public class Cache<K,V> extends AbstractMap<K,V> {
     }
 
     /**
-     * Invoked in a background thread after a value has been set in the map.
+     * Schedules the given task for execution after a value held by strong reference has been stored in or
+     * removed from the map.
+     * The task is added in the buffer of pending tasks, then the buffer is drained if no other thread is
+     * already doing this work. If the buffer is full, then the current thread waits for the lock and drains
+     * the buffer itself.
+     *
+     * @param  task  the {@link Strong}, {@link Work} or {@link Removal} task to execute.
+     */
+    private void execute(final Runnable task) {
+        if (costsLock.isHeldByCurrentThread()) {
+            task.run();                     // Recursive call from cost(V), executed before iteration over "costs".
+            return;
+        }
+        final int offset = slot();
+        for (int i=0; i<BUFFER_SIZE; i++) {
+            if (pendingTasks.compareAndSet((offset + i) & (BUFFER_SIZE - 1), null, task)) {
+                pendingCount.incrementAndGet();
+                tryDrain();
+                return;
+            }
+        }
+        costsLock.lock();                   // Buffer is full. This should be rare.
+        try {
+            drain();
+            task.run();
+        } finally {
+            costsLock.unlock();
+        }
+        tryDrain();                         // For tasks added by other threads while we were waiting.
+    }
+
+    /**
+     * Records the fact that the value for the given key has been read from the map. The key will be moved at
+     * the end of the list of least recently used entries when the buffers will be drained. If the buffer slot
+     * for the current thread is already occupied, then the key is discarded and this method attempts to drain
+     * the buffers.
+     *
+     * @param  key  the key of the value held by strong reference which has been read.
+     */
+    private void recordRead(final Object key) {
+        if (!recentReads.compareAndSet(slot(), null, key)) {
+            tryDrain();
+        }
+    }
+
+    /**
+     * Returns the buffer slot where the current thread should try to record pending tasks or read accesses.
+     */
+    private static int slot() {
+        final long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 32)) & (BUFFER_SIZE - 1);
+    }
+
+    /**
+     * Drains the buffers if no other thread is already doing this work. After the lock has been released,
+     * this method verifies if new tasks have been added by other threads while the lock was held. This is
+     * necessary because those threads did not drain the buffer themselves.
+     */
+    private void tryDrain() {
+        while (!costsLock.isHeldByCurrentThread() && costsLock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                costsLock.unlock();
+            }
+            if (pendingCount.get() == 0) break;
+        }
+    }
+
+    /**
+     * Moves recently read keys at the end of the {@link #costs} map, then executes the pending tasks.
+     * This method shall be invoked by the thread holding {@link #costsLock}.
+     */
+    private void drain() {
+        assert costsLock.isHeldByCurrentThread();
+        for (int i=0; i<BUFFER_SIZE; i++) {
+            final Object key = recentReads.get(i);
+            if (key != null) {
+                recentReads.set(i, null);
+                costs.get(key);                     // Move the entry at the end of the LRU list.
+            }
+        }
+        for (int i=0; i<BUFFER_SIZE; i++) {
+            final Runnable task = pendingTasks.get(i);
+            if (task != null) {
+                pendingTasks.set(i, null);
+                pendingCount.decrementAndGet();
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * Invoked by the thread holding {@link #costsLock} after a value has been set in the map.
      * This method computes a cost estimation of the new value. If the total cost is greater
      * than the cost limit, then oldest strong references are replaced by weak references.
      */
     final void adjustReferences(final K key, final V value) {
+        if (map.get(key) != value) {
+            return;         // Value removed or replaced since this task has been scheduled.
+        }
         int cost = cost(value);
-        synchronized (costs) {                          // Should not be needed, but done as a safety.
-            final Integer old = costs.put(key, cost);
-            if (old != null) {
-                cost -= old;
-            }
-            if ((totalCost += cost) > costLimit) {
-                final Iterator<Map.Entry<K,Integer>> it = costs.entrySet().iterator();
-                while (it.hasNext()) {
-                    /*
-                     * Converts the current entry from strong reference to weak/soft reference.
-                     * We perform this conversion even if the entry is for the value just added
-                     * to the cache, if it happen that the cost is higher than the maximal one.
-                     * That entry should not be garbage collected to early anyway because the
-                     * caller should still have a strong reference to the value he just created.
-                     */
-                    final Map.Entry<K,Integer> entry = it.next();
-                    final K oldKey = entry.getKey();
-                    final Object oldValue = map.get(oldKey);
-                    if (oldValue != null && !isReservedType(oldValue)) {
-                        @SuppressWarnings("unchecked")
-                        final Reference<V> ref = soft ? new Soft<>(map, oldKey, (V) oldValue)
-                                                      : new Weak<>(map, oldKey, (V) oldValue);
-                        if (!map.replace(oldKey, oldValue, ref)) {
-                            ref.clear();                // Prevents the reference to be enqueued.
-                        }
-                    }
-                    it.remove();
-                    if ((totalCost -= entry.getValue()) <= costLimit) {
-                        break;
+        final Integer old = costs.put(key, cost);
+        if (old != null) {
+            cost -= old;
+        }
+        if ((totalCost += cost) > costLimit) {
+            final Iterator<Map.Entry<K,Integer>> it = costs.entrySet().iterator();
+            while (it.hasNext()) {
+                /*
+                 * Converts the current entry from strong reference to weak/soft reference.
+                 * We perform this conversion even if the entry is for the value just added
+                 * to the cache, if it happen that the cost is higher than the maximal one.
+                 * That entry should not be garbage collected to early anyway because the
+                 * caller should still have a strong reference to the value he just created.
+                 */
+                final Map.Entry<K,Integer> entry = it.next();
+                final K oldKey = entry.getKey();
+                final Object oldValue = map.get(oldKey);
+                if (oldValue != null && !isReservedType(oldValue)) {
+                    @SuppressWarnings("unchecked")
+                    final Reference<V> ref = soft ? new Soft<>(this, oldKey, (V) oldValue)
+                                                  : new Weak<>(this, oldKey, (V) oldValue);
+                    if (map.replace(oldKey, oldValue, ref)) {
+                        counters.increment(EVICTION);
+                    } else {
+                        ref.clear();                // Prevents the reference to be enqueued.
                     }
                 }
+                it.remove();
+                if ((totalCost -= entry.getValue()) <= costLimit) {
+                    break;
+                }
             }
         }
     }
@@ -807,19 +1032,21 @@ public class Cache<K,V> extends AbstractMap<K,V> {
      * is garbage-collected.
      */
     private static final class Soft<K,V> extends SoftReference<V> implements Disposable {
-        /** The key of the referenced value.      */ private final K key;
-        /** The map which contains the reference. */ private final ConcurrentMap<K,Object> map;
+        /** The key of the referenced value.        */ private final K key;
+        /** The cache which contains the reference. */ private final Cache<K,V> cache;
 
-        /** Creates a references to be stored in the given map under the given key. */
-        Soft(final ConcurrentMap<K,Object> map, final K key, final V value) {
+        /** Creates a references to be stored in the given cache under the given key. */
+        Soft(final Cache<K,V> cache, final K key, final V value) {
             super(value, ReferenceQueueConsumer.QUEUE);
-            this.map = map;
-            this.key = key;
+            this.cache = cache;
+            this.key   = key;
         }
 
         /** Removes the reference from the map. */
         @Override public void dispose() {
-            map.remove(key, this);
+            if (cache.map.remove(key, this)) {
+                cache.counters.increment(COLLECTED);
+            }
             /*
              * There is nothing to remove from the cost map, since the later
              * contains only the keys of objects hold by strong reference.
@@ -832,19 +1059,21 @@ public class Cache<K,V> extends AbstractMap<K,V> {
      * is garbage-collected.
      */
     private static final class Weak<K,V> extends WeakReference<V> implements Disposable {
-        /** The key of the referenced value.      */ private final K key;
-        /** The map which contains the reference. */ private final ConcurrentMap<K,Object> map;
+        /** The key of the referenced value.        */ private final K key;
+        /** The cache which contains the reference. */ private final Cache<K,V> cache;
 
-        /** Creates a references to be stored in the given map under the given key. */
-        Weak(final ConcurrentMap<K,Object> map, final K key, final V value) {
+        /** Creates a references to be stored in the given cache under the given key. */
+        Weak(final Cache<K,V> cache, final K key, final V value) {
             super(value, ReferenceQueueConsumer.QUEUE);
-            this.map = map;
-            this.key = key;
+            this.cache = cache;
+            this.key   = key;
         }
 
         /** Removes the reference from the map. */
         @Override public void dispose() {
-            map.remove(key, this);
+            if (cache.map.remove(key, this)) {
+                cache.counters.increment(COLLECTED);
+            }
             /*
              * There is nothing to remove from the cost map, since the later
              * contains only the keys of objects hold by strong reference.
@@ -911,6 +1140,74 @@ public class Cache<K,V> extends AbstractMap<K,V> {
         isKeyCollisionAllowed = allowed;
     }
 
+    /**
+     * Returns the number of times that a value has been found in this cache. This count includes the values found
+     * by {@link #get(Object)}, {@link #peek(Object)}, {@link #lock(Object)} and {@link #getOrCreate getOrCreate(…)}
+     * methods, including the values that were under computation in another thread.
+     *
+     * @return number of cache hits since this cache has been created.
+     *
+     * @since 0.8
+     */
+    public long getHitCount() {
+        return counters.sum(HIT);
+    }
+
+    /**
+     * Returns the number of times that a value has not been found in this cache. This count includes the calls
+     * to {@link #get(Object)} which returned {@code null} and the calls to {@link #lock(Object)} (including the
+     * calls done by {@link #getOrCreate getOrCreate(…)}) which returned a handler expecting a new value.
+     * Calls to {@link #peek(Object)} returning {@code null} are not counted, since they are usually followed
+     * by a call to {@code lock(…)}.
+     *
+     * @return number of cache misses since this cache has been created.
+     *
+     * @since 0.8
+     */
+    public long getMissCount() {
+        return counters.sum(MISS);
+    }
+
+    /**
+     * Returns the number of times that a strong reference has been replaced by a weak or soft reference
+     * because the total cost exceeded the cost limit. The evicted values may still be in the cache until
+     * they are garbage-collected.
+     *
+     * @return number of evictions since this cache has been created.
+     *
+     * @since 0.8
+     */
+    public long getEvictionCount() {
+        return counters.sum(EVICTION);
+    }
+
+    /**
+     * Returns the number of evicted values which have been reclaimed by the garbage collector.
+     * Those values were held by weak or soft references and have been removed from this cache.
+     *
+     * @return number of values reclaimed by the garbage collector since this cache has been created.
+     *
+     * @since 0.8
+     */
+    public long getCollectedCount() {
+        return counters.sum(COLLECTED);
+    }
+
+    /**
+     * Returns the total time spent in computing the values after cache misses, in nanoseconds.
+     * This is the sum of the times elapsed between the calls to {@link #lock(Object)} which
+     * returned a handler expecting a new value and the calls to {@link Handler#putAndUnlock
+     * putAndUnlock(…)} on those handlers. Dividing this value by {@link #getMissCount()}
+     * gives an estimation of the average cost of a cache miss.
+     *
+     * @return total time spent in computing values, in nanoseconds.
+     *
+     * @since 0.8
+     */
+    public long getTotalLoadTime() {
+        return counters.sum(LOAD_TIME);
+    }
+
     /**
      * Computes an estimation of the cost of the given value. The default implementation returns 1
      * in all cases. Subclasses should override this method if they have some easy way to measure
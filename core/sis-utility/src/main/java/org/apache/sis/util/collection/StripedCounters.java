@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.util.collection;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * A small set of counters which can be incremented concurrently by many threads with little contention.
+ * Each counter is split in many cells, and each thread increments the cell selected from its identifier.
+ * The value of a counter is the sum of all its cells. The cells used by the same thread are grouped
+ * together, and the groups used by different threads are separated by at least one cache line
+ * in order to avoid false sharing.
+ *
+ * <p>This class serves the same purpose than {@code java.util.concurrent.atomic.LongAdder},
+ * which is not available on the JDK7 platform. The sums are not atomic snapshots; they are
+ * exact only in the absence of concurrent updates.</p>
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class StripedCounters {
+    /**
+     * Number of {@code long} values in a group of cells. This is a power of 2 such as the size of a group
+     * ({@value} × 8 bytes) is at least as large as the size of a cache line in usual processors.
+     */
+    private static final int GROUP_SIZE = 8;
+
+    /**
+     * Maximal number of groups of cells. This is a power of 2.
+     */
+    private static final int MAXIMUM_GROUPS = 32;
+
+    /**
+     * The cells of all counters. The cell of counter <var>c</var> in group <var>g</var>
+     * is at index <var>g</var> × {@link #GROUP_SIZE} + <var>c</var>.
+     */
+    private final AtomicLongArray cells;
+
+    /**
+     * Bitmask to apply on thread identifiers for selecting a group of cells.
+     */
+    private final int mask;
+
+    /**
+     * Creates a set of counters initialized to zero.
+     *
+     * @param  count  number of counters, not greater than {@value #GROUP_SIZE}.
+     */
+    StripedCounters(final int count) {
+        assert count > 0 && count <= GROUP_SIZE : count;
+        final int n = Math.min(Runtime.getRuntime().availableProcessors(), MAXIMUM_GROUPS);
+        final int groups = Integer.highestOneBit(Math.max(2*n - 1, 1));       // Next power of 2.
+        cells = new AtomicLongArray(groups * GROUP_SIZE);
+        mask  = groups - 1;
+    }
+
+    /**
+     * Returns the index of the first cell of the group to use for the current thread.
+     */
+    private int group() {
+        final long id = Thread.currentThread().getId();
+        return ((int) (id ^ (id >>> 32)) & mask) * GROUP_SIZE;
+    }
+
+    /**
+     * Increments the given counter by one.
+     *
+     * @param counter  index of the counter to increment.
+     */
+    final void increment(final int counter) {
+        cells.incrementAndGet(group() + counter);
+    }
+
+    /**
+     * Adds the given amount to the given counter.
+     *
+     * @param counter  index of the counter to increment.
+     * @param amount   the value to add.
+     */
+    final void add(final int counter, final long amount) {
+        cells.addAndGet(group() + counter, amount);
+    }
+
+    /**
+     * Returns the current value of the given counter.
+     *
+     * @param  counter  index of the counter for which to get the value.
+     * @return the sum of all increments of the given counter.
+     */
+    final long sum(final int counter) {
+        long sum = 0;
+        for (int i=counter; i<cells.length(); i += GROUP_SIZE) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+}
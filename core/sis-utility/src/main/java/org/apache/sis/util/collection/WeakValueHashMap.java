@@ -73,8 +73,13 @@ import static org.apache.sis.util.collection.WeakEntry.*;
  * of the caller. But if a sequence of two or more method calls need to appear atomic from other threads perspective,
  * then the caller can synchronize on {@code this}.
  *
+ * <div class="section">Statistics</div>
+ * The number of successful and unsuccessful lookups, and the number of values reclaimed by the garbage
+ * collector, can be obtained by {@link #getHitCount()}, {@link #getMissCount()} and {@link #getCollectedCount()}.
+ * Those statistics can be used for determining whether this map is effective in avoiding duplicated values.
+ *
  * @author  Martin Desruisseaux (IRD, Geomatys)
- * @version 0.7
+ * @version 0.8
  *
  * @param <K>  the class of key elements.
  * @param <V>  the class of value elements.
@@ -159,8 +164,9 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
          */
         @Override
         public void dispose() {
+            final boolean collected = (get() == null);
             super.clear();
-            removeEntry(this);
+            removeEntry(this, collected);
         }
 
         /**
@@ -229,6 +235,16 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
      */
     private transient long lastTimeNormalCapacity;
 
+    /**
+     * Number of lookups which found a value, number of lookups which found no value, and number of
+     * values reclaimed by the garbage collector. Those fields shall be used in synchronized blocks.
+     *
+     * @see #getHitCount()
+     * @see #getMissCount()
+     * @see #getCollectedCount()
+     */
+    private transient long hitCount, missCount, collectedCount;
+
     /**
      * Creates a new {@code WeakValueHashMap}.
      *
@@ -271,13 +287,19 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
     /**
      * Invoked by {@link Entry} when an element has been collected by the garbage
      * collector. This method removes the weak reference from the {@link #table}.
+     *
+     * @param toRemove   the entry to remove.
+     * @param collected  whether the value has been reclaimed by the garbage collector.
      */
     @SuppressWarnings("unchecked")
-    private synchronized void removeEntry(final Entry toRemove) {
+    private synchronized void removeEntry(final Entry toRemove, final boolean collected) {
         assert isValid();
         final int capacity = table.length;
         if (toRemove.removeFrom(table, toRemove.hash % capacity)) {
             count--;
+            if (collected) {
+                collectedCount++;
+            }
             assert isValid();
             if (count < lowerCapacityThreshold(capacity)) {
                 final long currentTime = System.nanoTime();
@@ -386,10 +408,17 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
             final int index = (keyHashCode(key) & HASH_MASK) % table.length;
             for (Entry e = table[index]; e != null; e = (Entry) e.next) {
                 if (keyEquals(key, e.key)) {
-                    return e.get();
+                    final V value = e.get();
+                    if (value != null) {
+                        hitCount++;
+                    } else {
+                        missCount++;
+                    }
+                    return value;
                 }
             }
         }
+        missCount++;
         return null;
     }
 
@@ -410,6 +439,7 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
             if (keyEquals(key, e.key)) {
                 oldValue = e.get();
                 if (oldValue != null && !replace) {
+                    hitCount++;
                     return oldValue;
                 }
                 e.dispose();
@@ -426,6 +456,9 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
                 lastTimeNormalCapacity = System.nanoTime();
             }
             table[index] = new Entry(keyType.cast(key), value, table[index], hash);
+            if (!replace) {
+                missCount++;
+            }
         }
         assert isValid();
         return oldValue;
@@ -492,6 +525,44 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
         count = 0;
     }
 
+    /**
+     * Returns the number of lookups which found a value in this map. This count includes the calls to
+     * {@link #get(Object)} which returned a non-null value and the calls to {@link #putIfAbsent(Object, Object)}
+     * which returned an existing value.
+     *
+     * @return number of successful lookups since this map has been created.
+     *
+     * @since 0.8
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups which did not found a value in this map. This count includes the calls to
+     * {@link #get(Object)} which returned {@code null} and the calls to {@link #putIfAbsent(Object, Object)}
+     * which added a new value.
+     *
+     * @return number of unsuccessful lookups since this map has been created.
+     *
+     * @since 0.8
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of values which have been removed from this map because they were reclaimed
+     * by the garbage collector.
+     *
+     * @return number of values reclaimed by the garbage collector since this map has been created.
+     *
+     * @since 0.8
+     */
+    public synchronized long getCollectedCount() {
+        return collectedCount;
+    }
+
     /**
      * Returns a set view of the mappings contained in this map.
      * Each element in this set is a {@link java.util.Map.Entry}.
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.system;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import javax.management.NotCompliantMBeanException;
+import org.apache.sis.util.collection.Cache;
+import org.apache.sis.util.collection.TreeTable;
+import org.apache.sis.util.collection.WeakValueHashMap;
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.apache.sis.util.collection.TableColumn.NAME;
+import static org.apache.sis.util.collection.TableColumn.VALUE_AS_TEXT;
+
+
+/**
+ * Tests the {@link CacheStatistics} class, including the statistics reported by {@link Supervisor#caches()}.
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+@DependsOn({
+    org.apache.sis.util.collection.CacheTest.class,
+    org.apache.sis.util.collection.WeakValueHashMapTest.class
+})
+public final strictfp class CacheStatisticsTest extends TestCase {
+    /**
+     * Returns the statistics reported by the supervisor for the cache of the given name.
+     * Keys are statistic names and values are the statistic values formatted as text.
+     */
+    private static Map<String,String> statistics(final String name) throws NotCompliantMBeanException {
+        final TreeTable table = new Supervisor().caches();
+        assertEquals("Caches", table.getRoot().getValue(NAME));
+        Map<String,String> statistics = null;
+        for (final TreeTable.Node node : table.getRoot().getChildren()) {
+            if (name.equals(node.getValue(NAME))) {
+                assertNull("Cache registered twice.", statistics);
+                statistics = new HashMap<>();
+                for (final TreeTable.Node child : node.getChildren()) {
+                    final String key = child.getValue(NAME).toString();
+                    assertNull(key, statistics.put(key, child.getValue(VALUE_AS_TEXT).toString()));
+                }
+            }
+        }
+        assertNotNull("Cache not found.", statistics);
+        return statistics;
+    }
+
+    /**
+     * Tests the hit and miss counters of a {@link Cache} as reported by the supervisor.
+     *
+     * @throws Exception if an error occurred while computing a cached value or creating the supervisor.
+     */
+    @Test
+    public void testCache() throws Exception {
+        final Cache<Integer,String> cache = new Cache<>();
+        CacheStatistics.register("CacheStatisticsTest.cache", cache);
+        for (int i=0; i<3; i++) {
+            final String value = String.valueOf(i);
+            assertEquals(value, cache.getOrCreate(i, new Callable<String>() {
+                @Override public String call() {
+                    return value;
+                }
+            }));
+        }
+        assertEquals("1", cache.get(1));
+        assertEquals("2", cache.peek(2));
+        assertNull(cache.get(3));
+        final Map<String,String> statistics = statistics("CacheStatisticsTest.cache");
+        assertEquals("size",      "3", statistics.get("size"));
+        assertEquals("hits",      "2", statistics.get("hits"));
+        assertEquals("misses",    "4", statistics.get("misses"));
+        assertEquals("evictions", "0", statistics.get("evictions"));
+        assertEquals("collected", "0", statistics.get("collected"));
+        assertTrue  ("load time", statistics.containsKey("load time (ms)"));
+        assertEquals(6, statistics.size());
+    }
+
+    /**
+     * Tests the hit and miss counters of a {@link WeakValueHashMap} as reported by the supervisor.
+     *
+     * @throws NotCompliantMBeanException if the supervisor can not be created.
+     */
+    @Test
+    public void testWeakValueHashMap() throws NotCompliantMBeanException {
+        final WeakValueHashMap<Integer,String> map = new WeakValueHashMap<>(Integer.class);
+        CacheStatistics.register("CacheStatisticsTest.map", map);
+        final String value = "value";
+        assertNull(map.put(1, value));
+        assertSame(value, map.get(1));
+        assertSame(value, map.get(1));
+        assertNull(map.get(2));
+        final Map<String,String> statistics = statistics("CacheStatisticsTest.map");
+        assertEquals("size",      "1", statistics.get("size"));
+        assertEquals("hits",      "2", statistics.get("hits"));
+        assertEquals("misses",    "1", statistics.get("misses"));
+        assertEquals("collected", "0", statistics.get("collected"));
+        assertEquals(4, statistics.size());
+        assertSame(value, map.get(1));      // Keep a strong reference until the end of this test.
+    }
+}
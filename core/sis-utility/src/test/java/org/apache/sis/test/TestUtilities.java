@@ -32,6 +32,8 @@ import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.lang.reflect.UndeclaredThrowableException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.text.Format;
 import java.text.DateFormat;
 import java.text.ParseException;
@@ -46,6 +48,7 @@ import org.apache.sis.util.collection.TreeTableFormat;
 import org.apache.sis.internal.util.X364;
 
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 import static org.apache.sis.internal.util.StandardDateFormat.UTC;
 
 
@@ -446,6 +449,24 @@ public final strictfp class TestUtilities extends Static {
         return true;
     }
 
+    /**
+     * Returns the number of bytes allocated in the heap by the current thread since its creation.
+     * This is used for verifying that some code paths do not allocate any object in the steady state.
+     * If the JVM does not support this measurement, then this method declares the test as skipped.
+     *
+     * @return number of bytes allocated by the current thread so far.
+     *
+     * @since 0.8
+     */
+    public static long allocatedBytes() {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue("Allocation measurement not supported by this JVM.", bean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue("Allocation measurement not enabled.", hotspot.isThreadAllocatedMemorySupported()
+                                                       && hotspot.isThreadAllocatedMemoryEnabled());
+        return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
     /**
      * Copies the full content of the given test resource in a temporary file and returns the channel for that file.
      * The file is opened with {@link StandardOpenOption#DELETE_ON_CLOSE}, together with read and write options.
@@ -75,6 +75,7 @@ import org.junit.BeforeClass;
     org.apache.sis.util.collection.WeakHashSetTest.class,
     org.apache.sis.util.collection.WeakValueHashMapTest.class,
     org.apache.sis.util.collection.CacheTest.class,
+    org.apache.sis.internal.system.CacheStatisticsTest.class,
     org.apache.sis.util.collection.DerivedSetTest.class,
     org.apache.sis.util.collection.DerivedMapTest.class,
     org.apache.sis.util.collection.TableColumnTest.class,
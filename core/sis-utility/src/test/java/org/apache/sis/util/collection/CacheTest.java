@@ -43,7 +43,7 @@ import static org.apache.sis.test.Assert.*;
  * Tests the {@link Cache} with simple tests and a {@linkplain #stress() stress} test.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.3
+ * @version 0.8
  * @since   0.3
  * @module
  */
@@ -99,6 +99,35 @@ public final strictfp class CacheTest extends TestCase {
         assertEquals(singleton(new SimpleEntry<>(key, value)), cache.entrySet());
     }
 
+    /**
+     * Tests the counters of cache hits, cache misses and evictions. This test runs in a single thread,
+     * in which case the buffers of pending tasks are drained immediately after each operation.
+     *
+     * @throws Exception if an error occurred while computing a value.
+     */
+    @Test
+    @DependsOnMethod("testPutAndUnlock")
+    public void testStatistics() throws Exception {
+        final Cache<Integer,String> cache = new Cache<>(10, 2, false);
+        assertNull(cache.get(1));
+        assertNull(cache.put(1, "one"));
+        assertNull(cache.put(2, "two"));
+        assertEquals("Cost limit not yet exceeded.", 0, cache.getEvictionCount());
+        assertNull(cache.put(3, "three"));
+        assertEquals("Value 1 should have been evicted.", 1, cache.getEvictionCount());
+        assertEquals("two", cache.get(2));
+        assertEquals("four", cache.getOrCreate(4, new Callable<String>() {
+            @Override public String call() {
+                return "four";
+            }
+        }));
+        assertEquals("Value 3 should have been evicted.", 2, cache.getEvictionCount());
+        assertEquals("four", cache.peek(4));
+        assertEquals("hits",   2, cache.getHitCount());
+        assertEquals("misses", 2, cache.getMissCount());
+        assertEquals(4, cache.size());
+    }
+
     /**
      * Tests the cache when a thread is blocking a second one.
      * The second thread tries to write a value while the first thread holds the lock.
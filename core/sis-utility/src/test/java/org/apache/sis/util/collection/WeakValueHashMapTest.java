@@ -35,7 +35,7 @@ import static org.apache.sis.test.TestUtilities.waitForGarbageCollection;
  * A standard {@link HashMap} object is used for comparison purpose.
  *
  * @author  Martin Desruisseaux (IRD, Geomatys)
- * @version 0.4
+ * @version 0.8
  * @since   0.3
  * @module
  */
@@ -228,4 +228,28 @@ public final strictfp class WeakValueHashMapTest extends TestCase {
         assertSame(v2, weakMap.get(k2));
         assertSame(v3, weakMap.get(k3));
     }
+
+    /**
+     * Tests the counters of successful and unsuccessful lookups.
+     * Values are retained by strong references, so this test does not depend on garbage collection.
+     *
+     * @since 0.8
+     */
+    @Test
+    @DependsOnMethod("testStrongReferences")
+    public void testStatistics() {
+        final WeakValueHashMap<String,Integer> weakMap = new WeakValueHashMap<>(String.class);
+        final Integer v1 = 1;
+        final Integer v2 = 2;
+        assertNull(weakMap.get("One"));
+        assertNull(weakMap.put("One", v1));
+        assertNull(weakMap.putIfAbsent("Two", v2));
+        assertSame(v2, weakMap.putIfAbsent("Two", 3));
+        assertSame(v1, weakMap.get("One"));
+        assertSame(v2, weakMap.get("Two"));
+        assertNull(weakMap.get("Three"));
+        assertEquals("hits",      3, weakMap.getHitCount());
+        assertEquals("misses",    3, weakMap.getMissCount());
+        assertEquals("collected", 0, weakMap.getCollectedCount());
+    }
 }
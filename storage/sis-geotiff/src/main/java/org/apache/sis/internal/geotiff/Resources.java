@@ -184,6 +184,12 @@ public final class Resources extends IndexedResourceBundle {
          * TIFF file “{0}” uses an unsupported map projection.
          */
         public static final short UnsupportedProjectionMethod_1 = 23;
+
+        /**
+         * Can not read the pixels of TIFF file “{0}” because value {2} of the “{1}” tag is not
+         * supported.
+         */
+        public static final short UnsupportedTagValue_3 = 25;
     }
 
     /**
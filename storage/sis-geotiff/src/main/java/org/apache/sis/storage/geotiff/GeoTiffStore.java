@@ -16,8 +16,13 @@
  */
 package org.apache.sis.storage.geotiff;
 
+import java.util.List;
+import java.util.ArrayList;
 import java.util.Locale;
+import java.util.concurrent.Future;
 import java.io.IOException;
+import java.awt.Rectangle;
+import java.awt.image.Raster;
 import java.nio.charset.Charset;
 import java.util.logging.LogRecord;
 import java.nio.charset.StandardCharsets;
@@ -33,6 +38,7 @@ import org.apache.sis.storage.DataStoreContentException;
 import org.apache.sis.storage.UnsupportedStorageException;
 import org.apache.sis.internal.storage.io.ChannelDataInput;
 import org.apache.sis.internal.storage.MetadataBuilder;
+import org.apache.sis.internal.storage.TileCache;
 import org.apache.sis.internal.util.Constants;
 import org.apache.sis.metadata.sql.MetadataStoreException;
 import org.apache.sis.storage.DataStoreClosedException;
@@ -50,6 +56,13 @@ import org.apache.sis.util.resources.Errors;
  * @module
  */
 public class GeoTiffStore extends DataStore {
+    /**
+     * Relative tolerance when comparing the subsampling of overviews with the requested subsampling.
+     * Overview sizes are rounded to an integer number of pixels, so the subsampling of an overview
+     * with half the size of the full-resolution image may be slightly greater than 2.
+     */
+    private static final double OVERVIEW_TOLERANCE = 0.01;
+
     /**
      * The encoding of strings in the metadata. The string specification said that is shall be US-ASCII,
      * but Apache SIS nevertheless let the user specifies an alternative encoding if needed.
@@ -131,6 +144,211 @@ public class GeoTiffStore extends DataStore {
         return metadata;
     }
 
+    /**
+     * Reads the tiles of the given image which intersect the given region. The image index is the position
+     * of the <cite>Image File Directory</cite> (IFD) in the TIFF file, starting at zero. Each raster in the
+     * returned list is a complete tile (clipped to the image bounds) located at its pixel coordinates in
+     * the image, so the union of all rasters may be larger than the requested region.
+     *
+     * <p>Tiles are decompressed concurrently by background threads. The compressed bytes are read while holding
+     * the lock on this data store, but the lock is released while waiting for the decompression to complete.
+     * Sample values are returned as stored in the file, without applying the photometric interpretation.</p>
+     *
+     * <p>Decoded tiles are kept in a cache shared by all data stores, up to a memory budget.
+     * Consequently the returned rasters may be shared with other callers and shall not be modified.</p>
+     *
+     * @param  image   index of the image to read, starting at zero.
+     * @param  region  the region to read in pixel coordinates, or {@code null} for the whole image.
+     * @return the tiles intersecting the given region, in row-major order.
+     * @throws IndexOutOfBoundsException if there is no image at the given index.
+     * @throws DataStoreException if an error occurred while reading or decoding the tiles.
+     *
+     * @since 0.8
+     */
+    public List<Raster> readTiles(final int image, final Rectangle region) throws DataStoreException {
+        return read(image, region, 1);
+    }
+
+    /**
+     * Reads the tiles intersecting the given region in the coarsest overview having a sufficient resolution.
+     * Overviews (also called "pyramid levels") are reduced-resolution versions of an image stored in the same
+     * TIFF file, as in cloud-optimized GeoTIFF. This method selects the overview having the largest subsampling
+     * which is not greater than the given value, as documented in {@link #getOverviewLevel(int, double)}.
+     *
+     * <p>The region is given in pixel coordinates of the full-resolution image, but the returned rasters are in pixel
+     * coordinates of the selected overview. The subsampling of that overview relative to the full-resolution image is
+     * given by {@code getResolutions(image)[getOverviewLevel(image, subsampling)]}.</p>
+     *
+     * @param  image        index of the full-resolution image, starting at zero.
+     * @param  region       the region to read in pixel coordinates of the full-resolution image, or {@code null}.
+     * @param  subsampling  the maximal number of full-resolution pixels per pixel of the returned rasters.
+     * @return the tiles of the selected overview intersecting the given region, in row-major order.
+     * @throws IndexOutOfBoundsException if there is no image at the given index.
+     * @throws DataStoreException if an error occurred while reading or decoding the tiles.
+     *
+     * @since 0.8
+     */
+    public List<Raster> readTiles(final int image, final Rectangle region, final double subsampling)
+            throws DataStoreException
+    {
+        return read(image, region, subsampling);
+    }
+
+    /**
+     * Returns the resolutions of the given image followed by the resolutions of its overviews. Resolutions are
+     * expressed as subsampling factors relative to the full-resolution image: the first element is always {1, 1},
+     * and an overview having half the width and half the height of the full-resolution image has resolution {2, 2}.
+     * Each array element contains the subsampling along the <var>x</var> axis followed by the <var>y</var> axis.
+     * Overviews are in the order they appear in the TIFF file, which is usually from finest to coarsest.
+     *
+     * @param  image  index of the full-resolution image, starting at zero.
+     * @return the subsampling of the given image (which is {1, 1}) followed by the subsampling of each overview.
+     * @throws IndexOutOfBoundsException if there is no image at the given index.
+     * @throws DataStoreException if an error occurred while reading the image file directories.
+     *
+     * @since 0.8
+     */
+    public synchronized double[][] getResolutions(final int image) throws DataStoreException {
+        final Reader reader = reader();
+        try {
+            return resolutions(levels(reader, image));
+        } catch (IOException e) {
+            throw new DataStoreException(errors().getString(Errors.Keys.CanNotRead_1, reader.input.filename), e);
+        } catch (ArithmeticException e) {
+            throw new DataStoreContentException(getLocale(), "TIFF", reader.input.filename, null).initCause(e);
+        }
+    }
+
+    /**
+     * Returns the index of the coarsest overview having a subsampling not greater than the given value.
+     * The returned value is an index in the array returned by {@link #getResolutions(int)}, where 0 stands
+     * for the full-resolution image. The subsampling of an overview is the largest of its subsampling along
+     * the <var>x</var> and <var>y</var> axes. A small tolerance is applied for accommodating the rounding
+     * of overview sizes.
+     *
+     * @param  image        index of the full-resolution image, starting at zero.
+     * @param  subsampling  the maximal number of full-resolution pixels per pixel of the desired overview.
+     * @return index of the selected overview, or 0 for the full-resolution image.
+     * @throws IndexOutOfBoundsException if there is no image at the given index.
+     * @throws DataStoreException if an error occurred while reading the image file directories.
+     *
+     * @since 0.8
+     */
+    public int getOverviewLevel(final int image, final double subsampling) throws DataStoreException {
+        return select(getResolutions(image), subsampling);
+    }
+
+    /**
+     * Implementation of {@code readTiles(…)} methods.
+     *
+     * @param  subsampling  the maximal subsampling, or 1 for reading the given image at full resolution.
+     */
+    private List<Raster> read(final int image, Rectangle region, final double subsampling) throws DataStoreException {
+        final Reader reader;
+        final List<Future<Raster>> tasks;
+        synchronized (this) {
+            reader = reader();
+            try {
+                ImageFileDirectory dir;
+                if (subsampling > 1) {
+                    final List<ImageFileDirectory> levels = levels(reader, image);
+                    final double[][] resolutions = resolutions(levels);
+                    final int level = select(resolutions, subsampling);
+                    dir = levels.get(level);
+                    if (level != 0 && region != null) {
+                        final double[] r = resolutions[level];
+                        final int xmin = (int) Math.floor(region.x / r[0]);
+                        final int ymin = (int) Math.floor(region.y / r[1]);
+                        final int xmax = (int) Math.ceil ((region.x + (double) region.width)  / r[0]);
+                        final int ymax = (int) Math.ceil ((region.y + (double) region.height) / r[1]);
+                        region = new Rectangle(xmin, ymin, xmax - xmin, ymax - ymin);
+                    }
+                } else {
+                    dir = image(reader, image);
+                }
+                tasks = dir.readTiles(region);
+            } catch (IOException e) {
+                throw new DataStoreException(errors().getString(Errors.Keys.CanNotRead_1, reader.input.filename), e);
+            } catch (ArithmeticException e) {
+                throw new DataStoreContentException(getLocale(), "TIFF", reader.input.filename, null).initCause(e);
+            }
+        }
+        try {
+            return TileDecoder.getAll(tasks);
+        } catch (IOException e) {
+            throw new DataStoreException(errors().getString(Errors.Keys.CanNotRead_1, reader.input.filename), e);
+        }
+    }
+
+    /**
+     * Returns the image file directory at the given index. This method shall be invoked
+     * in a block synchronized on {@code this}.
+     *
+     * @throws IndexOutOfBoundsException if there is no image at the given index.
+     */
+    private ImageFileDirectory image(final Reader reader, final int image) throws IOException, DataStoreException {
+        final ImageFileDirectory dir = (image >= 0) ? reader.getImageFileDirectory(image) : null;
+        if (dir == null) {
+            throw new IndexOutOfBoundsException(errors().getString(Errors.Keys.IndexOutOfBounds_1, image));
+        }
+        return dir;
+    }
+
+    /**
+     * Returns the given image followed by its overviews. The overviews are the reduced-resolution images
+     * which follow the given image in the TIFF file, until the next full-resolution image. Transparency
+     * masks between them are skipped. This method shall be invoked in a block synchronized on {@code this}.
+     *
+     * @throws IndexOutOfBoundsException if there is no image at the given index.
+     */
+    private List<ImageFileDirectory> levels(final Reader reader, int image) throws IOException, DataStoreException {
+        final List<ImageFileDirectory> levels = new ArrayList<>();
+        levels.add(image(reader, image));
+        ImageFileDirectory dir;
+        while ((dir = reader.getImageFileDirectory(++image)) != null && dir.isAuxiliary()) {
+            if (dir.isOverview()) {
+                levels.add(dir);
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * Computes the subsampling of each level relative to the first level.
+     */
+    private static double[][] resolutions(final List<ImageFileDirectory> levels) {
+        final ImageFileDirectory base = levels.get(0);
+        final double[][] resolutions = new double[levels.size()][];
+        for (int i=0; i<resolutions.length; i++) {
+            final ImageFileDirectory dir = levels.get(i);
+            resolutions[i] = new double[] {
+                (double) base.getImageWidth()  / dir.getImageWidth(),
+                (double) base.getImageHeight() / dir.getImageHeight()
+            };
+        }
+        return resolutions;
+    }
+
+    /**
+     * Returns the index of the coarsest resolution not greater than the given subsampling.
+     *
+     * @see #getOverviewLevel(int, double)
+     */
+    private static int select(final double[][] resolutions, double subsampling) {
+        subsampling *= (1 + OVERVIEW_TOLERANCE);
+        int    selected = 0;
+        double coarsest = 1;
+        for (int i=1; i<resolutions.length; i++) {
+            final double[] r = resolutions[i];
+            final double s = Math.max(r[0], r[1]);
+            if (s <= subsampling && s > coarsest) {
+                coarsest = s;
+                selected = i;
+            }
+        }
+        return selected;
+    }
+
     /**
      * Returns the reader if it is not closed, or thrown an exception otherwise.
      */
@@ -151,6 +369,7 @@ public class GeoTiffStore extends DataStore {
     public synchronized void close() throws DataStoreException {
         final Reader r = reader;
         reader = null;
+        TileCache.GLOBAL.removeAll(this);
         if (r != null) try {
             r.close();
         } catch (IOException e) {
@@ -18,12 +18,20 @@ package org.apache.sis.storage.geotiff;
 
 import java.io.IOException;
 import java.text.ParseException;
+import java.util.List;
 import java.util.Arrays;
 import java.util.Locale;
+import java.util.Comparator;
+import java.util.Collections;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.nio.charset.Charset;
+import java.awt.Rectangle;
+import java.awt.image.Raster;
 import javax.measure.Unit;
 import javax.measure.quantity.Length;
 import org.opengis.metadata.citation.DateType;
@@ -36,6 +44,8 @@ import org.apache.sis.internal.storage.io.ChannelDataInput;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.DataStoreContentException;
 import org.apache.sis.internal.storage.MetadataBuilder;
+import org.apache.sis.internal.storage.TileCache;
+import org.apache.sis.internal.system.CommonExecutor;
 import org.apache.sis.math.Vector;
 import org.apache.sis.measure.Units;
 
@@ -65,6 +75,13 @@ final class ImageFileDirectory {
      */
     private static final byte TILE = 1, STRIP = 2;
 
+    /**
+     * Bits in the {@link #subfileType} field. {@code REDUCED_RESOLUTION} is set if the image is a reduced-resolution
+     * version (an "overview") of another image in the TIFF file. {@code PAGE} is set if the image is a single page of
+     * a multi-page image. {@code MASK} is set if the image defines a transparency mask for another image.
+     */
+    private static final int REDUCED_RESOLUTION = 1, PAGE = 2, MASK = 4;
+
     /**
      * The GeoTIFF reader which contain this {@code ImageFileDirectory}.
      * Used for fetching information like the input channel and where to report warnings.
@@ -72,10 +89,10 @@ final class ImageFileDirectory {
     private final Reader reader;
 
     /**
-     * {@code true} if this {@code ImageFileDirectory} has not yet read all deferred entries.
-     * When this flag is {@code true}, the {@code ImageFileDirectory} is not yet ready for use.
+     * Index of this image in the TIFF file, starting at zero.
+     * This is used for identifying the tiles of this image in the cache.
      */
-    boolean hasDeferredEntries;
+    private final int index;
 
     /**
      * The size of the image described by this FID, or -1 if the information has not been found.
@@ -86,6 +103,13 @@ final class ImageFileDirectory {
      */
     private long imageWidth = -1, imageHeight = -1;
 
+    /**
+     * A general indication of the kind of data contained in this subfile, as a set of 32 flag bits.
+     * See {@link #REDUCED_RESOLUTION}, {@link #PAGE} and {@link #MASK} for the meaning of some bits.
+     * The default value is 0, which means that this image is a full-resolution image.
+     */
+    private int subfileType;
+
     /**
      * The size of each tile, or -1 if the information has not be found.
      * Tiles shall be small enough for fitting in memory, typically in a {@link java.awt.image.Raster} object.
@@ -188,6 +212,21 @@ final class ImageFileDirectory {
      */
     private short samplesPerPixel;
 
+    /**
+     * How to interpret each data sample in a pixel. Value 1 (the default) is unsigned integer data,
+     * 2 is two’s complement signed integer data, 3 is IEEE floating point data and 4 is undefined.
+     * The TIFF specification allows a different format for each component, but current Apache SIS
+     * implementation requires that all components have the same {@code SampleFormat} value.
+     */
+    private byte sampleFormat = 1;
+
+    /**
+     * The mathematical operator applied to the image data before compression. Value 1 (the default)
+     * means that no prediction scheme was used and 2 means horizontal differencing, i.e. each sample
+     * value is stored as the difference with the same component of the previous pixel in the row.
+     */
+    private short predictor = TileDecoder.NO_PREDICTOR;
+
     /**
      * Specifies that each pixel has {@code extraSamples.size()} extra components whose interpretation is defined
      * by one of the values listed below. When this field is used, the {@link #samplesPerPixel} field has a value
@@ -292,6 +331,13 @@ final class ImageFileDirectory {
      */
     private Compression compression;
 
+    /**
+     * The object to use for decompressing the tiles, or {@code null} if not yet created.
+     *
+     * @see #readTiles(Rectangle)
+     */
+    private TileDecoder decoder;
+
     /**
      * References the {@link GeoKeys} needed for building the Coordinate Reference System.
      * This is a GeoTIFF extension to the TIFF specification.
@@ -317,9 +363,11 @@ final class ImageFileDirectory {
      * Creates a new image file directory.
      *
      * @param reader  information about the input stream to read, the metadata and the character encoding.
+     * @param index   index of this image in the TIFF file, starting at zero.
      */
-    ImageFileDirectory(final Reader reader) {
+    ImageFileDirectory(final Reader reader, final int index) {
         this.reader = reader;
+        this.index  = index;
     }
 
     /**
@@ -525,6 +573,35 @@ final class ImageFileDirectory {
                 extraSamples = type.readVector(input(), count);
                 break;
             }
+            /*
+             * How to interpret each data sample in a pixel: 1 = unsigned integer, 2 = signed integer,
+             * 3 = IEEE floating point, 4 = undefined. Current implementation requires all values to be
+             * the same for all components.
+             */
+            case Tags.SampleFormat: {
+                final Vector values = type.readVector(input(), count);
+                final int value = values.intValue(0);
+                final int length = values.size();
+                for (int i = 1; i < length; i++) {
+                    if (values.intValue(i) != value) {
+                        throw new DataStoreContentException(reader.resources().getString(
+                                Resources.Keys.ConstantValueRequired_3, "SampleFormat", input().filename, values));
+                    }
+                }
+                if (value < 1 || value > 4) {
+                    return value;                           // Cause a warning to be reported by the caller.
+                }
+                sampleFormat = (byte) value;
+                break;
+            }
+            /*
+             * A mathematical operator that is applied to the image data before an encoding scheme is applied.
+             * 1 = no prediction scheme, 2 = horizontal differencing, 3 = floating point horizontal differencing.
+             */
+            case Tags.Predictor: {
+                predictor = type.readShort(input(), count);
+                break;
+            }
 
             ////////////////////////////////////////////////////////////////////////////////////////////////
             ////                                                                                        ////
@@ -593,7 +670,7 @@ final class ImageFileDirectory {
              * Bit 4 indicates MRC imaging model as described in ITU-T recommendation T.44 [T.44] (See ImageLayer tag) - RFC 2301.
              */
             case Tags.NewSubfileType: {
-                // TODO
+                subfileType = type.readInt(input(), count);
                 break;
             }
             /*
@@ -603,7 +680,13 @@ final class ImageFileDirectory {
              * 3 = a single page of a multi-page image (see PageNumber).
              */
             case Tags.SubfileType: {
-                // TODO
+                final int value = type.readInt(input(), count);
+                switch (value) {
+                    case 1:  subfileType &= ~REDUCED_RESOLUTION; break;
+                    case 2:  subfileType |=  REDUCED_RESOLUTION; break;
+                    case 3:  subfileType |=  PAGE;               break;
+                    default: return value;                  // Cause a warning to be reported by the caller.
+                }
                 break;
             }
 
@@ -979,6 +1062,163 @@ final class ImageFileDirectory {
         }
     }
 
+    /**
+     * Returns the image width in pixels. This method shall be invoked only after
+     * {@link #validateMandatoryTags()} has been invoked.
+     */
+    final long getImageWidth() {
+        return imageWidth;
+    }
+
+    /**
+     * Returns the image height in pixels. This method shall be invoked only after
+     * {@link #validateMandatoryTags()} has been invoked.
+     */
+    final long getImageHeight() {
+        return imageHeight;
+    }
+
+    /**
+     * Returns {@code true} if this image is a reduced-resolution version (an "overview")
+     * of another image in the same TIFF file. Transparency masks are excluded.
+     */
+    final boolean isOverview() {
+        return (subfileType & (REDUCED_RESOLUTION | MASK)) == REDUCED_RESOLUTION;
+    }
+
+    /**
+     * Returns {@code true} if this image is a reduced-resolution version of another image
+     * or a transparency mask, i.e. an image which is not meaningful by itself.
+     */
+    final boolean isAuxiliary() {
+        return (subfileType & (REDUCED_RESOLUTION | MASK)) != 0;
+    }
+
+    /**
+     * Returns the object to use for decompressing the tiles, creating it when first needed.
+     *
+     * @throws DataStoreContentException if the image uses a compression or a sample layout not supported by SIS.
+     */
+    private TileDecoder decoder() throws DataStoreContentException {
+        if (decoder == null) {
+            if (compression == null) {
+                throw unsupported(Tags.Compression, '?');
+            }
+            switch (compression) {
+                case NONE: case PACKBITS: case LZW: case DEFLATE: break;
+                default: throw unsupported(Tags.Compression, compression);
+            }
+            final int dataType = TileDecoder.dataType(bitsPerSample, samplesPerPixel, sampleFormat);
+            if (dataType < 0) {
+                final boolean isFormat = TileDecoder.dataType(bitsPerSample, samplesPerPixel, 1) >= 0;
+                throw unsupported(isFormat ? Tags.SampleFormat : Tags.BitsPerSample,
+                                  isFormat ? sampleFormat  : bitsPerSample);
+            }
+            if (predictor != TileDecoder.NO_PREDICTOR && (predictor != TileDecoder.HORIZONTAL_DIFFERENCING
+                    || bitsPerSample < Byte.SIZE || sampleFormat == TileDecoder.FLOAT))
+            {
+                throw unsupported(Tags.Predictor, predictor);
+            }
+            decoder = new TileDecoder(input().filename, compression, predictor, reverseBitsOrder, input().buffer.order(),
+                    bitsPerSample, samplesPerPixel, isPlanar, dataType, tileWidth, tileHeight);
+        }
+        return decoder;
+    }
+
+    /**
+     * Reads the compressed bytes of all tiles intersecting the given region and submits their decoding
+     * to the {@linkplain CommonExecutor common executor}. Bytes are read sequentially in the order they
+     * appear in the file, and the decoding of each tile starts as soon as its bytes are available,
+     * so the decompression of some tiles overlaps the reading of the next ones. Tiles found in the
+     * {@linkplain TileCache#GLOBAL tile cache} are neither read nor decoded.
+     *
+     * <p>This method shall be invoked in a block synchronized on the data store,
+     * but the returned tasks can be completed outside that block.</p>
+     *
+     * @param  region  the region to read in pixel coordinates, or {@code null} for the whole image.
+     * @return tasks computing the tiles intersecting the given region, in row-major order.
+     * @throws IOException if an error occurred while reading the compressed bytes.
+     * @throws DataStoreContentException if the image uses a compression or a sample layout not supported by SIS.
+     * @throws ArithmeticException if the image is too large.
+     */
+    final List<Future<Raster>> readTiles(Rectangle region) throws IOException, DataStoreContentException {
+        final TileDecoder decoder = decoder();
+        final int width  = JDK8.toIntExact(imageWidth);
+        final int height = JDK8.toIntExact(imageHeight);
+        final Rectangle bounds = new Rectangle(width, height);
+        region = (region != null) ? region.intersection(bounds) : bounds;
+        if (region.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final int tilesAcross   = JDK8.toIntExact((imageWidth  + tileWidth  - 1) / tileWidth);
+        final int tilesDown     = JDK8.toIntExact((imageHeight + tileHeight - 1) / tileHeight);
+        final int tilesPerPlane = JDK8.multiplyExact(tilesAcross, tilesDown);
+        final int minX = region.x / tileWidth;
+        final int minY = region.y / tileHeight;
+        final int maxX = (region.x + (region.width  - 1)) / tileWidth;
+        final int maxY = (region.y + (region.height - 1)) / tileHeight;
+        final int[] tiles = new int[(maxX - minX + 1) * (maxY - minY + 1)];
+        final Integer[] order = new Integer[tiles.length];
+        int n = 0;
+        for (int ty = minY; ty <= maxY; ty++) {
+            for (int tx = minX; tx <= maxX; tx++) {
+                tiles[n] = ty * tilesAcross + tx;
+                order[n] = n;
+                n++;
+            }
+        }
+        /*
+         * Read the tiles in the order they appear in the file for avoiding backward seeks.
+         * The result is nevertheless stored in row-major order.
+         */
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override public int compare(final Integer t1, final Integer t2) {
+                return Long.compare(tileOffsets.longValue(tiles[t1]), tileOffsets.longValue(tiles[t2]));
+            }
+        });
+        final ChannelDataInput input = input();
+        final ExecutorService executor = CommonExecutor.instance();
+        final TileCache cache = TileCache.GLOBAL;
+        final int numPlanes = isPlanar ? samplesPerPixel : 1;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final Future<Raster>[] tasks = new Future[tiles.length];
+        try {
+            for (final int i : order) {
+                final int tile = tiles[i];
+                final TileCache.Key key = new TileCache.Key(reader.owner, index, tile);
+                final Raster cached = cache.peek(key);
+                if (cached != null) {
+                    tasks[i] = TileDecoder.completed(cached);
+                    continue;
+                }
+                final byte[][] blocks = new byte[numPlanes][];
+                for (int p=0; p<numPlanes; p++) {
+                    final int t = tile + p * tilesPerPlane;
+                    input.seek(JDK8.addExact(reader.origin, tileOffsets.longValue(t)));
+                    blocks[p] = input.readBytes(JDK8.toIntExact(tileByteCounts.longValue(t)));
+                }
+                final int x = (tile % tilesAcross) * tileWidth;
+                final int y = (tile / tilesAcross) * tileHeight;
+                final int w = Math.min(tileWidth,  width  - x);
+                final int h = Math.min(tileHeight, height - y);
+                final Callable<Raster> creator = new Callable<Raster>() {
+                    @Override public Raster call() throws IOException, DataStoreContentException {
+                        return decoder.decode(blocks, x, y, w, h);
+                    }
+                };
+                tasks[i] = executor.submit(new Callable<Raster>() {
+                    @Override public Raster call() throws Exception {
+                        return cache.getOrCreate(key, creator);         // Does not decode twice the same tile.
+                    }
+                });
+            }
+        } catch (IOException | RuntimeException e) {
+            TileDecoder.cancel(Arrays.asList(tasks));
+            throw e;
+        }
+        return Arrays.asList(tasks);
+    }
+
     /**
      * Completes the metadata with the information stored in the field of this IFD.
      * This method is invoked only if the user requested the ISO 19115 metadata.
@@ -1100,4 +1340,15 @@ final class ImageFileDirectory {
         return new DataStoreContentException(reader.resources().getString(
                 Resources.Keys.MissingValue_2, input().filename, Tags.name(missing)));
     }
+
+    /**
+     * Builds an exception for a TIFF tag value which is valid but not supported by the pixel reader.
+     *
+     * @param  tag    the numerical value of the tag having an unsupported value.
+     * @param  value  the unsupported value.
+     */
+    private DataStoreContentException unsupported(final short tag, final Object value) {
+        return new DataStoreContentException(reader.resources().getString(
+                Resources.Keys.UnsupportedTagValue_3, input().filename, Tags.name(tag), value));
+    }
 }
@@ -16,12 +16,12 @@
  */
 package org.apache.sis.storage.geotiff;
 
+import java.util.Map;
+import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.Set;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.io.IOException;
 import java.nio.ByteOrder;
 import java.text.ParseException;
@@ -65,7 +65,7 @@ final class Reader extends GeoTIFF {
     /**
      * Stream position of the first byte of the GeoTIFF file. This is usually zero.
      */
-    private final long origin;
+    final long origin;
 
     /**
      * A multiplication factor for the size of pointers, expressed as a power of 2.
@@ -85,7 +85,7 @@ final class Reader extends GeoTIFF {
 
     /**
      * Offset (relative to the beginning of the TIFF file) of the next Image File Directory (IFD)
-     * to read, or 0 if we have finished to read all of them.
+     * to locate, or 0 if we have found all of them.
      *
      * @see #readNextImageOffset()
      */
@@ -101,26 +101,19 @@ final class Reader extends GeoTIFF {
     private final Set<Long> doneIFD;
 
     /**
-     * Positions of each <cite>Image File Directory</cite> (IFD) in this file.
-     * Those positions are fetched when first needed.
-     */
-    private final List<ImageFileDirectory> imageFileDirectories = new ArrayList<>();
-
-    /**
-     * Entries having a value that can not be read immediately, but instead have a pointer
-     * to a value stored elsewhere in the file. Those values will be read only when needed.
+     * Offsets (relative to the beginning of the TIFF file) of all <cite>Image File Directory</cite> (IFD)
+     * found so far, in the order they appear in the chain of IFDs. Those offsets are collected by walking
+     * the chain without parsing the entries of the IFDs that we skip.
      *
-     * <div class="note"><b>Implementation note:</b>
-     * we use a {@code LinkedList} because we will perform frequent additions and removals,
-     * but no random access.</div>
+     * @see #offsetOfImage(int)
      */
-    private final LinkedList<DeferredEntry> deferredEntries = new LinkedList<>();
+    private final List<Long> directoryOffsets = new ArrayList<>();
 
     /**
-     * Whether {@link #deferredEntries} needs to be stored. This flag is set to {@code true} when
-     * at least one new deferred entry has been added, and cleared after the sort has been done.
+     * The <cite>Image File Directory</cite> (IFD) parsed so far, indexed by their position in the file.
+     * Only the IFD requested by {@link #getImageFileDirectory(int)} are parsed, so this map may be sparse.
      */
-    private boolean deferredNeedsSort;
+    private final Map<Integer,ImageFileDirectory> imageFileDirectories = new HashMap<>();
 
     /**
      * Builder for the metadata.
@@ -236,130 +229,128 @@ final class Reader extends GeoTIFF {
      * If the IFD has already been read, then it is returned.
      * Otherwise this method reads the IFD now and returns it.
      *
-     * <p>The IFD consists of a 2 (classical) or 8 (BigTiff)-bytes count of the number of directory entries,
-     * followed by a sequence of 12-byte field entries, followed by a pointer to the next IFD (or 0 if none).</p>
+     * <p>Only the requested IFD is parsed. The IFD before it are skipped without reading their entries:
+     * this method reads only their number of entries and their pointer to the next IFD. Consequently
+     * the cost of getting an IFD does not depend on the content of the IFD before it.</p>
      *
-     * @return the IFD if we found it, or {@code null} if there is no more IFD at the given index.
+     * @return the IFD if we found it, or {@code null} if there is no more IFD at the given index.
      * @throws ArithmeticException if the pointer to a next IFD is too far.
      */
     final ImageFileDirectory getImageFileDirectory(final int index) throws IOException, DataStoreException {
-        while (index >= imageFileDirectories.size()) {
-            if (nextIFD == 0) {
+        ImageFileDirectory dir = imageFileDirectories.get(index);
+        if (dir == null) {
+            final long offset = offsetOfImage(index);
+            if (offset == 0) {
                 return null;
             }
-            resolveDeferredEntries(null, nextIFD);
-            input.seek(JDK8.addExact(origin, nextIFD));
+            dir = readImageFileDirectory(index, offset);
+            imageFileDirectories.put(index, dir);
+        }
+        return dir;
+    }
+
+    /**
+     * Returns the offset (relative to the beginning of the TIFF file) of the IFD at the given index,
+     * or 0 if there is no IFD at that index. If the IFD has not yet been located, this method walks
+     * the chain of IFDs from the last located one.
+     *
+     * <p>The IFD consists of a 2 (classical) or 8 (BigTiff)-bytes count of the number of directory entries,
+     * followed by a sequence of 12-byte (classical) or 20-bytes (BigTIFF) field entries, followed by a pointer
+     * to the next IFD (or 0 if none). This method skips the field entries.</p>
+     */
+    private long offsetOfImage(final int index) throws IOException, DataStoreException {
+        while (index >= directoryOffsets.size()) {
+            if (nextIFD == 0) {
+                return 0;
+            }
+            final long offset = nextIFD;
+            input.seek(JDK8.addExact(origin, offset));
             nextIFD = 0;               // Prevent trying other IFD if we fail to read this one.
+            final int  offsetSize = (Integer.SIZE / Byte.SIZE) << intSizeExpansion;
+            final long entrySize  = 2*(Short.SIZE / Byte.SIZE) + 2*offsetSize;
+            final long count      = readUnsignedShort();
+            input.seek(JDK8.addExact(input.getStreamPosition(), JDK8.multiplyExact(count, entrySize)));
+            directoryOffsets.add(offset);
+            readNextImageOffset();                          // Zero if the IFD that we just read was the last one.
+        }
+        return directoryOffsets.get(index);
+    }
+
+    /**
+     * Parses the IFD at the given offset, then reads all its entries having values stored elsewhere in the file.
+     *
+     * @param  index   index of the IFD to read.
+     * @param  offset  offset of the IFD relative to the beginning of the TIFF file.
+     * @return the IFD, with all entries read and mandatory tags validated.
+     */
+    private ImageFileDirectory readImageFileDirectory(final int index, final long offset)
+            throws IOException, DataStoreException
+    {
+        input.seek(JDK8.addExact(origin, offset));
+        final int offsetSize = (Integer.SIZE / Byte.SIZE) << intSizeExpansion;
+        final ImageFileDirectory dir = new ImageFileDirectory(this, index);
+        final List<DeferredEntry> deferredEntries = new ArrayList<>();
+        for (long remaining = readUnsignedShort(); --remaining >= 0;) {
             /*
-             * Design note: we parse the Image File Directory entry now because even if we were
-             * not interrested in that IFD, we need to go anyway after its last record in order
-             * to get the pointer to the next IFD.
+             * Each entry in the Image File Directory has the following format:
+             *   - The tag that identifies the field (see constants in the Tags class).
+             *   - The field type (see constants inherited from the GeoTIFF class).
+             *   - The number of values of the indicated type.
+             *   - The value, or the file offset to the value elswhere in the file.
              */
-            final int offsetSize = (Integer.SIZE / Byte.SIZE) << intSizeExpansion;
-            final ImageFileDirectory dir = new ImageFileDirectory(this);
-            for (long remaining = readUnsignedShort(); --remaining >= 0;) {
+            final short tag  = (short) input.readUnsignedShort();
+            final Type type  = Type.valueOf(input.readShort());        // May be null.
+            final long count = readUnsignedInt();
+            final long size  = (type != null) ? JDK8.multiplyExact(type.size, count) : 0;
+            if (size <= offsetSize) {
                 /*
-                 * Each entry in the Image File Directory has the following format:
-                 *   - The tag that identifies the field (see constants in the Tags class).
-                 *   - The field type (see constants inherited from the GeoTIFF class).
-                 *   - The number of values of the indicated type.
-                 *   - The value, or the file offset to the value elswhere in the file.
+                 * If the value can fit inside the number of bytes given by 'offsetSize', then the value is
+                 * stored directly at that location. This is the most common way TIFF tag values are stored.
                  */
-                final short tag  = (short) input.readUnsignedShort();
-                final Type type  = Type.valueOf(input.readShort());        // May be null.
-                final long count = readUnsignedInt();
-                final long size  = (type != null) ? JDK8.multiplyExact(type.size, count) : 0;
-                if (size <= offsetSize) {
+                final long position = input.getStreamPosition();
+                if (size != 0) {
                     /*
-                     * If the value can fit inside the number of bytes given by 'offsetSize', then the value is
-                     * stored directly at that location. This is the most common way TIFF tag values are stored.
+                     * A size of zero means that we have an unknown type, in which case the TIFF specification
+                     * recommends to ignore it (for allowing them to add new types in the future), or an entry
+                     * without value (count = 0) - in principle illegal but we make this reader tolerant.
                      */
-                    final long position = input.getStreamPosition();
-                    if (size != 0) {
-                        Object error;
-                        try {
-                            /*
-                             * A size of zero means that we have an unknown type, in which case the TIFF specification
-                             * recommends to ignore it (for allowing them to add new types in the future), or an entry
-                             * without value (count = 0) - in principle illegal but we make this reader tolerant.
-                             */
-                            error = dir.addEntry(tag, type, count);
-                        } catch (ParseException | RuntimeException e) {
-                            error = e;
-                        }
-                        if (error != null) {
-                            warning(tag, error);
-                        }
-                    }
-                    input.seek(position + offsetSize);      // Usually just move the buffer position by a few bytes.
-                } else {
-                    // Offset from beginning of TIFF file where the values are stored.
-                    deferredEntries.add(new DeferredEntry(dir, tag, type, count, readUnsignedInt()));
-                    dir.hasDeferredEntries = true;
-                    deferredNeedsSort = true;
+                    addEntry(dir, tag, type, count);
                 }
+                input.seek(position + offsetSize);      // Usually just move the buffer position by a few bytes.
+            } else {
+                // Offset from beginning of TIFF file where the values are stored.
+                deferredEntries.add(new DeferredEntry(dir, tag, type, count, readUnsignedInt()));
             }
-            imageFileDirectories.add(dir);
-            readNextImageOffset();                          // Zero if the IFD that we just read was the last one.
         }
         /*
-         * At this point we got the requested IFD. But maybe some deferred entries need to be read.
-         * The values of those entries may be anywhere in the TIFF file, in any order. Given that
-         * seek operations in the input stream may be costly or even not possible, we try to read
-         * all values in sequential order, including values of other IFD if there is some before
-         * our IFD of interest.
+         * At this point we parsed the requested IFD. But some entries have values stored elsewhere in the file,
+         * in any order. Given that seek operations in the input stream may be costly, we read those values in
+         * sequential order.
          */
-        final ImageFileDirectory dir = imageFileDirectories.get(index);
-        if (dir.hasDeferredEntries) {
-            resolveDeferredEntries(dir, Long.MAX_VALUE);
-            dir.hasDeferredEntries = false;
+        Collections.sort(deferredEntries);
+        for (final DeferredEntry entry : deferredEntries) {
+            input.seek(JDK8.addExact(origin, entry.offset));
+            addEntry(dir, entry.tag, entry.type, entry.count);
         }
         dir.validateMandatoryTags();
         return dir;
     }
 
     /**
-     * Reads some of the entries that has been deferred. If the given {@code dir} argument is non-null,
-     * then this method resolves all entries needed by this IFD no matter where the entry value is located.
-     * For other entries, this method may opportunistically resolve some values but make no guarantees.
-     * Generally, values of IFD other than {@code this} will not be resolved if they are located before
-     * the current stream position or after the {@code ignoreAfter} value.
-     *
-     * @param dir  the IFD for which to resolve deferred entries regardless stream position or {@code ignoreAfter} value.
-     * @param ignoreAfter  offset relative to the beginning of TIFF file at which entries should be ignored.
-     *        This hint does not apply to the IFD specified by the {@code dir} argument.
+     * Adds the value read from the current input position for the given tag,
+     * and logs a warning if the value can not be read.
      */
-    private void resolveDeferredEntries(final ImageFileDirectory dir, final long ignoreAfter)
+    private void addEntry(final ImageFileDirectory dir, final short tag, final Type type, final long count)
             throws IOException, DataStoreException
     {
-        if (deferredNeedsSort) {
-            Collections.sort(deferredEntries);                          // Sequential order in input stream.
-            deferredNeedsSort = false;
+        Object error;
+        try {
+            error = dir.addEntry(tag, type, count);
+        } catch (ParseException | RuntimeException e) {
+            error = e;
         }
-        final long ignoreBefore = input.getStreamPosition() - origin;   // Avoid seeking back, unless we need to.
-        DeferredEntry stopAfter = null;                                 // Avoid reading more entries than needed.
-        if (dir != null) {
-            for (final Iterator<DeferredEntry> it = deferredEntries.descendingIterator(); it.hasNext();) {
-                stopAfter = it.next();
-                if (stopAfter.owner == dir) break;
-            }
-        }
-        for (final Iterator<DeferredEntry> it = deferredEntries.iterator(); it.hasNext();) {
-            final DeferredEntry entry = it.next();
-            if (entry.owner == dir || (entry.offset >= ignoreBefore && entry.offset <= ignoreAfter)) {
-                input.seek(JDK8.addExact(origin, entry.offset));
-                Object error;
-                try {
-                    error = entry.owner.addEntry(entry.tag, entry.type, entry.count);
-                } catch (ParseException | RuntimeException e) {
-                    error = e;
-                }
-                if (error != null) {
-                    warning(entry.tag, error);
-                }
-                it.remove();            // Remove only on success, but before we try to read other entries.
-            }
-            if (entry == stopAfter) break;
+        if (error != null) {
+            warning(tag, error);
         }
     }
 
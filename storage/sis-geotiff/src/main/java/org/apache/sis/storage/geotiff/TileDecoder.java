@@ -0,0 +1,569 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.Inflater;
+import java.util.zip.DataFormatException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.awt.Point;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.SampleModel;
+import java.awt.image.BandedSampleModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.MultiPixelPackedSampleModel;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.util.resources.Errors;
+
+
+/**
+ * Decompresses the tiles of an image and wraps the sample values in Java2D rasters.
+ * A {@code TileDecoder} is created by {@link ImageFileDirectory} with all the information needed for interpreting
+ * the bytes of a tile (compression, predictor, sample layout, byte order). The compressed bytes are read from the
+ * file by the caller, then {@link #decode decode(…)} can be invoked concurrently by many threads since this class
+ * is immutable.
+ *
+ * <p>Current implementation supports the following compressions: {@link Compression#NONE}, {@link Compression#PACKBITS},
+ * {@link Compression#LZW} and {@link Compression#DEFLATE}, with the horizontal differencing predictor. Photometric
+ * interpretation is not applied: the rasters contain the sample values as stored in the file.</p>
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class TileDecoder {
+    /**
+     * Value of the {@code Predictor} TIFF tag meaning that no prediction scheme is used.
+     */
+    static final int NO_PREDICTOR = 1;
+
+    /**
+     * Value of the {@code Predictor} TIFF tag for horizontal differencing.
+     */
+    static final int HORIZONTAL_DIFFERENCING = 2;
+
+    /**
+     * Value of the {@code SampleFormat} TIFF tag for two’s complement signed integer data.
+     */
+    static final int SIGNED = 2;
+
+    /**
+     * Value of the {@code SampleFormat} TIFF tag for IEEE floating point data.
+     */
+    static final int FLOAT = 3;
+
+    /**
+     * LZW codes having a special meaning.
+     */
+    private static final int LZW_CLEAR = 256, LZW_EOI = 257;
+
+    /**
+     * Maximal number of bits in a LZW code.
+     */
+    private static final int LZW_MAX_BITS = 12;
+
+    /**
+     * Name of the file to decode, used in error messages.
+     */
+    private final String filename;
+
+    /**
+     * The compression method.
+     */
+    private final Compression compression;
+
+    /**
+     * {@link #HORIZONTAL_DIFFERENCING} if the sample values are differences with the previous sample,
+     * or {@link #NO_PREDICTOR} otherwise.
+     */
+    private final int predictor;
+
+    /**
+     * Whether the bits order shall be reversed in every bytes before decompression.
+     */
+    private final boolean reverseBitsOrder;
+
+    /**
+     * The byte order of multi-bytes sample values.
+     */
+    private final ByteOrder byteOrder;
+
+    /**
+     * Number of bits per sample value, and number of sample values per pixel.
+     */
+    private final int bitsPerSample, samplesPerPixel;
+
+    /**
+     * Whether each band is stored in a separated plane (one compressed block per band) instead than interleaved.
+     */
+    private final boolean isPlanar;
+
+    /**
+     * One of the {@link DataBuffer} {@code TYPE_*} constants.
+     */
+    private final int dataType;
+
+    /**
+     * Size of tiles in pixels. Tiles on the right and bottom borders of the image may be clipped by the caller.
+     */
+    private final int tileWidth, tileHeight;
+
+    /**
+     * Number of sample values in a row of a compressed block, and number of bytes in that row.
+     */
+    private final int samplesPerRow, bytesPerRow;
+
+    /**
+     * Creates a new decoder for tiles of the given format.
+     * Caller shall verify that the given values are supported by this class.
+     *
+     * @param  dataType  one of the {@link DataBuffer} {@code TYPE_*} constants.
+     */
+    TileDecoder(final String filename, final Compression compression, final int predictor,
+            final boolean reverseBitsOrder, final ByteOrder byteOrder, final int bitsPerSample,
+            final int samplesPerPixel, final boolean isPlanar, final int dataType,
+            final int tileWidth, final int tileHeight)
+    {
+        this.filename         = filename;
+        this.compression      = compression;
+        this.predictor        = predictor;
+        this.reverseBitsOrder = reverseBitsOrder;
+        this.byteOrder        = byteOrder;
+        this.bitsPerSample    = bitsPerSample;
+        this.samplesPerPixel  = samplesPerPixel;
+        this.isPlanar         = isPlanar;
+        this.dataType         = dataType;
+        this.tileWidth        = tileWidth;
+        this.tileHeight       = tileHeight;
+        samplesPerRow = tileWidth * (isPlanar ? 1 : samplesPerPixel);
+        bytesPerRow   = (samplesPerRow * bitsPerSample + (Byte.SIZE - 1)) / Byte.SIZE;
+    }
+
+    /**
+     * Returns the Java2D data type for the given TIFF sample format, or -1 if unsupported.
+     * Sample values of less than 8 bits are supported only if there is only one sample per pixel.
+     *
+     * @param  bitsPerSample    number of bits per sample value.
+     * @param  samplesPerPixel  number of sample values per pixel.
+     * @param  sampleFormat     value of the {@code SampleFormat} TIFF tag.
+     * @return one of the {@link DataBuffer} {@code TYPE_*} constants, or -1 if unsupported.
+     */
+    static int dataType(final int bitsPerSample, final int samplesPerPixel, final int sampleFormat) {
+        switch (bitsPerSample) {
+            case 1:
+            case 2:
+            case 4:  return (samplesPerPixel == 1 && sampleFormat != FLOAT) ? DataBuffer.TYPE_BYTE : -1;
+            case 8:  return (sampleFormat != FLOAT) ? DataBuffer.TYPE_BYTE : -1;
+            case 16: return (sampleFormat == FLOAT) ? -1 : (sampleFormat == SIGNED) ? DataBuffer.TYPE_SHORT : DataBuffer.TYPE_USHORT;
+            case 32: return (sampleFormat == FLOAT) ? DataBuffer.TYPE_FLOAT : DataBuffer.TYPE_INT;
+            case 64: return (sampleFormat == FLOAT) ? DataBuffer.TYPE_DOUBLE : -1;
+            default: return -1;
+        }
+    }
+
+    /**
+     * Decompresses the given blocks and returns the sample values in a raster located at the given pixel coordinates.
+     * The {@code blocks} array contains one element for interleaved sample values, or one element per band for planar
+     * configuration. The given arrays may be modified by this method.
+     *
+     * <p>This method is thread-safe.</p>
+     *
+     * @param  blocks  the compressed bytes of each block (plane) of the tile.
+     * @param  x       column index of the upper-left pixel of the tile.
+     * @param  y       row index of the upper-left pixel of the tile.
+     * @param  width   number of columns to retain, not greater than the tile width.
+     * @param  height  number of rows to retain, not greater than the tile height.
+     * @return the decoded tile, clipped to the given width and height.
+     * @throws IOException if an error occurred while decompressing the data.
+     * @throws DataStoreContentException if the compressed data are corrupted.
+     */
+    WritableRaster decode(final byte[][] blocks, final int x, final int y, final int width, final int height)
+            throws IOException, DataStoreContentException
+    {
+        final int numBanks = blocks.length;
+        final byte[][] bytes = new byte[numBanks][];
+        for (int b=0; b<numBanks; b++) {
+            final byte[] block = blocks[b];
+            if (reverseBitsOrder) {
+                reverseBits(block);
+            }
+            final byte[] data = new byte[bytesPerRow * tileHeight];
+            decompress(block, data);
+            bytes[b] = data;
+        }
+        /*
+         * Convert the bytes to sample values of the final type, then undo the prediction if any.
+         */
+        final int bankSize = samplesPerRow * tileHeight;
+        final int stride   = isPlanar ? 1 : samplesPerPixel;    // Distance to the same band in previous pixel.
+        final DataBuffer buffer;
+        switch (dataType) {
+            case DataBuffer.TYPE_BYTE: {
+                if (predictor == HORIZONTAL_DIFFERENCING) {
+                    for (final byte[] data : bytes) {
+                        for (int row=0; row<data.length; row += samplesPerRow) {
+                            for (int i = row + stride; i < row + samplesPerRow; i++) {
+                                data[i] += data[i - stride];
+                            }
+                        }
+                    }
+                }
+                buffer = new DataBufferByte(bytes, bytes[0].length);
+                break;
+            }
+            case DataBuffer.TYPE_SHORT:
+            case DataBuffer.TYPE_USHORT: {
+                final short[][] banks = new short[numBanks][];
+                for (int b=0; b<numBanks; b++) {
+                    final short[] data = new short[bankSize];
+                    ByteBuffer.wrap(bytes[b]).order(byteOrder).asShortBuffer().get(data);
+                    if (predictor == HORIZONTAL_DIFFERENCING) {
+                        for (int row=0; row<data.length; row += samplesPerRow) {
+                            for (int i = row + stride; i < row + samplesPerRow; i++) {
+                                data[i] += data[i - stride];
+                            }
+                        }
+                    }
+                    banks[b] = data;
+                }
+                buffer = (dataType == DataBuffer.TYPE_SHORT) ? new DataBufferShort(banks, bankSize)
+                                                             : new DataBufferUShort(banks, bankSize);
+                break;
+            }
+            case DataBuffer.TYPE_INT: {
+                final int[][] banks = new int[numBanks][];
+                for (int b=0; b<numBanks; b++) {
+                    final int[] data = new int[bankSize];
+                    ByteBuffer.wrap(bytes[b]).order(byteOrder).asIntBuffer().get(data);
+                    if (predictor == HORIZONTAL_DIFFERENCING) {
+                        for (int row=0; row<data.length; row += samplesPerRow) {
+                            for (int i = row + stride; i < row + samplesPerRow; i++) {
+                                data[i] += data[i - stride];
+                            }
+                        }
+                    }
+                    banks[b] = data;
+                }
+                buffer = new DataBufferInt(banks, bankSize);
+                break;
+            }
+            case DataBuffer.TYPE_FLOAT: {
+                final float[][] banks = new float[numBanks][];
+                for (int b=0; b<numBanks; b++) {
+                    banks[b] = new float[bankSize];
+                    ByteBuffer.wrap(bytes[b]).order(byteOrder).asFloatBuffer().get(banks[b]);
+                }
+                buffer = new DataBufferFloat(banks, bankSize);
+                break;
+            }
+            case DataBuffer.TYPE_DOUBLE: {
+                final double[][] banks = new double[numBanks][];
+                for (int b=0; b<numBanks; b++) {
+                    banks[b] = new double[bankSize];
+                    ByteBuffer.wrap(bytes[b]).order(byteOrder).asDoubleBuffer().get(banks[b]);
+                }
+                buffer = new DataBufferDouble(banks, bankSize);
+                break;
+            }
+            default: throw new AssertionError(dataType);
+        }
+        /*
+         * Wrap the sample values in a raster. The sample model depends on whether the sample values
+         * are packed in bytes (less than 8 bits per sample), interleaved or stored in separated planes.
+         */
+        final SampleModel model;
+        if (bitsPerSample < Byte.SIZE) {
+            model = new MultiPixelPackedSampleModel(dataType, tileWidth, tileHeight, bitsPerSample);
+        } else if (isPlanar) {
+            model = new BandedSampleModel(dataType, tileWidth, tileHeight, numBanks);
+        } else {
+            final int[] offsets = new int[samplesPerPixel];
+            for (int i=0; i<offsets.length; i++) {
+                offsets[i] = i;
+            }
+            model = new PixelInterleavedSampleModel(dataType, tileWidth, tileHeight, samplesPerPixel, samplesPerRow, offsets);
+        }
+        final WritableRaster raster = Raster.createWritableRaster(model, buffer, new Point(x, y));
+        if (width == tileWidth && height == tileHeight) {
+            return raster;
+        }
+        return raster.createWritableChild(x, y, width, height, x, y, null);
+    }
+
+    /**
+     * Decompresses the given source bytes into the given target array. If the decompressed data are shorter
+     * than the target array (for example in the last strip of an image), the remaining bytes are left to zero.
+     * If the decompressed data are longer, the extra bytes are ignored.
+     *
+     * @param  source  the compressed bytes.
+     * @param  target  where to store the decompressed bytes.
+     */
+    private void decompress(final byte[] source, final byte[] target) throws IOException, DataStoreContentException {
+        switch (compression) {
+            case NONE: {
+                System.arraycopy(source, 0, target, 0, Math.min(source.length, target.length));
+                break;
+            }
+            case PACKBITS: unpackBits(source, target); break;
+            case LZW:      if (!decodeLZW(source, target)) throw corrupted(); break;
+            case DEFLATE: {
+                try {
+                    inflate(source, target);
+                } catch (DataFormatException e) {
+                    throw (DataStoreContentException) corrupted().initCause(e);
+                }
+                break;
+            }
+            default: throw new AssertionError(compression);
+        }
+    }
+
+    /**
+     * Returns the exception to throw for corrupted compressed data.
+     */
+    private DataStoreContentException corrupted() {
+        return new DataStoreContentException(Errors.format(Errors.Keys.CanNotRead_1, filename));
+    }
+
+    /**
+     * Reverses the bits order in every bytes of the given array.
+     * This is needed when the {@code FillOrder} TIFF tag has value 2.
+     *
+     * @param  data  the bytes to modify in-place.
+     */
+    static void reverseBits(final byte[] data) {
+        for (int i=0; i<data.length; i++) {
+            data[i] = (byte) (Integer.reverse(data[i]) >>> (Integer.SIZE - Byte.SIZE));
+        }
+    }
+
+    /**
+     * Decompresses data encoded with the Macintosh PackBits algorithm.
+     * Each run begins with a header byte <var>n</var> interpreted as a signed value:
+     *
+     * <ul>
+     *   <li>0 to 127: copy the next <var>n</var>+1 bytes literally.</li>
+     *   <li>-127 to -1: repeat the next byte 1-<var>n</var> times.</li>
+     *   <li>-128: no operation.</li>
+     * </ul>
+     *
+     * @param  source  the compressed bytes.
+     * @param  target  where to store the decompressed bytes.
+     */
+    static void unpackBits(final byte[] source, final byte[] target) {
+        int s = 0, t = 0;
+        while (s < source.length && t < target.length) {
+            final int n = source[s++];
+            if (n >= 0) {
+                final int length = Math.min(Math.min(n + 1, source.length - s), target.length - t);
+                System.arraycopy(source, s, target, t, length);
+                s += n + 1;
+                t += length;
+            } else if (n != -128 && s < source.length) {
+                final byte value = source[s++];
+                final int end = Math.min(t + 1 - n, target.length);
+                while (t < end) {
+                    target[t++] = value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Decompresses data encoded with the LZW algorithm as specified in TIFF 6.0.
+     * Codes are stored with the most significant bit first and start with a length of 9 bits.
+     * The code length is incremented one code before the table is full ("early change").
+     *
+     * @param  source  the compressed bytes.
+     * @param  target  where to store the decompressed bytes.
+     * @return {@code false} if an invalid code has been found.
+     */
+    static boolean decodeLZW(final byte[] source, final byte[] target) {
+        final int   capacity = 1 << LZW_MAX_BITS;
+        final int[] prefix   = new int [capacity];          // Code of the string without its last byte.
+        final byte[] suffix  = new byte[capacity];          // Last byte of the string.
+        final byte[] first   = new byte[capacity];          // First byte of the string.
+        final int[] lengths  = new int [capacity];          // Number of bytes in the string.
+        for (int i=0; i<LZW_CLEAR; i++) {
+            suffix [i] = (byte) i;
+            first  [i] = (byte) i;
+            lengths[i] = 1;
+        }
+        int  codeSize  = 9;
+        int  nextCode  = LZW_EOI + 1;
+        int  oldCode   = -1;
+        int  bitBuffer = 0;
+        int  bitCount  = 0;
+        int  s = 0, t = 0;
+        while (t < target.length) {
+            while (bitCount < codeSize) {
+                if (s >= source.length) {
+                    return true;                            // Missing EOI code is tolerated.
+                }
+                bitBuffer = (bitBuffer << Byte.SIZE) | (source[s++] & 0xFF);
+                bitCount += Byte.SIZE;
+            }
+            bitCount -= codeSize;
+            final int code = (bitBuffer >>> bitCount) & ((1 << codeSize) - 1);
+            if (code == LZW_EOI) {
+                break;
+            }
+            if (code == LZW_CLEAR) {
+                codeSize = 9;
+                nextCode = LZW_EOI + 1;
+                oldCode  = -1;
+                continue;
+            }
+            final int string;
+            if (oldCode < 0) {
+                if (code >= LZW_CLEAR) return false;
+                string = code;
+            } else {
+                if (code > nextCode || (code == nextCode && nextCode >= capacity)) {
+                    return false;
+                }
+                if (nextCode < capacity) {
+                    /*
+                     * New entry is the old string followed by the first byte of the current string.
+                     * If the current code is the entry being created, that first byte is the first
+                     * byte of the old string.
+                     */
+                    prefix [nextCode] = oldCode;
+                    first  [nextCode] = first[oldCode];
+                    suffix [nextCode] = (code == nextCode) ? first[oldCode] : first[code];
+                    lengths[nextCode] = lengths[oldCode] + 1;
+                    if (++nextCode + 1 >= (1 << codeSize) && codeSize < LZW_MAX_BITS) {
+                        codeSize++;
+                    }
+                }
+                string = code;
+            }
+            /*
+             * Write the string by walking the prefix chain backward, then move the target position forward.
+             */
+            final int length = lengths[string];
+            int c = string;
+            for (int i = t + length; --i >= t;) {
+                if (i < target.length) {
+                    target[i] = suffix[c];
+                }
+                c = prefix[c];
+            }
+            t += length;
+            oldCode = code;
+        }
+        return true;
+    }
+
+    /**
+     * Decompresses data encoded with the "Deflate" algorithm (the compression used in zlib).
+     *
+     * @param  source  the compressed bytes.
+     * @param  target  where to store the decompressed bytes.
+     * @throws DataFormatException if the compressed data are invalid.
+     */
+    static void inflate(final byte[] source, final byte[] target) throws DataFormatException {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(source);
+            int t = 0;
+            while (t < target.length && !inflater.finished() && !inflater.needsInput()) {
+                final int n = inflater.inflate(target, t, target.length - t);
+                if (n == 0 && inflater.needsDictionary()) {
+                    throw new DataFormatException();
+                }
+                t += n;
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Returns a task which is already completed with the given tile as its result.
+     * This is used for tiles found in the cache.
+     *
+     * @param  tile  the tile to return.
+     * @return a completed task having the given tile as its result.
+     */
+    static Future<Raster> completed(final Raster tile) {
+        final FutureTask<Raster> task = new FutureTask<>(new Runnable() {
+            @Override public void run() {
+            }
+        }, tile);
+        task.run();
+        return task;
+    }
+
+    /**
+     * Waits for the completion of all given tasks and returns their results.
+     * If a task failed, then the remaining tasks are cancelled and the exception is propagated.
+     *
+     * @param  tasks  the tasks decoding the tiles.
+     * @return the decoded tiles, in the same order than the tasks.
+     * @throws IOException if an error occurred while decompressing a tile.
+     * @throws DataStoreException if a tile can not be decoded for another reason.
+     */
+    static List<Raster> getAll(final List<Future<Raster>> tasks) throws IOException, DataStoreException {
+        final List<Raster> tiles = new ArrayList<>(tasks.size());
+        try {
+            for (final Future<Raster> task : tasks) {
+                tiles.add(task.get());
+            }
+        } catch (ExecutionException e) {
+            cancel(tasks);
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException)        throw (IOException)        cause;
+            if (cause instanceof DataStoreException) throw (DataStoreException) cause;
+            if (cause instanceof RuntimeException)   throw (RuntimeException)   cause;
+            if (cause instanceof Error)              throw (Error)              cause;
+            throw new DataStoreException(cause);
+        } catch (InterruptedException e) {
+            cancel(tasks);
+            Thread.currentThread().interrupt();
+            throw new DataStoreException(e);
+        }
+        return tiles;
+    }
+
+    /**
+     * Cancels all the given tasks. Tasks already completed are not affected. Null elements are ignored.
+     */
+    static void cancel(final List<Future<Raster>> tasks) {
+        for (final Future<Raster> task : tasks) {
+            if (task != null) {
+                task.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.util.List;
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.sis.storage.StorageConnector;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link GeoTiffStore} class by reading small TIFF files created by {@link TIFFBuilder}.
+ * Some tests use the {@code "pyramid.tiff"} file, which contains the following images in that order.
+ * All images have one band filled with the pattern of {@link TIFFBuilder#add(int, int, int, int)}
+ * using the given seed, and are compressed with the Deflate algorithm.
+ *
+ * <table class="sis">
+ *   <caption>Content of "pyramid.tiff"</caption>
+ *   <tr><th>Index</th><th>Size</th> <th>NewSubfileType</th>   <th>Layout</th>       <th>Seed</th></tr>
+ *   <tr><td>0</td>    <td>64×48</td><td>full resolution</td>   <td>16×16 tiles</td>  <td>0</td></tr>
+ *   <tr><td>1</td>    <td>32×24</td><td>overview</td>          <td>16×16 tiles</td>  <td>10</td></tr>
+ *   <tr><td>2</td>    <td>64×48</td><td>transparency mask</td> <td>1 strip</td>      <td>0</td></tr>
+ *   <tr><td>3</td>    <td>16×12</td><td>overview</td>          <td>4 rows strips</td><td>20</td></tr>
+ *   <tr><td>4</td>    <td>8×6</td>  <td>overview</td>          <td>1 strip</td>      <td>30</td></tr>
+ *   <tr><td>5</td>    <td>20×20</td><td>full resolution</td>   <td>1 strip</td>      <td>100</td></tr>
+ *   <tr><td>6</td>    <td>10×10</td><td>overview</td>          <td>1 strip</td>      <td>110</td></tr>
+ * </table>
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+@DependsOn(TileDecoderTest.class)
+public final strictfp class GeoTiffStoreTest extends TestCase {
+    /**
+     * Opens a data store for the given file.
+     */
+    static GeoTiffStore open(final Path file) throws DataStoreException {
+        return new GeoTiffStore(null, new StorageConnector(file));
+    }
+
+    /**
+     * Verifies that the given tiles contain the sample values of the given image, and only them.
+     * The tiles shall cover the given region, clipped to the image bounds.
+     *
+     * @param image   the image which has been written in the TIFF file.
+     * @param region  the region requested to {@code readTiles(…)}, or {@code null} for the whole image.
+     * @param tiles   the tiles returned by {@code readTiles(…)}.
+     */
+    static void verifyTiles(final TIFFBuilder.Image image, Rectangle region, final List<Raster> tiles) {
+        final Rectangle bounds = new Rectangle(image.width, image.height);
+        region = (region != null) ? region.intersection(bounds) : bounds;
+        long area = 0;
+        for (final Raster tile : tiles) {
+            final Rectangle r = tile.getBounds();
+            assertTrue("Tile outside image.", bounds.contains(r));
+            assertTrue("Tile outside region.", region.intersects(r));
+            assertEquals("numBands", image.samplesPerPixel, tile.getNumBands());
+            for (int y = r.y; y < r.y + r.height; y++) {
+                for (int x = r.x; x < r.x + r.width; x++) {
+                    for (int b=0; b<image.samplesPerPixel; b++) {
+                        if (tile.getSample(x, y, b) != image.sample(x, y, b)) {
+                            fail("Mismatched sample value at (" + x + ", " + y + ") in band " + b);
+                        }
+                    }
+                }
+            }
+            area += r.intersection(region).width * (long) r.intersection(region).height;
+        }
+        assertEquals("Tiles shall cover the region without overlap.", region.width * (long) region.height, area);
+    }
+
+    /**
+     * Writes an image with the given compression, predictor and layout, then reads it back
+     * with {@link GeoTiffStore#readTiles(int, Rectangle)} and compares the pixels.
+     */
+    private static void verifyReadTiles(final Compression compression, final boolean predictor, final boolean tiled)
+            throws IOException, DataStoreException
+    {
+        final TIFFBuilder builder = new TIFFBuilder(false, ByteOrder.LITTLE_ENDIAN);
+        final TIFFBuilder.Image image = builder.add(45, 37, 3, 17);
+        image.compression = compression;
+        image.predictor   = predictor;
+        if (tiled) {
+            image.tileWidth  = 16;
+            image.tileHeight = 16;
+        } else {
+            image.tileHeight = 7;           // Last strip has only 2 rows.
+        }
+        final Path file = builder.write("GeoTiffStoreTest");
+        try (GeoTiffStore store = open(file)) {
+            final List<Raster> all = store.readTiles(0, null);
+            assertEquals("Number of tiles", image.tilesAcross() * image.tilesDown(), all.size());
+            verifyTiles(image, null, all);
+            final Rectangle region = new Rectangle(17, 9, 20, 12);
+            verifyTiles(image, region, store.readTiles(0, region));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests {@link GeoTiffStore#readTiles(int, Rectangle)} on strips and tiles compressed with
+     * the LZW algorithm, with and without the horizontal differencing predictor.
+     *
+     * @throws IOException if an error occurred while writing the test file.
+     * @throws DataStoreException if an error occurred while reading the test file.
+     */
+    @Test
+    public void testReadLZW() throws IOException, DataStoreException {
+        verifyReadTiles(Compression.LZW, false, false);
+        verifyReadTiles(Compression.LZW, true,  false);
+        verifyReadTiles(Compression.LZW, false, true);
+        verifyReadTiles(Compression.LZW, true,  true);
+    }
+
+    /**
+     * Tests {@link GeoTiffStore#readTiles(int, Rectangle)} on strips and tiles compressed with
+     * the Deflate algorithm, with and without the horizontal differencing predictor.
+     *
+     * @throws IOException if an error occurred while writing the test file.
+     * @throws DataStoreException if an error occurred while reading the test file.
+     */
+    @Test
+    public void testReadDeflate() throws IOException, DataStoreException {
+        verifyReadTiles(Compression.DEFLATE, false, false);
+        verifyReadTiles(Compression.DEFLATE, true,  false);
+        verifyReadTiles(Compression.DEFLATE, false, true);
+        verifyReadTiles(Compression.DEFLATE, true,  true);
+    }
+
+    /**
+     * Opens the {@code "pyramid.tiff"} test file. See class javadoc for a description of its content.
+     */
+    private static GeoTiffStore openPyramid() throws DataStoreException {
+        return new GeoTiffStore(null, new StorageConnector(GeoTiffStoreTest.class.getResource("pyramid.tiff")));
+    }
+
+    /**
+     * Returns an image having the content of the given level in the {@code "pyramid.tiff"} test file.
+     * Only the sample values are relevant; the storage layout of the returned image is not used.
+     */
+    private static TIFFBuilder.Image pyramidLevel(final int width, final int height, final int seed) {
+        return new TIFFBuilder(false, ByteOrder.BIG_ENDIAN).add(width, height, 1, seed);
+    }
+
+    /**
+     * Tests {@link GeoTiffStore#getResolutions(int)} on the {@code "pyramid.tiff"} file.
+     * The transparency mask shall be skipped, and the overviews of the first image shall
+     * stop at the next full-resolution image.
+     *
+     * @throws DataStoreException if an error occurred while reading the test file.
+     */
+    @Test
+    public void testGetResolutions() throws DataStoreException {
+        try (GeoTiffStore store = openPyramid()) {
+            final double[][] resolutions = store.getResolutions(0);
+            assertEquals("Number of levels", 4, resolutions.length);
+            assertArrayEquals(new double[] {1, 1}, resolutions[0], STRICT);
+            assertArrayEquals(new double[] {2, 2}, resolutions[1], STRICT);
+            assertArrayEquals(new double[] {4, 4}, resolutions[2], STRICT);
+            assertArrayEquals(new double[] {8, 8}, resolutions[3], STRICT);
+
+            final double[][] second = store.getResolutions(5);
+            assertEquals("Number of levels", 2, second.length);
+            assertArrayEquals(new double[] {1, 1}, second[0], STRICT);
+            assertArrayEquals(new double[] {2, 2}, second[1], STRICT);
+        }
+    }
+
+    /**
+     * Tests {@link GeoTiffStore#getOverviewLevel(int, double)} on the {@code "pyramid.tiff"} file
+     * with subsamplings equal to the resolution of a level, between two levels and beyond the
+     * coarsest level.
+     *
+     * @throws DataStoreException if an error occurred while reading the test file.
+     */
+    @Test
+    @DependsOnMethod("testGetResolutions")
+    public void testGetOverviewLevel() throws DataStoreException {
+        try (GeoTiffStore store = openPyramid()) {
+            assertEquals("Subsampling below 1",          0, store.getOverviewLevel(0, 0.5));
+            assertEquals("Full resolution",              0, store.getOverviewLevel(0, 1));
+            assertEquals("Between levels 0 and 1",       0, store.getOverviewLevel(0, 1.9));
+            assertEquals("Level 1 minus tolerance",      1, store.getOverviewLevel(0, 1.99));
+            assertEquals("Level 1",                      1, store.getOverviewLevel(0, 2));
+            assertEquals("Between levels 1 and 2",       1, store.getOverviewLevel(0, 3));
+            assertEquals("Level 2",                      2, store.getOverviewLevel(0, 4));
+            assertEquals("Between levels 2 and 3",       2, store.getOverviewLevel(0, 7.5));
+            assertEquals("Level 3",                      3, store.getOverviewLevel(0, 8));
+            assertEquals("Beyond the coarsest level",    3, store.getOverviewLevel(0, 1000));
+            assertEquals("Beyond the coarsest level",    1, store.getOverviewLevel(5, 1000));
+        }
+    }
+
+    /**
+     * Tests {@link GeoTiffStore#readTiles(int, Rectangle, double)} on the {@code "pyramid.tiff"} file.
+     * This method verifies the overview selected for various subsamplings, the conversion of the
+     * requested region to the pixel coordinates of that overview, and the sample values.
+     *
+     * @throws DataStoreException if an error occurred while reading the test file.
+     */
+    @Test
+    @DependsOnMethod("testGetOverviewLevel")
+    public void testReadOverviews() throws DataStoreException {
+        final Rectangle region = new Rectangle(20, 10, 30, 20);
+        try (GeoTiffStore store = openPyramid()) {
+            /*
+             * Full resolution: the region intersects tiles (1,0) to (3,1) of 16×16 pixels.
+             */
+            List<Raster> tiles = store.readTiles(0, region, 1);
+            verifyTiles(pyramidLevel(64, 48, 0), region, tiles);
+            assertEquals("Number of tiles", 6, tiles.size());
+            assertEquals(new Rectangle(16, 0, 48, 32), union(tiles));
+            /*
+             * Subsampling of 3 selects level 1 (32×24 pixels). The region becomes (10, 5, 15, 10),
+             * which intersects the two tiles of the first row.
+             */
+            tiles = store.readTiles(0, region, 3);
+            verifyTiles(pyramidLevel(32, 24, 10), new Rectangle(10, 5, 15, 10), tiles);
+            assertEquals("Number of tiles", 2, tiles.size());
+            assertEquals(new Rectangle(0, 0, 32, 16), union(tiles));
+            /*
+             * Subsampling of 4 selects level 2 (16×12 pixels in strips of 4 rows). The region becomes
+             * (5, 2, 8, 6), which intersects the two first strips.
+             */
+            tiles = store.readTiles(0, region, 4);
+            verifyTiles(pyramidLevel(16, 12, 20), new Rectangle(5, 2, 8, 6), tiles);
+            assertEquals("Number of strips", 2, tiles.size());
+            for (final Raster tile : tiles) {
+                assertEquals("width",  16, tile.getWidth());
+                assertEquals("height",  4, tile.getHeight());
+            }
+            assertEquals(new Rectangle(0, 0, 16, 8), union(tiles));
+            /*
+             * Subsampling beyond the coarsest level selects level 3 (8×6 pixels in a single strip).
+             */
+            tiles = store.readTiles(0, null, 1000);
+            verifyTiles(pyramidLevel(8, 6, 30), null, tiles);
+            assertEquals("Number of strips", 1, tiles.size());
+            assertEquals(new Rectangle(0, 0, 8, 6), tiles.get(0).getBounds());
+            /*
+             * Overview of the second full-resolution image.
+             */
+            tiles = store.readTiles(5, null, 2);
+            verifyTiles(pyramidLevel(10, 10, 110), null, tiles);
+        }
+    }
+
+    /**
+     * Returns the union of the bounds of all given tiles.
+     */
+    private static Rectangle union(final List<Raster> tiles) {
+        Rectangle union = null;
+        for (final Raster tile : tiles) {
+            union = (union == null) ? tile.getBounds() : union.union(tile.getBounds());
+        }
+        return union;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.util.List;
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the lazy parsing of <cite>Image File Directories</cite> (IFD) by {@link Reader}.
+ * Each test writes a file with many IFDs, then reads it twice: once with all IFDs requested in file order
+ * (which is equivalent to an eager parsing), and once with the IFDs requested in a different order.
+ * Both readings shall give the same results.
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+@DependsOn(GeoTiffStoreTest.class)
+public final strictfp class ReaderTest extends TestCase {
+    /**
+     * Creates a file with many IFDs. Some entries have values stored outside the IFD (in both classic TIFF
+     * and BigTIFF formats): {@code BitsPerSample} for RGB images and tile offsets and byte counts for images
+     * having more than one tile. The resolution entries are also stored outside the IFD in classic TIFF.
+     */
+    private static TIFFBuilder create(final boolean isBigTIFF) {
+        final TIFFBuilder builder = new TIFFBuilder(isBigTIFF, ByteOrder.LITTLE_ENDIAN);
+        TIFFBuilder.Image image;
+        image = builder.add(30, 20, 3, 5);
+        image.tileHeight  = 3;                                  // 7 strips, last one with 2 rows.
+        image.compression = Compression.LZW;
+        image.predictor   = true;
+
+        image = builder.add(15, 10, 3, 15);
+        image.subfileType = 1;                                  // Overview of previous image.
+        image.tileWidth   = 16;
+        image.tileHeight  = 16;
+        image.compression = Compression.DEFLATE;
+
+        builder.add(25, 13, 1, 25);                             // Single strip, uncompressed.
+
+        image = builder.add(40, 33, 3, 35);
+        image.tileWidth   = 16;
+        image.tileHeight  = 16;
+        image.compression = Compression.LZW;
+        return builder;
+    }
+
+    /**
+     * Verifies that reading the IFD in the given order gives the expected images.
+     *
+     * @param builder  the builder used for writing the file.
+     * @param file     the file written by the given builder.
+     * @param order    the order in which to request the images.
+     */
+    private static void verifyImages(final TIFFBuilder builder, final Path file, final int... order)
+            throws DataStoreException
+    {
+        try (GeoTiffStore store = GeoTiffStoreTest.open(file)) {
+            for (final int index : order) {
+                final TIFFBuilder.Image image = builder.image(index);
+                final List<Raster> tiles = store.readTiles(index, null);
+                assertEquals("Number of tiles", image.tilesAcross() * image.tilesDown(), tiles.size());
+                GeoTiffStoreTest.verifyTiles(image, null, tiles);
+            }
+            try {
+                store.readTiles(order.length, null);
+                fail("Expected no image after the last IFD.");
+            } catch (IndexOutOfBoundsException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(String.valueOf(order.length)));
+            }
+        }
+    }
+
+    /**
+     * Tests reading the last image before the other ones, then the other images in reverse order,
+     * and compares with the result of reading them in file order.
+     *
+     * @param isBigTIFF  {@code true} for BigTIFF format, or {@code false} for classic TIFF format.
+     */
+    private static void verifyLazyParsing(final boolean isBigTIFF) throws IOException, DataStoreException {
+        final TIFFBuilder builder = create(isBigTIFF);
+        final Path file = builder.write("ReaderTest");
+        try {
+            verifyImages(builder, file, 0, 1, 2, 3);
+            verifyImages(builder, file, 3, 2, 1, 0);
+            verifyImages(builder, file, 2, 0, 3, 1);
+            /*
+             * Metadata are built from all IFDs in file order. Requesting an image before the metadata
+             * shall not change the result, since the deferred entries of all IFDs shall be resolved
+             * the same way.
+             */
+            final String eager, lazy;
+            try (GeoTiffStore store = GeoTiffStoreTest.open(file)) {
+                eager = store.getMetadata().toString();
+            }
+            try (GeoTiffStore store = GeoTiffStoreTest.open(file)) {
+                store.readTiles(3, new Rectangle(20, 20, 5, 5));
+                assertArrayEquals(new double[][] {{1, 1}, {2, 2}}, store.getResolutions(0));
+                lazy = store.getMetadata().toString();
+            }
+            assertEquals(eager, lazy);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests the lazy parsing of IFDs in a classic TIFF file.
+     *
+     * @throws IOException if an error occurred while writing the test file.
+     * @throws DataStoreException if an error occurred while reading the test file.
+     */
+    @Test
+    public void testClassicTIFF() throws IOException, DataStoreException {
+        verifyLazyParsing(false);
+    }
+
+    /**
+     * Tests the lazy parsing of IFDs in a BigTIFF file.
+     *
+     * @throws IOException if an error occurred while writing the test file.
+     * @throws DataStoreException if an error occurred while reading the test file.
+     */
+    @Test
+    @DependsOnMethod("testClassicTIFF")
+    public void testBigTIFF() throws IOException, DataStoreException {
+        verifyLazyParsing(true);
+    }
+}
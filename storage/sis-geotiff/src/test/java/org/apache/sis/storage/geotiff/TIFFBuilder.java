@@ -0,0 +1,366 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.io.IOException;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+/**
+ * Builds small TIFF files for testing purpose. Images are made of 8 bits unsigned integer samples
+ * interleaved in row-major order. Each image can be stored in strips or in tiles, compressed
+ * and written with a predictor. All images of the same file use the same format (classic or BigTIFF).
+ * Some entries have values too large for fitting in their IFD entry (for example the {@code XResolution}
+ * rational numbers in classic TIFF), which exercises the reading of deferred entries.
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final strictfp class TIFFBuilder {
+    /**
+     * An image to write in the TIFF file, together with the way to store it.
+     */
+    static final class Image {
+        /**
+         * Image size in pixels.
+         */
+        final int width, height;
+
+        /**
+         * Number of 8 bits samples per pixel. Shall be 1 (grayscale) or 3 (RGB).
+         */
+        final int samplesPerPixel;
+
+        /**
+         * The sample values, interleaved and in row-major order.
+         */
+        final byte[] samples;
+
+        /**
+         * Value of the {@code NewSubfileType} tag: 1 for an overview, 4 for a transparency mask.
+         */
+        int subfileType;
+
+        /**
+         * Tile size in pixels. If {@link #tileWidth} is zero, then the image is stored
+         * in strips of {@link #tileHeight} rows instead of tiles.
+         */
+        int tileWidth, tileHeight;
+
+        /**
+         * The compression to apply. Shall be {@code NONE}, {@code LZW} or {@code DEFLATE}.
+         */
+        Compression compression = Compression.NONE;
+
+        /**
+         * Whether to apply the horizontal differencing predictor before compression.
+         */
+        boolean predictor;
+
+        /**
+         * Creates a new image of the given size, stored in a single strip.
+         */
+        Image(final int width, final int height, final int samplesPerPixel, final byte[] samples) {
+            assert samples.length == width * height * samplesPerPixel;
+            this.width           = width;
+            this.height          = height;
+            this.samplesPerPixel = samplesPerPixel;
+            this.samples         = samples;
+            this.tileHeight      = height;
+        }
+
+        /**
+         * Returns the sample value at the given pixel coordinates and band.
+         */
+        final int sample(final int x, final int y, final int band) {
+            return samples[(y*width + x) * samplesPerPixel + band] & 0xFF;
+        }
+
+        /**
+         * Returns the number of tiles or strips along the <var>x</var> and <var>y</var> axes.
+         */
+        final int tilesAcross() {return (tileWidth == 0) ? 1 : (width + tileWidth - 1) / tileWidth;}
+        final int tilesDown()   {return (height + tileHeight - 1) / tileHeight;}
+
+        /**
+         * Returns the bytes to store in the file for the given tile or strip, after prediction and compression.
+         * Tiles on the image border are padded to the full tile size, while the last strip has only the
+         * remaining rows, as required by the TIFF specification.
+         */
+        final byte[] encode(final int tile) {
+            final int x = (tile % tilesAcross()) * tileWidth;
+            final int y = (tile / tilesAcross()) * tileHeight;
+            final int w = (tileWidth == 0) ? width : tileWidth;
+            final int h = (tileWidth == 0) ? Math.min(tileHeight, height - y) : tileHeight;
+            final int bytesPerRow = w * samplesPerPixel;
+            final byte[] data = new byte[bytesPerRow * h];
+            for (int j = 0; j < h && y + j < height; j++) {
+                final int length = Math.min(w, width - x) * samplesPerPixel;
+                System.arraycopy(samples, ((y+j) * width + x) * samplesPerPixel, data, j * bytesPerRow, length);
+            }
+            if (predictor) {
+                for (int row = 0; row < data.length; row += bytesPerRow) {
+                    for (int i = row + bytesPerRow; --i >= row + samplesPerPixel;) {
+                        data[i] -= data[i - samplesPerPixel];
+                    }
+                }
+            }
+            switch (compression) {
+                case NONE: return data;
+                case LZW:  return TileDecoderTest.encodeLZW(data);
+                case DEFLATE: {
+                    final Deflater deflater = new Deflater();
+                    deflater.setInput(data);
+                    deflater.finish();
+                    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    final byte[] buffer = new byte[256];
+                    while (!deflater.finished()) {
+                        out.write(buffer, 0, deflater.deflate(buffer));
+                    }
+                    deflater.end();
+                    return out.toByteArray();
+                }
+                default: throw new UnsupportedOperationException(compression.name());
+            }
+        }
+    }
+
+    /**
+     * Whether to write a BigTIFF file instead of a classic TIFF file.
+     */
+    private final boolean isBigTIFF;
+
+    /**
+     * The byte order of the file to write.
+     */
+    private final ByteOrder order;
+
+    /**
+     * The images to write, in the order they will appear in the chain of IFDs.
+     */
+    private final List<Image> images;
+
+    /**
+     * Creates a new builder for a TIFF file in the given format.
+     *
+     * @param isBigTIFF  {@code true} for BigTIFF format, or {@code false} for classic TIFF format.
+     * @param order      the byte order of the file to write.
+     */
+    TIFFBuilder(final boolean isBigTIFF, final ByteOrder order) {
+        this.isBigTIFF = isBigTIFF;
+        this.order     = order;
+        this.images    = new ArrayList<>();
+    }
+
+    /**
+     * Adds an image filled with a pattern computed from the pixel coordinates, band and the given seed.
+     * The pattern contains repetitions, so compression is effective.
+     *
+     * @return the added image, for configuring the way to store it.
+     */
+    Image add(final int width, final int height, final int samplesPerPixel, final int seed) {
+        final byte[] samples = new byte[width * height * samplesPerPixel];
+        int i = 0;
+        for (int y=0; y<height; y++) {
+            for (int x=0; x<width; x++) {
+                for (int b=0; b<samplesPerPixel; b++) {
+                    samples[i++] = (byte) (seed + (x / 3) * 7 + y * 11 + b * 50);
+                }
+            }
+        }
+        final Image image = new Image(width, height, samplesPerPixel, samples);
+        images.add(image);
+        return image;
+    }
+
+    /**
+     * Returns the image at the given index, in the order they were added.
+     */
+    Image image(final int index) {
+        return images.get(index);
+    }
+
+    /**
+     * Returns the content of the TIFF file. The tiles of all images are written first,
+     * followed by the IFDs and the values of the entries which do not fit in the IFDs.
+     */
+    byte[] toByteArray() {
+        final int offsetSize = isBigTIFF ? Long.SIZE / Byte.SIZE : Integer.SIZE / Byte.SIZE;
+        final List<byte[][]> encoded = new ArrayList<>(images.size());
+        int capacity = 16;
+        for (final Image image : images) {
+            final byte[][] tiles = new byte[image.tilesAcross() * image.tilesDown()][];
+            for (int i=0; i<tiles.length; i++) {
+                tiles[i] = image.encode(i);
+                capacity += tiles[i].length;
+            }
+            encoded.add(tiles);
+            capacity += 1024 + 4 * offsetSize * tiles.length;
+        }
+        final ByteBuffer out = ByteBuffer.allocate(capacity).order(order);
+        out.putShort(order == ByteOrder.BIG_ENDIAN ? GeoTIFF.BIG_ENDIAN : GeoTIFF.LITTLE_ENDIAN);
+        if (isBigTIFF) {
+            out.putShort(GeoTIFF.BIG_TIFF).putShort((short) offsetSize).putShort((short) 0);
+        } else {
+            out.putShort(GeoTIFF.CLASSIC);
+        }
+        int pointer = out.position();                       // Where to write the offset of next IFD.
+        out.position(pointer + offsetSize);
+        final List<long[]> offsets = new ArrayList<>(images.size());
+        for (final byte[][] tiles : encoded) {
+            final long[] positions = new long[tiles.length];
+            for (int i=0; i<tiles.length; i++) {
+                positions[i] = out.position();
+                out.put(tiles[i]);
+            }
+            offsets.add(positions);
+        }
+        for (int n=0; n<images.size(); n++) {
+            final Image image = images.get(n);
+            final byte[][] tiles = encoded.get(n);
+            final long[] byteCounts = new long[tiles.length];
+            for (int i=0; i<tiles.length; i++) {
+                byteCounts[i] = tiles[i].length;
+            }
+            final boolean strips = (image.tileWidth == 0);
+            final Type offsetType = isBigTIFF ? Type.ULONG : Type.UINT;
+            final List<long[]> entries = new ArrayList<>();             // (tag, type, values…)
+            entries.add(entry(Tags.NewSubfileType, Type.UINT, image.subfileType));
+            entries.add(entry(Tags.ImageWidth,     Type.UINT, image.width));
+            entries.add(entry(Tags.ImageLength,    Type.UINT, image.height));
+            final long[] bits = new long[image.samplesPerPixel];
+            Arrays.fill(bits, Byte.SIZE);
+            entries.add(entry(Tags.BitsPerSample,  Type.USHORT, bits));
+            entries.add(entry(Tags.Compression,    Type.USHORT, image.compression.code));
+            entries.add(entry(Tags.PhotometricInterpretation, Type.USHORT, image.samplesPerPixel == 3 ? 2 : 1));
+            if (strips) {
+                entries.add(entry(Tags.StripOffsets, offsetType, offsets.get(n)));
+            }
+            entries.add(entry(Tags.SamplesPerPixel, Type.USHORT, image.samplesPerPixel));
+            if (strips) {
+                entries.add(entry(Tags.RowsPerStrip,    Type.UINT, image.tileHeight));
+                entries.add(entry(Tags.StripByteCounts, Type.UINT, byteCounts));
+            }
+            entries.add(entry(Tags.XResolution, Type.URATIONAL, 72, 1));
+            entries.add(entry(Tags.YResolution, Type.URATIONAL, 72, 1));
+            entries.add(entry(Tags.PlanarConfiguration, Type.USHORT, 1));
+            if (image.predictor) {
+                entries.add(entry(Tags.Predictor, Type.USHORT, TileDecoder.HORIZONTAL_DIFFERENCING));
+            }
+            if (!strips) {
+                entries.add(entry(Tags.TileWidth,      Type.UINT, image.tileWidth));
+                entries.add(entry(Tags.TileLength,     Type.UINT, image.tileHeight));
+                entries.add(entry(Tags.TileOffsets,    offsetType, offsets.get(n)));
+                entries.add(entry(Tags.TileByteCounts, Type.UINT, byteCounts));
+            }
+            /*
+             * Write the IFD at a word boundary, then update the pointer in the header or in the previous IFD.
+             * Values that do not fit in an entry are written after the IFD.
+             */
+            if ((out.position() & 1) != 0) {
+                out.put((byte) 0);
+            }
+            final int ifd = out.position();
+            putPointer(out, pointer, ifd);
+            int position;
+            if (isBigTIFF) {
+                out.putLong(ifd, entries.size());
+                position = ifd + offsetSize;
+            } else {
+                out.putShort(ifd, (short) entries.size());
+                position = ifd + Short.SIZE / Byte.SIZE;
+            }
+            final int entrySize = 2*(Short.SIZE / Byte.SIZE) + 2*offsetSize;
+            pointer = position + entries.size() * entrySize;
+            int deferred = pointer + offsetSize;
+            for (final long[] entry : entries) {
+                final Type type = Type.valueOf((int) entry[1]);
+                final int count = (type == Type.URATIONAL) ? (entry.length - 2) / 2 : entry.length - 2;
+                final int size  = (type == Type.URATIONAL) ? type.size / 2 : type.size;
+                out.putShort(position, (short) entry[0]);
+                out.putShort(position + 2, (short) entry[1]);
+                position += 4;
+                putPointer(out, position, count);
+                position += offsetSize;
+                int valuePosition = position;
+                if (size * (entry.length - 2) > offsetSize) {
+                    putPointer(out, position, deferred);
+                    valuePosition = deferred;
+                    deferred += size * (entry.length - 2);
+                    deferred += deferred & 1;
+                }
+                for (int i=2; i<entry.length; i++) {
+                    switch (size) {
+                        case 2: out.putShort(valuePosition, (short) entry[i]); break;
+                        case 4: out.putInt  (valuePosition, (int)   entry[i]); break;
+                        case 8: out.putLong (valuePosition,         entry[i]); break;
+                    }
+                    valuePosition += size;
+                }
+                position += offsetSize;
+            }
+            out.position(deferred);
+        }
+        putPointer(out, pointer, 0);
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    /**
+     * Returns an entry made of the given tag, type and values.
+     */
+    private static long[] entry(final short tag, final Type type, final long... values) {
+        final long[] entry = new long[values.length + 2];
+        entry[0] = tag;
+        entry[1] = type.code;
+        System.arraycopy(values, 0, entry, 2, values.length);
+        return entry;
+    }
+
+    /**
+     * Writes a pointer or a count at the given position, using 4 or 8 bytes depending on the TIFF format.
+     */
+    private void putPointer(final ByteBuffer out, final int position, final long value) {
+        if (isBigTIFF) {
+            out.putLong(position, value);
+        } else {
+            out.putInt(position, (int) value);
+        }
+    }
+
+    /**
+     * Writes the TIFF file in a temporary file. Caller should delete the file after usage.
+     *
+     * @param  prefix  the prefix of the temporary file name.
+     * @return the temporary file.
+     * @throws IOException if an error occurred while writing the file.
+     */
+    Path write(final String prefix) throws IOException {
+        final Path file = Files.createTempFile(prefix, ".tiff");
+        Files.write(file, toByteArray());
+        return file;
+    }
+}
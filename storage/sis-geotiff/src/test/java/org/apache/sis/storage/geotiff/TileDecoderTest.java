@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.io.ByteArrayOutputStream;
+import java.awt.image.DataBuffer;
+import java.awt.image.WritableRaster;
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link TileDecoder} class.
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+@DependsOn(CompressionTest.class)
+public final strictfp class TileDecoderTest extends TestCase {
+    /**
+     * Converts the given integers to bytes.
+     */
+    private static byte[] bytes(final int... values) {
+        final byte[] bytes = new byte[values.length];
+        for (int i=0; i<values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    /**
+     * Tests {@link TileDecoder#unpackBits(byte[], byte[])} with the example given in TIFF specification.
+     */
+    @Test
+    public void testUnpackBits() {
+        final byte[] source = bytes(0xFE, 0xAA, 0x02, 0x80, 0x00, 0x2A, 0xFD, 0xAA, 0x03, 0x80, 0x00, 0x2A, 0x22, 0xF7, 0xAA);
+        final byte[] target = new byte[24];
+        TileDecoder.unpackBits(source, target);
+        assertArrayEquals(bytes(0xAA, 0xAA, 0xAA, 0x80, 0x00, 0x2A, 0xAA, 0xAA, 0xAA, 0xAA, 0x80, 0x00,
+                                0x2A, 0x22, 0xAA, 0xAA, 0xAA, 0xAA, 0xAA, 0xAA, 0xAA, 0xAA, 0xAA, 0xAA), target);
+    }
+
+    /**
+     * Encodes the given bytes with the TIFF variant of LZW algorithm. This is a simple implementation used
+     * for creating test data. The code length is incremented after the table got an entry for the next
+     * power of 2 (the decoder sees this change one code earlier), and a {@code Clear} code is emitted
+     * when the table is full.
+     */
+    static byte[] encodeLZW(final byte[] data) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Map<String,Integer> table = new HashMap<>();
+        long bits = 0;
+        int  count = 0, codeSize = 9, nextCode = 258;
+        final int[] codes = new int[data.length * 2 + 2];
+        final int[] sizes = new int[codes.length];
+        int n = 0;
+        codes[n] = 256; sizes[n++] = codeSize;
+        String w = "";
+        for (final byte b : data) {
+            final String wc = w + (char) (b & 0xFF);
+            if (wc.length() == 1 || table.containsKey(wc)) {
+                w = wc;
+                continue;
+            }
+            codes[n] = (w.length() == 1) ? w.charAt(0) : table.get(w);
+            sizes[n++] = codeSize;
+            table.put(wc, nextCode++);
+            if (nextCode == 4094) {
+                codes[n] = 256; sizes[n++] = codeSize;
+                table.clear();
+                codeSize = 9;
+                nextCode = 258;
+            } else if (nextCode >= (1 << codeSize)) {
+                codeSize++;
+            }
+            w = String.valueOf((char) (b & 0xFF));
+        }
+        if (!w.isEmpty()) {
+            codes[n] = (w.length() == 1) ? w.charAt(0) : table.get(w);
+            sizes[n++] = codeSize;
+            if (++nextCode >= (1 << codeSize) && codeSize < 12) {
+                codeSize++;                 // Decoder will create one more entry.
+            }
+        }
+        codes[n] = 257; sizes[n++] = codeSize;
+        for (int i=0; i<n; i++) {
+            bits = (bits << sizes[i]) | codes[i];
+            count += sizes[i];
+            while (count >= Byte.SIZE) {
+                count -= Byte.SIZE;
+                out.write((int) (bits >>> count));
+            }
+        }
+        if (count != 0) {
+            out.write((int) (bits << (Byte.SIZE - count)));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Tests {@link TileDecoder#decodeLZW(byte[], byte[])} on data having many repetitions,
+     * long enough for causing the code length to grow up to 12 bits and the table to be reset.
+     */
+    @Test
+    public void testDecodeLZW() {
+        final Random random = new Random(4471683407648391250L);
+        final byte[] data = new byte[20000];
+        for (int i=0; i<data.length; i++) {
+            data[i] = (byte) (random.nextInt(8) + (i / 1000));
+        }
+        final byte[] target = new byte[data.length];
+        assertTrue(TileDecoder.decodeLZW(encodeLZW(data), target));
+        assertArrayEquals(data, target);
+    }
+
+    /**
+     * Tests {@link TileDecoder#inflate(byte[], byte[])}.
+     *
+     * @throws Exception if the compressed data are invalid.
+     */
+    @Test
+    public void testInflate() throws Exception {
+        final byte[] data = new byte[1000];
+        for (int i=0; i<data.length; i++) {
+            data[i] = (byte) (i % 7);
+        }
+        final Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        final byte[] compressed = new byte[data.length];
+        final int length = deflater.deflate(compressed);
+        deflater.end();
+        final byte[] target = new byte[data.length];
+        TileDecoder.inflate(Arrays.copyOf(compressed, length), target);
+        assertArrayEquals(data, target);
+    }
+
+    /**
+     * Tests {@link TileDecoder#reverseBits(byte[])}.
+     */
+    @Test
+    public void testReverseBits() {
+        final byte[] data = bytes(0x01, 0x80, 0x0F, 0xA0);
+        TileDecoder.reverseBits(data);
+        assertArrayEquals(bytes(0x80, 0x01, 0xF0, 0x05), data);
+    }
+
+    /**
+     * Tests {@link TileDecoder#decode(byte[][], int, int, int, int)} on 16 bits interleaved sample values
+     * with horizontal differencing predictor. The tile is clipped to a smaller size, as it would be on
+     * the image border.
+     *
+     * @throws Exception if an error occurred while decoding the tile.
+     */
+    @Test
+    public void testDecode() throws Exception {
+        final TileDecoder decoder = new TileDecoder("test", Compression.NONE, TileDecoder.HORIZONTAL_DIFFERENCING,
+                false, ByteOrder.LITTLE_ENDIAN, 16, 2, false, DataBuffer.TYPE_USHORT, 3, 2);
+        final ByteBuffer buffer = ByteBuffer.allocate(3 * 2 * 2 * 2).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putShort((short) 100).putShort((short) 200).putShort((short) 5).putShort((short) -10).putShort((short) 1).putShort((short) 1);
+        buffer.putShort((short) 300).putShort((short) 400).putShort((short) 7).putShort((short)  20).putShort((short) 3).putShort((short) 2);
+        final WritableRaster raster = decoder.decode(new byte[][] {buffer.array()}, 30, 40, 2, 2);
+        assertEquals("minX",     30, raster.getMinX());
+        assertEquals("minY",     40, raster.getMinY());
+        assertEquals("width",     2, raster.getWidth());
+        assertEquals("height",    2, raster.getHeight());
+        assertEquals("numBands",  2, raster.getNumBands());
+        assertArrayEquals(new int[] {100, 200, 105, 190,
+                                     300, 400, 307, 420}, raster.getPixels(30, 40, 2, 2, (int[]) null));
+    }
+}
@@ -32,6 +32,9 @@ import org.junit.BeforeClass;
 @Suite.SuiteClasses({
     org.apache.sis.storage.geotiff.TypeTest.class,
     org.apache.sis.storage.geotiff.CompressionTest.class,
+    org.apache.sis.storage.geotiff.TileDecoderTest.class,
+    org.apache.sis.storage.geotiff.GeoTiffStoreTest.class,
+    org.apache.sis.storage.geotiff.ReaderTest.class,
     org.apache.sis.storage.geotiff.GeoKeysTest.class,
     org.apache.sis.storage.geotiff.CRSBuilderTest.class
 })
@@ -532,6 +532,17 @@ public final class ChannelDecoder extends Decoder {
         if (allDimensions == null) {
             throw malformedHeader();        // May happen if readDimensions(…) has not been invoked.
         }
+        /*
+         * Variable data are read through positional reads if possible. This avoid discarding the buffer content
+         * on each seek, and allows the variables to be read without interfering with the position of the input
+         * used for parsing the header. The file is not mapped in memory here, since many files are opened only
+         * for their metadata. Instead, the first concurrent read of a variable maps the file and that mapping
+         * is shared by all variables (see ChannelDataInput.duplicate(boolean)).
+         */
+        ChannelDataInput data = input.duplicate(false);
+        if (data == null) {
+            data = input;
+        }
         final VariableInfo[] variables = new VariableInfo[nelems];
         for (int j=0; j<nelems; j++) {
             final String name = readName();
@@ -560,7 +571,7 @@ public final class ChannelDecoder extends Decoder {
                     default:        throw malformedHeader();
                 }
             }
-            variables[j] = new VariableInfo(input, name, varDims, attributes,
+            variables[j] = new VariableInfo(data, name, varDims, attributes,
                     DataType.valueOf(input.readInt()), input.readInt(), readOffset());
         }
         return variables;
@@ -373,7 +373,7 @@ final class VariableInfo extends Variable {
             sub [i] = 1;
             size[i] = dimensions[(dimension - 1) - i].length();
         }
-        return Vector.create(reader.read(new Region(size, new long[dimension], size, sub)), dataType.isUnsigned);
+        return Vector.create(reader.readConcurrently(new Region(size, new long[dimension], size, sub)), dataType.isUnsigned);
     }
 
     /**
@@ -420,7 +420,11 @@ final class VariableInfo extends Variable {
             sub  [i] = subsampling[j];
             size [i] = dimensions[j].length();
         }
-        return Vector.create(reader.read(new Region(size, lower, upper, sub)), dataType.isUnsigned);
+        /*
+         * Uses the thread-safe read method, which allows many sub-areas of the same file to be requested
+         * concurrently and reads large sub-areas in parallel when the file supports positional reads.
+         */
+        return Vector.create(reader.readConcurrently(new Region(size, lower, upper, sub)), dataType.isUnsigned);
     }
 
     /**
@@ -17,6 +17,7 @@
 package org.apache.sis.internal.shapefile;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
@@ -39,7 +40,7 @@ import com.esri.core.geometry.*;
  * Reader of a Shapefile Binary content by the way of a {@link java.nio.MappedByteBuffer}
  *
  * @author  Marc Le Bihan
- * @version 0.5
+ * @version 0.8
  * @since   0.5
  * @module
  */
@@ -254,19 +255,138 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
         }
     }
 
+    /**
+     * Checks if the envelope of the record at the current position intersects the given bounding box.
+     * This method reads only the record header (the point coordinates or the bounding box stored before
+     * the parts and points), without decoding the geometry. The buffer position is not changed.
+     * Records having a null shape never intersect.
+     * @param bbox Bounding box as (xmin, ymin, xmax, ymax).
+     * @return true if the record envelope intersects the bounding box.
+     * @throws InvalidShapefileFormatException if the shape type of the record is unknown.
+     */
+    public boolean recordIntersects(double[] bbox) throws InvalidShapefileFormatException {
+        return recordIntersects(getByteBuffer(), bbox);
+    }
+
+    /**
+     * Checks if the envelope of the record at the current position of the given buffer intersects the given bounding box.
+     * @param buffer Buffer over the shapefile content, or a duplicate of it, positioned on a record.
+     * @param bbox Bounding box as (xmin, ymin, xmax, ymax).
+     * @return true if the record envelope intersects the bounding box.
+     * @throws InvalidShapefileFormatException if the shape type of the record is unknown.
+     * @see #recordIntersects(double[])
+     */
+    public boolean recordIntersects(ByteBuffer buffer, double[] bbox) throws InvalidShapefileFormatException {
+        int position = buffer.position() + 8;   // Skip record number and content length.
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        try {
+            int iShapeType = buffer.getInt(position);
+            ShapeTypeEnum type = ShapeTypeEnum.get(iShapeType);
+
+            if (type == null)
+                throw new InvalidShapefileFormatException(MessageFormat.format("The shapefile feature type {0} doesn''t match to any known feature type.", iShapeType));
+
+            double xmin, ymin, xmax, ymax;
+            position += 4;
+
+            switch (type) {
+                case NullShape:
+                    return false;
+
+                case Point:
+                case PointM:
+                case PointZ:
+                    xmin = xmax = buffer.getDouble(position);
+                    ymin = ymax = buffer.getDouble(position + 8);
+                    break;
+
+                default:
+                    xmin = buffer.getDouble(position);
+                    ymin = buffer.getDouble(position + 8);
+                    xmax = buffer.getDouble(position + 16);
+                    ymax = buffer.getDouble(position + 24);
+                    break;
+            }
+
+            return xmin <= bbox[2] && xmax >= bbox[0] && ymin <= bbox[3] && ymax >= bbox[1];
+        }
+        finally {
+            buffer.order(ByteOrder.BIG_ENDIAN);
+        }
+    }
+
+    /**
+     * Moves to the next record without decoding the one at the current position.
+     */
+    public void skipRecord() {
+        MappedByteBuffer buffer = getByteBuffer();
+        int contentLength = buffer.getInt(buffer.position() + 4); // Expressed in words (16 bits), header excluded.
+        buffer.position(buffer.position() + 8 + contentLength * 2);
+    }
+
+    /**
+     * Returns the position of each record in the shapefile, in bytes from the beginning of the file.
+     * Those positions are taken from the shapefile index if one has been read. Otherwise they are computed
+     * by walking through the records headers (record number and content length), without reading the shapes.
+     * The position of this reader is not changed.
+     * @return Position of each record, in record order.
+     */
+    public int[] getRecordPositions() {
+        if (this.indexes != null) {
+            int[] positions = new int[this.indexes.size()];
+
+            for(int index = 0; index < positions.length; index ++) {
+                positions[index] = this.indexes.get(index) * 2; // Indexes unit are words (16 bits).
+            }
+
+            return positions;
+        }
+
+        MappedByteBuffer buffer = getByteBuffer();
+        int[] positions = new int[64];
+        int count = 0;
+        int position = 100; // Size of the shapefile header.
+
+        while(position + 8 <= buffer.limit()) {
+            if (count == positions.length) {
+                positions = Arrays.copyOf(positions, count * 2);
+            }
+
+            positions[count++] = position;
+            int contentLength = buffer.getInt(position + 4); // Expressed in words (16 bits), header excluded.
+            position += 8 + contentLength * 2;
+        }
+
+        return Arrays.copyOf(positions, count);
+    }
+
     /**
      * Complete a feature with shapefile content.
      * @param feature Feature to complete.
      * @throws InvalidShapefileFormatException if a validation problem occurs.
      */
     public void completeFeature(AbstractFeature feature) throws InvalidShapefileFormatException {
+        completeFeature(feature, getByteBuffer());
+    }
+
+    /**
+     * Complete a feature with the shapefile record at the current position of the given buffer.
+     * The buffer position is moved after the record. This method does not use the position of this reader,
+     * so it can be invoked concurrently with different duplicates of {@link #buffer}.
+     * @param feature Feature to complete.
+     * @param buffer Buffer over the shapefile content, or a duplicate of it, positioned on a record.
+     * @throws InvalidShapefileFormatException if a validation problem occurs.
+     */
+    public void completeFeature(AbstractFeature feature, ByteBuffer buffer) throws InvalidShapefileFormatException {
         // insert points into some type of list
-        int RecordNumber = getByteBuffer().getInt();
+        int RecordNumber = buffer.getInt();
         @SuppressWarnings("unused")
-        int ContentLength = getByteBuffer().getInt();
+        int ContentLength = buffer.getInt();
 
-        getByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
-        int iShapeType = getByteBuffer().getInt();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int iShapeType = buffer.getInt();
 
         ShapeTypeEnum type = ShapeTypeEnum.get(iShapeType);
 
@@ -275,31 +395,32 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
 
         switch (type) {
             case Point:
-                loadPointFeature(feature);
+                loadPointFeature(feature, buffer);
                 break;
 
             case Polygon:
-                loadPolygonFeature(feature);
+                loadPolygonFeature(feature, buffer);
                 break;
 
             case PolyLine:
-                loadPolylineFeature(feature);
+                loadPolylineFeature(feature, buffer);
                 break;
 
             default:
                 throw new InvalidShapefileFormatException("Unsupported shapefile type: " + iShapeType);
         }
 
-        getByteBuffer().order(ByteOrder.BIG_ENDIAN);
+        buffer.order(ByteOrder.BIG_ENDIAN);
     }
 
     /**
      * Load point feature.
      * @param feature Feature to fill.
+     * @param buffer Buffer positioned on the shape content.
      */
-    private void loadPointFeature(AbstractFeature feature) {
-        double x = getByteBuffer().getDouble();
-        double y = getByteBuffer().getDouble();
+    private void loadPointFeature(AbstractFeature feature, ByteBuffer buffer) {
+        double x = buffer.getDouble();
+        double y = buffer.getDouble();
         Point pnt = new Point(x, y);
         feature.setPropertyValue(GEOMETRY_NAME, pnt);
     }
@@ -307,14 +428,15 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
     /**
      * Load polygon feature.
      * @param feature Feature to fill.
+     * @param buffer Buffer positioned on the shape content.
      */
-    private void loadPolygonFeature(AbstractFeature feature) {
-        /* double xmin = */getByteBuffer().getDouble();
-        /* double ymin = */getByteBuffer().getDouble();
-        /* double xmax = */getByteBuffer().getDouble();
-        /* double ymax = */getByteBuffer().getDouble();
-        int numParts = getByteBuffer().getInt();
-        int numPoints = getByteBuffer().getInt();
+    private void loadPolygonFeature(AbstractFeature feature, ByteBuffer buffer) {
+        /* double xmin = */buffer.getDouble();
+        /* double ymin = */buffer.getDouble();
+        /* double xmax = */buffer.getDouble();
+        /* double ymax = */buffer.getDouble();
+        int numParts = buffer.getInt();
+        int numPoints = buffer.getInt();
 
         Polygon poly;
 
@@ -324,15 +446,15 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
 
             if (log.isLoggable(Level.FINER)) {
                 String format = "Polygon with multiple linear rings encountered at position {0,number} with {1,number} parts.";
-                String message = MessageFormat.format(format, getByteBuffer().position(), numParts);
+                String message = MessageFormat.format(format, buffer.position(), numParts);
                 log.finer(message);
             }
 
-            poly = readMultiplePolygonParts(numParts, numPoints);
+            poly = readMultiplePolygonParts(buffer, numParts, numPoints);
         }
         else {
             // Polygon with an unique part.
-            poly = readUniquePolygonPart(numPoints);
+            poly = readUniquePolygonPart(buffer, numPoints);
         }
 
         feature.setPropertyValue(GEOMETRY_NAME, poly);
@@ -340,23 +462,24 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
 
     /**
      * Read a polygon that has a unique part.
+     * @param buffer Buffer positioned on the polygon part.
      * @param numPoints Number of the points of the polygon.
      * @return Polygon.
      */
     @Deprecated // As soon as the readMultiplePolygonParts method proofs working well, this readUniquePolygonPart method can be removed and all calls be deferred to readMultiplePolygonParts.
-    private Polygon readUniquePolygonPart(int numPoints) {
-        /*int part = */ getByteBuffer().getInt();
+    private Polygon readUniquePolygonPart(ByteBuffer buffer, int numPoints) {
+        /*int part = */ buffer.getInt();
         Polygon poly = new Polygon();
 
         // create a line from the points
-        double xpnt = getByteBuffer().getDouble();
-        double ypnt = getByteBuffer().getDouble();
+        double xpnt = buffer.getDouble();
+        double ypnt = buffer.getDouble();
 
         poly.startPath(xpnt, ypnt);
 
         for (int j = 0; j < numPoints - 1; j++) {
-            xpnt = getByteBuffer().getDouble();
-            ypnt = getByteBuffer().getDouble();
+            xpnt = buffer.getDouble();
+            ypnt = buffer.getDouble();
             poly.lineTo(xpnt, ypnt);
         }
 
@@ -365,11 +488,12 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
 
     /**
      * Read a polygon that has multiple parts.
+     * @param buffer Buffer positioned on the polygon parts.
      * @param numParts Number of parts of this polygon.
      * @param numPoints Total number of points of this polygon, all parts considered.
      * @return a multiple part polygon.
      */
-    private Polygon readMultiplePolygonParts(int numParts, int numPoints) {
+    private Polygon readMultiplePolygonParts(ByteBuffer buffer, int numParts, int numPoints) {
         /**
          * From ESRI Specification :
          * Parts : 0 5  (meaning : 0 designs the first v1, 5 designs the first v5 on the points list below).
@@ -387,7 +511,7 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
 
         // Read all the parts indexes (starting at byte 44).
         for(int index=0; index < numParts; index ++) {
-            partsIndexes[index] = getByteBuffer().getInt();
+            partsIndexes[index] = buffer.getInt();
         }
 
         // Read all the points.
@@ -395,8 +519,8 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
         double[] yPoints = new double[numPoints];
 
         for(int index=0; index < numPoints; index ++) {
-            xPoints[index] = getByteBuffer().getDouble();
-            yPoints[index] = getByteBuffer().getDouble();
+            xPoints[index] = buffer.getDouble();
+            yPoints[index] = buffer.getDouble();
         }
 
         // Create the polygon from the points.
@@ -428,20 +552,21 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
     /**
      * Load polyline feature.
      * @param feature Feature to fill.
+     * @param buffer Buffer positioned on the shape content.
      */
-    private void loadPolylineFeature(AbstractFeature feature) {
-        /* double xmin = */getByteBuffer().getDouble();
-        /* double ymin = */getByteBuffer().getDouble();
-        /* double xmax = */getByteBuffer().getDouble();
-        /* double ymax = */getByteBuffer().getDouble();
+    private void loadPolylineFeature(AbstractFeature feature, ByteBuffer buffer) {
+        /* double xmin = */buffer.getDouble();
+        /* double ymin = */buffer.getDouble();
+        /* double xmax = */buffer.getDouble();
+        /* double ymax = */buffer.getDouble();
 
-        int NumParts = getByteBuffer().getInt();
-        int NumPoints = getByteBuffer().getInt();
+        int NumParts = buffer.getInt();
+        int NumPoints = buffer.getInt();
 
         int[] NumPartArr = new int[NumParts + 1];
 
         for (int n = 0; n < NumParts; n++) {
-            int idx = getByteBuffer().getInt();
+            int idx = buffer.getInt();
             NumPartArr[n] = idx;
         }
         NumPartArr[NumParts] = NumPoints;
@@ -450,13 +575,13 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
         Polyline ply = new Polyline();
 
         for (int m = 0; m < NumParts; m++) {
-            xpnt = getByteBuffer().getDouble();
-            ypnt = getByteBuffer().getDouble();
+            xpnt = buffer.getDouble();
+            ypnt = buffer.getDouble();
             ply.startPath(xpnt, ypnt);
 
             for (int j = NumPartArr[m]; j < NumPartArr[m + 1] - 1; j++) {
-                xpnt = getByteBuffer().getDouble();
-                ypnt = getByteBuffer().getDouble();
+                xpnt = buffer.getDouble();
+                ypnt = buffer.getDouble();
                 ply.lineTo(xpnt, ypnt);
             }
         }
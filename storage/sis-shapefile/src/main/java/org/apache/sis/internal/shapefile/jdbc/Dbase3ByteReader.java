@@ -127,4 +127,10 @@ public interface Dbase3ByteReader {
      * @return Map of field name / object value.
      */
     public Map<String, byte[]> readNextRowAsObjects();
+
+    /**
+     * Read the next row without decoding it.
+     * @return Cursor on the row that has been read, valid until the next row is read.
+     */
+    public RecordCursor readNextRow();
 }
@@ -36,7 +36,7 @@ import org.apache.sis.internal.jdk8.JDK8;
  * Reader of a Database Binary content by the way of a {@link java.nio.MappedByteBuffer}
  *
  * @author  Marc Le Bihan
- * @version 0.5
+ * @version 0.8
  * @since   0.5
  * @module
  */
@@ -47,6 +47,9 @@ public class MappedByteReader extends AbstractDbase3ByteReader implements AutoCl
     /** Connection properties. */
     private Properties info;
 
+    /** Cursor over the current record, created when first needed. */
+    private RecordCursor cursor;
+
     /**
      * Construct a mapped byte reader on a file.
      * @param dbase3File File.
@@ -173,6 +176,33 @@ public class MappedByteReader extends AbstractDbase3ByteReader implements AutoCl
         return fieldsValues;
     }
 
+    /**
+     * Read the next row without decoding it : the returned cursor decodes only the fields asked for, directly in the mapped buffer.
+     * The same cursor instance is returned on each call and is moved to the new row.
+     * Deleted rows are returned too : callers can check them with {@link RecordCursor#isDeleted()}.
+     * @return Cursor on the row that has been read.
+     */
+    @Override
+    public RecordCursor readNextRow() {
+        if (this.cursor == null) {
+            this.cursor = new RecordCursor(getByteBuffer(), this.fieldsDescriptors, this.charset, this.firstRecordPosition & 0xFFFF);
+        }
+
+        int position = getByteBuffer().position();
+        this.cursor.moveTo(position);
+        getByteBuffer().position(position + this.cursor.recordSize);
+        return this.cursor;
+    }
+
+    /**
+     * Creates a cursor independent of this reader position, to be moved by {@link RecordCursor#moveToRecord(int)}.
+     * Each cursor reads a duplicate of the mapped buffer, so different cursors can be used concurrently.
+     * @return New cursor, not yet positioned on a record.
+     */
+    public RecordCursor createCursor() {
+        return new RecordCursor(getByteBuffer().duplicate(), this.fieldsDescriptors, this.charset, this.firstRecordPosition & 0xFFFF);
+    }
+
     /**
      * Loading the database file content from binary .dbf file.
      * @throws SQLInvalidDbaseFileFormatException if descriptor is not readable.
@@ -282,13 +312,19 @@ public class MappedByteReader extends AbstractDbase3ByteReader implements AutoCl
             throw new SQLNoSuchFieldException(message, sql, getFile(), columnLabel);
         }
 
-        // Search the field among the fields descriptors.
+        // Search the field among the fields descriptors, then ignoring the case as SQL does.
         for(int index=0; index < this.fieldsDescriptors.size(); index ++) {
             if (this.fieldsDescriptors.get(index).getName().equals(columnLabel)) {
                 return index + 1;
             }
         }
 
+        for(int index=0; index < this.fieldsDescriptors.size(); index ++) {
+            if (this.fieldsDescriptors.get(index).getName().equalsIgnoreCase(columnLabel)) {
+                return index + 1;
+            }
+        }
+
         // If we are here, we haven't found our field. Throw an exception.
         String message = format(Level.WARNING, "excp.no_such_column_in_resultset", columnLabel, sql, getFile().getName());
         throw new SQLNoSuchFieldException(message, sql, getFile(), columnLabel);
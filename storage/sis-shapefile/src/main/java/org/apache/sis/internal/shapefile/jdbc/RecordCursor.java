@@ -0,0 +1,415 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.shapefile.jdbc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+
+/**
+ * A view over the current record of a DBase 3 file, reading the field values directly in the mapped buffer.
+ * No array or map is created when moving from one record to the next: the cursor only remembers the position
+ * of the record, and each {@code getXxx(int)} method decodes the bytes of the requested field only.
+ * Callers can therefore project the columns they need simply by asking for those columns only.
+ *
+ * <p>Columns are numbered from 1, like JDBC columns. Fields are stored as ASCII text, left or right padded
+ * with spaces. A field made only of spaces is considered null.</p>
+ *
+ * <p>A cursor obtained by {@link MappedByteReader#readNextRow()} is valid only until the next move of the reader
+ * which created it. A cursor obtained by {@link MappedByteReader#createCursor()} is independent of the reader and
+ * of other cursors: it can be moved to any record by {@link #moveToRecord(int)}, for example by a thread reading a
+ * range of records while other threads read other ranges with their own cursors.</p>
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final class RecordCursor {
+    /**
+     * Exact powers of 10 that can be represented by a {@code double}.
+     */
+    private static final double[] POWERS_OF_10 = {
+        1E0,  1E1,  1E2,  1E3,  1E4,  1E5,  1E6,  1E7,  1E8,  1E9,  1E10, 1E11,
+        1E12, 1E13, 1E14, 1E15, 1E16, 1E17, 1E18, 1E19, 1E20, 1E21, 1E22
+    };
+
+    /** The buffer of the whole DBase file. */
+    private final ByteBuffer buffer;
+
+    /** Offset of each field from the beginning of the record (the deletion flag), indexed from 0. */
+    private final int[] offsets;
+
+    /** Length of each field, in bytes, indexed from 0. */
+    private final int[] lengths;
+
+    /** Type of each field, indexed from 0. */
+    private final DBaseDataType[] types;
+
+    /** Size of a record: the deletion flag followed by all fields. */
+    final int recordSize;
+
+    /** Position of the first record in the buffer. */
+    private final int firstRecordPosition;
+
+    /** Charset for decoding the character fields, or {@code null} for the platform default. */
+    private final Charset charset;
+
+    /** Buffer where to copy the bytes of a field for decoding them as a String. */
+    private final byte[] chars;
+
+    /** Position of the current record in the buffer. */
+    private int position;
+
+    /** Start (inclusive) and end (exclusive) position of the last field trimmed by {@link #trim(int)}. */
+    private int start, end;
+
+    /**
+     * Creates a new cursor for records having the given fields.
+     * @param buffer Buffer of the whole DBase file.
+     * @param fields Descriptors of the fields of each record.
+     * @param charset Charset for decoding the character fields, or {@code null} for the platform default.
+     * @param firstRecordPosition Position of the first record in the buffer.
+     */
+    RecordCursor(ByteBuffer buffer, List<DBase3FieldDescriptor> fields, Charset charset, int firstRecordPosition) {
+        this.buffer  = buffer;
+        this.firstRecordPosition = firstRecordPosition;
+        this.charset = charset;
+        this.offsets = new int[fields.size()];
+        this.lengths = new int[fields.size()];
+        this.types   = new DBaseDataType[fields.size()];
+
+        int offset = 1; // Deletion flag.
+        int maxLength = 0;
+
+        for (int i = 0; i < this.offsets.length; i++) {
+            DBase3FieldDescriptor field = fields.get(i);
+            this.offsets[i] = offset;
+            this.lengths[i] = field.getLength();
+            this.types[i]   = field.getType();
+            offset += this.lengths[i];
+            maxLength = Math.max(maxLength, this.lengths[i]);
+        }
+
+        this.recordSize = offset;
+        this.chars = new byte[maxLength];
+    }
+
+    /**
+     * Moves this cursor to the record starting at the given position.
+     * @param recordPosition Position of the deletion flag of the record.
+     */
+    void moveTo(int recordPosition) {
+        this.position = recordPosition;
+    }
+
+    /**
+     * Moves this cursor to the given record. This method does not check if the record exists.
+     * @param recordNumber Record number, first record is 1.
+     */
+    public void moveToRecord(int recordNumber) {
+        this.position = this.firstRecordPosition + (recordNumber - 1) * this.recordSize;
+    }
+
+    /**
+     * Checks if the current record is flagged as deleted.
+     * @return true if the record has been deleted.
+     */
+    public boolean isDeleted() {
+        return this.buffer.get(this.position) == '*';
+    }
+
+    /**
+     * Returns the number of columns of each record.
+     * @return Number of columns.
+     */
+    public int getColumnCount() {
+        return this.offsets.length;
+    }
+
+    /**
+     * Returns the type of the given column.
+     * @param column Column index, first column is 1.
+     * @return Type of the column.
+     */
+    public DBaseDataType getType(int column) {
+        return this.types[column - 1];
+    }
+
+    /**
+     * Sets {@link #start} and {@link #end} to the bounds of the given field, without the leading and trailing spaces.
+     * @param column Column index, first column is 1.
+     * @return true if the field is not empty.
+     */
+    private boolean trim(int column) {
+        int lower = this.position + this.offsets[column - 1];
+        int upper = lower + this.lengths[column - 1];
+
+        while (upper > lower && (this.buffer.get(upper - 1) & 0xFF) <= ' ') upper--;
+        while (lower < upper && (this.buffer.get(lower)     & 0xFF) <= ' ') lower++;
+
+        this.start = lower;
+        this.end = upper;
+        return lower < upper;
+    }
+
+    /**
+     * Checks if the given field contains only spaces.
+     * @param column Column index, first column is 1.
+     * @return true if the field is empty.
+     */
+    public boolean isNull(int column) {
+        return !trim(column);
+    }
+
+    /**
+     * Returns the value of the given field as a String, without the trailing spaces.
+     * Leading spaces are kept, as they may be significant for character fields.
+     * @param column Column index, first column is 1.
+     * @return Field value, empty if the field contains only spaces.
+     */
+    public String getString(int column) {
+        int lower = this.position + this.offsets[column - 1];
+        int upper = lower + this.lengths[column - 1];
+
+        while (upper > lower && (this.buffer.get(upper - 1) & 0xFF) <= ' ') upper--;
+
+        int length = upper - lower;
+
+        for (int i = 0; i < length; i++) {
+            this.chars[i] = this.buffer.get(lower + i);
+        }
+
+        return (this.charset != null) ? new String(this.chars, 0, length, this.charset) : new String(this.chars, 0, length);
+    }
+
+    /**
+     * Compares the bytes of the given field, without the trailing spaces, with the given bytes.
+     * This allows to test the equality of a character field with a literal without decoding the field.
+     * @param column Column index, first column is 1.
+     * @param value Bytes to compare, encoded in the database charset.
+     * @return true if the field contains the given bytes.
+     */
+    public boolean equalsBytes(int column, byte[] value) {
+        int lower = this.position + this.offsets[column - 1];
+        int upper = lower + this.lengths[column - 1];
+
+        while (upper > lower && (this.buffer.get(upper - 1) & 0xFF) <= ' ') upper--;
+
+        if (upper - lower != value.length) {
+            return false;
+        }
+
+        for (int i = 0; i < value.length; i++) {
+            if (this.buffer.get(lower + i) != value[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the value of the given field, without leading and trailing spaces, as ASCII characters.
+     * Used for error messages and for the values that the fast parsers can not handle.
+     */
+    private String text() {
+        return new String(this.chars, 0, copy(), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Copies the bytes between {@link #start} and {@link #end} in the {@link #chars} buffer.
+     * @return Number of bytes copied.
+     */
+    private int copy() {
+        int length = this.end - this.start;
+
+        for (int i = 0; i < length; i++) {
+            this.chars[i] = this.buffer.get(this.start + i);
+        }
+
+        return length;
+    }
+
+    /**
+     * Returns the value of the given field as an integer.
+     * @param column Column index, first column is 1.
+     * @return Field value, or 0 if the field contains only spaces.
+     * @throws NumberFormatException if the field is not an integer, or is out of the {@code int} range.
+     */
+    public int getInt(int column) throws NumberFormatException {
+        long value = getLong(column);
+
+        if (value != (int) value) {
+            throw new NumberFormatException(text());
+        }
+
+        return (int) value;
+    }
+
+    /**
+     * Returns the value of the given field as a long integer.
+     * @param column Column index, first column is 1.
+     * @return Field value, or 0 if the field contains only spaces.
+     * @throws NumberFormatException if the field is not an integer, or is out of the {@code long} range.
+     */
+    public long getLong(int column) throws NumberFormatException {
+        if (!trim(column)) {
+            return 0;
+        }
+
+        int i = this.start;
+        byte c = this.buffer.get(i);
+        boolean negative = (c == '-');
+
+        if (negative || c == '+') {
+            i++;
+        }
+
+        // Up to 18 digits can not overflow. Longer values are delegated to Long.parseLong.
+        if (i == this.end || this.end - i > 18) {
+            return Long.parseLong(text());
+        }
+
+        long value = 0;
+
+        while (i < this.end) {
+            int digit = this.buffer.get(i++) - '0';
+
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException(text());
+            }
+
+            value = value * 10 + digit;
+        }
+
+        return negative ? -value : value;
+    }
+
+    /**
+     * Returns the value of the given field as a double.
+     * Values having at most 15 significant digits and no exponent are parsed directly in the buffer
+     * with a single correctly rounded division. Other values are delegated to {@link Double#parseDouble(String)}.
+     * @param column Column index, first column is 1.
+     * @return Field value, or 0 if the field contains only spaces.
+     * @throws NumberFormatException if the field is not a number.
+     */
+    public double getDouble(int column) throws NumberFormatException {
+        if (!trim(column)) {
+            return 0;
+        }
+
+        int i = this.start;
+        byte c = this.buffer.get(i);
+        boolean negative = (c == '-');
+
+        if (negative || c == '+') {
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;         // Number of significant digits, ignoring leading zeros.
+        int fractionDigits = 0;
+        boolean anyDigit = false;
+        boolean point = false;
+
+        for (; i < this.end; i++) {
+            c = this.buffer.get(i);
+
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+
+                if (mantissa != 0 || c != '0') {
+                    if (++digits > 15) {
+                        return Double.parseDouble(text());
+                    }
+                }
+
+                mantissa = mantissa * 10 + (c - '0');
+
+                if (point) {
+                    fractionDigits++;
+                }
+            }
+            else if (c == '.' && !point) {
+                point = true;
+            }
+            else {
+                // Exponent, special values or invalid characters.
+                return Double.parseDouble(text());
+            }
+        }
+
+        if (!anyDigit || fractionDigits >= POWERS_OF_10.length) {
+            return Double.parseDouble(text());
+        }
+
+        double value = mantissa / POWERS_OF_10[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Returns the value of the given field as a date. DBase dates are stored in "YYYYMMDD" format.
+     * @param column Column index, first column is 1.
+     * @return Field value, or null if the field contains only spaces or zeros.
+     * @throws NumberFormatException if the field is not a date.
+     */
+    public Date getDate(int column) throws NumberFormatException {
+        if (!trim(column)) {
+            return null;
+        }
+
+        if (this.end - this.start != 8) {
+            throw new NumberFormatException(text());
+        }
+
+        int yyyymmdd = 0;
+
+        for (int i = this.start; i < this.end; i++) {
+            int digit = this.buffer.get(i) - '0';
+
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException(text());
+            }
+
+            yyyymmdd = yyyymmdd * 10 + digit;
+        }
+
+        if (yyyymmdd == 0) {
+            return null; // "00000000" is stored in Database to represent a null value too.
+        }
+
+        Calendar calendar = new GregorianCalendar(yyyymmdd / 10000, (yyyymmdd / 100) % 100 - 1, yyyymmdd % 100, 0, 0, 0);
+        return new Date(calendar.getTimeInMillis());
+    }
+
+    /**
+     * Returns the value of the given field, without leading and trailing spaces, as it is stored in the file.
+     * Used in error messages and for comparing numeric fields to texts.
+     * @param column Column index, first column is 1.
+     * @return Field value.
+     */
+    public String getText(int column) {
+        trim(column);
+        return text();
+    }
+}
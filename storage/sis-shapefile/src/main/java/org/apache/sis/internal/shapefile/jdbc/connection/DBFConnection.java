@@ -32,7 +32,7 @@ import org.apache.sis.internal.shapefile.jdbc.statement.DBFStatement;
 /**
  * Connection to a DBF database.
  * @author  Marc Le Bihan
- * @version 0.5
+ * @version 0.8
  * @since   0.5
  * @module
  */
@@ -317,6 +317,14 @@ public class DBFConnection extends AbstractConnection {
         return this.byteReader.readNextRowAsObjects();
     }
 
+    /**
+     * Read the next row without decoding it.
+     * @return Cursor on the row that has been read, valid until the next row is read.
+     */
+    public RecordCursor readNextRow() {
+        return this.byteReader.readNextRow();
+    }
+
     /**
      * Returns the record number of the last record red.
      * @return The record number.
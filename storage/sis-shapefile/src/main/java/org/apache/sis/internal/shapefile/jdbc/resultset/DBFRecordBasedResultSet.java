@@ -19,35 +19,33 @@ package org.apache.sis.internal.shapefile.jdbc.resultset;
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
-import java.nio.charset.Charset;
 import java.sql.Date;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLFeatureNotSupportedException;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
-import java.util.Map;
 import java.util.logging.Level;
 
+import org.apache.sis.internal.shapefile.jdbc.DBase3FieldDescriptor;
+import org.apache.sis.internal.shapefile.jdbc.RecordCursor;
 import org.apache.sis.internal.shapefile.jdbc.SQLConnectionClosedException;
 import org.apache.sis.internal.shapefile.jdbc.connection.DBFConnection;
 import org.apache.sis.internal.shapefile.jdbc.metadata.DBFResultSetMataData;
 import org.apache.sis.internal.shapefile.jdbc.sql.*;
 import org.apache.sis.internal.shapefile.jdbc.statement.DBFStatement;
 
-// Branch-dependent imports
-import org.apache.sis.internal.jdk8.Function;
-
 
 /**
  * A ResultSet based on a record.
  * @author Marc LE BIHAN
  */
 public class DBFRecordBasedResultSet extends DBFResultSet {
-    /** The current record. */
-    private Map<String, byte[]> record;
+    /** The current record : its fields are decoded only when asked for. */
+    private RecordCursor record;
+
+    /** Conditions of the where clause, or null if there is no where clause. */
+    private RecordFilter whereClause;
 
-    /** Condition of where clause (currently, only one is handled). */
-    private ConditionalClauseResolver singleConditionOfWhereClause;
+    /** Indicates that the columns of the where clause have been resolved against the database. */
+    private boolean whereClauseResolved;
 
     /** Indicates that the last result set record matching conditions has already been returned, and a further call of next() shall throw a "no more record" exception. */
     private boolean lastResultSetRecordAlreadyReturned;
@@ -63,7 +61,7 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
      */
     public DBFRecordBasedResultSet(final DBFStatement stmt, String sqlQuery) throws SQLInvalidStatementException {
         super(stmt, sqlQuery);
-        this.singleConditionOfWhereClause = new CrudeSQLParser(this).parse();
+        this.whereClause = new CrudeSQLParser(this).compile();
     }
 
     /**
@@ -144,42 +142,7 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     @Override
     public Date getDate(String columnLabel) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotDateException {
         logStep("getDate", columnLabel);
-        assertNotClosed();
-
-        String value = getString(columnLabel);
-
-        if (value == null || value.equals("00000000")) { // "00000000" is stored in Database to represent a null value too.
-            this.wasNull = true;
-            return null; // The ResultSet:getDate() contract is to return null when a null date is encountered.
-        }
-        else {
-            this.wasNull = false;
-        }
-
-        // The DBase 3 date format is "YYYYMMDD".
-        // if the length of the string isn't eight characters, the field format is incorrect.
-        if (value.length() != 8) {
-            String message = format(Level.WARNING, "excp.field_is_not_a_date", columnLabel, this.sql, value);
-            throw new SQLNotDateException(message, this.sql, getFile(), columnLabel, value);
-        }
-
-        // Extract the date parts.
-        int year, month, dayOfMonth;
-
-        try {
-            year = Integer.parseInt(value.substring(0, 4));
-            month = Integer.parseInt(value.substring(5, 7));
-            dayOfMonth = Integer.parseInt(value.substring(7));
-        }
-        catch(NumberFormatException e) {
-            String message = format(Level.WARNING, "excp.field_is_not_a_date", columnLabel, this.sql, value);
-            throw new SQLNotDateException(message, this.sql, getFile(), columnLabel, value);
-        }
-
-        // Create a date.
-        Calendar calendar = new GregorianCalendar(year, month-1, dayOfMonth, 0, 0, 0);
-        Date sqlDate = new Date(calendar.getTimeInMillis());
-        return sqlDate;
+        return dateValue(findColumnOfRecord(columnLabel));
     }
 
     /**
@@ -192,7 +155,7 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     @Override
     public Date getDate(int columnIndex) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotDateException, SQLIllegalColumnIndexException {
         logStep("getDate", columnIndex);
-        return getDate(getFieldName(columnIndex, this.sql));
+        return dateValue(checkColumnOfRecord(columnIndex));
     }
 
     /**
@@ -204,14 +167,7 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     @Override
     public double getDouble(String columnLabel) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException {
         logStep("getDouble", columnLabel);
-
-        Double value = getNumeric(columnLabel, new Function<String,Double>() {
-            @Override public Double apply(final String value) {
-                return Double.parseDouble(value);
-            }
-        });
-        this.wasNull = (value == null);
-        return value != null ? value : 0.0; // The ResultSet contract for numbers is to return 0 when a null value is encountered.
+        return doubleValue(findColumnOfRecord(columnLabel));
     }
 
     /**
@@ -224,7 +180,7 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     @Override
     public double getDouble(int columnIndex) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException, SQLIllegalColumnIndexException {
         logStep("getDouble", columnIndex);
-        return getDouble(getFieldName(columnIndex, this.sql));
+        return doubleValue(checkColumnOfRecord(columnIndex));
     }
 
     /**
@@ -236,14 +192,7 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     @Override
     public float getFloat(String columnLabel) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException {
         logStep("getFloat", columnLabel);
-
-        Float value = getNumeric(columnLabel, new Function<String,Float>() {
-            @Override public Float apply(final String value) {
-                return Float.parseFloat(value);
-            }
-        });
-        this.wasNull = (value == null);
-        return value != null ? value : 0; // The ResultSet contract for numbers is to return 0 when a null value is encountered.
+        return floatValue(findColumnOfRecord(columnLabel));
     }
 
     /**
@@ -256,7 +205,7 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     @Override
     public float getFloat(int columnIndex) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException, SQLIllegalColumnIndexException {
         logStep("getFloat", columnIndex);
-        return getFloat(getFieldName(columnIndex, this.sql));
+        return floatValue(checkColumnOfRecord(columnIndex));
     }
 
     /**
@@ -268,14 +217,7 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     @Override
     public int getInt(String columnLabel) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException {
         logStep("getInt", columnLabel);
-
-        Integer value = getNumeric(columnLabel, new Function<String,Integer>() {
-            @Override public Integer apply(final String value) {
-                return Integer.parseInt(value);
-            }
-        });
-        this.wasNull = (value == null);
-        return value != null ? value : 0; // The ResultSet contract for numbers is to return 0 when a null value is encountered.
+        return intValue(findColumnOfRecord(columnLabel));
     }
 
     /**
@@ -288,7 +230,7 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     @Override
     public int getInt(int columnIndex) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException, SQLIllegalColumnIndexException {
         logStep("getInt", columnIndex);
-        return getInt(getFieldName(columnIndex, this.sql));
+        return intValue(checkColumnOfRecord(columnIndex));
     }
 
     /**
@@ -300,14 +242,7 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     @Override
     public long getLong(String columnLabel) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException {
         logStep("getLong", columnLabel);
-
-        Long value = getNumeric(columnLabel, new Function<String,Long>() {
-            @Override public Long apply(final String value) {
-                return Long.parseLong(value);
-            }
-        });
-        this.wasNull = (value == null);
-        return value != null ? value : 0; // The ResultSet contract for numbers is to return 0 when a null value is encountered.
+        return longValue(findColumnOfRecord(columnLabel));
     }
 
     /**
@@ -319,7 +254,7 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
      */
     @Override public long getLong(int columnIndex) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException, SQLIllegalColumnIndexException {
         logStep("getLong", columnIndex);
-        return getLong(getFieldName(columnIndex, this.sql));
+        return longValue(checkColumnOfRecord(columnIndex));
     }
 
     /**
@@ -338,75 +273,50 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
      */
     @Override
     public Object getObject(int column) throws SQLConnectionClosedException, SQLIllegalColumnIndexException, SQLFeatureNotSupportedException, SQLNoSuchFieldException, SQLNotNumericException, SQLNotDateException {
-        try(DBFBuiltInMemoryResultSetForColumnsListing field = (DBFBuiltInMemoryResultSetForColumnsListing)getFieldDesc(column, this.sql)) {
-            String fieldType;
-
-            try {
-                fieldType = field.getString("TYPE_NAME");
-            }
-            catch(SQLNoSuchFieldException e) {
-                // This is an internal trouble because the field type must be found.
-                throw new RuntimeException(e.getMessage(), e);
-            }
-
-            switch(fieldType) {
-                case "AUTO_INCREMENT":
-                case "INTEGER":
-                    return getInt(column);
-
-                case "CHAR":
-                    return getString(column);
-
-                case "DATE":
-                    return getDate(column);
-
-                case "DECIMAL": {
-                    // Choose Integer or Long type, if no decimal and that the field is not to big.
-                    if (field.getInt("DECIMAL_DIGITS") == 0 && field.getInt("COLUMN_SIZE") <= 18) {
-                        if (field.getInt("COLUMN_SIZE") <= 9)
-                            return getInt(column);
-                        else
-                            return getLong(column);
-                    }
-
-                    return getDouble(column);
+        checkColumnOfRecord(column);
+        DBase3FieldDescriptor field = ((DBFConnection)((DBFStatement)getStatement()).getConnection()).getFieldsDescriptors().get(column - 1);
+        Object value;
+
+        switch(field.getType()) {
+            case AutoIncrement:
+            case Integer:
+                value = getInt(column);
+                break;
+
+            case Character:
+                return getString(column);
+
+            case Date:
+                return getDate(column);
+
+            case Number: {
+                // Choose Integer or Long type, if no decimal and that the field is not to big.
+                if (field.getDecimalCount() == 0 && field.getLength() <= 18) {
+                    if (field.getLength() <= 9)
+                        value = getInt(column);
+                    else
+                        value = getLong(column);
                 }
+                else {
+                    value = getDouble(column);
+                }
+                break;
+            }
 
-                case "DOUBLE":
-                case "CURRENCY":
-                    return getDouble(column);
-
-                case "FLOAT":
-                    return getFloat(column);
-
-                case "BOOLEAN":
-                    throw unsupportedOperation("ResultSetMetaData.getColumnClassName(..) on Boolean");
-
-                case "DATETIME":
-                    throw unsupportedOperation("ResultSetMetaData.getColumnClassName(..) on DateTime");
-
-                case "TIMESTAMP":
-                    throw unsupportedOperation("ResultSetMetaData.getColumnClassName(..) on TimeStamp");
-
-                case "MEMO":
-                    throw unsupportedOperation("ResultSetMetaData.getColumnClassName(..) on Memo");
-
-                case "PICTURE":
-                    throw unsupportedOperation("ResultSetMetaData.getColumnClassName(..) on Picture");
-
-                case "VARIFIELD":
-                    throw unsupportedOperation("ResultSetMetaData.getColumnClassName(..) on VariField");
-
-                case "VARIANT":
-                    throw unsupportedOperation("ResultSetMetaData.getColumnClassName(..) on Variant");
+            case Double:
+            case Currency:
+                value = getDouble(column);
+                break;
 
-                case "UNKNOWN":
-                    throw unsupportedOperation("ResultSetMetaData.getColumnClassName(..) on " + fieldType);
+            case FloatingPoint:
+                value = getFloat(column);
+                break;
 
-                default:
-                    throw unsupportedOperation("ResultSetMetaData.getColumnClassName(..) on " + fieldType);
-            }
+            default:
+                throw unsupportedOperation("ResultSetMetaData.getColumnClassName(..) on " + field.getType());
         }
+
+        return this.wasNull ? null : value;
     }
 
     /**
@@ -426,6 +336,19 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
         }
     }
 
+    /**
+     * Checks if the current record is flagged as deleted in the DBase file.
+     * Deleted records are still returned by {@link #next()} : it is up to the caller to skip them.
+     * @return true if the current record has been deleted.
+     * @throws SQLConnectionClosedException if the connection is closed.
+     */
+    @Override
+    public boolean rowDeleted() throws SQLConnectionClosedException {
+        logStep("rowDeleted");
+        assertNotClosed();
+        return this.record != null && this.record.isDeleted();
+    }
+
     /**
      * Return the record number of this record.
      * @return Record number of this record.
@@ -443,14 +366,7 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     @Override
     public short getShort(String columnLabel) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException {
         logStep("getShort", columnLabel);
-
-        Short value = getNumeric(columnLabel, new Function<String,Short>() {
-            @Override public Short apply(final String value) {
-                return Short.parseShort(value);
-            }
-        });
-        this.wasNull = (value == null);
-        return value != null ? value : 0; // The ResultSet contract for numbers is to return 0 when a null value is encountered.
+        return shortValue(findColumnOfRecord(columnLabel));
     }
 
     /**
@@ -463,7 +379,7 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     @Override
     public short getShort(int columnIndex) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException, SQLIllegalColumnIndexException {
         logStep("getShort", columnIndex);
-        return getShort(getFieldName(columnIndex, this.sql));
+        return shortValue(checkColumnOfRecord(columnIndex));
     }
 
     /**
@@ -473,34 +389,9 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
      * @throws SQLNoSuchFieldException if the field does not exist.
      */
     @Override
-    @SuppressWarnings("resource") // Only read the current connection to get the Charset.
     public String getString(String columnLabel) throws SQLConnectionClosedException, SQLNoSuchFieldException {
         logStep("getString", columnLabel);
-        assertNotClosed();
-
-        getFieldDesc(columnLabel, this.sql); // Ensure that the field queried exists, else a null value here can be interpreted as "not existing" or "has a null value".
-        byte[] bytes = this.record.get(columnLabel);
-
-        if (bytes == null) {
-            this.wasNull = true;
-            return null;
-        }
-        else {
-            this.wasNull = false;
-        }
-
-        // If a non null value has been readed, convert it to the wished Charset (provided one has been given).
-        DBFConnection cnt = (DBFConnection)((DBFStatement)getStatement()).getConnection();
-        Charset charset = cnt.getCharset();
-        
-        if (charset == null) {
-            return new String(bytes);
-        }
-        else {
-            String withDatabaseCharset = new String(bytes, charset);
-            log(Level.FINER, "log.string_field_charset", columnLabel, withDatabaseCharset, charset);
-            return withDatabaseCharset;
-        }
+        return stringValue(findColumnOfRecord(columnLabel));
     }
 
     /**
@@ -512,7 +403,7 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     @Override
     public String getString(int columnIndex) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLIllegalColumnIndexException {
         logStep("getString", columnIndex);
-        return(getString(getFieldName(columnIndex, this.sql)));
+        return stringValue(checkColumnOfRecord(columnIndex));
     }
 
     /**
@@ -563,10 +454,23 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
         boolean recordMatchesConditions = false;
         DBFConnection cnt = (DBFConnection)((DBFStatement)getStatement()).getConnection();
 
+        // The columns of the conditions are resolved only once, before the first record is read.
+        if (this.whereClause != null && this.whereClauseResolved == false) {
+            this.whereClause.resolve(cnt, this.sql);
+            this.whereClauseResolved = true;
+        }
+
         while(cnt.nextRowAvailable() && recordMatchesConditions == false) {
-            this.record = cnt.readNextRowAsObjects();
+            this.record = cnt.readNextRow();
             this.recordNumber = cnt.getRowNum();
-            recordMatchesConditions = this.singleConditionOfWhereClause == null || this.singleConditionOfWhereClause.isVerified(this);
+
+            try {
+                recordMatchesConditions = this.whereClause == null || this.whereClause.accept(this.record);
+            }
+            catch(RecordFilter.UnparsableValueException e) {
+                String message = format(Level.WARNING, "excp.field_is_not_numeric", e.column, this.record.getType(findColumnOfRecord(e.column)), this.sql, e.value);
+                throw new SQLNotNumericException(message, this.sql, getFile(), e.column, e.value);
+            }
         }
 
         return recordMatchesConditions;
@@ -591,37 +495,212 @@ public class DBFRecordBasedResultSet extends DBFResultSet {
     }
 
     /**
-     * Get a numeric value.
-     * @param <T> Type of the number.
-     * @param columnLabel Column Label.
-     * @param parse Parsing function : Integer.parseInt, Float.parseFloat, Long.parseLong, ...
-     * @return The expected value or null if null was encountered.
+     * Returns the index of a column in the current record.
+     * @param columnLabel Column name.
+     * @return Column index, first column is 1.
      * @throws SQLConnectionClosedException if the connection is closed.
-     * @throws SQLNoSuchFieldException if the field looked for doesn't exist.
-     * @throws SQLNotNumericException if the field value is not numeric or has a NULL value.
+     * @throws SQLNoSuchFieldException if the field does not exist.
      */
-    private <T extends Number> T getNumeric(String columnLabel, Function<String, T> parse) throws SQLConnectionClosedException, SQLNoSuchFieldException, SQLNotNumericException {
+    private int findColumnOfRecord(String columnLabel) throws SQLConnectionClosedException, SQLNoSuchFieldException {
         assertNotClosed();
+        return findColumn(columnLabel);
+    }
 
-        try(DBFBuiltInMemoryResultSetForColumnsListing rs = (DBFBuiltInMemoryResultSetForColumnsListing)getFieldDesc(columnLabel, this.sql)) {
-            String textValue = getString(columnLabel);
-            
-            if (textValue == null) {
-                return null;
-            }
+    /**
+     * Checks that a column index is valid for the current record.
+     * @param columnIndex Column index, first column is 1.
+     * @return The given column index.
+     * @throws SQLConnectionClosedException if the connection is closed.
+     * @throws SQLIllegalColumnIndexException if the column index has an illegal value.
+     */
+    private int checkColumnOfRecord(int columnIndex) throws SQLConnectionClosedException, SQLIllegalColumnIndexException {
+        assertNotClosed();
 
-            try {
-                textValue = textValue.trim(); // Field must be trimed before being converted.
-                T value = parse.apply(textValue);
-                return(value);
-            }
-            catch(NumberFormatException e) {
-                String message = format(Level.WARNING, "excp.field_is_not_numeric", columnLabel, rs.getString("TYPE_NAME"), this.sql, textValue);
-                throw new SQLNotNumericException(message, this.sql, getFile(), columnLabel, textValue);
+        if (columnIndex < 1 || columnIndex > this.record.getColumnCount()) {
+            getFieldName(columnIndex, this.sql); // Throws the exception describing the illegal index.
+        }
+
+        return columnIndex;
+    }
+
+    /**
+     * Returns the name of a column of the current record, for error messages.
+     * @param column Column index, first column is 1, already checked.
+     * @return Column name.
+     */
+    private String columnName(int column) {
+        try {
+            return getFieldName(column, this.sql);
+        }
+        catch(SQLIllegalColumnIndexException | SQLConnectionClosedException e) {
+            return String.valueOf(column);
+        }
+    }
+
+    /**
+     * Returns the date value of a column of the current record.
+     * @param column Column index, first column is 1, already checked.
+     * @return Date, or null if the field is null.
+     * @throws SQLNotDateException if the field is not a date.
+     */
+    private Date dateValue(int column) throws SQLNotDateException {
+        try {
+            Date date = this.record.getDate(column);
+            this.wasNull = (date == null);
+            return date; // The ResultSet:getDate() contract is to return null when a null date is encountered.
+        }
+        catch(NumberFormatException e) {
+            String columnLabel = columnName(column);
+            String value = this.record.getText(column);
+            String message = format(Level.WARNING, "excp.field_is_not_a_date", columnLabel, this.sql, value);
+            throw new SQLNotDateException(message, this.sql, getFile(), columnLabel, value);
+        }
+    }
+
+    /**
+     * Returns the double value of a column of the current record.
+     * @param column Column index, first column is 1, already checked.
+     * @return Value, 0 if the field is null.
+     * @throws SQLNotNumericException if the field value is not numeric.
+     */
+    private double doubleValue(int column) throws SQLNotNumericException {
+        // The ResultSet contract for numbers is to return 0 when a null value is encountered.
+        if (this.record.isNull(column)) {
+            this.wasNull = true;
+            return 0;
+        }
+
+        this.wasNull = false;
+
+        try {
+            return this.record.getDouble(column);
+        }
+        catch(NumberFormatException e) {
+            throw notNumeric(column);
+        }
+    }
+
+    /**
+     * Returns the float value of a column of the current record.
+     * @param column Column index, first column is 1, already checked.
+     * @return Value, 0 if the field is null.
+     * @throws SQLNotNumericException if the field value is not numeric.
+     */
+    private float floatValue(int column) throws SQLNotNumericException {
+        // The ResultSet contract for numbers is to return 0 when a null value is encountered.
+        if (this.record.isNull(column)) {
+            this.wasNull = true;
+            return 0;
+        }
+
+        this.wasNull = false;
+
+        try {
+            return Float.parseFloat(this.record.getText(column));
+        }
+        catch(NumberFormatException e) {
+            throw notNumeric(column);
+        }
+    }
+
+    /**
+     * Returns the int value of a column of the current record.
+     * @param column Column index, first column is 1, already checked.
+     * @return Value, 0 if the field is null.
+     * @throws SQLNotNumericException if the field value is not numeric.
+     */
+    private int intValue(int column) throws SQLNotNumericException {
+        // The ResultSet contract for numbers is to return 0 when a null value is encountered.
+        if (this.record.isNull(column)) {
+            this.wasNull = true;
+            return 0;
+        }
+
+        this.wasNull = false;
+
+        try {
+            return this.record.getInt(column);
+        }
+        catch(NumberFormatException e) {
+            throw notNumeric(column);
+        }
+    }
+
+    /**
+     * Returns the long value of a column of the current record.
+     * @param column Column index, first column is 1, already checked.
+     * @return Value, 0 if the field is null.
+     * @throws SQLNotNumericException if the field value is not numeric.
+     */
+    private long longValue(int column) throws SQLNotNumericException {
+        // The ResultSet contract for numbers is to return 0 when a null value is encountered.
+        if (this.record.isNull(column)) {
+            this.wasNull = true;
+            return 0;
+        }
+
+        this.wasNull = false;
+
+        try {
+            return this.record.getLong(column);
+        }
+        catch(NumberFormatException e) {
+            throw notNumeric(column);
+        }
+    }
+
+    /**
+     * Returns the short value of a column of the current record.
+     * @param column Column index, first column is 1, already checked.
+     * @return Value, 0 if the field is null.
+     * @throws SQLNotNumericException if the field value is not numeric or doesn't fit in a short.
+     */
+    private short shortValue(int column) throws SQLNotNumericException {
+        // The ResultSet contract for numbers is to return 0 when a null value is encountered.
+        if (this.record.isNull(column)) {
+            this.wasNull = true;
+            return 0;
+        }
+
+        this.wasNull = false;
+
+        try {
+            int value = this.record.getInt(column);
+
+            if (value != (short) value) {
+                throw new NumberFormatException();
             }
+
+            return (short) value;
+        }
+        catch(NumberFormatException e) {
+            throw notNumeric(column);
         }
     }
 
+    /**
+     * Returns the text value of a column of the current record.
+     * @param column Column index, first column is 1, already checked.
+     * @return Value.
+     */
+    private String stringValue(int column) {
+        // The record cursor converts the value to the database Charset (provided one has been given).
+        this.wasNull = false;
+        return this.record.getString(column);
+    }
+
+    /**
+     * Builds the exception to throw when a numeric field of the current record cannot be parsed.
+     * @param column Column index, first column is 1.
+     * @return Exception to throw.
+     */
+    private SQLNotNumericException notNumeric(int column) {
+        String columnLabel = columnName(column);
+        String textValue = this.record.getText(column);
+        String message = format(Level.WARNING, "excp.field_is_not_numeric", columnLabel, this.record.getType(column), this.sql, textValue);
+        return new SQLNotNumericException(message, this.sql, getFile(), columnLabel, textValue);
+    }
+
     /**
      * @see java.lang.Object#toString()
      */
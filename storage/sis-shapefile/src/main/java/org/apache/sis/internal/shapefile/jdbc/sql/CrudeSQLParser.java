@@ -17,7 +17,12 @@
 package org.apache.sis.internal.shapefile.jdbc.sql;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.logging.Level;
 
 import org.apache.sis.internal.shapefile.jdbc.AbstractJDBC;
@@ -28,9 +33,45 @@ import org.apache.sis.internal.shapefile.jdbc.resultset.DBFRecordBasedResultSet;
  * @author Marc LE BIHAN
  */
 public class CrudeSQLParser extends AbstractJDBC {
+    /** Token type : end of the condition. */
+    private static final int END = 0;
+
+    /** Token type : column name or keyword. */
+    private static final int IDENTIFIER = 1;
+
+    /** Token type : numeric literal. */
+    private static final int NUMBER = 2;
+
+    /** Token type : string literal, without its quotes. */
+    private static final int STRING = 3;
+
+    /** Token type : operator, parenthesis or comma. */
+    private static final int SYMBOL = 4;
+
+    /** Comparison operators. */
+    private static final Set<String> OPERATORS = new HashSet<>(Arrays.asList("=", "<>", "!=", "<", "<=", ">", ">="));
+
+    /** Keywords that cannot be used as column names without double quotes. */
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList("AND", "OR", "NOT", "IN", "BETWEEN", "LIKE"));
+
     /** ResultSet followed straight forward. */
     private DBFRecordBasedResultSet rs;
 
+    /** The where condition being parsed. */
+    private String condition;
+
+    /** Position of the next character to read in the condition. */
+    private int position;
+
+    /** Current token, or null at the end of the condition. */
+    private String token;
+
+    /** Type of the current token. */
+    private int tokenType = END;
+
+    /** Position of the current token in the condition. */
+    private int tokenStart;
+
     /**
      * Construct a crude SQL parser.
      * @param resultset Target ResultSet.
@@ -41,12 +82,16 @@ public class CrudeSQLParser extends AbstractJDBC {
     }
 
     /**
-     * Get the unique conditional statement contained in an SQL statement.
-     * @return Conditional clause or null if the statement wasn't accompanied by a where clause.
+     * Compile the conditions of the where clause contained in the SQL statement.
+     * The conditions are comparisons ({@code =, <>, !=, <, <=, >, >=}), {@code [NOT] IN (...)},
+     * {@code [NOT] BETWEEN ... AND ...} and {@code [NOT] LIKE '...'} on columns and literals,
+     * combined with {@code AND}, {@code OR}, {@code NOT} and parentheses.
+     * The column names are resolved later, by {@link RecordFilter#resolve}.
+     * @return Compiled conditions or null if the statement wasn't accompanied by a where clause.
      * @throws SQLInvalidStatementException if the SQL statement is invalid.
      */
-    public ConditionalClauseResolver parse() throws SQLInvalidStatementException {
-        logStep("parse");
+    public RecordFilter compile() throws SQLInvalidStatementException {
+        logStep("compile");
 
         String sql = this.rs.getSQL().trim();
 
@@ -64,50 +109,385 @@ public class CrudeSQLParser extends AbstractJDBC {
 
         // Get the conditions.
         int endOfwhereClause = whereIndex + whereWord.length();
-        String whereCondition = sql.substring(endOfwhereClause).trim();
+        this.condition = sql.substring(endOfwhereClause).trim();
+        this.position = 0;
 
         // If the condition is empty, it's a syntax error because a WHERE clause went before.
-        if (whereCondition.isEmpty()) {
+        if (this.condition.isEmpty()) {
             String message = format(Level.WARNING, "excp.where_without_conditions", sql);
             throw new SQLInvalidStatementException(message, this.rs.getSQL(), this.rs.getFile());
         }
 
-        // Currently, all the condition are made of three parts :
-        // <Comparand 1> <operator> <Comparand 2>
-        // i.e. : A < 5, CITY = 'Kratie', B >= 15.3
-        // Spaces are currently expected between parts of the conditional expression.
-        String[] parts = whereCondition.split(" ");
+        nextToken();
+        RecordFilter filter = parseOr();
 
-        if (parts.length != 3) {
-            String message = format(Level.WARNING, "excp.limited_feature_conditional_parsing", whereCondition, sql);
-            throw new SQLInvalidStatementException(message, this.rs.getSQL(), this.rs.getFile());
+        if (this.token != null) {
+            throw syntaxError();
+        }
+
+        return filter;
+    }
+
+    /**
+     * Parse conditions separated by OR.
+     * @return Condition.
+     * @throws SQLInvalidStatementException if the condition is invalid.
+     */
+    private RecordFilter parseOr() throws SQLInvalidStatementException {
+        List<RecordFilter> conditions = new ArrayList<>();
+        conditions.add(parseAnd());
+
+        while(isKeyword("OR")) {
+            nextToken();
+            conditions.add(parseAnd());
+        }
+
+        return (conditions.size() == 1) ? conditions.get(0) : new RecordFilter.Or(conditions);
+    }
+
+    /**
+     * Parse conditions separated by AND.
+     * @return Condition.
+     * @throws SQLInvalidStatementException if the condition is invalid.
+     */
+    private RecordFilter parseAnd() throws SQLInvalidStatementException {
+        List<RecordFilter> conditions = new ArrayList<>();
+        conditions.add(parseNot());
+
+        while(isKeyword("AND")) {
+            nextToken();
+            conditions.add(parseNot());
+        }
+
+        return (conditions.size() == 1) ? conditions.get(0) : new RecordFilter.And(conditions);
+    }
+
+    /**
+     * Parse a condition, maybe negated or between parentheses.
+     * @return Condition.
+     * @throws SQLInvalidStatementException if the condition is invalid.
+     */
+    private RecordFilter parseNot() throws SQLInvalidStatementException {
+        if (isKeyword("NOT")) {
+            nextToken();
+            return new RecordFilter.Not(parseNot());
+        }
+
+        if ("(".equals(this.token) && this.tokenType == SYMBOL) {
+            nextToken();
+            RecordFilter filter = parseOr();
+            expect(")");
+            return filter;
+        }
+
+        return parsePredicate();
+    }
+
+    /**
+     * Parse a single predicate : comparison, IN, BETWEEN or LIKE.
+     * @return Condition.
+     * @throws SQLInvalidStatementException if the condition is invalid.
+     */
+    private RecordFilter parsePredicate() throws SQLInvalidStatementException {
+        RecordFilter.Operand left = parseOperand();
+
+        if (this.tokenType == SYMBOL && OPERATORS.contains(this.token)) {
+            String operator = this.token.equals("!=") ? "<>" : this.token;
+            nextToken();
+            return new RecordFilter.Comparison(left, operator, parseOperand());
+        }
+
+        boolean negate = isKeyword("NOT");
+
+        if (negate) {
+            nextToken();
+        }
+
+        RecordFilter filter;
+
+        if (isKeyword("IN")) {
+            nextToken();
+            expect("(");
+            List<RecordFilter.Operand> values = new ArrayList<>();
+            values.add(parseOperand());
+
+            while(",".equals(this.token) && this.tokenType == SYMBOL) {
+                nextToken();
+                values.add(parseOperand());
+            }
+
+            expect(")");
+            filter = in(left, values);
+        }
+        else if (isKeyword("BETWEEN")) {
+            nextToken();
+            RecordFilter.Operand lower = parseOperand();
+
+            if (!isKeyword("AND")) {
+                throw syntaxError();
+            }
+
+            nextToken();
+            RecordFilter.Operand upper = parseOperand();
+            filter = new RecordFilter.And(Arrays.<RecordFilter>asList(new RecordFilter.Comparison(left, ">=", lower), new RecordFilter.Comparison(left, "<=", upper)));
+        }
+        else if (isKeyword("LIKE")) {
+            nextToken();
+
+            if (this.tokenType != STRING) {
+                throw syntaxError();
+            }
+
+            filter = new RecordFilter.Like(left, this.token);
+            nextToken();
+        }
+        else {
+            throw syntaxError();
+        }
+
+        return negate ? new RecordFilter.Not(filter) : filter;
+    }
+
+    /**
+     * Creates a IN condition : a set lookup if all values are literals, or equality tests otherwise.
+     * @param value Value to look for.
+     * @param values Values of the set.
+     * @return Condition.
+     */
+    private static RecordFilter in(RecordFilter.Operand value, List<RecordFilter.Operand> values) {
+        for (RecordFilter.Operand operand : values) {
+            if (!operand.isLiteral()) {
+                List<RecordFilter> equalities = new ArrayList<>();
+
+                for (RecordFilter.Operand other : values) {
+                    equalities.add(new RecordFilter.Comparison(value, "=", other));
+                }
+
+                return new RecordFilter.Or(equalities);
+            }
+        }
+
+        return new RecordFilter.In(value, values);
+    }
+
+    /**
+     * Parse a column name or a literal.
+     * @return Operand.
+     * @throws SQLInvalidStatementException if the current token is not an operand.
+     */
+    private RecordFilter.Operand parseOperand() throws SQLInvalidStatementException {
+        RecordFilter.Operand operand;
+
+        switch(this.tokenType) {
+            case IDENTIFIER:
+                if (KEYWORDS.contains(this.token.toUpperCase())) {
+                    throw syntaxError();
+                }
+
+                operand = new RecordFilter.Operand(this.token);
+                break;
+
+            case STRING:
+                operand = new RecordFilter.Operand((Object) this.token);
+                break;
+
+            case NUMBER:
+                operand = new RecordFilter.Operand(convertToNearestParameterType(this.token));
+                break;
+
+            default:
+                throw syntaxError();
+        }
+
+        nextToken();
+        return operand;
+    }
+
+    /**
+     * Checks that the current token is the given symbol, and moves to the next token.
+     * @param symbol Expected symbol.
+     * @throws SQLInvalidStatementException if the current token is not the expected one.
+     */
+    private void expect(String symbol) throws SQLInvalidStatementException {
+        if (this.tokenType != SYMBOL || !symbol.equals(this.token)) {
+            throw syntaxError();
+        }
+
+        nextToken();
+    }
+
+    /**
+     * Checks if the current token is the given keyword.
+     * @param keyword Keyword in upper case.
+     * @return true if the current token is this keyword.
+     */
+    private boolean isKeyword(String keyword) {
+        return this.tokenType == IDENTIFIER && keyword.equalsIgnoreCase(this.token);
+    }
+
+    /**
+     * Reads the next token of the condition, and stores it in {@link #token} and {@link #tokenType}.
+     * At the end of the condition, {@link #token} is null.
+     * @throws SQLInvalidStatementException if a string literal is not terminated or an unexpected character is found.
+     */
+    private void nextToken() throws SQLInvalidStatementException {
+        String text = this.condition;
+        int length = text.length();
+
+        while(this.position < length && Character.isWhitespace(text.charAt(this.position))) {
+            this.position ++;
+        }
+
+        this.tokenStart = this.position;
+
+        if (this.position >= length) {
+            this.token = null;
+            this.tokenType = END;
+            return;
+        }
+
+        char c = text.charAt(this.position);
+
+        // String literal : '...' with '' for a quote.
+        if (c == '\'') {
+            StringBuilder literal = new StringBuilder();
+            int i = this.position + 1;
+
+            while(true) {
+                if (i >= length) {
+                    this.token = text.substring(this.tokenStart);
+                    throw syntaxError();
+                }
+
+                char q = text.charAt(i++);
+
+                if (q == '\'') {
+                    if (i < length && text.charAt(i) == '\'') {
+                        i++;
+                    }
+                    else {
+                        break;
+                    }
+                }
+
+                literal.append(q);
+            }
+
+            this.position = i;
+            this.token = literal.toString();
+            this.tokenType = STRING;
+            return;
+        }
+
+        // Numbers, with a sign only where an operand is expected.
+        boolean signed = (c == '-' || c == '+') && this.tokenType != IDENTIFIER && this.tokenType != NUMBER && this.tokenType != STRING
+                && !(this.tokenType == SYMBOL && ")".equals(this.token));
+
+        if (Character.isDigit(c) || c == '.' || (signed && this.position + 1 < length && (Character.isDigit(text.charAt(this.position + 1)) || text.charAt(this.position + 1) == '.'))) {
+            int i = this.position + 1;
+
+            while(i < length) {
+                char d = text.charAt(i);
+
+                if (Character.isDigit(d) || d == '.') {
+                    i++;
+                }
+                else if ((d == 'e' || d == 'E') && i + 1 < length) {
+                    i++;
+
+                    if (text.charAt(i) == '-' || text.charAt(i) == '+') {
+                        i++;
+                    }
+                }
+                else {
+                    break;
+                }
+            }
+
+            this.token = text.substring(this.position, i);
+            this.tokenType = NUMBER;
+            this.position = i;
+            return;
+        }
+
+        // Identifiers, possibly between double quotes.
+        if (c == '"') {
+            int end = text.indexOf('"', this.position + 1);
+
+            if (end < 0) {
+                this.token = text.substring(this.tokenStart);
+                throw syntaxError();
+            }
+
+            this.token = text.substring(this.position + 1, end);
+            this.tokenType = IDENTIFIER;
+            this.position = end + 1;
+            return;
         }
 
-        // Detect and promote litterals in parameters to their best types.
-        Object comparand1 = convertToNearestParameterType(parts[0]);
-        Object comparand2 = convertToNearestParameterType(parts[2]);
-        String operand = parts[1];
+        if (Character.isLetter(c) || c == '_') {
+            int i = this.position + 1;
+
+            while(i < length && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '_')) {
+                i++;
+            }
 
-        ConditionalClauseResolver resolver = new ConditionalClauseResolver(comparand1, comparand2, operand);
-        return resolver;
+            this.token = text.substring(this.position, i);
+            this.tokenType = IDENTIFIER;
+            this.position = i;
+            return;
+        }
+
+        // Symbols : two characters operators first.
+        if (this.position + 1 < length) {
+            String two = text.substring(this.position, this.position + 2);
+
+            if (two.equals("<>") || two.equals("!=") || two.equals("<=") || two.equals(">=")) {
+                this.token = two;
+                this.tokenType = SYMBOL;
+                this.position += 2;
+                return;
+            }
+        }
+
+        if ("=<>(),".indexOf(c) >= 0) {
+            this.token = String.valueOf(c);
+            this.tokenType = SYMBOL;
+            this.position ++;
+            return;
+        }
+
+        this.token = String.valueOf(c);
+        throw syntaxError();
+    }
+
+    /**
+     * Builds the exception for an unexpected token.
+     * @return Exception to throw.
+     */
+    private SQLInvalidStatementException syntaxError() {
+        String found = (this.token != null) ? this.token : "<end>";
+        String message = format(Level.WARNING, "excp.where_syntax_error", this.condition, this.rs.getSQL(), found, this.tokenStart + 1);
+        return new SQLInvalidStatementException(message, this.rs.getSQL(), this.rs.getFile());
     }
 
     /**
-     * Promote a value to the best parameter available : Integer, then Double, then String.
+     * Promote a value to the best parameter available : Long, then Double.
      * TODO Convert to Date, and admit null values.
      * @param value Value.
-     * @return Converted value or value kept as String if no convertion applies.
+     * @return Converted value.
+     * @throws SQLInvalidStatementException if the value is not a number.
      */
-    private Object convertToNearestParameterType(String value) {
+    private Object convertToNearestParameterType(String value) throws SQLInvalidStatementException {
         try {
-            return Integer.parseInt(value);
+            return Long.parseLong(value.startsWith("+") ? value.substring(1) : value);
         }
         catch(NumberFormatException e) {
             try {
                 return Double.parseDouble(value);
             }
             catch(NumberFormatException ex) {
-                return value;
+                throw syntaxError();
             }
         }
     }
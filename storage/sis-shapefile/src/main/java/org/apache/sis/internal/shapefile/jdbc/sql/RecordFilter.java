@@ -0,0 +1,690 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.shapefile.jdbc.sql;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.sis.internal.shapefile.jdbc.DBase3FieldDescriptor;
+import org.apache.sis.internal.shapefile.jdbc.RecordCursor;
+import org.apache.sis.internal.shapefile.jdbc.connection.DBFConnection;
+import org.apache.sis.internal.shapefile.jdbc.resultset.SQLNoSuchFieldException;
+
+
+/**
+ * A WHERE clause compiled by {@link CrudeSQLParser} into a tree of conditions evaluated directly on a {@link RecordCursor}.
+ * Column names are resolved to column indexes and the comparison kind (integer, floating point or text) is chosen
+ * only once, by {@link #resolve(DBFConnection, String)}, before the first record is read. Then each condition reads
+ * only the fields it needs, and {@code AND}/{@code OR} stop as soon as their result is known: a record is rejected
+ * before the fields not involved in the rejecting condition, and the other columns of the row, are decoded.
+ *
+ * <p>Conditions follow the SQL three-valued logic: a comparison involving a blank numeric field (a SQL NULL) is
+ * neither true nor false, and stays unknown when negated. Only the records for which the condition is true are accepted.</p>
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public abstract class RecordFilter {
+    /** Result of a condition which is verified. */
+    static final int TRUE = 1;
+
+    /** Result of a condition which is not verified. */
+    static final int FALSE = 0;
+
+    /** Result of a condition involving a null value. */
+    static final int UNKNOWN = -1;
+
+    /**
+     * For subclasses constructors.
+     */
+    RecordFilter() {
+    }
+
+    /**
+     * Resolves the column names to column indexes, and chooses how to compare the values.
+     * This method shall be invoked once before {@link #accept(RecordCursor)}.
+     * @param cnt Connection to the database which will be filtered.
+     * @param sql For information, the SQL statement that is attempted.
+     * @throws SQLNoSuchFieldException if a column doesn't exist.
+     */
+    public abstract void resolve(DBFConnection cnt, String sql) throws SQLNoSuchFieldException;
+
+    /**
+     * Evaluates this condition on the given record.
+     * @param record Record to test.
+     * @return {@link #TRUE}, {@link #FALSE} or {@link #UNKNOWN}.
+     * @throws UnparsableValueException if a numeric field doesn't contain a number.
+     */
+    abstract int evaluate(RecordCursor record) throws UnparsableValueException;
+
+    /**
+     * Checks if the given record matches this condition.
+     * @param record Record to test.
+     * @return true if the condition is verified by this record.
+     * @throws UnparsableValueException if a numeric field doesn't contain a number.
+     */
+    public final boolean accept(RecordCursor record) throws UnparsableValueException {
+        return evaluate(record) == TRUE;
+    }
+
+    /**
+     * Thrown when a field that shall be numeric cannot be parsed while evaluating a condition.
+     */
+    public static final class UnparsableValueException extends IllegalArgumentException {
+        /** For cross-version compatibility. */
+        private static final long serialVersionUID = -5243471285601764528L;
+
+        /** Name of the column which cannot be parsed. */
+        public final String column;
+
+        /** The value that cannot be parsed. */
+        public final String value;
+
+        /**
+         * Creates a new exception.
+         * @param column Name of the column which cannot be parsed.
+         * @param value The value that cannot be parsed.
+         * @param cause The parsing exception.
+         */
+        UnparsableValueException(String column, String value, NumberFormatException cause) {
+            super(value, cause);
+            this.column = column;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Values of a column, or a literal, compared by the conditions.
+     */
+    static final class Operand {
+        /** Values compared as {@code long} integers. */
+        static final int INTEGER = 0;
+
+        /** Values compared as {@code double} numbers. */
+        static final int REAL = 1;
+
+        /** Values compared as strings. */
+        static final int TEXT = 2;
+
+        /** Column name, or null if this operand is a literal. */
+        private final String column;
+
+        /** The literal value as a {@link Long}, {@link Double} or {@link String}, or null if this operand is a column. */
+        final Object literal;
+
+        /** Column index, first column is 1. Set by {@link #resolve(DBFConnection, String)}. */
+        private int index;
+
+        /** {@link #INTEGER}, {@link #REAL} or {@link #TEXT}. Set by {@link #resolve(DBFConnection, String)} for columns. */
+        int kind;
+
+        /** Charset of the database, for encoding the literals compared to the raw bytes. */
+        Charset charset;
+
+        /**
+         * Creates an operand for a column.
+         * @param column Column name.
+         */
+        Operand(String column) {
+            this.column = column;
+            this.literal = null;
+        }
+
+        /**
+         * Creates an operand for a literal.
+         * @param literal The literal value as a {@link Long}, {@link Double} or {@link String}.
+         */
+        Operand(Object literal) {
+            this.column = null;
+            this.literal = literal;
+            this.kind = (literal instanceof Long) ? INTEGER : (literal instanceof Double) ? REAL : TEXT;
+        }
+
+        /**
+         * Checks if this operand is a literal.
+         * @return true if this operand is a literal.
+         */
+        boolean isLiteral() {
+            return this.column == null;
+        }
+
+        /**
+         * Resolves the column index and the kind of comparison of the column values.
+         * @param cnt Connection to the database.
+         * @param sql For information, the SQL statement that is attempted.
+         * @throws SQLNoSuchFieldException if the column doesn't exist.
+         */
+        void resolve(DBFConnection cnt, String sql) throws SQLNoSuchFieldException {
+            this.charset = cnt.getCharset();
+
+            if (this.column == null) {
+                return;
+            }
+
+            this.index = cnt.findColumn(this.column, sql);
+            DBase3FieldDescriptor field = cnt.getFieldsDescriptors().get(this.index - 1);
+
+            switch(field.getType()) {
+                case AutoIncrement:
+                case Integer:
+                    this.kind = INTEGER;
+                    break;
+
+                case Number:
+                    this.kind = (field.getDecimalCount() == 0 && field.getLength() <= 18) ? INTEGER : REAL;
+                    break;
+
+                case FloatingPoint:
+                case Double:
+                case Currency:
+                    this.kind = REAL;
+                    break;
+
+                default:
+                    this.kind = TEXT;
+                    break;
+            }
+        }
+
+        /**
+         * Checks if the value of this operand is null in the given record.
+         * Only blank numeric fields are null : blank character fields are empty strings.
+         */
+        boolean isNull(RecordCursor record) {
+            return this.column != null && this.kind != TEXT && record.isNull(this.index);
+        }
+
+        /**
+         * Returns the value of this operand as a {@code long}.
+         */
+        long longValue(RecordCursor record) {
+            if (this.column == null) {
+                return ((Number) this.literal).longValue();
+            }
+
+            try {
+                return record.getLong(this.index);
+            }
+            catch(NumberFormatException e) {
+                throw new UnparsableValueException(this.column, record.getText(this.index), e);
+            }
+        }
+
+        /**
+         * Returns the value of this operand as a {@code double}.
+         */
+        double doubleValue(RecordCursor record) {
+            if (this.column == null) {
+                return ((Number) this.literal).doubleValue();
+            }
+
+            try {
+                return record.getDouble(this.index);
+            }
+            catch(NumberFormatException e) {
+                throw new UnparsableValueException(this.column, record.getText(this.index), e);
+            }
+        }
+
+        /**
+         * Returns the value of this operand as a String, without trailing spaces for the columns.
+         * Numeric columns are right aligned in the file : their leading spaces are removed too.
+         */
+        String text(RecordCursor record) {
+            if (this.column == null) {
+                return this.literal.toString();
+            }
+
+            return (this.kind == TEXT) ? record.getString(this.index) : record.getText(this.index);
+        }
+
+        /**
+         * Compares the raw bytes of this column with the given bytes.
+         */
+        boolean equalsBytes(RecordCursor record, byte[] value) {
+            return record.equalsBytes(this.index, value);
+        }
+
+        /**
+         * Returns the literal text encoded in the database charset.
+         */
+        byte[] bytes() {
+            String text = this.literal.toString();
+            return (this.charset != null) ? text.getBytes(this.charset) : text.getBytes();
+        }
+    }
+
+    /**
+     * Condition verified if all its children are verified.
+     */
+    static final class And extends RecordFilter {
+        /** The conditions. */
+        private final RecordFilter[] children;
+
+        /**
+         * Creates a conjunction.
+         * @param children The conditions.
+         */
+        And(List<RecordFilter> children) {
+            this.children = children.toArray(new RecordFilter[children.size()]);
+        }
+
+        /** @see RecordFilter#resolve(DBFConnection, String) */
+        @Override
+        public void resolve(DBFConnection cnt, String sql) throws SQLNoSuchFieldException {
+            for (RecordFilter child : this.children) {
+                child.resolve(cnt, sql);
+            }
+        }
+
+        /** @see RecordFilter#evaluate(RecordCursor) */
+        @Override
+        int evaluate(RecordCursor record) {
+            int result = TRUE;
+
+            for (RecordFilter child : this.children) {
+                int r = child.evaluate(record);
+
+                if (r == FALSE) {
+                    return FALSE; // Early rejection : the next conditions are not evaluated.
+                }
+
+                if (r == UNKNOWN) {
+                    result = UNKNOWN;
+                }
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Condition verified if at least one of its children is verified.
+     */
+    static final class Or extends RecordFilter {
+        /** The conditions. */
+        private final RecordFilter[] children;
+
+        /**
+         * Creates a disjunction.
+         * @param children The conditions.
+         */
+        Or(List<RecordFilter> children) {
+            this.children = children.toArray(new RecordFilter[children.size()]);
+        }
+
+        /** @see RecordFilter#resolve(DBFConnection, String) */
+        @Override
+        public void resolve(DBFConnection cnt, String sql) throws SQLNoSuchFieldException {
+            for (RecordFilter child : this.children) {
+                child.resolve(cnt, sql);
+            }
+        }
+
+        /** @see RecordFilter#evaluate(RecordCursor) */
+        @Override
+        int evaluate(RecordCursor record) {
+            int result = FALSE;
+
+            for (RecordFilter child : this.children) {
+                int r = child.evaluate(record);
+
+                if (r == TRUE) {
+                    return TRUE;
+                }
+
+                if (r == UNKNOWN) {
+                    result = UNKNOWN;
+                }
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Negation of a condition.
+     */
+    static final class Not extends RecordFilter {
+        /** The condition to negate. */
+        private final RecordFilter child;
+
+        /**
+         * Creates a negation.
+         * @param child The condition to negate.
+         */
+        Not(RecordFilter child) {
+            this.child = child;
+        }
+
+        /** @see RecordFilter#resolve(DBFConnection, String) */
+        @Override
+        public void resolve(DBFConnection cnt, String sql) throws SQLNoSuchFieldException {
+            this.child.resolve(cnt, sql);
+        }
+
+        /** @see RecordFilter#evaluate(RecordCursor) */
+        @Override
+        int evaluate(RecordCursor record) {
+            int r = this.child.evaluate(record);
+            return (r == UNKNOWN) ? UNKNOWN : (r == TRUE) ? FALSE : TRUE;
+        }
+    }
+
+    /**
+     * Comparison of two operands : {@code =}, {@code <>}, {@code <}, {@code <=}, {@code >} or {@code >=}.
+     */
+    static final class Comparison extends RecordFilter {
+        /** The operator, as written in the SQL statement (with {@code !=} replaced by {@code <>}). */
+        private final String operator;
+
+        /** The operands. */
+        private final Operand left, right;
+
+        /**
+         * The kind of comparison, chosen by {@link #resolve(DBFConnection, String)}.
+         * One of {@link Operand#INTEGER}, {@link Operand#REAL} or {@link Operand#TEXT}.
+         */
+        private int kind;
+
+        /** If the comparison is an equality or inequality between a text column and a literal, the literal bytes. */
+        private byte[] bytes;
+
+        /** The column compared to {@link #bytes}. */
+        private Operand column;
+
+        /**
+         * Creates a comparison.
+         * @param left First operand.
+         * @param operator One of {@code =}, {@code <>}, {@code <}, {@code <=}, {@code >} or {@code >=}.
+         * @param right Second operand.
+         */
+        Comparison(Operand left, String operator, Operand right) {
+            this.left = left;
+            this.operator = operator;
+            this.right = right;
+        }
+
+        /** @see RecordFilter#resolve(DBFConnection, String) */
+        @Override
+        public void resolve(DBFConnection cnt, String sql) throws SQLNoSuchFieldException {
+            this.left.resolve(cnt, sql);
+            this.right.resolve(cnt, sql);
+
+            if (this.left.kind == Operand.TEXT || this.right.kind == Operand.TEXT) {
+                // Values of different kinds are compared as strings.
+                this.kind = Operand.TEXT;
+
+                // Equality on text columns can be tested on the raw bytes, without decoding the field.
+                if (this.operator.equals("=") || this.operator.equals("<>")) {
+                    if (!this.left.isLiteral() && this.left.kind == Operand.TEXT && this.right.isLiteral()) {
+                        this.column = this.left;
+                        this.bytes = this.right.bytes();
+                    }
+                    else if (!this.right.isLiteral() && this.right.kind == Operand.TEXT && this.left.isLiteral()) {
+                        this.column = this.right;
+                        this.bytes = this.left.bytes();
+                    }
+                }
+            }
+            else {
+                this.kind = (this.left.kind == Operand.INTEGER && this.right.kind == Operand.INTEGER) ? Operand.INTEGER : Operand.REAL;
+            }
+        }
+
+        /** @see RecordFilter#evaluate(RecordCursor) */
+        @Override
+        int evaluate(RecordCursor record) {
+            if (this.bytes != null) {
+                boolean equal = this.column.equalsBytes(record, this.bytes);
+                return (equal == this.operator.equals("=")) ? TRUE : FALSE;
+            }
+
+            if (this.left.isNull(record) || this.right.isNull(record)) {
+                return UNKNOWN;
+            }
+
+            int c;
+
+            switch(this.kind) {
+                case Operand.INTEGER:
+                    c = Long.compare(this.left.longValue(record), this.right.longValue(record));
+                    break;
+
+                case Operand.REAL:
+                    c = Double.compare(this.left.doubleValue(record), this.right.doubleValue(record));
+                    break;
+
+                default:
+                    c = this.left.text(record).compareTo(this.right.text(record));
+                    break;
+            }
+
+            boolean verified;
+
+            switch(this.operator) {
+                case "=":  verified = (c == 0); break;
+                case "<>": verified = (c != 0); break;
+                case "<":  verified = (c <  0); break;
+                case "<=": verified = (c <= 0); break;
+                case ">":  verified = (c >  0); break;
+                case ">=": verified = (c >= 0); break;
+                default: throw new AssertionError(this.operator);
+            }
+
+            return verified ? TRUE : FALSE;
+        }
+    }
+
+    /**
+     * Test if the value of an operand belongs to a set of literals.
+     */
+    static final class In extends RecordFilter {
+        /** The value to look for. */
+        private final Operand value;
+
+        /** The literals. */
+        private final Operand[] literals;
+
+        /** The literals as sorted {@code long} values, if the comparison is on integers. */
+        private long[] integers;
+
+        /** The literals as sorted {@code double} values, if the comparison is on floating point numbers. */
+        private double[] reals;
+
+        /** The literals as strings, if the comparison is on text. */
+        private Set<String> texts;
+
+        /**
+         * Creates a IN condition.
+         * @param value The value to look for.
+         * @param literals The literals.
+         */
+        In(Operand value, List<Operand> literals) {
+            this.value = value;
+            this.literals = literals.toArray(new Operand[literals.size()]);
+        }
+
+        /** @see RecordFilter#resolve(DBFConnection, String) */
+        @Override
+        public void resolve(DBFConnection cnt, String sql) throws SQLNoSuchFieldException {
+            this.value.resolve(cnt, sql);
+            int kind = this.value.kind;
+
+            for (Operand literal : this.literals) {
+                if (literal.kind == Operand.TEXT) {
+                    kind = Operand.TEXT;
+                }
+                else if (literal.kind == Operand.REAL && kind == Operand.INTEGER) {
+                    kind = Operand.REAL;
+                }
+            }
+
+            this.integers = null;
+            this.reals = null;
+            this.texts = null;
+
+            switch(kind) {
+                case Operand.INTEGER:
+                    this.integers = new long[this.literals.length];
+
+                    for (int i = 0; i < this.literals.length; i++) {
+                        this.integers[i] = ((Number) this.literals[i].literal).longValue();
+                    }
+
+                    Arrays.sort(this.integers);
+                    break;
+
+                case Operand.REAL:
+                    this.reals = new double[this.literals.length];
+
+                    for (int i = 0; i < this.literals.length; i++) {
+                        this.reals[i] = ((Number) this.literals[i].literal).doubleValue();
+                    }
+
+                    Arrays.sort(this.reals);
+                    break;
+
+                default:
+                    this.texts = new HashSet<>();
+
+                    for (Operand literal : this.literals) {
+                        this.texts.add(literal.literal.toString());
+                    }
+
+                    break;
+            }
+        }
+
+        /** @see RecordFilter#evaluate(RecordCursor) */
+        @Override
+        int evaluate(RecordCursor record) {
+            if (this.value.isNull(record)) {
+                return UNKNOWN;
+            }
+
+            boolean found;
+
+            if (this.integers != null) {
+                found = Arrays.binarySearch(this.integers, this.value.longValue(record)) >= 0;
+            }
+            else if (this.reals != null) {
+                found = Arrays.binarySearch(this.reals, this.value.doubleValue(record)) >= 0;
+            }
+            else {
+                found = this.texts.contains(this.value.text(record));
+            }
+
+            return found ? TRUE : FALSE;
+        }
+    }
+
+    /**
+     * Test if the value of an operand matches a pattern, where {@code %} matches any sequence of characters
+     * and {@code _} matches any single character.
+     */
+    static final class Like extends RecordFilter {
+        /** The value to test. */
+        private final Operand value;
+
+        /** The pattern without its wildcards, if it is a simple prefix, suffix or infix pattern. */
+        private final String fixed;
+
+        /** 0 if {@link #fixed} is the whole value, 1 for a prefix, 2 for a suffix, 3 for a infix, or -1 for a regular expression. */
+        private final int mode;
+
+        /** The pattern as a regular expression, if {@link #mode} is -1. */
+        private final Pattern regex;
+
+        /**
+         * Creates a LIKE condition.
+         * @param value The value to test.
+         * @param pattern The SQL pattern.
+         */
+        Like(Operand value, String pattern) {
+            this.value = value;
+
+            boolean leading = pattern.startsWith("%");
+            boolean trailing = pattern.length() > (leading ? 1 : 0) && pattern.endsWith("%");
+            String inner = pattern.substring(leading ? 1 : 0, pattern.length() - (trailing ? 1 : 0));
+
+            if (inner.indexOf('%') < 0 && inner.indexOf('_') < 0) {
+                this.fixed = inner;
+                this.mode = (leading ? 2 : 0) | (trailing ? 1 : 0);
+                this.regex = null;
+            }
+            else {
+                StringBuilder buffer = new StringBuilder();
+                int start = 0;
+
+                for (int i = 0; i < pattern.length(); i++) {
+                    char c = pattern.charAt(i);
+
+                    if (c == '%' || c == '_') {
+                        if (i > start) {
+                            buffer.append(Pattern.quote(pattern.substring(start, i)));
+                        }
+
+                        buffer.append(c == '%' ? ".*" : ".");
+                        start = i + 1;
+                    }
+                }
+
+                if (start < pattern.length()) {
+                    buffer.append(Pattern.quote(pattern.substring(start)));
+                }
+
+                this.fixed = null;
+                this.mode = -1;
+                this.regex = Pattern.compile(buffer.toString(), Pattern.DOTALL);
+            }
+        }
+
+        /** @see RecordFilter#resolve(DBFConnection, String) */
+        @Override
+        public void resolve(DBFConnection cnt, String sql) throws SQLNoSuchFieldException {
+            this.value.resolve(cnt, sql);
+        }
+
+        /** @see RecordFilter#evaluate(RecordCursor) */
+        @Override
+        int evaluate(RecordCursor record) {
+            if (this.value.isNull(record)) {
+                return UNKNOWN;
+            }
+
+            String text = this.value.text(record);
+            boolean matches;
+
+            switch(this.mode) {
+                case 0:  matches = text.equals(this.fixed); break;
+                case 1:  matches = text.startsWith(this.fixed); break;
+                case 2:  matches = text.endsWith(this.fixed); break;
+                case 3:  matches = text.contains(this.fixed); break;
+                default: matches = this.regex.matcher(text).matches(); break;
+            }
+
+            return matches ? TRUE : FALSE;
+        }
+    }
+}
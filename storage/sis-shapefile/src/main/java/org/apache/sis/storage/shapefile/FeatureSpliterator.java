@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.shapefile;
+
+import java.nio.ByteBuffer;
+import java.sql.Date;
+import java.text.DecimalFormat;
+import java.util.List;
+
+import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.DefaultFeatureType;
+import org.apache.sis.internal.shapefile.ShapefileByteReader;
+import org.apache.sis.internal.shapefile.jdbc.DBase3FieldDescriptor;
+import org.apache.sis.internal.shapefile.jdbc.MappedByteReader;
+import org.apache.sis.internal.shapefile.jdbc.RecordCursor;
+import org.apache.sis.internal.system.CommonExecutor;
+import org.apache.sis.util.collection.BackingStoreException;
+
+// Branch-dependent imports
+import org.apache.sis.internal.jdk8.Consumer;
+import org.apache.sis.internal.jdk8.Spliterator;
+
+
+/**
+ * Iterator over the features of a shapefile, which can be split in ranges of records decoded concurrently.
+ * The position of each record in the shapefile is known in advance (from the shapefile index, or from a scan
+ * of the records headers), and the DBase rows have a fixed length. Consequently a range of records can be read
+ * without reading the records before it. Each iterator reads its range with its own duplicate of the shapefile
+ * buffer and its own DBase cursor, so the iterators created by {@link #trySplit()} can be used in other threads.
+ *
+ * <p>The readers given to the constructor are shared by all iterators. They are used only for their buffers,
+ * descriptors and decoding methods, never for their current position.</p>
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class FeatureSpliterator implements Spliterator<AbstractFeature> {
+    /** Minimal number of records in the ranges given to other threads. Small because a single polygon record may hold thousands of points. */
+    private static final int MIN_SPLIT = 8;
+
+    /** Reader of the shapefile, used for decoding the geometries. */
+    private final ShapefileByteReader shapefileReader;
+
+    /** Reader of the DBase file, used for creating the cursors. */
+    private final MappedByteReader databaseReader;
+
+    /** Type of the features to create. */
+    private final DefaultFeatureType featuresType;
+
+    /** Descriptors of the DBase fields. */
+    private final List<DBase3FieldDescriptor> fields;
+
+    /** Position of each record in the shapefile, in bytes. */
+    private final int[] positions;
+
+    /** Bounding box (xmin, ymin, xmax, ymax) that features envelopes must intersect, null if no spatial filter. */
+    private final double[] bbox;
+
+    /** Number of records given to the iterators created by {@link #trySplit()}. */
+    private final int batchSize;
+
+    /** Duplicate of the shapefile buffer, for the use of this iterator only. */
+    private final ByteBuffer buffer;
+
+    /** Cursor over the DBase rows, for the use of this iterator only. */
+    private final RecordCursor record;
+
+    /** Index (from 0) of the next record to read. */
+    private int lower;
+
+    /** Index (from 0) after the last record to read. */
+    private final int upper;
+
+    /** Format of the floating point values, without thousand separator. Created when first needed. */
+    private DecimalFormat decimalFormat;
+
+    /**
+     * Creates an iterator over all the records of a shapefile.
+     * @param shapefileReader Reader of the shapefile.
+     * @param databaseReader Reader of the DBase file associated to the shapefile.
+     * @param bbox Bounding box as (xmin, ymin, xmax, ymax) that features envelopes must intersect, or null.
+     */
+    FeatureSpliterator(ShapefileByteReader shapefileReader, MappedByteReader databaseReader, double[] bbox) {
+        this.shapefileReader = shapefileReader;
+        this.databaseReader = databaseReader;
+        this.featuresType = shapefileReader.getFeaturesType();
+        this.fields = shapefileReader.getFieldsDescriptors();
+        this.positions = shapefileReader.getRecordPositions();
+        this.bbox = bbox;
+        this.buffer = shapefileReader.getByteBuffer().duplicate();
+        this.record = databaseReader.createCursor();
+        this.lower = 0;
+        this.upper = Math.min(this.positions.length, databaseReader.getRowCount());
+
+        // A few batches per thread, for balancing the work when some ranges are slower to decode than others.
+        this.batchSize = Math.max(MIN_SPLIT, this.upper / (4 * CommonExecutor.parallelism()));
+    }
+
+    /**
+     * Creates an iterator over a range of the records read by the given iterator.
+     * @param parent Iterator from which to take the readers.
+     * @param lower Index (from 0) of the first record to read.
+     * @param upper Index (from 0) after the last record to read.
+     */
+    private FeatureSpliterator(FeatureSpliterator parent, int lower, int upper) {
+        this.shapefileReader = parent.shapefileReader;
+        this.databaseReader = parent.databaseReader;
+        this.featuresType = parent.featuresType;
+        this.fields = parent.fields;
+        this.positions = parent.positions;
+        this.bbox = parent.bbox;
+        this.batchSize = parent.batchSize;
+        this.buffer = this.shapefileReader.getByteBuffer().duplicate();
+        this.record = this.databaseReader.createCursor();
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    /**
+     * Reads the next feature, if any.
+     * @param action Action to execute on the feature.
+     * @return true if a feature has been read.
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super AbstractFeature> action) {
+        AbstractFeature feature = next();
+
+        if (feature == null) {
+            return false;
+        }
+
+        action.accept(feature);
+        return true;
+    }
+
+    /**
+     * Reads all the remaining features.
+     * @param action Action to execute on each feature.
+     */
+    @Override
+    public void forEachRemaining(Consumer<? super AbstractFeature> action) {
+        AbstractFeature feature;
+
+        while((feature = next()) != null) {
+            action.accept(feature);
+        }
+    }
+
+    /**
+     * Gives a range of the remaining records to a new iterator, to be read in another thread.
+     * @return Iterator over the first remaining records, or null if too few records remain.
+     */
+    @Override
+    public Spliterator<AbstractFeature> trySplit() {
+        int remaining = this.upper - this.lower;
+
+        if (remaining < 2 * MIN_SPLIT) {
+            return null;
+        }
+
+        int end = this.lower + Math.min(this.batchSize, remaining / 2);
+        FeatureSpliterator prefix = new FeatureSpliterator(this, this.lower, end);
+        this.lower = end;
+        return prefix;
+    }
+
+    /**
+     * Returns the number of remaining records. The number of features may be less
+     * if some records have been deleted or are outside the bounding box.
+     * @return Number of remaining records.
+     */
+    @Override
+    public long estimateSize() {
+        return this.upper - this.lower;
+    }
+
+    /**
+     * Returns the characteristics of this iterator.
+     * @return Features are ordered and not null.
+     */
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    /**
+     * Reads the next feature which is not deleted and which is inside the bounding box.
+     * @return Feature, or null if there is no more feature in the range of this iterator.
+     */
+    private AbstractFeature next() {
+        try {
+            while(this.lower < this.upper) {
+                int index = this.lower++;
+                this.record.moveToRecord(index + 1);
+
+                if (this.record.isDeleted()) {
+                    continue;
+                }
+
+                this.buffer.position(this.positions[index]);
+
+                // Check the record envelope before decoding anything.
+                if (this.bbox != null && this.shapefileReader.recordIntersects(this.buffer, this.bbox) == false) {
+                    continue;
+                }
+
+                AbstractFeature feature = this.featuresType.newInstance();
+                this.shapefileReader.completeFeature(feature, this.buffer);
+
+                for(int column = 1; column <= this.fields.size(); column ++) {
+                    DBase3FieldDescriptor field = this.fields.get(column - 1);
+                    feature.setPropertyValue(field.getName(), toText(field, column));
+                }
+
+                return feature;
+            }
+
+            return null;
+        }
+        catch(InvalidShapefileFormatException | IllegalArgumentException e) {
+            throw new BackingStoreException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the value of a field of the current record, as the text given to the feature.
+     * The values are formatted as the ones read by {@link InputFeatureStream}.
+     * @param field Field descriptor.
+     * @param column Column index, first column is 1.
+     * @return Value, or null if the field is null.
+     * @throws NumberFormatException if a numeric field cannot be parsed.
+     */
+    private String toText(DBase3FieldDescriptor field, int column) throws NumberFormatException {
+        switch(field.getType()) {
+            case Character:
+                return this.record.getString(column);
+
+            case Date: {
+                Date date = this.record.getDate(column);
+                return (date != null) ? date.toString() : null;
+            }
+
+            case AutoIncrement:
+            case Integer:
+                return this.record.isNull(column) ? null : Long.toString(this.record.getLong(column));
+
+            case Number:
+                if (this.record.isNull(column)) {
+                    return null;
+                }
+
+                if (field.getDecimalCount() == 0 && field.getLength() <= 18) {
+                    return Long.toString(this.record.getLong(column));
+                }
+
+                return format(this.record.getDouble(column));
+
+            case Double:
+            case Currency:
+                return this.record.isNull(column) ? null : format(this.record.getDouble(column));
+
+            case FloatingPoint:
+                return this.record.isNull(column) ? null : format((float) this.record.getDouble(column));
+
+            default:
+                return this.record.getString(column);
+        }
+    }
+
+    /**
+     * Formats a floating point value without thousand separator.
+     * @param value Value to format.
+     * @return Formatted value.
+     */
+    private String format(Number value) {
+        if (this.decimalFormat == null) {
+            this.decimalFormat = new DecimalFormat();
+            this.decimalFormat.setGroupingUsed(false);
+        }
+
+        return this.decimalFormat.format(value);
+    }
+}
@@ -30,7 +30,6 @@ import org.apache.sis.feature.DefaultFeatureType;
 import org.apache.sis.internal.shapefile.*;
 import org.apache.sis.internal.shapefile.jdbc.*;
 import org.apache.sis.internal.shapefile.jdbc.connection.DBFConnection;
-import org.apache.sis.internal.shapefile.jdbc.metadata.DBFDatabaseMetaData;
 import org.apache.sis.internal.shapefile.jdbc.resultset.*;
 import org.apache.sis.internal.shapefile.jdbc.sql.SQLIllegalParameterException;
 import org.apache.sis.internal.shapefile.jdbc.sql.SQLInvalidStatementException;
@@ -39,12 +38,13 @@ import org.apache.sis.internal.shapefile.jdbc.statement.DBFStatement;
 import org.apache.sis.storage.DataStoreClosedException;
 import org.apache.sis.util.logging.Logging;
 import org.apache.sis.feature.AbstractFeature;
+import org.opengis.geometry.Envelope;
 
 /**
  * Input Stream of features.
  *
  * @author  Marc Le Bihan
- * @version 0.5
+ * @version 0.8
  * @since   0.5
  * @module
  */
@@ -88,6 +88,12 @@ public class InputFeatureStream extends InputStream {
     /** Shapefile reader. */
     private ShapefileByteReader shapefileReader;
 
+    /** Format of the floating point values, without thousand separator. Created when first needed. */
+    private DecimalFormat decimalFormat;
+
+    /** Bounding box (xmin, ymin, xmax, ymax) that features envelopes must intersect, null if no spatial filter. */
+    private double[] bbox;
+
     /**
      * Create an input stream of features over a connection.
      * @param shpfile Shapefile.
@@ -100,6 +106,28 @@ public class InputFeatureStream extends InputStream {
      * @throws DbaseFileNotFoundException if the database file has not been found.
      */
     public InputFeatureStream(File shpfile, File dbaseFile, File shpfileIndex, String sqlStatement) throws InvalidDbaseFileFormatException, InvalidShapefileFormatException, ShapefileNotFoundException, DbaseFileNotFoundException {
+        this(shpfile, dbaseFile, shpfileIndex, sqlStatement, null);
+    }
+
+    /**
+     * Create an input stream of features over a connection, returning only the features whose envelope intersects a bounding box.
+     * The envelope stored in each shapefile record header is checked before the geometry and the database fields are decoded :
+     * the records outside the bounding box are skipped without being decoded.
+     * @param shpfile Shapefile.
+     * @param dbaseFile Database file.
+     * @param shpfileIndex Shapefile index, null if none provided, will be checked for existence.
+     * @param sqlStatement SQL Statement to run, if null, a SELECT * FROM DBF will occurs.
+     * @param boundingBox Bounding box, in the shapefile coordinates, that the features envelopes must intersect. If null, no spatial filter is applied.
+     * @throws InvalidShapefileFormatException if the shapefile format is invalid.
+     * @throws InvalidDbaseFileFormatException if the Dbase file format is invalid.
+     * @throws ShapefileNotFoundException if the shapefile has not been found.
+     * @throws DbaseFileNotFoundException if the database file has not been found.
+     */
+    public InputFeatureStream(File shpfile, File dbaseFile, File shpfileIndex, String sqlStatement, Envelope boundingBox) throws InvalidDbaseFileFormatException, InvalidShapefileFormatException, ShapefileNotFoundException, DbaseFileNotFoundException {
+        if (boundingBox != null) {
+            this.bbox = new double[] {boundingBox.getMinimum(0), boundingBox.getMinimum(1), boundingBox.getMaximum(0), boundingBox.getMaximum(1)};
+        }
+
         try {
             this.connection = (DBFConnection)new DBFDriver().connect(dbaseFile.getAbsolutePath(), null);
             
@@ -281,79 +309,95 @@ public class InputFeatureStream extends InputStream {
                 return null;
             }
 
-            int previousRecordNumber = this.rs.getRowNum();
-            
-            if (this.rs.next() == false) {
-                this.endOfFile = true;
-                return null;
-            }
-            
-            int currentRecordNumber = this.rs.getRowNum();
-            
-            // On the shapefile, only jump in another place if a direct access is needed.
-            boolean directAccesRequired = currentRecordNumber != (previousRecordNumber + 1);
-            
-            if (directAccesRequired) {
-                try {
+            do {
+                int previousRecordNumber = this.rs.getRowNum();
+                
+                if (this.rs.next() == false) {
+                    this.endOfFile = true;
+                    return null;
+                }
+                
+                int currentRecordNumber = this.rs.getRowNum();
+                
+                // On the shapefile, only jump in another place if a direct access is needed.
+                boolean directAccesRequired = currentRecordNumber != (previousRecordNumber + 1);
+                
+                if (directAccesRequired) {
+                    try {
+                        if (LOGGER.isLoggable(Level.FINER)) {
+                            MessageFormat format = new MessageFormat(this.rsc.getString("log.shapefile_reading_with_direct_access"));
+                            LOGGER.finer(format.format(new Object[] {previousRecordNumber, currentRecordNumber}));
+                        }
+                        
+                        this.shapefileReader.setRowNum(currentRecordNumber);
+                    }
+                    catch(SQLInvalidRecordNumberForDirectAccessException e) {
+                        // This would be an internal API problem, because as soon as we handle a shapefile index, we shall go through its relative shape feature file correctly.
+                        throw new RuntimeException(e.getMessage(), e);
+                    }
+                }
+                else {
                     if (LOGGER.isLoggable(Level.FINER)) {
-                        MessageFormat format = new MessageFormat(this.rsc.getString("log.shapefile_reading_with_direct_access"));
+                        MessageFormat format = new MessageFormat(this.rsc.getString("log.shapefile_reading_with_sequential_access"));
                         LOGGER.finer(format.format(new Object[] {previousRecordNumber, currentRecordNumber}));
                     }
-                    
-                    this.shapefileReader.setRowNum(currentRecordNumber);
-                }
-                catch(SQLInvalidRecordNumberForDirectAccessException e) {
-                    // This would be an internal API problem, because as soon as we handle a shapefile index, we shall go through its relative shape feature file correctly.
-                    throw new RuntimeException(e.getMessage(), e);
                 }
-            }
-            else {
-                if (LOGGER.isLoggable(Level.FINER)) {
-                    MessageFormat format = new MessageFormat(this.rsc.getString("log.shapefile_reading_with_sequential_access"));
-                    LOGGER.finer(format.format(new Object[] {previousRecordNumber, currentRecordNumber}));
+
+                // Check the deletion flag and the record envelope before decoding anything : skip the deleted features
+                // and the ones outside the bounding box.
+                if (this.rs.rowDeleted() == false && (this.bbox == null || this.shapefileReader.recordIntersects(this.bbox))) {
+                    break;
                 }
+
+                this.shapefileReader.skipRecord();
             }
+            while(true);
             
             AbstractFeature feature = this.featuresType.newInstance();
             this.shapefileReader.completeFeature(feature);
-            DBFDatabaseMetaData metadata = (DBFDatabaseMetaData)this.connection.getMetaData();
+            List<DBase3FieldDescriptor> fields = this.shapefileReader.getFieldsDescriptors();
 
-            try(DBFBuiltInMemoryResultSetForColumnsListing rsDatabase = (DBFBuiltInMemoryResultSetForColumnsListing)metadata.getColumns(null, null, null, null)) {
-                while(rsDatabase.next()) {
-                    String fieldName = rsDatabase.getString("COLUMN_NAME");
-                    Object fieldValue = this.rs.getObject(fieldName);
+            for(int column = 1; column <= fields.size(); column ++) {
+                String fieldName = fields.get(column - 1).getName();
+                Object fieldValue;
 
-                    // FIXME To allow features to be filled again, the values are converted to String again : feature should allow any kind of data.
-                    String stringValue;
+                try {
+                    fieldValue = this.rs.getObject(column);
+                }
+                catch(SQLIllegalColumnIndexException e) {
+                    // This an internal trouble, if it occurs : the fields descriptors are the ones of the database.
+                    throw new RuntimeException(e.getMessage(), e);
+                }
 
-                    if (fieldValue == null) {
-                        stringValue = null;
+                // FIXME To allow features to be filled again, the values are converted to String again : feature should allow any kind of data.
+                String stringValue;
+
+                if (fieldValue == null) {
+                    stringValue = null;
+                }
+                else {
+                    if (fieldValue instanceof Integer || fieldValue instanceof Long) {
+                        stringValue = fieldValue.toString(); // No thousand separator.
                     }
                     else {
-                        if (fieldValue instanceof Integer || fieldValue instanceof Long) {
-                            stringValue = MessageFormat.format("{0,number,#0}", fieldValue); // Avoid thousand separator.
-                        }
-                        else {
-                            if (fieldValue instanceof Double || fieldValue instanceof Float) {
-                                // Avoid thousand separator.
-                                DecimalFormat df = new DecimalFormat();
-                                df.setGroupingUsed(false);
-                                stringValue = df.format(fieldValue);
+                        if (fieldValue instanceof Double || fieldValue instanceof Float) {
+                            // Avoid thousand separator.
+                            if (this.decimalFormat == null) {
+                                this.decimalFormat = new DecimalFormat();
+                                this.decimalFormat.setGroupingUsed(false);
                             }
-                            else
-                                stringValue = fieldValue.toString();
+
+                            stringValue = this.decimalFormat.format(fieldValue);
                         }
+                        else
+                            stringValue = fieldValue.toString();
                     }
-
-                    feature.setPropertyValue(fieldName, stringValue);
                 }
 
-                return feature;
-            }
-            catch(SQLNoResultException e) {
-                // This an internal trouble, if it occurs.
-                throw new RuntimeException(e.getMessage(), e);
+                feature.setPropertyValue(fieldName, stringValue);
             }
+
+            return feature;
         }
         catch(SQLNoResultException e) {
             // We are trying to prevent this. If it occurs, we have an internal problem.
@@ -20,15 +20,27 @@ import java.io.File;
 import java.util.List;
 import java.util.Objects;
 
+import org.apache.sis.feature.AbstractFeature;
 import org.apache.sis.feature.DefaultFeatureType;
+import org.apache.sis.internal.shapefile.SQLShapefileNotFoundException;
+import org.apache.sis.internal.shapefile.ShapefileByteReader;
 import org.apache.sis.internal.shapefile.ShapefileDescriptor;
 import org.apache.sis.internal.shapefile.jdbc.DBase3FieldDescriptor;
+import org.apache.sis.internal.shapefile.jdbc.MappedByteReader;
+import org.apache.sis.internal.shapefile.jdbc.SQLDbaseFileNotFoundException;
+import org.apache.sis.internal.shapefile.jdbc.SQLInvalidDbaseFileFormatException;
+import org.apache.sis.util.collection.BackingStoreException;
+import org.opengis.geometry.Envelope;
+
+// Branch-dependent imports
+import org.apache.sis.internal.jdk8.Stream;
+import org.apache.sis.internal.jdk8.StreamSupport;
 
 /**
  * Provides a ShapeFile Reader.
  *
  * @author  Travis L. Pinney
- * @version 0.5
+ * @version 0.8
  *
  * @see <a href="http://www.esri.com/library/whitepapers/pdfs/shapefile.pdf">ESRI Shapefile Specification</a>
  * @see <a href="http://ulisse.elettra.trieste.it/services/doc/dbase/DBFstruct.htm">dBASE III File Structure</a>
@@ -183,13 +195,121 @@ public class ShapeFile {
      * @throws InvalidShapefileFormatException if the shapefile format is invalid.
      */
     public InputFeatureStream find(String sqlStatement) throws InvalidDbaseFileFormatException, ShapefileNotFoundException, DbaseFileNotFoundException, InvalidShapefileFormatException {
-        InputFeatureStream is = new InputFeatureStream(this.shapeFile, this.databaseFile, this.shapeFileIndex, sqlStatement);
+        return find(sqlStatement, null);
+    }
+
+    /**
+     * Find features corresponding to an SQL request SELECT * FROM database, whose envelope intersects a bounding box.
+     * The envelopes stored in the shapefile records headers are checked first :
+     * the geometries and fields of the features outside the bounding box are not decoded.
+     * Records flagged as deleted in the database file are skipped, as {@link #features(Envelope, boolean)} does.
+     * @param sqlStatement SQL Statement to run, if null, will default to SELECT * FROM database.
+     * @param boundingBox Bounding box, in the shapefile coordinates, that the features envelopes must intersect. If null, no spatial filter is applied.
+     * @return Features
+     * @throws DbaseFileNotFoundException if the database file has not been found.
+     * @throws ShapefileNotFoundException if the shapefile has not been found.
+     * @throws InvalidDbaseFileFormatException if the database file format is invalid.
+     * @throws InvalidShapefileFormatException if the shapefile format is invalid.
+     */
+    public InputFeatureStream find(String sqlStatement, Envelope boundingBox) throws InvalidDbaseFileFormatException, ShapefileNotFoundException, DbaseFileNotFoundException, InvalidShapefileFormatException {
+        InputFeatureStream is = new InputFeatureStream(this.shapeFile, this.databaseFile, this.shapeFileIndex, sqlStatement, boundingBox);
         this.featuresType = is.getFeaturesType();
         this.shapefileDescriptor = is.getShapefileDescriptor();
         this.databaseFieldsDescriptors = is.getDatabaseFieldsDescriptors();
         return is;
     }
 
+    /**
+     * Returns a stream over all the features of the shapefile.
+     * @param parallel true for a parallel stream, false for a sequential one.
+     * @return Features.
+     * @throws DbaseFileNotFoundException if the database file has not been found.
+     * @throws ShapefileNotFoundException if the shapefile has not been found.
+     * @throws InvalidDbaseFileFormatException if the database file format is invalid.
+     * @throws InvalidShapefileFormatException if the shapefile format is invalid.
+     * @see #features(Envelope, boolean)
+     */
+    public Stream<AbstractFeature> features(boolean parallel) throws InvalidDbaseFileFormatException, ShapefileNotFoundException, DbaseFileNotFoundException, InvalidShapefileFormatException {
+        return features(null, parallel);
+    }
+
+    /**
+     * Returns a stream over the features of the shapefile whose envelope intersects a bounding box.
+     * Unlike {@link #find(String, Envelope)}, this method doesn't read the records in sequence : the position of each record
+     * is known from the shapefile index (or from a scan of the records headers if there is no index) and the database rows have
+     * a fixed length, so a parallel stream splits the file in ranges of records whose geometries and fields are decoded concurrently.
+     * Deleted records are skipped. The stream shall be closed after use for releasing the files.
+     * @param boundingBox Bounding box, in the shapefile coordinates, that the features envelopes must intersect. If null, no spatial filter is applied.
+     * @param parallel true for a parallel stream, false for a sequential one.
+     * @return Features.
+     * @throws DbaseFileNotFoundException if the database file has not been found.
+     * @throws ShapefileNotFoundException if the shapefile has not been found.
+     * @throws InvalidDbaseFileFormatException if the database file format is invalid.
+     * @throws InvalidShapefileFormatException if the shapefile format is invalid.
+     */
+    public Stream<AbstractFeature> features(Envelope boundingBox, boolean parallel) throws InvalidDbaseFileFormatException, ShapefileNotFoundException, DbaseFileNotFoundException, InvalidShapefileFormatException {
+        double[] bbox = null;
+
+        if (boundingBox != null) {
+            bbox = new double[] {boundingBox.getMinimum(0), boundingBox.getMinimum(1), boundingBox.getMaximum(0), boundingBox.getMaximum(1)};
+        }
+
+        File index = (this.shapeFileIndex != null && this.shapeFileIndex.isFile()) ? this.shapeFileIndex : null;
+        final ShapefileByteReader shapefileReader;
+        final MappedByteReader databaseReader;
+
+        try {
+            shapefileReader = new ShapefileByteReader(this.shapeFile, this.databaseFile, index);
+
+            try {
+                databaseReader = new MappedByteReader(this.databaseFile, null);
+            }
+            catch(SQLInvalidDbaseFileFormatException | SQLDbaseFileNotFoundException e) {
+                close(shapefileReader);
+                throw e;
+            }
+        }
+        catch(SQLInvalidDbaseFileFormatException ex) {
+            // Promote this exception to an DataStoreException compatible exception.
+            throw new InvalidDbaseFileFormatException(ex.getMessage(), ex);
+        }
+        catch(SQLDbaseFileNotFoundException ex) {
+            // Promote this exception to an DataStoreException compatible exception.
+            throw new DbaseFileNotFoundException(ex.getMessage(), ex);
+        }
+        catch(SQLShapefileNotFoundException ex) {
+            // Promote this exception to an DataStoreException compatible exception.
+            throw new ShapefileNotFoundException(ex.getMessage(), ex);
+        }
+
+        this.featuresType = shapefileReader.getFeaturesType();
+        this.shapefileDescriptor = shapefileReader.getShapefileDescriptor();
+        this.databaseFieldsDescriptors = shapefileReader.getFieldsDescriptors();
+
+        Stream<AbstractFeature> features = StreamSupport.stream(new FeatureSpliterator(shapefileReader, databaseReader, bbox), parallel);
+
+        return features.onClose(new Runnable() {
+            @Override
+            public void run() {
+                close(shapefileReader);
+                close(databaseReader);
+            }
+        });
+    }
+
+    /**
+     * Close a reader used by a stream of features.
+     * @param reader Reader to close.
+     */
+    private static void close(AutoCloseable reader) {
+        try {
+            reader.close();
+        }
+        catch(Exception e) {
+            throw new BackingStoreException(e.getMessage(), e);
+        }
+    }
+
     /**
      * Load shapefile descriptors : features types, shapefileDescriptor, database field descriptors :
      * this is also automatically done when executing a query on it, by findAll.
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.shapefile.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+
+/**
+ * Tests {@link RecordCursor}, comparing its values with the ones decoded by
+ * {@link MappedByteReader#readNextRowAsObjects()}.
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public class RecordCursorTest extends AbstractTestBaseForInternalJDBC {
+    /**
+     * Reads all records with a cursor and with a map of bytes, and compares the values.
+     * @throws Exception if the database cannot be read.
+     */
+    @Test
+    public void compareWithRowsAsObjects() throws Exception {
+        try(MappedByteReader cursorReader = new MappedByteReader(this.dbfFile, null);
+            MappedByteReader mapReader = new MappedByteReader(this.dbfFile, null)) {
+            List<DBase3FieldDescriptor> fields = mapReader.getFieldsDescriptors();
+            int count = 0;
+
+            while(mapReader.nextRowAvailable()) {
+                assertTrue("Both readers shall have the same number of rows.", cursorReader.nextRowAvailable());
+                Map<String, byte[]> expected = mapReader.readNextRowAsObjects();
+                RecordCursor cursor = cursorReader.readNextRow();
+                assertEquals("Row number", mapReader.getRowNum(), cursorReader.getRowNum());
+                assertEquals("Column count", fields.size(), cursor.getColumnCount());
+
+                for(int column = 1; column <= fields.size(); column ++) {
+                    DBase3FieldDescriptor field = fields.get(column - 1);
+                    byte[] bytes = expected.get(field.getName());
+                    String text = (mapReader.getCharset() != null) ? new String(bytes, mapReader.getCharset()) : new String(bytes);
+                    assertEquals(field.getName(), text, cursor.getString(column));
+                    assertEquals(field.getName(), text.trim().isEmpty(), cursor.isNull(column));
+
+                    if (field.getType() == DBaseDataType.Number && !cursor.isNull(column)) {
+                        String value = text.trim();
+                        assertEquals(field.getName(), Double.parseDouble(value), cursor.getDouble(column), 0);
+
+                        if (field.getDecimalCount() == 0) {
+                            assertEquals(field.getName(), Long.parseLong(value), cursor.getLong(column));
+                        }
+                    }
+                }
+
+                count ++;
+            }
+
+            assertFalse("Both readers shall have the same number of rows.", cursorReader.nextRowAvailable());
+            assertTrue("Some rows shall have been read.", count > 0);
+        }
+    }
+}
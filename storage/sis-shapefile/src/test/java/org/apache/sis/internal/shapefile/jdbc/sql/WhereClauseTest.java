@@ -102,6 +102,31 @@ public class WhereClauseTest extends AbstractTestBaseForInternalJDBC {
         }, 1);
     }
 
+    /**
+     * Test where conditions : numeric field [operator] String value.
+     * @throws SQLException if a trouble occurs : all tests shall pass.
+     */
+    @Test
+    public void whereCondition_field_literal_quotedNumber() throws SQLException {
+        checkAndCount("FNODE_ = '1199'", new ResultSetPredicate<ResultSet>() {
+            @Override public boolean test(ResultSet rs) throws SQLException {
+                return rs.getInt("FNODE_") == 1199;
+            }
+        }, 1);
+
+        checkAndCount("FNODE_ IN ('1199', '1197')", new ResultSetPredicate<ResultSet>() {
+            @Override public boolean test(ResultSet rs) throws SQLException {
+                return rs.getInt("FNODE_") == 1199 || rs.getInt("FNODE_") == 1197;
+            }
+        }, 2);
+
+        checkAndCount("FNODE_ LIKE '119_'", new ResultSetPredicate<ResultSet>() {
+            @Override public boolean test(ResultSet rs) throws SQLException {
+                return rs.getInt("FNODE_") / 10 == 119;
+            }
+        }, 2);
+    }
+
     /**
      * Test where conditions : field [operator] field.
      * @throws SQLException if a trouble occurs : all tests shall pass.
@@ -115,6 +140,113 @@ public class WhereClauseTest extends AbstractTestBaseForInternalJDBC {
         }, 1);
     }
 
+    /**
+     * Test where conditions : conditions combined with AND, OR, NOT and parentheses.
+     * @throws SQLException if a trouble occurs : all tests shall pass.
+     */
+    @Test
+    public void whereCondition_and_or_not() throws SQLException {
+        checkAndCount("FNODE_ < 2000 AND SHAPE_LEN > 40", new ResultSetPredicate<ResultSet>() {
+            @Override public boolean test(ResultSet rs) throws SQLException {
+                return rs.getInt("FNODE_") < 2000 && rs.getDouble("SHAPE_LEN") > 40;
+            }
+        }, 2);
+
+        checkAndCount("FNODE_ > 6000 or FNAME = 'LOUGHBORO'", new ResultSetPredicate<ResultSet>() {
+            @Override public boolean test(ResultSet rs) throws SQLException {
+                return rs.getInt("FNODE_") > 6000 || rs.getString("FNAME").equals("LOUGHBORO");
+            }
+        }, 2);
+
+        checkAndCount("NOT (FNODE_ < 2000 OR FNAME = 'WASHINGTON') AND SHAPE_LEN < 90", new ResultSetPredicate<ResultSet>() {
+            @Override public boolean test(ResultSet rs) throws SQLException {
+                return !(rs.getInt("FNODE_") < 2000 || rs.getString("FNAME").equals("WASHINGTON")) && rs.getDouble("SHAPE_LEN") < 90;
+            }
+        }, 1);
+
+        checkAndCount("FNODE_ != 1199", new ResultSetPredicate<ResultSet>() {
+            @Override public boolean test(ResultSet rs) throws SQLException {
+                return rs.getInt("FNODE_") != 1199;
+            }
+        }, 5);
+    }
+
+    /**
+     * Test where conditions : field IN (values).
+     * @throws SQLException if a trouble occurs : all tests shall pass.
+     */
+    @Test
+    public void whereCondition_in() throws SQLException {
+        checkAndCount("FNODE_ IN (1199, 1197, 42)", new ResultSetPredicate<ResultSet>() {
+            @Override public boolean test(ResultSet rs) throws SQLException {
+                return rs.getInt("FNODE_") == 1199 || rs.getInt("FNODE_") == 1197;
+            }
+        }, 2);
+
+        checkAndCount("FNAME NOT IN ('36TH', 'WASHINGTON')", new ResultSetPredicate<ResultSet>() {
+            @Override public boolean test(ResultSet rs) throws SQLException {
+                return !rs.getString("FNAME").equals("36TH") && !rs.getString("FNAME").equals("WASHINGTON");
+            }
+        }, 4);
+    }
+
+    /**
+     * Test where conditions : field BETWEEN value AND value.
+     * @throws SQLException if a trouble occurs : all tests shall pass.
+     */
+    @Test
+    public void whereCondition_between() throws SQLException {
+        checkAndCount("SHAPE_LEN BETWEEN 40 AND 80", new ResultSetPredicate<ResultSet>() {
+            @Override public boolean test(ResultSet rs) throws SQLException {
+                return rs.getDouble("SHAPE_LEN") >= 40 && rs.getDouble("SHAPE_LEN") <= 80;
+            }
+        }, 3);
+
+        checkAndCount("FNODE_ NOT BETWEEN 1000 AND 2000", new ResultSetPredicate<ResultSet>() {
+            @Override public boolean test(ResultSet rs) throws SQLException {
+                return rs.getInt("FNODE_") < 1000 || rs.getInt("FNODE_") > 2000;
+            }
+        }, 3);
+    }
+
+    /**
+     * Test where conditions : field LIKE pattern.
+     * @throws SQLException if a trouble occurs : all tests shall pass.
+     */
+    @Test
+    public void whereCondition_like() throws SQLException {
+        checkAndCount("ST_NAME LIKE '%AVE'", new ResultSetPredicate<ResultSet>() {
+            @Override public boolean test(ResultSet rs) throws SQLException {
+                return rs.getString("ST_NAME").endsWith("AVE");
+            }
+        }, 2);
+
+        checkAndCount("FNAME LIKE 'WASH%'", new ResultSetPredicate<ResultSet>() {
+            @Override public boolean test(ResultSet rs) throws SQLException {
+                return rs.getString("FNAME").startsWith("WASH");
+            }
+        }, 1);
+
+        checkAndCount("ST_NAME LIKE '_ASHINGTON C_R'", new ResultSetPredicate<ResultSet>() {
+            @Override public boolean test(ResultSet rs) throws SQLException {
+                return rs.getString("ST_NAME").equals("WASHINGTON CIR");
+            }
+        }, 1);
+    }
+
+    /**
+     * An incomplete where condition shall be rejected when the statement is executed.
+     * @throws SQLException if a trouble occurs : all tests shall pass.
+     */
+    @Test(expected = SQLInvalidStatementException.class)
+    public void whereCondition_syntaxError() throws SQLException {
+        checkAndCount("FNODE_ < 2000 AND", new ResultSetPredicate<ResultSet>() {
+            @Override public boolean test(ResultSet rs) {
+                return false;
+            }
+        }, -1);
+    }
+
     /**
      * Trick suggested by AdiGuba (Forum des développeurs) to avoid the exception thrown by ResultSet:getInt(),
      * unhandlable by a simple Predicate.
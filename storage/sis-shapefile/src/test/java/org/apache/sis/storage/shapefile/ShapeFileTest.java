@@ -18,12 +18,22 @@ package org.apache.sis.storage.shapefile;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Logger;
 
+import org.apache.sis.geometry.Envelope2D;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.test.TestCase;
 import org.junit.Ignore;
@@ -31,12 +41,18 @@ import org.junit.Test;
 import org.apache.sis.feature.AbstractFeature;
 import org.apache.sis.feature.AbstractAttribute;
 
+import com.esri.core.geometry.Geometry;
+
+// Branch-dependent imports
+import org.apache.sis.internal.jdk8.Consumer;
+import org.apache.sis.internal.jdk8.Stream;
+
 
 /**
  * Tests the {@link ShapeFile} class.
  *
  * @author  Travis L. Pinney
- * @version 0.5
+ * @version 0.8
  * @since   0.5
  * @module
  */
@@ -188,6 +204,171 @@ public final strictfp class ShapeFileTest extends TestCase {
          assertEquals("Shapefile part : direct access didn't returned the same geometry than sequential access.", sequentialGeometry, directGeometry);
      }
      
+    /**
+     * Checks that reading with a bounding box returns the same features than a full reading filtered afterward,
+     * for points, polylines and polygons. The bounding box is the envelope of the feature in the middle of the file.
+     * @throws URISyntaxException if the resource name is incorrect.
+     * @throws DataStoreException if a general file reading trouble occurs.
+     */
+    @Test
+    public void testBoundingBoxFilter() throws URISyntaxException, DataStoreException {
+        for (String name : new String[] {"ABRALicenseePt_4326_clipped.shp", "SignedBikeRoute_4326_clipped.shp", "ANC90Ply_4326.shp"}) {
+            ShapeFile shp = new ShapeFile(path(name));
+            List<Envelope2D> envelopes = new ArrayList<>();
+            List<Object> geometries = new ArrayList<>();
+
+            try(InputFeatureStream is = shp.findAll()) {
+                AbstractFeature feature;
+
+                while((feature = is.readFeature()) != null) {
+                    Geometry geometry = (Geometry) feature.getPropertyValue("geometry");
+                    com.esri.core.geometry.Envelope2D envelope = new com.esri.core.geometry.Envelope2D();
+                    geometry.queryEnvelope2D(envelope);
+                    envelopes.add(new Envelope2D(null, envelope.xmin, envelope.ymin, envelope.getWidth(), envelope.getHeight()));
+                    geometries.add(geometry);
+                }
+            }
+
+            Envelope2D bbox = envelopes.get(envelopes.size() / 2);
+            List<Object> expected = new ArrayList<>();
+
+            for (int i = 0; i < envelopes.size(); i++) {
+                Envelope2D envelope = envelopes.get(i);
+
+                if (envelope.getMinX() <= bbox.getMaxX() && envelope.getMaxX() >= bbox.getMinX() && envelope.getMinY() <= bbox.getMaxY() && envelope.getMaxY() >= bbox.getMinY()) {
+                    expected.add(geometries.get(i));
+                }
+            }
+
+            List<Object> actual = new ArrayList<>();
+
+            try(InputFeatureStream is = shp.find(null, bbox)) {
+                AbstractFeature feature;
+
+                while((feature = is.readFeature()) != null) {
+                    actual.add(feature.getPropertyValue("geometry"));
+                }
+            }
+
+            assertTrue(name + " : the bounding box should not select all features.", expected.size() < geometries.size());
+            assertEquals(name + " : bounding box filtering didn't return the expected features.", expected, actual);
+        }
+    }
+
+    /**
+     * Checks that a parallel stream of features returns the same features, in the same order, than a sequential reading,
+     * without and with a bounding box. The polygons file has enough records to be split in several ranges decoded concurrently.
+     * @throws URISyntaxException if the resource name is incorrect.
+     * @throws DataStoreException if a general file reading trouble occurs.
+     */
+    @Test
+    public void testParallelStream() throws URISyntaxException, DataStoreException {
+        for (String name : new String[] {"ABRALicenseePt_4326_clipped.shp", "SignedBikeRoute_4326_clipped.shp", "ANC90Ply_4326.shp"}) {
+            ShapeFile shp = new ShapeFile(path(name));
+            List<AbstractFeature> all = toList(shp.findAll());
+            assertEquals(name + " : the parallel stream didn't return the expected features.", all, toList(shp.features(true)));
+
+            // The bounding box is the envelope of the feature in the middle of the file.
+            Geometry geometry = (Geometry) all.get(all.size() / 2).getPropertyValue("geometry");
+            com.esri.core.geometry.Envelope2D envelope = new com.esri.core.geometry.Envelope2D();
+            geometry.queryEnvelope2D(envelope);
+            Envelope2D bbox = new Envelope2D(null, envelope.xmin, envelope.ymin, envelope.getWidth(), envelope.getHeight());
+
+            List<AbstractFeature> expected = toList(shp.find(null, bbox));
+            assertTrue(name + " : the bounding box should select some features, but not all.", !expected.isEmpty() && expected.size() < all.size());
+            assertEquals(name + " : the parallel stream with a bounding box didn't return the expected features.", expected, toList(shp.features(bbox, true)));
+        }
+    }
+
+    /**
+     * Checks that the records flagged as deleted in the database file are skipped by both the sequential reading
+     * and the parallel stream. The test works on a copy of the polygons files where some rows are flagged as deleted.
+     * @throws URISyntaxException if the resource name is incorrect.
+     * @throws IOException if the copy of the test files cannot be created.
+     * @throws DataStoreException if a general file reading trouble occurs.
+     */
+    @Test
+    public void testDeletedRecords() throws URISyntaxException, IOException, DataStoreException {
+        List<AbstractFeature> all = toList(new ShapeFile(path("ANC90Ply_4326.shp")).findAll());
+        Path directory = Files.createTempDirectory("ShapeFileTest");
+
+        try {
+            for (String extension : new String[] {".shp", ".shx", ".dbf"}) {
+                Files.copy(Paths.get(path("ANC90Ply_4326" + extension)), directory.resolve("ANC90Ply_4326" + extension));
+            }
+
+            // Flag the first, one in the middle and the last rows as deleted.
+            Path dbf = directory.resolve("ANC90Ply_4326.dbf");
+            ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(dbf)).order(ByteOrder.LITTLE_ENDIAN);
+            int firstRecordPosition = content.getShort(8) & 0xFFFF;
+            int recordLength = content.getShort(10) & 0xFFFF;
+            int[] deleted = {0, all.size() / 2, all.size() - 1};
+
+            for (int row : deleted) {
+                content.put(firstRecordPosition + row * recordLength, (byte) '*');
+            }
+
+            Files.write(dbf, content.array());
+
+            List<AbstractFeature> expected = new ArrayList<>(all);
+
+            for (int i = deleted.length; --i >= 0;) {
+                expected.remove(deleted[i]);
+            }
+
+            ShapeFile shp = new ShapeFile(directory.resolve("ANC90Ply_4326.shp").toString());
+            assertEquals("The sequential reading didn't skip the deleted records.", expected, toList(shp.findAll()));
+            assertEquals("The parallel stream didn't skip the deleted records.", expected, toList(shp.features(true)));
+        }
+        finally {
+            for (String extension : new String[] {".shp", ".shx", ".dbf"}) {
+                Files.deleteIfExists(directory.resolve("ANC90Ply_4326" + extension));
+            }
+
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Reads all the features of a stream, then closes it.
+     * @param is Stream to read.
+     * @return Features read.
+     * @throws DataStoreException if a general file reading trouble occurs.
+     */
+    private static List<AbstractFeature> toList(InputFeatureStream stream) throws DataStoreException {
+        List<AbstractFeature> features = new ArrayList<>();
+
+        try(InputFeatureStream is = stream) {
+            AbstractFeature feature;
+
+            while((feature = is.readFeature()) != null) {
+                features.add(feature);
+            }
+        }
+
+        return features;
+    }
+
+    /**
+     * Collects all the features of a stream in encounter order, then closes it.
+     * @param stream Stream to read.
+     * @return Features read.
+     */
+    private static List<AbstractFeature> toList(Stream<AbstractFeature> stream) {
+        final List<AbstractFeature> features = new ArrayList<>();
+
+        try(Stream<AbstractFeature> s = stream) {
+            s.forEachOrdered(new Consumer<AbstractFeature>() {
+                @Override
+                public void accept(AbstractFeature feature) {
+                    features.add(feature);
+                }
+            });
+        }
+
+        return features;
+    }
+
     /**
      * Read all the shapefile content.
      * @param shp Shapefile to read.
@@ -29,6 +29,7 @@ import org.junit.BeforeClass;
     org.apache.sis.internal.shapefile.jdbc.DBFConnectionTest.class,
     org.apache.sis.internal.shapefile.jdbc.DBFStatementTest.class,
     org.apache.sis.internal.shapefile.jdbc.DBFResultSetTest.class,
+    org.apache.sis.internal.shapefile.jdbc.RecordCursorTest.class,
     org.apache.sis.internal.shapefile.jdbc.sql.WhereClauseTest.class
 })
 public final strictfp class ShapefileTestSuite extends TestSuite {
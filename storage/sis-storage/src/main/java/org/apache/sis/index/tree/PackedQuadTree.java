@@ -0,0 +1,479 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.index.tree;
+
+//JDK imports
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+//SIS imports
+import org.apache.sis.geometry.DirectPosition2D;
+import org.apache.sis.geometry.Envelope2D;
+import org.apache.sis.distance.DistanceUtils;
+import org.apache.sis.distance.LatLonPointRadius;
+
+// Branch-dependent imports
+import org.apache.sis.internal.jdk8.Consumer;
+
+/**
+ * Quad tree index storing its nodes and points in primitive arrays. This class
+ * provides the same insertion and search services than {@link QuadTree}, but
+ * without creating objects for the nodes or during the searches:
+ *
+ * <ul>
+ *   <li>The bounding box and the four child indices of each node are stored in
+ *   {@code double[]} and {@code int[]} arrays indexed by node number.</li>
+ *   <li>The coordinates of points are stored in separated {@code double[]}
+ *   arrays (a "struct of arrays" layout), in blocks of {@code capacity}
+ *   elements owned by the leaf nodes. Only the {@link QuadTreeData} references
+ *   are stored as objects, for giving them back to the caller.</li>
+ *   <li>Searches walk the tree iteratively with a small stack of node indices
+ *   and give each matching data to a caller-supplied consumer, instead of
+ *   building and merging lists at each recursion level.</li>
+ * </ul>
+ *
+ * A {@code PackedQuadTree} can be built by inserting data directly, or from an
+ * existing {@link QuadTree} (for example a tree loaded by
+ * {@code QuadTreeReader}). This class is not thread-safe for insertions, but
+ * searches can be executed concurrently when no insertion is in progress.
+ *
+ * @since 0.8
+ */
+public final class PackedQuadTree {
+
+  // assume map is shifted to be in positive coordinate, as in QuadTree.
+  private static final double EARTH_MIN_X = 0;
+  private static final double EARTH_MIN_Y = 0;
+  private static final double EARTH_MAX_X = 360;
+  private static final double EARTH_MAX_Y = 180;
+
+  /**
+   * Capacity of leaf nodes when the specified capacity is not positive. This is
+   * the same default than {@link QuadTreeNode}.
+   */
+  private static final int MIN_CAPACITY = 10;
+
+  /**
+   * Value of {@link #block} for nodes which are not leaves, and value of
+   * {@link #children} for missing children. The root is never a child, so
+   * index 0 can not be a valid child index.
+   */
+  private static final int NONE = 0;
+
+  /**
+   * Bounding boxes of nodes as (xmin, ymin, xmax, ymax) tuples.
+   */
+  private double[] boxes;
+
+  /**
+   * Indices of the children of each node, in (NW, NE, SW, SE) order.
+   * Absent children are {@link #NONE}.
+   */
+  private int[] children;
+
+  /**
+   * For leaf nodes, index of the first point of the node plus one. For other
+   * nodes, {@link #NONE}. The points of a leaf are stored in a block of
+   * {@link #capacity} consecutive elements of the point arrays.
+   */
+  private int[] block;
+
+  /**
+   * For leaf nodes, the number of points in the node.
+   */
+  private int[] counts;
+
+  /**
+   * Depth of each node, with 0 for the root.
+   */
+  private byte[] depths;
+
+  /**
+   * Number of nodes.
+   */
+  private int nodeCount;
+
+  /**
+   * Java 2D coordinates of points, as given by {@link QuadTreeData#getX()}
+   * and {@link QuadTreeData#getY()}.
+   */
+  private double[] xs, ys;
+
+  /**
+   * Geographic coordinates of points, as given by
+   * {@link QuadTreeData#getLatLon()}.
+   */
+  private double[] lons, lats;
+
+  /**
+   * The data associated to each point.
+   */
+  private QuadTreeData[] data;
+
+  /**
+   * Number of elements used in the point arrays, including free blocks.
+   */
+  private int pointLength;
+
+  /**
+   * Blocks released by leaves which have been split, available for reuse.
+   * Values are the start index of the block in the point arrays.
+   */
+  private int[] freeBlocks;
+
+  /**
+   * Number of valid elements in {@link #freeBlocks}.
+   */
+  private int freeCount;
+
+  /**
+   * Number of data in the tree.
+   */
+  private int size;
+
+  /**
+   * The capacity of each leaf node.
+   */
+  private final int capacity;
+
+  /**
+   * The maximum depth of the tree.
+   */
+  private final int maxDepth;
+
+  /**
+   * Creates an empty quad tree.
+   *
+   * @param capacity
+   *          the capacity of each node in the quad tree
+   * @param maxDepth
+   *          the maximum depth of the tree
+   */
+  public PackedQuadTree(int capacity, int maxDepth) {
+    this.capacity = capacity > 0 ? capacity : MIN_CAPACITY;
+    this.maxDepth = Math.max(0, Math.min(maxDepth, Byte.MAX_VALUE));
+    boxes = new double[64];
+    children = new int[64];
+    block = new int[16];
+    counts = new int[16];
+    depths = new byte[16];
+    freeBlocks = new int[8];
+    final int n = this.capacity * 16;
+    xs = new double[n];
+    ys = new double[n];
+    lons = new double[n];
+    lats = new double[n];
+    data = new QuadTreeData[n];
+    newLeaf(EARTH_MIN_X, EARTH_MIN_Y, EARTH_MAX_X, EARTH_MAX_Y, 0);
+  }
+
+  /**
+   * Creates a quad tree with the same capacity, depth and data than the given
+   * tree. Data which can not be inserted because the maximum depth would be
+   * exceeded are ignored.
+   *
+   * @param tree
+   *          the tree to copy
+   */
+  public PackedQuadTree(QuadTree tree) {
+    this(tree.getCapacity(), tree.getDepth());
+    copy(tree.getRoot());
+  }
+
+  /**
+   * Inserts all data of the given node and its children.
+   */
+  private void copy(final QuadTreeNode node) {
+    if (node == null) {
+      return;
+    }
+    if (node.getNodeType() == NodeType.GRAY) {
+      copy(node.getChild(Quadrant.NW));
+      copy(node.getChild(Quadrant.NE));
+      copy(node.getChild(Quadrant.SW));
+      copy(node.getChild(Quadrant.SE));
+    } else if (node.getNodeType() == NodeType.BLACK) {
+      final QuadTreeData[] nodeData = node.getData();
+      for (int i = 0; i < node.getCount(); i++) {
+        insert(nodeData[i]);
+      }
+    }
+  }
+
+  /**
+   * Creates a new leaf node for the given box and returns its index.
+   */
+  private int newLeaf(final double xmin, final double ymin, final double xmax,
+      final double ymax, final int depth) {
+    final int node = nodeCount++;
+    if (node == counts.length) {
+      final int n = node * 2;
+      boxes = Arrays.copyOf(boxes, n * 4);
+      children = Arrays.copyOf(children, n * 4);
+      block = Arrays.copyOf(block, n);
+      counts = Arrays.copyOf(counts, n);
+      depths = Arrays.copyOf(depths, n);
+    }
+    final int i = node * 4;
+    boxes[i] = xmin;
+    boxes[i + 1] = ymin;
+    boxes[i + 2] = xmax;
+    boxes[i + 3] = ymax;
+    depths[node] = (byte) depth;
+    block[node] = allocateBlock() + 1;
+    return node;
+  }
+
+  /**
+   * Returns the start index of an unused block of {@link #capacity} points.
+   */
+  private int allocateBlock() {
+    if (freeCount != 0) {
+      return freeBlocks[--freeCount];
+    }
+    final int start = pointLength;
+    pointLength += capacity;
+    if (pointLength > xs.length) {
+      final int n = Math.max(pointLength, xs.length * 2);
+      xs = Arrays.copyOf(xs, n);
+      ys = Arrays.copyOf(ys, n);
+      lons = Arrays.copyOf(lons, n);
+      lats = Arrays.copyOf(lats, n);
+      data = Arrays.copyOf(data, n);
+    }
+    return start;
+  }
+
+  /**
+   * Returns the index of the child quadrant (NW, NE, SW, SE order) of the given
+   * node containing the given point. This is the same rule than
+   * {@link QuadTree}: points on the middle lines go to the east or north side.
+   */
+  private int quadrant(final int node, final double x, final double y) {
+    final int i = node * 4;
+    final boolean west = x < (boxes[i] + boxes[i + 2]) / 2;
+    final boolean south = y < (boxes[i + 1] + boxes[i + 3]) / 2;
+    return (south ? 2 : 0) + (west ? 0 : 1);
+  }
+
+  /**
+   * Returns the child of the given node in the given quadrant, creating it as a
+   * leaf if it does not exist.
+   */
+  private int child(final int node, final int quadrant) {
+    int child = children[node * 4 + quadrant];
+    if (child == NONE) {
+      final int i = node * 4;
+      final double xmid = (boxes[i] + boxes[i + 2]) / 2;
+      final double ymid = (boxes[i + 1] + boxes[i + 3]) / 2;
+      final boolean east = (quadrant & 1) != 0;
+      final boolean south = (quadrant & 2) != 0;
+      child = newLeaf(east ? xmid : boxes[i], south ? boxes[i + 1] : ymid,
+          east ? boxes[i + 2] : xmid, south ? ymid : boxes[i + 3],
+          depths[node] + 1);
+      children[node * 4 + quadrant] = child;
+    }
+    return child;
+  }
+
+  /**
+   * Stores the given point in the given leaf, which shall not be full.
+   */
+  private void store(final int leaf, final double x, final double y,
+      final double lon, final double lat, final QuadTreeData value) {
+    final int p = block[leaf] - 1 + counts[leaf]++;
+    xs[p] = x;
+    ys[p] = y;
+    lons[p] = lon;
+    lats[p] = lat;
+    data[p] = value;
+  }
+
+  /**
+   * Inserts the specified data into the quad tree.
+   *
+   * @param value
+   *          specified data to be inserted
+   * @return true if the data was inserted into the quad tree; false if data
+   *         cannot be inserted because the capacity of the node has been
+   *         exceeded and the depth of the tree will be exceeded if we insert
+   *         this data
+   */
+  public boolean insert(final QuadTreeData value) {
+    final double x = value.getX();
+    final double y = value.getY();
+    final DirectPosition2D latLon = value.getLatLon();
+    int node = 0;
+    while (true) {
+      if (block[node] == NONE) {
+        node = child(node, quadrant(node, x, y));
+      } else if (counts[node] < capacity) {
+        store(node, x, y, latLon.x, latLon.y, value);
+        size++;
+        return true;
+      } else if (depths[node] >= maxDepth) {
+        return false;
+      } else {
+        split(node);
+      }
+    }
+  }
+
+  /**
+   * Converts the given full leaf into an internal node, and moves its points
+   * into new child leaves. The block of the leaf is released for reuse after
+   * the move.
+   */
+  private void split(final int node) {
+    final int start = block[node] - 1;
+    final int end = start + counts[node];
+    block[node] = NONE;
+    counts[node] = 0;
+    for (int p = start; p < end; p++) {
+      final int leaf = child(node, quadrant(node, xs[p], ys[p]));
+      store(leaf, xs[p], ys[p], lons[p], lats[p], data[p]);
+      data[p] = null;
+    }
+    if (freeCount == freeBlocks.length) {
+      freeBlocks = Arrays.copyOf(freeBlocks, freeCount * 2);
+    }
+    freeBlocks[freeCount++] = start;
+  }
+
+  /**
+   * Performs point radius search. Each data within the given radius from the
+   * point is given to the specified consumer.
+   *
+   * @param point
+   *          the center of the circular region
+   * @param radiusKM
+   *          the radius in kilometers
+   * @param action
+   *          the consumer of data that are within the given radius from the
+   *          point
+   */
+  public void queryByPointRadius(final DirectPosition2D point,
+      final double radiusKM, final Consumer<? super QuadTreeData> action) {
+    final Rectangle2D region = new LatLonPointRadius(point, radiusKM)
+        .getRectangularRegionApproximation(360);
+    search(region.getMinX(), region.getMinY(), region.getMaxX(),
+        region.getMaxY(), point, radiusKM, action);
+  }
+
+  /**
+   * Performs bounding box search. Each data within the given region is given to
+   * the specified consumer.
+   *
+   * @param searchRegion
+   *          Envelope representing the rectangular search region
+   * @param action
+   *          the consumer of data that are within the given region
+   */
+  public void queryByBoundingBox(final Envelope2D searchRegion,
+      final Consumer<? super QuadTreeData> action) {
+    // region is split in two rectangles if it crosses dateline.
+    for (final Rectangle2D.Double r : searchRegion.toRectangles()) {
+      search(r.x + 180, r.y + 90, r.x + r.width + 180, r.y + r.height + 90,
+          null, 0, action);
+    }
+  }
+
+  /**
+   * Walks the tree for data in the given region. If {@code center} is non-null,
+   * then only the data within the given radius from that center are accepted.
+   * Otherwise the data shall be inside the region, with the same half-open
+   * semantic than {@link Rectangle2D#contains(double, double)}.
+   */
+  private void search(final double xmin, final double ymin, final double xmax,
+      final double ymax, final DirectPosition2D center, final double radiusKM,
+      final Consumer<? super QuadTreeData> action) {
+    int[] stack = new int[3 * maxDepth + 4];
+    int top = 0;
+    stack[top++] = 0;
+    while (top != 0) {
+      final int node = stack[--top];
+      final int start = block[node] - 1;
+      if (start >= 0) {
+        final int end = start + counts[node];
+        for (int p = start; p < end; p++) {
+          final boolean accept;
+          if (center != null) {
+            accept = DistanceUtils.getHaversineDistance(lats[p], lons[p],
+                center.y, center.x) <= radiusKM;
+          } else {
+            final double x = xs[p];
+            final double y = ys[p];
+            accept = x >= xmin && y >= ymin && x < xmax && y < ymax;
+          }
+          if (accept) {
+            action.accept(data[p]);
+          }
+        }
+      } else {
+        for (int q = 4; --q >= 0;) {
+          final int child = children[node * 4 + q];
+          if (child != NONE) {
+            final int i = child * 4;
+            if (boxes[i] <= xmax && boxes[i + 2] >= xmin
+                && boxes[i + 1] <= ymax && boxes[i + 3] >= ymin) {
+              if (top == stack.length) {
+                stack = Arrays.copyOf(stack, top * 2);
+              }
+              stack[top++] = child;
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of data in the quad tree.
+   *
+   * @return number of data in the quad tree.
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the number of nodes in the quad tree.
+   *
+   * @return number of nodes in the quad tree.
+   */
+  public int getNodeCount() {
+    return this.nodeCount;
+  }
+
+  /**
+   * Returns the capacity of node in the quad tree.
+   *
+   * @return capacity of node in the quad tree.
+   */
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  /**
+   * Returns the maximum depth of the quad tree.
+   *
+   * @return maximum depth of the quad tree.
+   */
+  public int getDepth() {
+    return this.maxDepth;
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage;
+
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.awt.image.Raster;
+import java.awt.image.DataBuffer;
+import org.apache.sis.util.collection.Cache;
+import org.apache.sis.internal.system.CacheStatistics;
+
+
+/**
+ * A cache of decoded tiles shared by the raster data stores. The cost of each tile is its size in bytes,
+ * so the cost limit is a memory budget: when the total size of the cached tiles exceeds that budget,
+ * the least recently used tiles are replaced by weak or soft references (depending on the value given
+ * at construction time). Those tiles can still be returned until they are reclaimed by the garbage collector.
+ *
+ * <p>Tiles are identified by the source from which they were read (typically the data store),
+ * the index of the image in that source and the index of the tile in that image.
+ * Data stores shall invoke {@link #removeAll(Object)} when they are closed.</p>
+ *
+ * <p>Rasters in this cache are shared between all callers and shall not be modified.</p>
+ *
+ * <p>Statistics about this cache (hits, misses, evictions) are reported by the
+ * {@link org.apache.sis.internal.system.Supervisor} MBean.</p>
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final class TileCache extends Cache<TileCache.Key, Raster> {
+    /**
+     * The cache shared by all raster data stores. The budget is a quarter of the maximal amount of memory
+     * that the Java virtual machine will attempt to use. Tiles in excess are hold by weak references,
+     * since soft references to large rasters tend to delay the garbage collection of more useful objects.
+     */
+    public static final TileCache GLOBAL = new TileCache(Runtime.getRuntime().maxMemory() / 4, false);
+    static {
+        CacheStatistics.register("TileCache.GLOBAL", GLOBAL);
+    }
+
+    /**
+     * The key of a tile in the cache.
+     */
+    public static final class Key {
+        /**
+         * The source from which the tile has been read, typically the data store.
+         */
+        private final Object source;
+
+        /**
+         * Index of the image in the source.
+         */
+        private final int image;
+
+        /**
+         * Index of the tile in the image.
+         */
+        private final int tile;
+
+        /**
+         * Creates a new key for the given tile.
+         *
+         * @param source  the source from which the tile has been read, typically the data store.
+         * @param image   index of the image in the source.
+         * @param tile    index of the tile in the image.
+         */
+        public Key(final Object source, final int image, final int tile) {
+            this.source = source;
+            this.image  = image;
+            this.tile   = tile;
+        }
+
+        /**
+         * Returns a hash code value for this key.
+         */
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(source) + 31 * (image + 31 * tile);
+        }
+
+        /**
+         * Compares this key with the given object for equality.
+         * Sources are compared by identity.
+         */
+        @Override
+        public boolean equals(final Object other) {
+            if (other instanceof Key) {
+                final Key that = (Key) other;
+                return source == that.source && image == that.image && tile == that.tile;
+            }
+            return false;
+        }
+
+        /**
+         * Returns a string representation of this key for debugging purpose.
+         */
+        @Override
+        public String toString() {
+            return "Tile[" + image + ", " + tile + ']';
+        }
+    }
+
+    /**
+     * The sources for which {@link #removeAll(Object)} has been invoked. Tiles of those sources which were under
+     * loading at closing time are discarded after their loading. The sources are referenced weakly, so they can
+     * be garbage-collected.
+     */
+    private final Set<Object> closed = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<Object,Boolean>()));
+
+    /**
+     * Creates a new cache of tiles.
+     *
+     * @param memoryBudget  maximal size in bytes of the tiles to hold by strong references.
+     * @param soft          {@code true} for holding the tiles in excess by soft references instead of weak references.
+     */
+    public TileCache(final long memoryBudget, final boolean soft) {
+        super(100, memoryBudget, soft);
+    }
+
+    /**
+     * Returns the size in bytes of the given tile. Only the data buffer is taken in account.
+     *
+     * @param  tile  the tile for which to estimate the memory usage.
+     * @return an estimation of the memory used by the given tile, in bytes.
+     */
+    @Override
+    protected int cost(final Raster tile) {
+        final DataBuffer buffer = tile.getDataBuffer();
+        final long size = (long) buffer.getSize() * buffer.getNumBanks()
+                        * DataBuffer.getDataTypeSize(buffer.getDataType()) / Byte.SIZE;
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the tile for the given key, loading it if needed. If the source of the tile has been closed
+     * while the tile was loading, then the tile is returned to the caller but is not kept in this cache.
+     *
+     * @param  key      the key of the tile to get.
+     * @param  creator  a method for loading the tile, invoked only if the tile is not in this cache.
+     * @return the tile for the given key.
+     * @throws Exception if an exception occurred during the execution of {@code creator.call()}.
+     */
+    @Override
+    public Raster getOrCreate(final Key key, final Callable<? extends Raster> creator) throws Exception {
+        final Raster tile = super.getOrCreate(key, creator);
+        if (closed.contains(key.source)) {
+            remove(key);
+        }
+        return tile;
+    }
+
+    /**
+     * Removes all tiles read from the given source. This method shall be invoked when the source is closed.
+     * The tiles are removed in a way that updates the total cost of this cache. This method does not wait
+     * for the tiles of the given source which are under loading: the source is only marked as closed,
+     * and the results of those loadings are removed from this cache by {@link #getOrCreate(Key, Callable)}
+     * after they complete. Tiles of the given source loaded after this method call are not cached either.
+     *
+     * @param source  the source for which to remove the tiles.
+     */
+    public void removeAll(final Object source) {
+        closed.add(source);
+        for (final Key key : keySet()) {
+            if (key.source == source) {
+                remove(key);
+            }
+        }
+    }
+}
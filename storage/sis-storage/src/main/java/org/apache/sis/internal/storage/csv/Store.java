@@ -97,7 +97,7 @@ public final class Store extends FeatureStore {
     /**
      * The quote character. Quotes inside quoted texts must be doubled.
      */
-    private static final char QUOTE = '"';
+    static final char QUOTE = '"';
 
     /**
      * The column separator.
@@ -548,13 +548,49 @@ public final class Store extends FeatureStore {
 
     /**
      * Implementation of the iterator returned by {@link #features()}.
+     *
+     * <div class="section">Parallelism</div>
+     * Lines are read sequentially from {@link Store#source}, but {@link #trySplit()} can take a batch of lines
+     * in an array and give them to a new iterator, which parses them in another thread. Lines can be parsed
+     * independently of each other except for omitted values, which are taken from the previous lines.
+     * For that reason, the iterator created by {@code trySplit()} starts with a copy of the current values,
+     * and this iterator updates its values to the state after the last line of the batch.
      */
     private final class Iter implements Spliterator<AbstractFeature> {
+        /**
+         * Number of lines in the first batch created by {@link #trySplit()}.
+         * The size of next batches is increased by the same amount.
+         */
+        private static final int BATCH_UNIT = 1 << 10;
+
+        /**
+         * Maximal number of lines in a batch created by {@link #trySplit()}.
+         */
+        private static final int MAX_BATCH = 1 << 16;
+
+        /**
+         * Values of the {@link #parsers} array telling how to parse the fields of a column.
+         * {@code CONVERTER} means to create a {@code String} for the field, then convert it using {@link #converters}.
+         * Other values mean to parse the field directly from the line, without creating a {@code String} if possible.
+         */
+        private static final byte CONVERTER = 0, STRING = 1, DOUBLE = 2, INTEGER = 3, ORDINATES = 4, TIME = 5;
+
         /**
          * Converters from string representations to the values to store in the {@link #values} array.
          */
         private final ObjectConverter<String,?>[] converters;
 
+        /**
+         * How to parse the fields of each column, as one of {@link #CONVERTER}, {@link #STRING}, {@link #DOUBLE},
+         * {@link #INTEGER}, {@link #ORDINATES} or {@link #TIME} constants.
+         */
+        private final byte[] parsers;
+
+        /**
+         * The object to use for splitting lines in fields and parsing numbers.
+         */
+        private final Tokenizer tokenizer;
+
         /**
          * All values found in a row. We need to remember those values between different executions
          * of the {@link #tryAdvance(Consumer)} method because the Moving Feature Specification said:
@@ -567,6 +603,27 @@ public final class Store extends FeatureStore {
          */
         private final String[] propertyNames;
 
+        /**
+         * The lines to parse if this iterator has been created by {@link #trySplit()},
+         * or {@code null} if the lines are read from {@link Store#source}.
+         */
+        private final String[] lines;
+
+        /**
+         * Index of the next line to parse in the {@link #lines} array.
+         */
+        private int lower;
+
+        /**
+         * Index after the last line to parse in the {@link #lines} array.
+         */
+        private final int upper;
+
+        /**
+         * Number of lines in the next batch to be created by {@link #trySplit()} from {@link Store#source}.
+         */
+        private int batchSize;
+
         /**
          * Creates a new iterator.
          */
@@ -574,8 +631,10 @@ public final class Store extends FeatureStore {
         Iter() {
             final Collection<? extends AbstractIdentifiedType> properties = featureType.getProperties(true);
             converters    = new ObjectConverter[properties.size()];
+            parsers       = new byte[converters.length];
             values        = new Object[converters.length];
             propertyNames = new String[converters.length];
+            tokenizer     = new Tokenizer(converters.length);
             int i = -1;
             for (final AbstractIdentifiedType p : properties) {
                 propertyNames[++i] = p.getName().tip().toString();
@@ -619,7 +678,72 @@ public final class Store extends FeatureStore {
                     }
                 }
                 converters[i] = c;
+                final byte parser;
+                if (c == GeometryParser.INSTANCE) {
+                    parser = ORDINATES;
+                } else if (c instanceof TimeEncoding) {
+                    parser = (c != TimeEncoding.ABSOLUTE) ? TIME : CONVERTER;
+                } else {
+                    final Class<?> type = c.getTargetClass();
+                    if      (type == String .class) parser = STRING;
+                    else if (type == Double .class) parser = DOUBLE;
+                    else if (type == Integer.class) parser = INTEGER;
+                    else                            parser = CONVERTER;
+                }
+                parsers[i] = parser;
+            }
+            lines = null;
+            upper = 0;
+        }
+
+        /**
+         * Creates a new iterator for a batch of lines.
+         *
+         * @param parent  the iterator from which to share the converters and property names.
+         * @param lines   the lines to parse.
+         * @param lower   index of the first line to parse.
+         * @param upper   index after the last line to parse.
+         */
+        private Iter(final Iter parent, final String[] lines, final int lower, final int upper) {
+            converters    = parent.converters;
+            parsers       = parent.parsers;
+            propertyNames = parent.propertyNames;
+            values        = parent.values.clone();
+            tokenizer     = new Tokenizer(values.length);
+            this.lines    = lines;
+            this.lower    = lower;
+            this.upper    = upper;
+        }
+
+        /**
+         * Returns the next line to parse, or {@code null} if none.
+         */
+        private String nextLine() throws IOException {
+            if (lines == null) {
+                return source.readLine();
             }
+            return (lower < upper) ? lines[lower++] : null;
+        }
+
+        /**
+         * Returns the value of the given field in the line last given to the {@link #tokenizer}.
+         * Numbers are parsed directly from the line, and a {@code String} is created only for
+         * fields that need to be converted from their text.
+         *
+         * @param  i  index of the field (or column) to parse.
+         * @return the value of the given field.
+         * @throws IllegalArgumentException if parsing of a number failed, or other error.
+         * @throws DateTimeException if parsing of a date failed.
+         */
+        private Object value(final int i) {
+            switch (parsers[i]) {
+                case STRING:    return tokenizer.text(i);
+                case ORDINATES: return tokenizer.parseOrdinates(i);
+                case TIME:      return ((TimeEncoding) converters[i]).toInstant(tokenizer.parseDouble(i));
+                case DOUBLE:    if (tokenizer.isEmpty(i)) break; else return tokenizer.parseDouble(i);
+                case INTEGER:   if (tokenizer.isEmpty(i)) break; else return tokenizer.parseInt(i);
+            }
+            return converters[i].apply(tokenizer.text(i));
         }
 
         /**
@@ -638,14 +762,12 @@ public final class Store extends FeatureStore {
          * @throws DateTimeException if parsing of a date failed.
          */
         private boolean read(final Consumer<? super AbstractFeature> action, boolean all) throws IOException {
-            final FixedSizeList elements = new FixedSizeList(values);
             String line;
-            while ((line = source.readLine()) != null) {
-                split(line, elements);
+            while ((line = nextLine()) != null) {
                 final AbstractFeature feature = featureType.newInstance();
-                int i, n = elements.size();
+                int i, n = tokenizer.split(line);
                 for (i=0; i<n; i++) {
-                    values[i] = converters[i].apply((String) values[i]);
+                    values[i] = value(i);
                     feature.setPropertyValue(propertyNames[i], values[i]);
                 }
                 n = values.length;
@@ -655,7 +777,6 @@ public final class Store extends FeatureStore {
                 }
                 action.accept(feature);
                 if (!all) return true;
-                elements.clear();
             }
             return false;
         }
@@ -685,19 +806,71 @@ public final class Store extends FeatureStore {
         }
 
         /**
-         * Current implementation can not split this iterator.
+         * Returns an iterator over a prefix of the remaining lines, to be parsed in another thread.
+         * If this iterator reads lines from {@link Store#source}, then the prefix is a batch of lines
+         * read from that source. Otherwise the prefix is the first half of the remaining lines.
+         *
+         * @return an iterator over a prefix of the remaining lines, or {@code null} if this iterator can not be split.
          */
         @Override
         public Spliterator<AbstractFeature> trySplit() {
-            return null;
+            final Iter prefix;
+            try {
+                if (lines != null) {
+                    final int mid = (lower + upper) >>> 1;
+                    if (mid == lower) {
+                        return null;
+                    }
+                    prefix = new Iter(this, lines, lower, mid);
+                    skip(lines, lower, mid);
+                    lower = mid;
+                } else {
+                    batchSize = Math.min(batchSize + BATCH_UNIT, MAX_BATCH);
+                    final String[] batch = new String[batchSize];
+                    int n = 0;
+                    String line;
+                    while (n < batch.length && (line = source.readLine()) != null) {
+                        batch[n++] = line;
+                    }
+                    if (n == 0) {
+                        return null;
+                    }
+                    prefix = new Iter(this, batch, 0, n);
+                    skip(batch, 0, n);
+                }
+            } catch (IOException | IllegalArgumentException | DateTimeException e) {
+                throw new BackingStoreException(canNotParseFile(), e);
+            }
+            return prefix;
+        }
+
+        /**
+         * Updates the {@link #values} array to the state it would have after parsing the given lines.
+         * Only the last value of each column is parsed, in the last line where that column is not omitted.
+         *
+         * @param  batch  the lines to skip.
+         * @param  lower  index of the first line to skip.
+         * @param  upper  index after the last line to skip.
+         */
+        private void skip(final String[] batch, final int lower, int upper) {
+            int defined = 0;                                // Number of columns for which a value has been found.
+            while (defined < values.length && --upper >= lower) {
+                final int n = tokenizer.split(batch[upper]);
+                for (int i=defined; i<n; i++) {
+                    values[i] = value(i);
+                }
+                defined = Math.max(defined, n);
+            }
         }
 
         /**
-         * We do not know the number of features.
+         * Returns the number of remaining lines if this iterator has been created by {@link #trySplit()},
+         * or {@link Long#MAX_VALUE} if this iterator reads lines from {@link Store#source}
+         * since we do not know the number of features.
          */
         @Override
         public long estimateSize() {
-            return Long.MAX_VALUE;
+            return (lines != null) ? upper - lower : Long.MAX_VALUE;
         }
 
         /**
@@ -711,7 +884,8 @@ public final class Store extends FeatureStore {
          */
         @Override
         public int characteristics() {
-            return ORDERED | NONNULL | IMMUTABLE;
+            final int c = ORDERED | NONNULL | IMMUTABLE;
+            return (lines != null) ? c | SIZED | SUBSIZED : c;
         }
     }
 
@@ -94,7 +94,18 @@ class TimeEncoding extends SurjectiveConverter<String,Instant> {
      */
     @Override
     public Instant apply(final String time) {
-        final double value = Double.parseDouble(time) * interval;
+        return toInstant(Double.parseDouble(time));
+    }
+
+    /**
+     * Converts the given time, in units of this encoding, to an instant.
+     * This method is not applicable to the {@link #ABSOLUTE} encoding.
+     *
+     * @param  time  the time to convert.
+     * @return the instant for the given time.
+     */
+    final Instant toInstant(final double time) {
+        final double value = time * interval;
         final long millis = Math.round(value);
         return Instant.ofEpochMilli(millis + origin).plusNanos(Math.round((value - millis)*1E6));
     }
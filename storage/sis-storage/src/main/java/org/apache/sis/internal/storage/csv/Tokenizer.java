@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.csv;
+
+import java.util.Arrays;
+import org.apache.sis.util.CharSequences;
+
+
+/**
+ * Splits a line of a CSV file in fields without creating a {@code String} for each field.
+ * The fields are remembered as index ranges in the line, and numbers are parsed directly
+ * from those ranges. A {@code String} is created only for the fields that are text.
+ * Coordinates of trajectories are parsed in a buffer reused for all lines.
+ *
+ * <p>Instances of this class are not thread-safe. Each iterator over the features shall use its own instance.</p>
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class Tokenizer {
+    /**
+     * Largest value of the {@link #POWERS_OF_10} array index. Powers of 10 up to 10²² are exactly
+     * representable as {@code double} values.
+     */
+    private static final int MAX_EXACT_POWER = 22;
+
+    /**
+     * Powers of 10 which are exactly representable as {@code double} values.
+     */
+    private static final double[] POWERS_OF_10 = new double[MAX_EXACT_POWER + 1];
+    static {
+        double p = 1;
+        for (int i=0; i<POWERS_OF_10.length; i++) {
+            POWERS_OF_10[i] = p;
+            p *= 10;
+        }
+    }
+
+    /**
+     * Maximal number of significant digits for which the mantissa is exactly representable
+     * as a {@code double} value. This is 15 since 10¹⁵ &lt; 2⁵³.
+     */
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    /**
+     * The line to split.
+     */
+    private String line;
+
+    /**
+     * Index of the first character (inclusive) and last character (exclusive) of each field, after trimming
+     * leading and trailing white spaces. The range of field <var>i</var> is from {@code bounds[i*2]} to
+     * {@code bounds[i*2 + 1]}.
+     */
+    private int[] bounds;
+
+    /**
+     * Whether each field contains at least one quote.
+     */
+    private boolean[] hasQuotes;
+
+    /**
+     * Number of fields found in the current line.
+     */
+    private int count;
+
+    /**
+     * Buffer where to store the ordinate values of a trajectory before to copy them in an array of exact length.
+     */
+    private double[] ordinates;
+
+    /**
+     * Creates a new tokenizer for lines having at most the given number of fields.
+     * Fields after the maximal number are ignored.
+     *
+     * @param maxFields  maximal number of fields to split.
+     */
+    Tokenizer(final int maxFields) {
+        bounds    = new int[maxFields * 2];
+        hasQuotes = new boolean[maxFields];
+        ordinates = new double[32];
+    }
+
+    /**
+     * Splits the given line around the column separator. Quotes are taken in account.
+     * This method applies the same rules than {@link Store#split(String, java.util.List)}.
+     *
+     * @param  text  the line to split.
+     * @return number of fields found in the line, not greater than the maximal number of fields.
+     */
+    int split(final String text) {
+        line  = text;
+        count = 0;
+        final int max = hasQuotes.length;
+        if (max == 0) {
+            return 0;
+        }
+        int startAt = 0;
+        boolean isQuoting = false;        // If a quote has been opened and not yet closed.
+        boolean quoted    = false;        // If the value contains at least one quote (not used for quoting the value).
+        final int length = text.length();
+        for (int i=0; i<length; i++) {
+            switch (text.charAt(i)) {
+                case Store.QUOTE: {
+                    quoted = true;
+                    if (isQuoting && i+1 < length && text.charAt(i+1) == Store.QUOTE) {
+                        i++;
+                    } else {
+                        isQuoting = !isQuoting;
+                    }
+                    break;
+                }
+                case Store.SEPARATOR: {
+                    if (!isQuoting) {
+                        add(startAt, i, quoted);
+                        if (count == max) {
+                            return count;           // Reached the maximal number of fields.
+                        }
+                        startAt = i+1;
+                        quoted = false;
+                    }
+                    break;
+                }
+            }
+        }
+        add(startAt, length, quoted);
+        return count;
+    }
+
+    /**
+     * Adds a field for the given range of characters, after trimming leading and trailing white spaces.
+     */
+    private void add(int lower, int upper, final boolean quoted) {
+        lower = CharSequences.skipLeadingWhitespaces (line, lower, upper);
+        upper = CharSequences.skipTrailingWhitespaces(line, lower, upper);
+        bounds[count*2    ] = lower;
+        bounds[count*2 + 1] = upper;
+        hasQuotes[count++]  = quoted;
+    }
+
+    /**
+     * Returns the value of the given field as a character string, with quotes removed.
+     *
+     * @param  field  index of the field, from 0 inclusive to the value returned by {@link #split(String)} exclusive.
+     * @return the text of the given field.
+     */
+    String text(final int field) {
+        final int lower = bounds[field*2];
+        final int upper = bounds[field*2 + 1];
+        if (!hasQuotes[field]) {
+            return line.substring(lower, upper);
+        }
+        final StringBuilder buffer = new StringBuilder(upper - lower).append(line, lower, upper);
+        for (int i=0; i<buffer.length(); i++) {
+            if (buffer.charAt(i) == Store.QUOTE) {
+                buffer.deleteCharAt(i);
+                // If the deleted char was followed by another quote, that second quote will be preserved.
+            }
+        }
+        return CharSequences.trimWhitespaces(buffer).toString();
+    }
+
+    /**
+     * Returns {@code true} if the given field is empty.
+     *
+     * @param  field  index of the field, from 0 inclusive to the value returned by {@link #split(String)} exclusive.
+     * @return whether the given field is empty.
+     */
+    boolean isEmpty(final int field) {
+        return bounds[field*2] == bounds[field*2 + 1];
+    }
+
+    /**
+     * Parses the given field as a floating point number.
+     *
+     * @param  field  index of the field, from 0 inclusive to the value returned by {@link #split(String)} exclusive.
+     * @return the value of the given field.
+     * @throws NumberFormatException if the field is not a valid number.
+     */
+    double parseDouble(final int field) {
+        if (hasQuotes[field]) {
+            return Double.parseDouble(text(field));
+        }
+        return parseDouble(line, bounds[field*2], bounds[field*2 + 1]);
+    }
+
+    /**
+     * Parses the given field as an integer.
+     *
+     * @param  field  index of the field, from 0 inclusive to the value returned by {@link #split(String)} exclusive.
+     * @return the value of the given field.
+     * @throws NumberFormatException if the field is not a valid integer.
+     */
+    int parseInt(final int field) {
+        if (!hasQuotes[field]) {
+            final int lower = bounds[field*2];
+            final int upper = bounds[field*2 + 1];
+            int i = lower;
+            if (i < upper) {
+                final boolean negative = (line.charAt(i) == '-');
+                if (negative || line.charAt(i) == '+') i++;
+                if (i < upper && upper - i <= 9) {              // Up to 9 digits can not overflow.
+                    int value = 0;
+                    do {
+                        final int digit = line.charAt(i) - '0';
+                        if (digit < 0 || digit > 9) break;
+                        value = value * 10 + digit;
+                    } while (++i < upper);
+                    if (i == upper) {
+                        return negative ? -value : value;
+                    }
+                }
+            }
+        }
+        return Integer.parseInt(text(field));
+    }
+
+    /**
+     * Parses the given field as a sequence of ordinate values separated by spaces.
+     * Empty values between consecutive spaces are ignored, as in {@link CharSequences#parseDoubles(CharSequence, char)}.
+     *
+     * @param  field  index of the field, from 0 inclusive to the value returned by {@link #split(String)} exclusive.
+     * @return the ordinate values in the given field.
+     * @throws NumberFormatException if an ordinate is not a valid number.
+     */
+    double[] parseOrdinates(final int field) {
+        if (hasQuotes[field]) {
+            return CharSequences.parseDoubles(text(field), Store.ORDINATE_SEPARATOR);
+        }
+        final int upper = bounds[field*2 + 1];
+        int i = bounds[field*2];
+        int n = 0;
+        while (i < upper) {
+            int end = line.indexOf(Store.ORDINATE_SEPARATOR, i);
+            if (end < 0 || end > upper) end = upper;
+            final int lower = CharSequences.skipLeadingWhitespaces(line, i, end);
+            final int limit = CharSequences.skipTrailingWhitespaces(line, lower, end);
+            if (lower < limit) {
+                if (n == ordinates.length) {
+                    ordinates = Arrays.copyOf(ordinates, n * 2);
+                }
+                ordinates[n++] = parseDouble(line, lower, limit);
+            }
+            i = end + 1;
+        }
+        return Arrays.copyOf(ordinates, n);
+    }
+
+    /**
+     * Parses a floating point number in the given range of characters. This method handles directly the
+     * common case of numbers written in decimal notation with at most 15 significant digits and a small
+     * exponent, in which case the result is computed by a single multiplication or division of exactly
+     * representable values and is therefore correctly rounded. All other cases (more digits, large exponents,
+     * {@code NaN}, {@code Infinity}, hexadecimal notation, invalid numbers, <i>etc.</i>) are delegated to
+     * {@link Double#parseDouble(String)}.
+     *
+     * @param  text   the text containing the number to parse.
+     * @param  lower  index of the first character to parse, inclusive.
+     * @param  upper  index of the last character to parse, exclusive.
+     * @return the parsed number.
+     * @throws NumberFormatException if the text is not a valid number.
+     */
+    static double parseDouble(final CharSequence text, final int lower, final int upper) {
+        int i = lower;
+        if (i < upper) {
+            final char sign = text.charAt(i);
+            final boolean negative = (sign == '-');
+            if (negative || sign == '+') i++;
+            long mantissa = 0;
+            int  digits   = 0;                  // Number of significant digits, ignoring leading zeros.
+            int  exponent = 0;                  // Power of 10 by which to multiply the mantissa.
+            boolean hasDigit = false;
+            boolean fraction = false;
+            char c = 0;
+            for (; i < upper; i++) {
+                c = text.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    hasDigit = true;
+                    if (mantissa != 0 || c != '0') {
+                        if (++digits > MAX_EXACT_DIGITS) break;
+                        mantissa = mantissa * 10 + (c - '0');
+                    }
+                    if (fraction) exponent--;
+                } else if (c == '.' && !fraction) {
+                    fraction = true;
+                } else {
+                    break;
+                }
+            }
+            if (hasDigit && digits <= MAX_EXACT_DIGITS) {
+                if (i < upper && (c == 'e' || c == 'E')) {
+                    boolean negativeExponent = false;
+                    if (++i < upper) {
+                        final char s = text.charAt(i);
+                        negativeExponent = (s == '-');
+                        if (negativeExponent || s == '+') i++;
+                    }
+                    int e = 0;
+                    final int start = i;
+                    while (i < upper && i - start < 4) {
+                        final int digit = text.charAt(i) - '0';
+                        if (digit < 0 || digit > 9) break;
+                        e = e * 10 + digit;
+                        i++;
+                    }
+                    if (i == start) {
+                        i = -1;                             // Missing exponent digits: let Double.parseDouble(…) report the error.
+                    } else {
+                        exponent += negativeExponent ? -e : e;
+                    }
+                }
+                if (i == upper) {
+                    double value = mantissa;
+                    if (mantissa == 0) {
+                        return negative ? -0.0 : 0.0;
+                    }
+                    if (exponent >= 0) {
+                        if (exponent <= MAX_EXACT_POWER) {
+                            value *= POWERS_OF_10[exponent];
+                            return negative ? -value : value;
+                        }
+                    } else if (exponent >= -MAX_EXACT_POWER) {
+                        value /= POWERS_OF_10[-exponent];
+                        return negative ? -value : value;
+                    }
+                }
+            }
+        }
+        return Double.parseDouble(text.subSequence(lower, upper).toString());
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.index;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.io.IOException;
+import java.io.EOFException;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+/**
+ * Writes the records of a {@link SpatialIndex} file, sorted by key, using an external merge sort.
+ * Records are accumulated in memory until a given number of records is reached. Then the records
+ * are sorted and written in a temporary file (a "run"). When all records have been added, the runs
+ * are merged in the final index file. If all records fit in memory, no temporary file is created.
+ * The arrays holding the records in memory grow as needed, up to the maximal number of records.
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class IndexWriter {
+    /**
+     * Size of the buffers used for reading and writing files, in bytes.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Initial capacity of the arrays holding the records in memory.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Maximal number of records to keep in memory before to write a run.
+     */
+    private final int runLength;
+
+    /**
+     * The Z-order keys of the records in memory.
+     */
+    private long[] keys;
+
+    /**
+     * The feature ordinals of the records in memory.
+     */
+    private long[] ordinals;
+
+    /**
+     * The (xmin, ymin, xmax, ymax) envelopes of the records in memory.
+     */
+    private double[] bounds;
+
+    /**
+     * Number of records in memory.
+     */
+    private int count;
+
+    /**
+     * Total number of records added, including the ones written in the runs.
+     */
+    private long total;
+
+    /**
+     * Temporary files where sorted runs have been written.
+     */
+    private final List<Path> runs;
+
+    /**
+     * Whether {@link #finish(Path, ZOrder)} started to write the index file.
+     */
+    private boolean writing;
+
+    /**
+     * Creates a new writer which will keep at most the given number of records in memory.
+     *
+     * @param  runLength  maximal number of records to keep in memory.
+     */
+    IndexWriter(final int runLength) {
+        final int capacity = Math.min(runLength, INITIAL_CAPACITY);
+        this.runLength = runLength;
+        keys     = new long[capacity];
+        ordinals = new long[capacity];
+        bounds   = new double[capacity * 4];
+        runs     = new ArrayList<>();
+    }
+
+    /**
+     * Adds a record. Records shall be added in increasing ordinal order.
+     *
+     * @param  key      the Z-order key of the envelope.
+     * @param  ordinal  the position of the feature in the stream.
+     * @param  xmin     minimal <var>x</var> value of the feature envelope.
+     * @param  ymin     minimal <var>y</var> value of the feature envelope.
+     * @param  xmax     maximal <var>x</var> value of the feature envelope.
+     * @param  ymax     maximal <var>y</var> value of the feature envelope.
+     * @throws IOException if an error occurred while writing a run.
+     */
+    void add(final long key, final long ordinal, final double xmin, final double ymin,
+             final double xmax, final double ymax) throws IOException
+    {
+        if (count == keys.length) {
+            if (count < runLength) {
+                final int capacity = (int) Math.min(runLength, 2L * count);
+                keys     = Arrays.copyOf(keys,     capacity);
+                ordinals = Arrays.copyOf(ordinals, capacity);
+                bounds   = Arrays.copyOf(bounds,   capacity * 4);
+            } else {
+                final Path file = Files.createTempFile("SpatialIndex", ".run");
+                runs.add(file);
+                try (DataOutputStream out = output(file)) {
+                    writeSorted(out);
+                }
+                count = 0;
+            }
+        }
+        keys    [count] = key;
+        ordinals[count] = ordinal;
+        final int i = count * 4;
+        bounds[i  ] = xmin;
+        bounds[i+1] = ymin;
+        bounds[i+2] = xmax;
+        bounds[i+3] = ymax;
+        count++;
+        total++;
+    }
+
+    /**
+     * Opens a buffered output stream to the given file.
+     */
+    private static DataOutputStream output(final Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+    }
+
+    /**
+     * Sorts the records in memory and writes them to the given output.
+     * The sort is stable, so records having the same key stay in increasing ordinal order.
+     */
+    private void writeSorted(final DataOutputStream out) throws IOException {
+        final int[] order = new int[count];
+        for (int i=0; i<count; i++) {
+            order[i] = i;
+        }
+        mergeSort(order, new int[count], 0, count);
+        for (final int i : order) {
+            out.writeLong(keys[i]);
+            out.writeLong(ordinals[i]);
+            final int j = i * 4;
+            out.writeDouble(bounds[j  ]);
+            out.writeDouble(bounds[j+1]);
+            out.writeDouble(bounds[j+2]);
+            out.writeDouble(bounds[j+3]);
+        }
+    }
+
+    /**
+     * Sorts the given range of record indices by increasing key values.
+     * This is a stable merge sort operating on primitive indices for avoiding boxing.
+     */
+    private void mergeSort(final int[] order, final int[] work, final int lower, final int upper) {
+        final int length = upper - lower;
+        if (length <= 16) {
+            for (int i=lower+1; i<upper; i++) {                     // Insertion sort on small ranges.
+                final int v = order[i];
+                final long k = keys[v];
+                int j = i;
+                while (j > lower && keys[order[j-1]] > k) {
+                    order[j] = order[j-1];
+                    j--;
+                }
+                order[j] = v;
+            }
+            return;
+        }
+        final int mid = (lower + upper) >>> 1;
+        mergeSort(order, work, lower, mid);
+        mergeSort(order, work, mid, upper);
+        if (keys[order[mid-1]] <= keys[order[mid]]) {
+            return;                                                 // Already in order.
+        }
+        System.arraycopy(order, lower, work, lower, length);
+        int i = lower, j = mid, k = lower;
+        while (i < mid && j < upper) {
+            order[k++] = (keys[work[j]] < keys[work[i]]) ? work[j++] : work[i++];
+        }
+        while (i < mid)   order[k++] = work[i++];
+        while (j < upper) order[k++] = work[j++];
+    }
+
+    /**
+     * Writes the index file with all records added so far, then deletes the temporary files.
+     *
+     * @param  file    the index file to create.
+     * @param  domain  the (xmin, ymin, xmax, ymax) domain of validity of Z-order keys.
+     * @throws IOException if an error occurred while reading the runs or writing the index.
+     */
+    void finish(final Path file, final ZOrder domain) throws IOException {
+        writing = true;
+        try (DataOutputStream out = output(file)) {
+            out.writeInt(SpatialIndex.MAGIC_NUMBER);
+            out.writeInt(SpatialIndex.VERSION);
+            out.writeLong(total);
+            out.writeDouble(domain.xmin);
+            out.writeDouble(domain.ymin);
+            out.writeDouble(domain.xmax);
+            out.writeDouble(domain.ymax);
+            if (runs.isEmpty()) {
+                writeSorted(out);
+            } else {
+                if (count != 0) {
+                    final Path last = Files.createTempFile("SpatialIndex", ".run");
+                    runs.add(last);
+                    try (DataOutputStream run = output(last)) {
+                        writeSorted(run);
+                    }
+                    count = 0;
+                }
+                merge(out);
+            }
+        } finally {
+            for (final Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+            runs.clear();
+        }
+    }
+
+    /**
+     * Deletes the temporary files, and the index file if {@link #finish(Path, ZOrder)} started to write it.
+     * This method is invoked when the creation of the index failed. Errors that occur while deleting the
+     * files are added to the given exception.
+     *
+     * @param  file     the index file which was being created.
+     * @param  failure  the exception which caused the creation of the index to fail.
+     */
+    void discard(final Path file, final Throwable failure) {
+        if (writing) {
+            runs.add(file);
+        }
+        for (final Path path : runs) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                failure.addSuppressed(e);
+            }
+        }
+        runs.clear();
+        count = 0;
+    }
+
+    /**
+     * Merges all runs in the given output stream.
+     */
+    private void merge(final DataOutputStream out) throws IOException {
+        final PriorityQueue<Run> queue = new PriorityQueue<>(runs.size());
+        try {
+            for (final Path file : runs) {
+                final Run run = new Run(file);
+                if (run.next()) queue.add(run);
+                else run.in.close();
+            }
+            Run run;
+            while ((run = queue.poll()) != null) {
+                out.writeLong  (run.key);
+                out.writeLong  (run.ordinal);
+                out.writeDouble(run.xmin);
+                out.writeDouble(run.ymin);
+                out.writeDouble(run.xmax);
+                out.writeDouble(run.ymax);
+                if (run.next()) queue.add(run);
+                else run.in.close();
+            }
+        } finally {
+            for (final Run run : queue) {
+                run.in.close();
+            }
+        }
+    }
+
+    /**
+     * A sorted run being merged, together with its current record.
+     * Runs are ordered by the key, then by the ordinal of their current record.
+     */
+    private static final class Run implements Comparable<Run> {
+        /** The input stream of the run. */
+        final DataInputStream in;
+
+        /** The current record. */
+        long key, ordinal;
+
+        /** The envelope of the current record. */
+        double xmin, ymin, xmax, ymax;
+
+        /** Opens the given run file. */
+        Run(final Path file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+        }
+
+        /** Reads the next record, or returns {@code false} if there is no more records. */
+        boolean next() throws IOException {
+            try {
+                key = in.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            ordinal = in.readLong();
+            xmin    = in.readDouble();
+            ymin    = in.readDouble();
+            xmax    = in.readDouble();
+            ymax    = in.readDouble();
+            return true;
+        }
+
+        /** Compares the current records of two runs. */
+        @Override
+        public int compareTo(final Run other) {
+            final int c = Long.compare(key, other.key);
+            return (c != 0) ? c : Long.compare(ordinal, other.ordinal);
+        }
+    }
+}
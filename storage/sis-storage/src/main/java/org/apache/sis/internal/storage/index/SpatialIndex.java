@@ -0,0 +1,573 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.index;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.io.IOException;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.opengis.geometry.Envelope;
+import org.opengis.geometry.DirectPosition;
+import org.apache.sis.feature.DefaultAttributeType;
+import org.apache.sis.feature.DefaultFeatureType;
+import org.apache.sis.internal.feature.AttributeConvention;
+import org.apache.sis.internal.feature.Geometries;
+import org.apache.sis.internal.storage.FeatureStore;
+import org.apache.sis.internal.storage.Resources;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.collection.BackingStoreException;
+
+// Branch-dependent imports
+import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.AbstractIdentifiedType;
+import org.apache.sis.internal.jdk8.Consumer;
+import org.apache.sis.internal.jdk8.Spliterator;
+import org.apache.sis.internal.jdk8.Stream;
+import org.apache.sis.internal.jdk8.StreamSupport;
+
+
+/**
+ * A sorted on-disk index of feature envelopes, for answering bounding box queries without reading all features.
+ * The index is built in a single pass over a stream of features, for example the stream returned by
+ * {@link FeatureStore#features()}. For each feature having a geometry, the index stores the position of the
+ * feature in the stream (its <cite>ordinal</cite>), the envelope of its geometry and a {@linkplain ZOrder Z-order}
+ * key computed from that envelope. Records are sorted by key, so a bounding box query only needs to read the
+ * ranges of keys that may intersect the box.
+ *
+ * <div class="section">Geometries</div>
+ * The indexed property can be an {@link Envelope}, a {@link DirectPosition}, an array of (<var>x</var>,<var>y</var>)
+ * tuples as {@code double[]} (the pseudo-geometry used by the Moving Features CSV reader), or a geometry object from
+ * one of the libraries known to {@link Geometries}. If the property name is not specified, then the
+ * {@code "sis:envelope"} property is used if present, otherwise {@code "sis:geometry"}, otherwise the first
+ * attribute having one of above-cited types. Only the two first dimensions are indexed, and the coordinates
+ * are assumed in the CRS of the domain given at creation time. Features without geometry are not indexed.
+ *
+ * <div class="section">File format</div>
+ * The file starts with a header of {@value #HEADER_LENGTH} bytes containing a magic number, a version number,
+ * the number of records and the (<var>xmin</var>, <var>ymin</var>, <var>xmax</var>, <var>ymax</var>) domain
+ * of Z-order keys. The header is followed by fixed-length records of {@value #RECORD_LENGTH} bytes containing
+ * the key, the ordinal and the envelope of each feature, sorted by key then by ordinal. All values are stored
+ * in big-endian byte order.
+ *
+ * <div class="section">Limitation</div>
+ * {@link FeatureStore} does not yet provide random access to features. Consequently fetching the features
+ * selected by a query still iterates over the feature stream, but only up to the last selected feature and
+ * without evaluating the geometries of the features that are not selected.
+ *
+ * <p>Queries on the same {@code SpatialIndex} instance can be executed concurrently.</p>
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final class SpatialIndex implements AutoCloseable {
+    /**
+     * The magic number at the beginning of index files.
+     */
+    static final int MAGIC_NUMBER = 0x5349445A;
+
+    /**
+     * The version of the file format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Length of the file header, in bytes.
+     */
+    static final int HEADER_LENGTH = 2*(Integer.SIZE / Byte.SIZE) + (Long.SIZE / Byte.SIZE) + 4*(Double.SIZE / Byte.SIZE);
+
+    /**
+     * Length of each record, in bytes.
+     */
+    static final int RECORD_LENGTH = 2*(Long.SIZE / Byte.SIZE) + 4*(Double.SIZE / Byte.SIZE);
+
+    /**
+     * Default maximal number of records to sort in memory when building an index.
+     * The memory is allocated progressively, when the records are added.
+     */
+    private static final int DEFAULT_RUN_LENGTH = 1 << 18;
+
+    /**
+     * Maximal number of records to read in a single I/O operation during queries.
+     */
+    private static final int RECORDS_PER_READ = 1024;
+
+    /**
+     * The index file.
+     */
+    private final Path file;
+
+    /**
+     * The channel for reading the index file. Read operations use absolute positions,
+     * which allow concurrent queries.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The domain of validity of Z-order keys.
+     */
+    private final ZOrder zorder;
+
+    /**
+     * Number of records in the index.
+     */
+    private final long count;
+
+    /**
+     * Opens the index in the given file.
+     */
+    private SpatialIndex(final Path file) throws IOException, DataStoreContentException {
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            readFully(header, 0);
+            if (header.getInt() != MAGIC_NUMBER || header.getInt() != VERSION) {
+                throw new DataStoreContentException(Resources.format(Resources.Keys.UnknownFormatFor_1, file));
+            }
+            count  = header.getLong();
+            zorder = new ZOrder(header.getDouble(), header.getDouble(), header.getDouble(), header.getDouble());
+            if (channel.size() != HEADER_LENGTH + count * RECORD_LENGTH) {
+                throw new EOFException(file.toString());
+            }
+        } catch (IOException | DataStoreContentException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens an existing index file.
+     *
+     * @param  file  the index file.
+     * @return the index.
+     * @throws DataStoreException if the file can not be read or is not an index file.
+     */
+    public static SpatialIndex open(final Path file) throws DataStoreException {
+        ArgumentChecks.ensureNonNull("file", file);
+        try {
+            return new SpatialIndex(file);
+        } catch (IOException e) {
+            throw new DataStoreException(e);
+        }
+    }
+
+    /**
+     * Creates an index of the given features in the given file, then opens it.
+     * The stream is consumed in encounter order, but may be parallel. This method does not close the stream.
+     *
+     * @param  features  the features to index, typically the stream returned by {@link FeatureStore#features()}.
+     * @param  property  name of the property containing the geometries, or {@code null} for automatic detection.
+     * @param  domain    the expected extent of the geometries, or {@code null} for [-180 … 180]° × [-90 … 90]°.
+     *                   Geometries outside this domain are still indexed, but less efficiently.
+     * @param  file      the index file to create. An existing file is overwritten.
+     * @return the index.
+     * @throws DataStoreException if an error occurred while reading the features or writing the index.
+     *         In such case the temporary files are deleted, together with the index file if it has
+     *         been partially written.
+     */
+    public static SpatialIndex create(final Stream<AbstractFeature> features, final String property,
+            final Envelope domain, final Path file) throws DataStoreException
+    {
+        return create(features, property, domain, file, DEFAULT_RUN_LENGTH);
+    }
+
+    /**
+     * Implementation of {@link #create(Stream, String, Envelope, Path)} with a configurable
+     * maximal number of records to sort in memory. Exposed for testing purpose only.
+     */
+    static SpatialIndex create(final Stream<AbstractFeature> features, final String property,
+            final Envelope domain, final Path file, final int runLength) throws DataStoreException
+    {
+        ArgumentChecks.ensureNonNull("features", features);
+        ArgumentChecks.ensureNonNull("file", file);
+        final ZOrder zorder;
+        if (domain != null) {
+            ArgumentChecks.ensureDimensionMatches("domain", 2, domain);
+            zorder = new ZOrder(domain.getMinimum(0), domain.getMinimum(1), domain.getMaximum(0), domain.getMaximum(1));
+        } else {
+            zorder = new ZOrder(-180, -90, 180, 90);
+        }
+        final Builder builder = new Builder(zorder, property, runLength);
+        try {
+            try {
+                features.forEachOrdered(builder);
+                builder.writer.finish(file, zorder);
+                return new SpatialIndex(file);
+            } catch (Throwable e) {
+                builder.writer.discard(file, e);                // Delete the temporary files and the partial index.
+                throw e;
+            }
+        } catch (BackingStoreException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof DataStoreException) {
+                throw (DataStoreException) cause;
+            }
+            throw new DataStoreException(cause);
+        } catch (IOException e) {
+            throw new DataStoreException(e);
+        }
+    }
+
+    /**
+     * Adds the envelopes of features to an {@link IndexWriter}, in the order the features are given.
+     */
+    private static final class Builder implements Consumer<AbstractFeature> {
+        /** The domain of validity of Z-order keys. */
+        private final ZOrder zorder;
+
+        /** The name of the property to index as specified by the user, or {@code null} for automatic detection. */
+        private final String property;
+
+        /** The object where to write the records. */
+        final IndexWriter writer;
+
+        /** Ordinal of the next feature. */
+        private long ordinal;
+
+        /** Type of the last feature, for avoiding to search the property to index for each feature. */
+        private DefaultFeatureType type;
+
+        /** The property to index in features of type {@link #type}, or {@code null} if none. */
+        private String name;
+
+        /** The envelope of the current feature as (xmin, ymin, xmax, ymax). */
+        private final double[] bounds;
+
+        /** Creates a new builder. */
+        Builder(final ZOrder zorder, final String property, final int runLength) {
+            this.zorder   = zorder;
+            this.property = property;
+            this.writer   = new IndexWriter(runLength);
+            this.bounds   = new double[4];
+        }
+
+        /** Adds the envelope of the given feature, if it has a geometry. */
+        @Override
+        public void accept(final AbstractFeature feature) {
+            final long n = ordinal++;
+            if (feature.getType() != type) {
+                type = feature.getType();
+                name = (property != null) ? property : geometryProperty(type);
+            }
+            if (name != null && envelope(feature.getPropertyValue(name), bounds)) {
+                try {
+                    writer.add(zorder.key(bounds[0], bounds[1], bounds[2], bounds[3]), n,
+                                          bounds[0], bounds[1], bounds[2], bounds[3]);
+                } catch (IOException e) {
+                    throw new BackingStoreException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the property containing geometries in features of the given type,
+     * or {@code null} if none.
+     */
+    private static String geometryProperty(final DefaultFeatureType type) {
+        for (final String name : new String[] {
+            AttributeConvention.ENVELOPE_PROPERTY.toString(),
+            AttributeConvention.GEOMETRY_PROPERTY.toString()})
+        {
+            try {
+                type.getProperty(name);
+                return name;
+            } catch (IllegalArgumentException e) {
+                // No such property. Check the next one.
+            }
+        }
+        for (final AbstractIdentifiedType p : type.getProperties(true)) {
+            if (p instanceof DefaultAttributeType<?>) {
+                final Class<?> c = ((DefaultAttributeType<?>) p).getValueClass();
+                if (c == double[].class || Envelope.class.isAssignableFrom(c)
+                        || DirectPosition.class.isAssignableFrom(c) || Geometries.isKnownType(c))
+                {
+                    return p.getName().toString();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores the two-dimensional envelope of the given geometry in the given array.
+     *
+     * @param  geometry  the geometry for which to get the envelope, or {@code null}.
+     * @param  bounds    where to store the (xmin, ymin, xmax, ymax) values.
+     * @return {@code true} on success, or {@code false} if the geometry is null, empty or not recognized.
+     */
+    static boolean envelope(final Object geometry, final double[] bounds) {
+        if (geometry instanceof double[]) {
+            final double[] ordinates = (double[]) geometry;
+            if (ordinates.length < 2) {
+                return false;
+            }
+            double xmin = Double.POSITIVE_INFINITY, xmax = Double.NEGATIVE_INFINITY;
+            double ymin = Double.POSITIVE_INFINITY, ymax = Double.NEGATIVE_INFINITY;
+            for (int i=1; i<ordinates.length; i += 2) {
+                final double x = ordinates[i-1];
+                final double y = ordinates[i];
+                if (x < xmin) xmin = x;
+                if (x > xmax) xmax = x;
+                if (y < ymin) ymin = y;
+                if (y > ymax) ymax = y;
+            }
+            bounds[0] = xmin;
+            bounds[1] = ymin;
+            bounds[2] = xmax;
+            bounds[3] = ymax;
+        } else if (geometry instanceof DirectPosition) {
+            final DirectPosition p = (DirectPosition) geometry;
+            if (p.getDimension() < 2) {
+                return false;
+            }
+            bounds[0] = bounds[2] = p.getOrdinate(0);
+            bounds[1] = bounds[3] = p.getOrdinate(1);
+        } else {
+            final Envelope env = (geometry instanceof Envelope) ? (Envelope) geometry : Geometries.getEnvelope(geometry);
+            if (env == null || env.getDimension() < 2) {
+                return false;
+            }
+            bounds[0] = env.getMinimum(0);
+            bounds[1] = env.getMinimum(1);
+            bounds[2] = env.getMaximum(0);
+            bounds[3] = env.getMaximum(1);
+        }
+        return bounds[0] <= bounds[2] && bounds[1] <= bounds[3];            // False if NaN or empty.
+    }
+
+    /**
+     * Returns the number of features in this index.
+     * Features without geometry are not counted.
+     *
+     * @return number of indexed features.
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Returns the domain of validity of the keys in this index.
+     * This is the domain specified at index creation time.
+     *
+     * @return the domain of validity of keys.
+     */
+    public Envelope getDomain() {
+        final GeneralEnvelope domain = new GeneralEnvelope(2);
+        domain.setRange(0, zorder.xmin, zorder.xmax);
+        domain.setRange(1, zorder.ymin, zorder.ymax);
+        return domain;
+    }
+
+    /**
+     * Returns the ordinals of all features having an envelope intersecting the given area.
+     * Ordinals are the positions of features in the stream used for creating the index,
+     * and are returned in increasing order.
+     *
+     * @param  area  the area of interest, in the same CRS than the indexed geometries.
+     * @return ordinals of features intersecting the given area, in increasing order.
+     * @throws DataStoreException if an error occurred while reading the index.
+     */
+    public long[] query(final Envelope area) throws DataStoreException {
+        ArgumentChecks.ensureDimensionMatches("area", 2, area);
+        final double xmin = area.getMinimum(0);
+        final double ymin = area.getMinimum(1);
+        final double xmax = area.getMaximum(0);
+        final double ymax = area.getMaximum(1);
+        final long[] ranges = zorder.ranges(xmin, ymin, xmax, ymax, ZOrder.DEFAULT_REFINEMENT);
+        final ByteBuffer buffer = ByteBuffer.allocate(RECORDS_PER_READ * RECORD_LENGTH);
+        long[] selected = new long[64];
+        int n = 0;
+        long start = 0;                         // Index of the first record which may be in the next range.
+        try {
+            for (int r=0; r<ranges.length; r += 2) {
+                final long upper = ranges[r+1];
+                start = search(ranges[r], start);
+                long position = start;
+scan:           while (position < count) {
+                    buffer.clear().limit((int) Math.min(RECORDS_PER_READ, count - position) * RECORD_LENGTH);
+                    readFully(buffer, HEADER_LENGTH + position * RECORD_LENGTH);
+                    for (int p=0; p < buffer.limit(); p += RECORD_LENGTH) {
+                        if (buffer.getLong(p) > upper) break scan;
+                        if (buffer.getDouble(p + 16) <= xmax && buffer.getDouble(p + 24) <= ymax &&
+                            buffer.getDouble(p + 32) >= xmin && buffer.getDouble(p + 40) >= ymin)
+                        {
+                            if (n == selected.length) {
+                                selected = Arrays.copyOf(selected, n * 2);
+                            }
+                            selected[n++] = buffer.getLong(p + 8);
+                        }
+                        position++;
+                    }
+                }
+                start = position;
+            }
+        } catch (IOException e) {
+            throw new DataStoreException(e);
+        }
+        selected = Arrays.copyOf(selected, n);
+        Arrays.sort(selected);
+        return selected;
+    }
+
+    /**
+     * Returns the index of the first record having a key equal or greater than the given key.
+     *
+     * @param  key    the key to search.
+     * @param  lower  index of the first record to consider.
+     * @return index of the first record with a key equal or greater than the given key, or {@link #count} if none.
+     */
+    private long search(final long key, long lower) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(Long.SIZE / Byte.SIZE);
+        long upper = count;
+        while (lower < upper) {
+            final long mid = (lower + upper) >>> 1;
+            buffer.clear();
+            readFully(buffer, HEADER_LENGTH + mid * RECORD_LENGTH);
+            if (buffer.getLong(0) < key) {
+                lower = mid + 1;
+            } else {
+                upper = mid;
+            }
+        }
+        return lower;
+    }
+
+    /**
+     * Fills the given buffer with bytes read at the given position, then flips the buffer.
+     */
+    private void readFully(final ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            final int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new EOFException(file.toString());
+            }
+            position += n;
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Returns the features intersecting the given area. The given store shall be the store from which the index
+     * has been created, and its content shall not have changed since. The features are returned in the order of
+     * the {@link FeatureStore#features()} stream. The returned stream shall be closed after usage.
+     *
+     * @param  store  the store from which the index has been created.
+     * @param  area   the area of interest, in the same CRS than the indexed geometries.
+     * @return features intersecting the given area.
+     * @throws DataStoreException if an error occurred while reading the index or creating the feature stream.
+     */
+    public Stream<AbstractFeature> features(final FeatureStore store, final Envelope area) throws DataStoreException {
+        ArgumentChecks.ensureNonNull("store", store);
+        final long[] selected = query(area);
+        final Stream<AbstractFeature> source = store.features();
+        return StreamSupport.stream(new Selection(source.iterator(), selected), false).onClose(new Runnable() {
+            @Override public void run() {
+                source.close();
+            }
+        });
+    }
+
+    /**
+     * An iterator over the features at selected positions in a stream.
+     * The iteration stops after the last selected feature, without consuming the remaining of the stream.
+     */
+    private static final class Selection implements Spliterator<AbstractFeature> {
+        /** Iterator over all features. */
+        private final Iterator<AbstractFeature> source;
+
+        /** Ordinals of the features to return, in increasing order. */
+        private final long[] selected;
+
+        /** Index in the {@link #selected} array of the next feature to return. */
+        private int index;
+
+        /** Ordinal of the next feature to be returned by {@link #source}. */
+        private long position;
+
+        /** Creates a new iterator over the selected features. */
+        Selection(final Iterator<AbstractFeature> source, final long[] selected) {
+            this.source   = source;
+            this.selected = selected;
+        }
+
+        /** Sends the next selected feature to the given action. */
+        @Override
+        public boolean tryAdvance(final Consumer<? super AbstractFeature> action) {
+            if (index >= selected.length) {
+                return false;
+            }
+            final long target = selected[index++];
+            while (source.hasNext()) {
+                final AbstractFeature feature = source.next();
+                if (position++ == target) {
+                    action.accept(feature);
+                    return true;
+                }
+            }
+            index = selected.length;                // The stream has less features than expected.
+            return false;
+        }
+
+        /** Sends all remaining selected features to the given action. */
+        @Override
+        public void forEachRemaining(final Consumer<? super AbstractFeature> action) {
+            while (tryAdvance(action));
+        }
+
+        /** Can not split a sequential iterator. */
+        @Override
+        public Spliterator<AbstractFeature> trySplit() {
+            return null;
+        }
+
+        /** Returns the number of remaining features. */
+        @Override
+        public long estimateSize() {
+            return selected.length - index;
+        }
+
+        /** Returns the characteristics of this iterator. */
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | SIZED;
+        }
+    }
+
+    /**
+     * Closes this index.
+     *
+     * @throws DataStoreException if an error occurred while closing the file.
+     */
+    @Override
+    public void close() throws DataStoreException {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new DataStoreException(e);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.index;
+
+import java.util.Arrays;
+
+
+/**
+ * Computes Z-order (Morton) keys of two-dimensional envelopes in a fixed domain of validity.
+ * The domain is divided in a grid of 2<sup>31</sup> × 2<sup>31</sup> cells, and the key of a cell
+ * is computed by interleaving the bits of its column and row indices, with the <var>x</var> bit first.
+ * This is the same bit layout than the one used by geohashes: the 5×<var>n</var> highest bits of a
+ * key in the [-180 … 180]° × [-90 … 90]° domain are the <var>n</var> characters of the geohash in
+ * {@link org.apache.sis.index.GeoHashCoder.Format#BASE32} format.
+ *
+ * <p>A point is mapped to the key of the cell that contains it. An envelope is mapped to the key of the
+ * smallest quadtree node (a cell at a coarser level) which contains the whole envelope. That key is the
+ * key of the node lower-left cell, so all keys stay comparable with each other. Keys are never negative,
+ * so they can be sorted as ordinary signed {@code long} values.</p>
+ *
+ * <p>Instances of this class are immutable and thread-safe.</p>
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class ZOrder {
+    /**
+     * Number of bits used for the column index and for the row index.
+     * The keys use twice this number of bits.
+     */
+    static final int BITS_PER_DIMENSION = 31;
+
+    /**
+     * The largest column or row index.
+     */
+    private static final int MAX_INDEX = (1 << BITS_PER_DIMENSION) - 1;
+
+    /**
+     * Default number of quadtree levels to subdivide below the level of nodes having the query size.
+     */
+    static final int DEFAULT_REFINEMENT = 3;
+
+    /**
+     * The domain of validity. Coordinates outside this domain are clamped to the nearest border cell.
+     */
+    final double xmin, ymin, xmax, ymax;
+
+    /**
+     * Factors by which to multiply the coordinates, after subtraction of the minimal value,
+     * for getting column and row indices.
+     */
+    private final double scaleX, scaleY;
+
+    /**
+     * Creates a new encoder for the given domain of validity.
+     *
+     * @param xmin  minimal <var>x</var> value of the domain.
+     * @param ymin  minimal <var>y</var> value of the domain.
+     * @param xmax  maximal <var>x</var> value of the domain.
+     * @param ymax  maximal <var>y</var> value of the domain.
+     */
+    ZOrder(final double xmin, final double ymin, final double xmax, final double ymax) {
+        this.xmin = xmin;
+        this.ymin = ymin;
+        this.xmax = xmax;
+        this.ymax = ymax;
+        scaleX = (MAX_INDEX + 1d) / (xmax - xmin);
+        scaleY = (MAX_INDEX + 1d) / (ymax - ymin);
+    }
+
+    /**
+     * Returns the index of the column or row containing the given coordinate.
+     * Values outside the domain are clamped. NaN is mapped to 0.
+     */
+    private static int index(final double value, final double min, final double scale) {
+        final double i = Math.floor((value - min) * scale);
+        if (i >= MAX_INDEX) return MAX_INDEX;
+        if (i >= 0)         return (int) i;
+        return 0;
+    }
+
+    /**
+     * Returns the column index for the given <var>x</var> value.
+     */
+    final int column(final double x) {
+        return index(x, xmin, scaleX);
+    }
+
+    /**
+     * Returns the row index for the given <var>y</var> value.
+     */
+    final int row(final double y) {
+        return index(y, ymin, scaleY);
+    }
+
+    /**
+     * Spreads the 31 lowest bits of the given value in the even bits of a {@code long}.
+     */
+    private static long spread(final int value) {
+        long v = value & 0xFFFFFFFFL;
+        v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v <<  8)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v <<  4)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v <<  2)) & 0x3333333333333333L;
+        v = (v | (v <<  1)) & 0x5555555555555555L;
+        return v;
+    }
+
+    /**
+     * Returns the key of the cell at the given column and row indices.
+     *
+     * @param  column  index of the column, from 0 to 2<sup>31</sup>-1 inclusive.
+     * @param  row     index of the row, from 0 to 2<sup>31</sup>-1 inclusive.
+     * @return the Z-order key of the given cell.
+     */
+    static long interleave(final int column, final int row) {
+        return (spread(column) << 1) | spread(row);
+    }
+
+    /**
+     * Returns the key of the cell containing the given point.
+     *
+     * @param  x  the <var>x</var> coordinate.
+     * @param  y  the <var>y</var> coordinate.
+     * @return the Z-order key of the given point.
+     */
+    final long key(final double x, final double y) {
+        return interleave(column(x), row(y));
+    }
+
+    /**
+     * Returns the key of the smallest quadtree node containing the given envelope.
+     * If the envelope is a point, then this method returns the same key than {@link #key(double, double)}.
+     *
+     * @return the Z-order key of the given envelope.
+     */
+    final long key(final double x0, final double y0, final double x1, final double y1) {
+        final int c0 = column(x0), c1 = column(x1);
+        final int r0 = row   (y0), r1 = row   (y1);
+        /*
+         * Number of leading bits shared by all corners, ignoring the unused sign bit.
+         * The cells having the same leading bits are all in the same quadtree node.
+         */
+        final int level = Math.min(Integer.numberOfLeadingZeros(c0 ^ c1),
+                                   Integer.numberOfLeadingZeros(r0 ^ r1)) - 1;
+        if (level <= 0) {
+            return 0;
+        }
+        final int mask = MAX_INDEX & ~((1 << (BITS_PER_DIMENSION - level)) - 1);
+        return interleave(c0 & mask, r0 & mask);
+    }
+
+    /**
+     * Returns the ranges of keys to scan for finding all envelopes intersecting the given query.
+     * The returned array contains (<var>lower</var>, <var>upper</var>) pairs of inclusive bounds,
+     * sorted in increasing order and without overlapping. The ranges may contain keys of envelopes
+     * which do not intersect the query, so callers still need to verify each candidate.
+     *
+     * <p>The decomposition walks down the quadtree in key order. Nodes fully inside the query contribute
+     * the range of all their descendants. Nodes partially inside the query contribute only their own key
+     * (for the envelopes stored in that node) and are subdivided, until the nodes become smaller than the
+     * query by the given number of levels. The nodes still partially intersected at that level contribute
+     * the full range of their descendants. More refinement levels give tighter ranges, at the cost of more
+     * ranges (roughly proportional to 2<sup>refinement</sup>).</p>
+     *
+     * @param  x0          minimal <var>x</var> value of the query.
+     * @param  y0          minimal <var>y</var> value of the query.
+     * @param  x1          maximal <var>x</var> value of the query.
+     * @param  y1          maximal <var>y</var> value of the query.
+     * @param  refinement  number of levels to subdivide below the level of nodes having the query size.
+     * @return (lower, upper) pairs of inclusive key ranges.
+     */
+    final long[] ranges(final double x0, final double y0, final double x1, final double y1, final int refinement) {
+        final Ranges r = new Ranges(column(x0), row(y0), column(x1), row(y1), refinement);
+        r.add(0, 0, 0);
+        return Arrays.copyOf(r.ranges, r.count);
+    }
+
+    /**
+     * Accumulator of key ranges for {@link ZOrder#ranges(double, double, double, double, int)}.
+     * Ranges are added in increasing key order, which allows to merge them on the fly.
+     */
+    private static final class Ranges {
+        /** Column and row indices of the query, inclusive. */
+        private final int qc0, qr0, qc1, qr1;
+
+        /** Level at which to stop the subdivision. */
+        private final int maxLevel;
+
+        /** The (lower, upper) pairs of key ranges. */
+        long[] ranges;
+
+        /** Number of valid elements in the {@link #ranges} array. */
+        int count;
+
+        /** Creates a new accumulator for the given query. */
+        Ranges(final int qc0, final int qr0, final int qc1, final int qr1, final int refinement) {
+            this.qc0 = qc0;
+            this.qr0 = qr0;
+            this.qc1 = qc1;
+            this.qr1 = qr1;
+            final int size = Math.max(qc1 - qc0, qr1 - qr0);            // Query size minus one, in cells.
+            maxLevel = Math.min(BITS_PER_DIMENSION, Integer.numberOfLeadingZeros(size) - 1 + refinement);
+            ranges = new long[32];
+        }
+
+        /** Adds the given range, merging it with the previous one if they overlap or are adjacent. */
+        private void append(final long lower, final long upper) {
+            if (count != 0 && lower <= ranges[count - 1] + 1) {
+                if (upper > ranges[count - 1]) ranges[count - 1] = upper;
+            } else {
+                if (count == ranges.length) {
+                    ranges = Arrays.copyOf(ranges, count * 2);
+                }
+                ranges[count++] = lower;
+                ranges[count++] = upper;
+            }
+        }
+
+        /**
+         * Adds the ranges for the given node and its descendants, if they intersect the query.
+         *
+         * @param c      column index of the lower-left cell of the node.
+         * @param r      row index of the lower-left cell of the node.
+         * @param level  level of the node, from 0 for the root to 31 for a single cell.
+         */
+        void add(final int c, final int r, final int level) {
+            final int shift = BITS_PER_DIMENSION - level;               // log2 of the node width in cells.
+            final int ce = c + ((1 << shift) - 1);
+            final int re = r + ((1 << shift) - 1);
+            if (ce < qc0 || c > qc1 || re < qr0 || r > qr1) {
+                return;                                                 // Disjoint.
+            }
+            final long key = interleave(c, r);
+            if (level >= maxLevel || (c >= qc0 && ce <= qc1 && r >= qr0 && re <= qr1)) {
+                append(key, key + ((1L << (2*shift)) - 1));             // Node fully inside the query.
+            } else {
+                append(key, key);                                       // Envelopes stored in this node.
+                final int half = 1 << (shift - 1);                      // Children in increasing key order.
+                add(c,        r,        level + 1);
+                add(c,        r + half, level + 1);
+                add(c + half, r,        level + 1);
+                add(c + half, r + half, level + 1);
+            }
+        }
+    }
+}
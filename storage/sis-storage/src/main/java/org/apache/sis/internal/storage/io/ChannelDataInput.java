@@ -26,6 +26,7 @@ import java.nio.IntBuffer;
 import java.nio.LongBuffer;
 import java.nio.FloatBuffer;
 import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
 import org.apache.sis.internal.storage.Resources;
@@ -62,8 +63,16 @@ import org.apache.sis.internal.jdk8.JDK8;
  * the {@link javax.imageio.stream.ImageInputStream} one, mostly for situations when inter-operability with
  * {@link javax.imageio} is needed.
  *
+ * <div class="section">Random access in files</div>
+ * If the channel is a {@link FileChannel}, then {@link #duplicate(boolean)} can create other inputs over the
+ * same file, each of them with its own buffer and position. Those inputs use positional reads and can be used
+ * concurrently in different threads. They may also use a read-only buffer mapping the whole file in memory,
+ * in which case seeks do not perform any I/O operation and the views created by {@link HyperRectangleReader}
+ * read directly the file content. More generally, a read-only buffer is assumed to contain the whole stream
+ * content: no attempt to read more bytes from the channel is made in such case.
+ *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 0.8
  * @since   0.3
  * @module
  */
@@ -98,6 +107,66 @@ public class ChannelDataInput extends ChannelData {
         }
     }
 
+    /**
+     * Returns a new input for the same file than this input, but with its own buffer and stream position.
+     * The new input reads the file with {@link FileChannel#read(ByteBuffer, long)}, which does not use the
+     * position of the file channel. Consequently the new input can be used in another thread, concurrently
+     * with this input and with other duplicated inputs. The stream position of the new input is initially
+     * the same than the position of this input, and the byte order of the buffer is preserved.
+     *
+     * <p>If {@code map} is {@code true} and the file is not larger than 2 gigabytes, then the buffer of the
+     * new input is a read-only buffer mapping the file in memory. In such case, seeks do not perform any I/O
+     * operation and the views created over the buffer (for example by {@link HyperRectangleReader}) read
+     * directly the file content without intermediate copy. If this input is itself a mapped input, then the
+     * new input shares the same mapping. If this input is a non-mapped duplicate, then the mapping is created
+     * on the first request and shared by all mapped duplicates of this input. Consequently a non-mapped
+     * duplicate can be kept as a cheap template from which mapped inputs are created only when needed.</p>
+     *
+     * <p>Closing the {@linkplain #channel} of the returned input has no effect.
+     * The file remains owned by the channel of this input.</p>
+     *
+     * @param  map  whether to map the file in memory if possible.
+     * @return an input for the same file with its own position,
+     *         or {@code null} if the channel of this input does not support positional reads.
+     * @throws IOException if an error occurred while mapping the file or filling the buffer.
+     *
+     * @since 0.8
+     */
+    public final ChannelDataInput duplicate(final boolean map) throws IOException {
+        final FileChannel file;
+        if (channel instanceof FileChannel) {
+            file = (FileChannel) channel;
+        } else if (channel instanceof PositionalChannel) {
+            file = ((PositionalChannel) channel).file;
+        } else {
+            return null;
+        }
+        final ByteBuffer data;
+        if (buffer.isReadOnly()) {
+            data = buffer.duplicate();
+            data.clear();
+        } else {
+            final long size = file.size() - channelOffset;
+            if (map && size >= 0 && size <= Integer.MAX_VALUE) {
+                if (channel instanceof PositionalChannel) {
+                    data = ((PositionalChannel) channel).map(channelOffset, size);
+                } else {
+                    data = file.map(FileChannel.MapMode.READ_ONLY, channelOffset, size);
+                }
+            } else {
+                data = ByteBuffer.allocate(buffer.capacity());
+                data.limit(0);
+            }
+        }
+        data.order(buffer.order());
+        final ChannelDataInput input = new ChannelDataInput(filename, new PositionalChannel(file, channelOffset), data, true);
+        if (buffer.isReadOnly()) {
+            input.bufferOffset = bufferOffset;
+        }
+        input.seek(getStreamPosition());
+        return input;
+    }
+
     /**
      * Tries to read more bytes from the channel without changing the buffer position.
      * This method returns a negative number if the buffer is already full or if the channel reached the
@@ -139,6 +208,9 @@ public class ChannelDataInput extends ChannelData {
         if (buffer.hasRemaining()) {
             return true;
         }
+        if (buffer.isReadOnly()) {
+            return false;                   // Buffer contains the whole stream (e.g. memory-mapped file).
+        }
         bufferOffset += buffer.limit();
         buffer.clear();
         int c = channel.read(buffer);
@@ -163,6 +235,9 @@ public class ChannelDataInput extends ChannelData {
         assert n >= 0 && n <= buffer.capacity() : n;
         n -= buffer.remaining();
         if (n > 0) {
+            if (buffer.isReadOnly()) {
+                throw new EOFException(eof());      // Buffer contains the whole stream (e.g. memory-mapped file).
+            }
             bufferOffset += buffer.position();
             buffer.compact();
             do {
@@ -579,6 +654,13 @@ public class ChannelDataInput extends ChannelData {
         public void readFully(Buffer view, int offset, int length) throws IOException {
             final int dataSizeShift = dataSizeShift();
             ensureBufferContains(Math.min(length << dataSizeShift, buffer.capacity()));
+            if (view != null && (buffer.position() & ((1 << dataSizeShift) - 1)) != 0 && buffer.isReadOnly()) {
+                /*
+                 * Buffer position is not a multiple of the data size and we can not shift the buffer content
+                 * (e.g. memory-mapped file). Use a new view starting at the current buffer position instead.
+                 */
+                view = null;
+            }
             if (view == null) {
                 view = createView();                                    // Must be after ensureBufferContains(int).
             } else {
@@ -850,6 +932,12 @@ public class ChannelDataInput extends ChannelData {
              * Requested position is inside the current limits of the buffer.
              */
             buffer.position((int) p);
+        } else if (p > 0 && buffer.isReadOnly()) {
+            /*
+             * Requested position is after the buffer limit, but the buffer
+             * contains the whole stream (e.g. memory-mapped file).
+             */
+            throw new EOFException(eof());
         } else if (channel instanceof SeekableByteChannel) {
             /*
              * Requested position is outside the current limits of the buffer,
@@ -16,11 +16,19 @@
  */
 package org.apache.sis.internal.storage.io;
 
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ForkJoinPool;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import org.apache.sis.util.Numbers;
 import org.apache.sis.util.resources.Errors;
+import org.apache.sis.internal.system.CommonExecutor;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.DataStoreContentException;
 import org.apache.sis.util.Debug;
@@ -30,6 +38,14 @@ import org.apache.sis.util.Debug;
  * Helper methods for reading a rectangular area, a cube or a hyper-cube from a channel.
  * The data can be stored in an existing array, or a new array can be created.
  * This class does not handle compression; it is rather designed for efficient reading of uncompressed data.
+ * If the input is a memory-mapped file (see {@link ChannelDataInput#duplicate(boolean)}), then the values
+ * are copied directly from the mapped file to the array without intermediate buffer.
+ *
+ * <div class="section">Multi-threading</div>
+ * The {@link #read(Region)} method is not thread-safe since it uses the position of the channel given at
+ * construction time. The {@link #readConcurrently(Region)} method is thread-safe and can serve many requests
+ * at the same time, provided that the channel is a {@link java.nio.channels.FileChannel}. That method reads
+ * independent runs of contiguous values in parallel, using positional reads.
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
@@ -38,11 +54,35 @@ import org.apache.sis.util.Debug;
  * @module
  */
 public final class HyperRectangleReader {
+    /**
+     * Minimal number of bytes to be read by each task of {@link #readConcurrently(Region)}.
+     * Reading less bytes than this amount in a background thread would not be worth the overhead.
+     */
+    private static final int MIN_TASK_LENGTH = 65536;
+
     /**
      * The channel from which to read the values, together with a buffer for transferring data.
      */
     private final DataTransfer reader;
 
+    /**
+     * The type of elements to read, as one of the constants defined in {@link Numbers}.
+     */
+    private final byte dataType;
+
+    /**
+     * The input given at construction time, or {@code null} if the data were given in a buffer.
+     */
+    private final ChannelDataInput input;
+
+    /**
+     * An input for the same file than {@link #input} but with its own position, used as a template for creating
+     * the inputs of the tasks executed by {@link #readConcurrently(Region)}. This input is never used for reading
+     * data, so it can be duplicated by many threads. This is {@code null} if not yet created, or {@link #input}
+     * if the channel does not support positional reads.
+     */
+    private ChannelDataInput positional;
+
     /**
      * The {@code input} position of the first sample (ignoring sub-area and sub-sampling).
      */
@@ -59,6 +99,36 @@ public final class HyperRectangleReader {
     public HyperRectangleReader(final byte dataType, final ChannelDataInput input, final long origin)
             throws DataStoreException
     {
+        reader = transfer(dataType, input);
+        this.dataType = dataType;
+        this.input    = input;
+        this.origin   = origin;
+    }
+
+    /**
+     * Creates a new reader for the data in an existing buffer.
+     * The data will be read from the current buffer position to the buffer limit.
+     *
+     * @param  filename  a data source name, for error messages or debugging purpose.
+     * @param  data      a buffer containing the data to read.
+     * @throws IOException should never happen.
+     */
+    public HyperRectangleReader(final String filename, final Buffer data) throws IOException {
+        reader   = new MemoryDataTransfer(filename, data).reader();
+        dataType = 0;
+        input    = null;
+        origin   = 0;
+    }
+
+    /**
+     * Creates the object which will transfer the data from the given input to an array of the given type.
+     *
+     * @param  dataType  the type of elements to read, as one of the constants defined in {@link Numbers}.
+     * @param  input     the channel from which to read the values, together with a buffer for transferring data.
+     * @throws DataStoreException if the given {@code dataType} is not one of the supported values.
+     */
+    private static DataTransfer transfer(final byte dataType, final ChannelDataInput input) throws DataStoreException {
+        final DataTransfer reader;
         switch (dataType) {
             case Numbers.BYTE:      reader = input.new BytesReader  (           null); break;
             case Numbers.CHARACTER: reader = input.new CharsReader  ((char[])   null); break;
@@ -69,7 +139,6 @@ public final class HyperRectangleReader {
             case Numbers.DOUBLE:    reader = input.new DoublesReader((double[]) null); break;
             default: throw new DataStoreContentException(Errors.format(Errors.Keys.UnknownType_1, dataType));
         }
-        this.origin = origin;
         final ByteBuffer buffer = input.buffer;
         final int pos = buffer.position();
         final int lim = buffer.limit();
@@ -79,19 +148,7 @@ public final class HyperRectangleReader {
         } finally {
             buffer.limit(lim).position(pos);
         }
-    }
-
-    /**
-     * Creates a new reader for the data in an existing buffer.
-     * The data will be read from the current buffer position to the buffer limit.
-     *
-     * @param  filename  a data source name, for error messages or debugging purpose.
-     * @param  data      a buffer containing the data to read.
-     * @throws IOException should never happen.
-     */
-    public HyperRectangleReader(final String filename, final Buffer data) throws IOException {
-        reader = new MemoryDataTransfer(filename, data).reader();
-        origin = 0;
+        return reader;
     }
 
     /**
@@ -113,23 +170,251 @@ public final class HyperRectangleReader {
      * @throws IOException if an error occurred while transferring data from the channel.
      */
     public Object read(final Region region) throws IOException {
-        final int contiguousDataLength = region.targetLength(region.contiguousDataDimension);
-        final long[] strides = new long[region.getDimension() - region.contiguousDataDimension];
-        final int[]   cursor = new int[strides.length];
-        final int  sizeShift = reader.dataSizeShift();
-        long  streamPosition = origin + (region.startAt << sizeShift);
-        int    arrayPosition = 0;
-        for (int i=0; i<strides.length; i++) {
-            strides[i] = (region.skips[i + region.contiguousDataDimension] + contiguousDataLength) << sizeShift;
-            assert (strides[i] > 0) : i;
-        }
         try {
             reader.createDataArray(region.targetLength(region.getDimension()));
+            new Runs(region, reader.dataSizeShift()).read(reader, 0, Integer.MAX_VALUE);
+            return reader.dataArray();
+        } finally {
+            reader.setDest(null);
+        }
+    }
+
+    /**
+     * Reads data in the given region, potentially in parallel. This method can be invoked concurrently
+     * by different threads, but not concurrently with {@link #read(Region)}. The runs of contiguous values
+     * are divided in ranges read by different tasks in the {@linkplain CommonExecutor common executor},
+     * each task using positional reads in an input of its own. All tasks store the values in the same array.
+     * Tasks read the file through a memory-mapped buffer when possible, or otherwise through blocking reads
+     * declared to the executor with {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)}.
+     *
+     * <p>If the channel does not support positional reads, or if the data were given in a buffer,
+     * then this method fallbacks on the sequential {@link #read(Region)} method in a synchronized block.</p>
+     *
+     * @param  region  the sub-area to read and the sub-sampling to use.
+     * @return the data in an array of primitive type.
+     * @throws IOException if an error occurred while transferring data from the channel.
+     */
+    public Object readConcurrently(final Region region) throws IOException {
+        final ChannelDataInput template;
+        synchronized (this) {
+            if (input == null) {
+                return read(region);
+            }
+            if (positional == null) {
+                positional = input.duplicate(true);
+                if (positional == null) {
+                    positional = input;
+                }
+            }
+            if (positional == input) {
+                return read(region);
+            }
+            template = positional;
+        }
+        final Runs runs = new Runs(region, reader.dataSizeShift());
+        final DataTransfer first;
+        try {
+            first = transfer(dataType, template.duplicate(true));
+        } catch (DataStoreException e) {
+            throw new AssertionError(e);                    // Should never happen since the type has been verified.
+        }
+        first.createDataArray(region.targetLength(region.getDimension()));
+        final Object array = first.dataArray();
+        /*
+         * Number of runs to be read by each task. The first range is read in the current thread,
+         * all other ranges are read in background threads.
+         */
+        final int runLength = Math.max(1, runs.length << runs.sizeShift);
+        int tasks = Math.min(CommonExecutor.parallelism(), runs.count / Math.max(1, MIN_TASK_LENGTH / runLength));
+        if (tasks <= 1) {
+            runs.read(first, 0, runs.count);
+            return array;
+        }
+        final int runsPerTask = (runs.count + (tasks - 1)) / tasks;
+        tasks = (runs.count + (runsPerTask - 1)) / runsPerTask;
+        final ForkJoinPool executor = CommonExecutor.instance();
+        final List<Future<Object>> futures = new ArrayList<>(tasks - 1);
+        try {
+            for (int i=1; i<tasks; i++) {
+                final int lower = i * runsPerTask;
+                final int upper = Math.min(lower + runsPerTask, runs.count);
+                futures.add(executor.submit(new Callable<Object>() {
+                    @Override public Object call() throws IOException, DataStoreException, InterruptedException {
+                        final ChannelDataInput in = template.duplicate(true);
+                        final DataTransfer task = transfer(dataType, in);
+                        task.setDest(array);
+                        if (in.buffer.isReadOnly()) {
+                            runs.read(task, lower, upper);          // Memory-mapped file: no blocking read.
+                        } else {
+                            final BlockingRead blocker = new BlockingRead(runs, task, lower, upper);
+                            ForkJoinPool.managedBlock(blocker);
+                            if (blocker.failure != null) {
+                                throw blocker.failure;
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            runs.read(first, 0, runsPerTask);
+            for (final Future<Object> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException)      throw (IOException)      cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error)            throw (Error)            cause;
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getLocalizedMessage());
+        } finally {
+            for (final Future<Object> future : futures) {
+                future.cancel(false);               // No effect on tasks already completed.
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Reads a range of runs on a channel which is not memory-mapped. Reads are executed by
+     * {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)}, which allows the executor
+     * to compensate for the worker threads blocked on I/O operations.
+     */
+    private static final class BlockingRead implements ForkJoinPool.ManagedBlocker {
+        /** The runs to read. */
+        private final Runs runs;
+
+        /** Where to store the values. */
+        private final DataTransfer task;
+
+        /** Index of the first run (inclusive) and last run (exclusive) to read. */
+        private final int lower, upper;
+
+        /** The exception that occurred while reading, or {@code null} if none. */
+        IOException failure;
+
+        /** Whether the read has been done. */
+        private boolean done;
+
+        /** Creates a new read operation for the given range of runs. */
+        BlockingRead(final Runs runs, final DataTransfer task, final int lower, final int upper) {
+            this.runs  = runs;
+            this.task  = task;
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        /** Reads all runs in the range given at construction time. */
+        @Override
+        public boolean block() {
+            try {
+                runs.read(task, lower, upper);
+            } catch (IOException e) {
+                failure = e;
+            }
+            done = true;
+            return true;
+        }
+
+        /** Returns whether the read has been done. */
+        @Override
+        public boolean isReleasable() {
+            return done;
+        }
+    }
+
+    /**
+     * The runs of contiguous values to read in a region. A run may be a row, or a plane, or a cube, <i>etc.</i>
+     * depending if we have to skip values or not between rows/planes/cubes. Runs are identified by an index
+     * from 0 inclusive to {@link #count} exclusive, in the order they are stored in the target array.
+     * Instances of this class are immutable and can be used by many threads.
+     */
+    private final class Runs {
+        /**
+         * The region to read.
+         */
+        private final Region region;
+
+        /**
+         * Number of values in each run of contiguous values.
+         */
+        final int length;
+
+        /**
+         * Total number of runs.
+         */
+        final int count;
+
+        /**
+         * The size of the Java primitive type which is the element of the array, as the number of bits to shift.
+         */
+        final int sizeShift;
+
+        /**
+         * Number of bytes to skip in the stream when the index in a dimension is incremented.
+         * The index in all lower dimensions is reset to zero at the same time.
+         */
+        private final long[] strides;
+
+        /**
+         * Number of bytes between the position of the first run and the position of the first run having
+         * index 1 in a dimension, all other indices being zero. Used for starting a read at an arbitrary run.
+         */
+        private final long[] offsets;
+
+        /**
+         * Computes the runs in the given region.
+         */
+        Runs(final Region region, final int sizeShift) {
+            this.region    = region;
+            this.sizeShift = sizeShift;
+            length  = region.targetLength(region.contiguousDataDimension);
+            count   = region.targetLength(region.getDimension()) / Math.max(1, length);
+            strides = new long[region.getDimension() - region.contiguousDataDimension];
+            offsets = new long[strides.length];
+            long previous = 0;
+            for (int i=0; i<strides.length; i++) {
+                strides[i] = (region.skips[i + region.contiguousDataDimension] + length) << sizeShift;
+                assert (strides[i] > 0) : i;
+                offsets[i] = strides[i] + previous;
+                previous  += (size(i) - 1) * offsets[i];
+            }
+        }
+
+        /**
+         * Returns the number of runs along the given dimension, relative to {@link Region#contiguousDataDimension}.
+         */
+        private long size(final int i) {
+            return region.targetSize[region.contiguousDataDimension + i];
+        }
+
+        /**
+         * Reads the runs from index {@code lower} inclusive to {@code upper} exclusive.
+         * The values are stored in the array of the given reader.
+         *
+         * @param  reader  the object to use for reading the values.
+         * @param  lower   index of the first run to read.
+         * @param  upper   index after the last run to read.
+         * @throws IOException if an error occurred while transferring data from the channel.
+         */
+        void read(final DataTransfer reader, final int lower, int upper) throws IOException {
+            final int[] cursor = new int[strides.length];
+            long streamPosition = origin + (region.startAt << sizeShift);
+            int  index = lower;
+            for (int i=0; i<cursor.length; i++) {
+                final long n = size(i);
+                cursor[i] = (int) (index % n);
+                streamPosition += cursor[i] * offsets[i];
+                index /= n;
+            }
+            int arrayPosition = lower * length;
+            upper = Math.min(upper, count);
             final Buffer view = reader.view();
-loop:       do {
+loop:       for (int run = lower; run < upper; run++) {
                 reader.seek(streamPosition);
-                assert reader.view() == view;
-                reader.readFully(view, arrayPosition, contiguousDataLength);
+                reader.readFully(view, arrayPosition, length);
                 for (int i=0; i<cursor.length; i++) {
                     /*
                      * After we have read as much contiguous data as we can (may be a row, or a plane, or
@@ -138,18 +423,15 @@ loop:       do {
                      * new row, or a new plane, or a new cube?). This determine how many bytes we have to
                      * skip.
                      */
-                    if (++cursor[i] < region.targetSize[region.contiguousDataDimension + i]) {
+                    if (++cursor[i] < size(i)) {
                         streamPosition += strides[i];
-                        arrayPosition  += contiguousDataLength;
+                        arrayPosition  += length;
                         continue loop;
                     }
                     cursor[i] = 0;
                 }
                 break;
-            } while (true);
-            return reader.dataArray();
-        } finally {
-            reader.setDest(null);
+            }
         }
     }
 }
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.NonWritableChannelException;
+import org.apache.sis.util.resources.Errors;
+
+
+/**
+ * A read-only view over a file channel with its own position. All read operations are delegated to
+ * {@link FileChannel#read(ByteBuffer, long)}, which does not modify the position of the file channel.
+ * Consequently many {@code PositionalChannel} instances can read the same file concurrently, each of
+ * them in a different thread, without interfering with each other or with the users of the file channel.
+ *
+ * <p>This class does not own the file channel: invoking {@link #close()} on a {@code PositionalChannel}
+ * has no effect. It is caller's responsibility to close the file channel when no longer needed.</p>
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ *
+ * @see ChannelDataInput#duplicate(boolean)
+ */
+final class PositionalChannel implements SeekableByteChannel {
+    /**
+     * The channel from which to read the bytes.
+     */
+    final FileChannel file;
+
+    /**
+     * The position of this channel, independent of the file channel position.
+     */
+    private long position;
+
+    /**
+     * A read-only buffer mapping the file in memory from the initial position of this channel,
+     * or {@code null} if not yet created. This mapping is shared by all inputs reading through
+     * this channel.
+     *
+     * @see #map(long, long)
+     */
+    private ByteBuffer mapped;
+
+    /**
+     * Creates a new view over the given file channel.
+     *
+     * @param file      the channel from which to read the bytes.
+     * @param position  the initial position of this channel.
+     */
+    PositionalChannel(final FileChannel file, final long position) {
+        this.file     = file;
+        this.position = position;
+    }
+
+    /**
+     * Returns a read-only buffer mapping the given region of the file in memory. The mapping is created
+     * on the first invocation of this method and shared by all subsequent invocations, so callers shall
+     * always specify the same region. Each invocation returns a new buffer with its own position.
+     *
+     * @param  offset  position in the file of the first byte to map.
+     * @param  size    number of bytes to map.
+     * @return a buffer mapping the given region of the file.
+     * @throws IOException if an error occurred while mapping the file.
+     */
+    final synchronized ByteBuffer map(final long offset, final long size) throws IOException {
+        if (mapped == null) {
+            mapped = file.map(FileChannel.MapMode.READ_ONLY, offset, size);
+        }
+        return mapped.duplicate();
+    }
+
+    /**
+     * Reads a sequence of bytes from the file, starting at the position of this channel.
+     *
+     * @param  dst  the buffer where to transfer the bytes.
+     * @return the number of bytes read, or -1 if the end of file has been reached.
+     * @throws IOException if an error occurred while reading the file.
+     */
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        final int n = file.read(dst, position);
+        if (n > 0) {
+            position += n;
+        }
+        return n;
+    }
+
+    /**
+     * Unsupported operation, since this channel is read-only.
+     */
+    @Override
+    public int write(final ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    /**
+     * Returns the position of this channel.
+     */
+    @Override
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Sets the position of this channel. This method does not perform any I/O operation.
+     *
+     * @param  newPosition  the new position.
+     * @return {@code this}.
+     */
+    @Override
+    public SeekableByteChannel position(final long newPosition) {
+        if (newPosition < 0) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.NegativeArgument_2, "newPosition", newPosition));
+        }
+        position = newPosition;
+        return this;
+    }
+
+    /**
+     * Returns the size of the file.
+     *
+     * @return the file size in bytes.
+     * @throws IOException if an error occurred while querying the file size.
+     */
+    @Override
+    public long size() throws IOException {
+        return file.size();
+    }
+
+    /**
+     * Unsupported operation, since this channel is read-only.
+     */
+    @Override
+    public SeekableByteChannel truncate(final long size) {
+        throw new NonWritableChannelException();
+    }
+
+    /**
+     * Returns whether the file channel is open.
+     */
+    @Override
+    public boolean isOpen() {
+        return file.isOpen();
+    }
+
+    /**
+     * Does nothing, since this class does not own the file channel.
+     */
+    @Override
+    public void close() {
+    }
+}
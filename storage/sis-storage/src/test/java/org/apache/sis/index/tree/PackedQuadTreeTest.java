@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.index.tree;
+
+import java.util.Set;
+import java.util.HashSet;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Random;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.apache.sis.referencing.CommonCRS;
+import org.apache.sis.geometry.DirectPosition2D;
+import org.apache.sis.geometry.Envelope2D;
+import org.apache.sis.distance.DistanceUtils;
+import org.apache.sis.test.TestUtilities;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+// Branch-dependent imports
+import org.apache.sis.internal.jdk8.Consumer;
+
+
+/**
+ * Tests {@link PackedQuadTree}.
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final strictfp class PackedQuadTreeTest extends TestCase {
+    /**
+     * A point to store in the quad tree.
+     */
+    private static final class Point implements QuadTreeData {
+        private final DirectPosition2D latLon;
+
+        Point(final double lon, final double lat) {
+            latLon = new DirectPosition2D(lon, lat);
+        }
+
+        @Override public double getX() {return latLon.x + 180;}
+        @Override public double getY() {return latLon.y +  90;}
+        @Override public DirectPosition2D getLatLon() {return latLon;}
+        @Override public String getFileName() {return latLon.toString();}
+    }
+
+    /**
+     * A consumer collecting the data in a set, and verifying that no data is given twice.
+     */
+    private static final class Collector implements Consumer<QuadTreeData> {
+        final Set<QuadTreeData> found = new HashSet<>();
+
+        @Override public void accept(final QuadTreeData data) {
+            assertTrue("Duplicated data.", found.add(data));
+        }
+    }
+
+    /**
+     * Creates random points. Some points are duplicated for testing the depth limit.
+     */
+    private static List<Point> createPoints(final Random random, final int count) {
+        final List<Point> points = new ArrayList<>(count);
+        for (int i=0; i<count; i++) {
+            if (i != 0 && random.nextInt(20) == 0) {
+                final Point p = points.get(random.nextInt(i));
+                points.add(new Point(p.latLon.x, p.latLon.y));
+            } else {
+                points.add(new Point(random.nextDouble() * 360 - 180, random.nextDouble() * 180 - 90));
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Tests {@link PackedQuadTree#queryByBoundingBox(Envelope2D, Consumer)} by comparing with a full scan,
+     * including a region crossing the anti-meridian.
+     */
+    @Test
+    public void testQueryByBoundingBox() {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final CoordinateReferenceSystem crs = CommonCRS.defaultGeographic();
+        final PackedQuadTree tree = new PackedQuadTree(8, 20);
+        final List<Point> inserted = new ArrayList<>();
+        for (final Point p : createPoints(random, 5000)) {
+            if (tree.insert(p)) {
+                inserted.add(p);
+            }
+        }
+        assertEquals("size", inserted.size(), tree.size());
+        for (int i=0; i<30; i++) {
+            final double x0, x1;
+            if (i % 5 == 0) {
+                x0 = random.nextDouble() * 180;                     // Region crossing the anti-meridian.
+                x1 = random.nextDouble() * x0 - 180;
+            } else {
+                x0 = random.nextDouble() * 360 - 180;
+                x1 = Math.min(180, x0 + random.nextDouble() * 60);
+            }
+            final double y0 = random.nextDouble() * 150 - 90;
+            final double y1 = y0 + random.nextDouble() * 30;
+            final Envelope2D region = new Envelope2D(new DirectPosition2D(crs, x0, y0), new DirectPosition2D(crs, x1, y1));
+            final Set<QuadTreeData> expected = new HashSet<>();
+            for (final Point p : inserted) {
+                final double x = p.latLon.x, y = p.latLon.y;
+                if (y >= y0 && y < y1 && ((x0 <= x1) ? (x >= x0 && x < x1) : (x >= x0 || x < x1))) {
+                    expected.add(p);
+                }
+            }
+            final Collector c = new Collector();
+            tree.queryByBoundingBox(region, c);
+            assertEquals(region.toString(), expected, c.found);
+        }
+    }
+
+    /**
+     * Tests {@link PackedQuadTree#queryByPointRadius(DirectPosition2D, double, Consumer)} by comparing with the
+     * search in a {@link QuadTree}. Both trees search only in the rectangular approximation of the circle, so
+     * we can not compare with a full scan. But we verify that all results are within the radius.
+     */
+    @Test
+    public void testQueryByPointRadius() {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final QuadTree original = new QuadTree(10, 30);
+        final PackedQuadTree tree = new PackedQuadTree(10, 30);
+        for (final Point p : createPoints(random, 3000)) {
+            assertTrue(original.insert(p));
+            assertTrue(tree.insert(p));
+        }
+        for (int i=0; i<30; i++) {
+            final DirectPosition2D center = new DirectPosition2D(random.nextDouble() * 340 - 170,
+                                                                 random.nextDouble() * 140 - 70);
+            final double radius = random.nextDouble() * 2000;
+            final Collector c = new Collector();
+            tree.queryByPointRadius(center, radius, c);
+            assertEquals(center.toString(), new HashSet<>(original.queryByPointRadius(center, radius)), c.found);
+            for (final QuadTreeData p : c.found) {
+                final DirectPosition2D pos = p.getLatLon();
+                assertTrue(DistanceUtils.getHaversineDistance(pos.y, pos.x, center.y, center.x) <= radius);
+            }
+        }
+    }
+
+    /**
+     * Tests the copy of a {@link QuadTree}.
+     */
+    @Test
+    public void testCopy() {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final QuadTree original = new QuadTree(10, 30);
+        for (final Point p : createPoints(random, 1000)) {
+            original.insert(p);
+        }
+        final PackedQuadTree tree = new PackedQuadTree(original);
+        assertEquals("capacity", original.getCapacity(), tree.getCapacity());
+        assertEquals("depth",    original.getDepth(),    tree.getDepth());
+        assertEquals("size",     original.size(),        tree.size());
+        final Envelope2D region = new Envelope2D(new DirectPosition2D(-40, -20), new DirectPosition2D(60, 50));
+        final Collector c = new Collector();
+        tree.queryByBoundingBox(region, c);
+        assertEquals(new HashSet<>(original.queryByBoundingBox(region)), c.found);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.awt.image.Raster;
+import java.awt.image.DataBuffer;
+import java.awt.image.BandedSampleModel;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link TileCache}.
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final strictfp class TileCacheTest extends TestCase {
+    /**
+     * Creates a tile of 100×100 pixels with one band of the given type.
+     */
+    private static Raster tile(final int dataType) {
+        return Raster.createWritableRaster(new BandedSampleModel(dataType, 100, 100, 1), null);
+    }
+
+    /**
+     * Tests the cost of tiles, which shall be their size in bytes.
+     */
+    @Test
+    public void testCost() {
+        final TileCache cache = new TileCache(1000, false);
+        assertEquals(10000, cache.cost(tile(DataBuffer.TYPE_BYTE)));
+        assertEquals(20000, cache.cost(tile(DataBuffer.TYPE_USHORT)));
+        assertEquals(40000, cache.cost(tile(DataBuffer.TYPE_FLOAT)));
+        assertEquals(80000, cache.cost(tile(DataBuffer.TYPE_DOUBLE)));
+    }
+
+    /**
+     * Tests the eviction of eldest tiles when the memory budget is exceeded,
+     * together with the hit and miss counts.
+     *
+     * @throws Exception should never happen.
+     */
+    @Test
+    public void testMemoryBudget() throws Exception {
+        final TileCache cache = new TileCache(30000, true);
+        final Object source = new Object();
+        final Raster[] tiles = new Raster[4];
+        for (int i=0; i<tiles.length; i++) {
+            tiles[i] = tile(DataBuffer.TYPE_BYTE);
+            cache.put(new TileCache.Key(source, 0, i), tiles[i]);
+        }
+        assertEquals("evictions", 1, cache.getEvictionCount());
+        assertSame(tiles[3], cache.peek(new TileCache.Key(source, 0, 3)));
+        assertNull(cache.peek(new TileCache.Key(source, 1, 3)));
+        assertEquals("hits", 1, cache.getHitCount());
+        /*
+         * Tiles of another source shall not be removed.
+         */
+        final Object other = new Object();
+        cache.put(new TileCache.Key(other, 0, 0), tile(DataBuffer.TYPE_BYTE));
+        cache.removeAll(source);
+        assertEquals(1, cache.size());
+        assertTrue(cache.containsKey(new TileCache.Key(other, 0, 0)));
+    }
+
+    /**
+     * Tests that {@link TileCache#removeAll(Object)} updates the total cost of the cache.
+     * If the cost of removed tiles was still counted, adding new tiles would evict other tiles too early.
+     */
+    @Test
+    @DependsOnMethod("testMemoryBudget")
+    public void testRemoveAll() {
+        final TileCache cache = new TileCache(30000, false);
+        final Object source = new Object();
+        final Object other  = new Object();
+        final Raster[] tiles = new Raster[6];                   // Strong references for preventing garbage collection.
+        for (int i=0; i<tiles.length; i++) {
+            tiles[i] = tile(DataBuffer.TYPE_BYTE);
+        }
+        cache.put(new TileCache.Key(other,  0, 0), tiles[0]);
+        cache.put(new TileCache.Key(source, 0, 0), tiles[1]);
+        cache.put(new TileCache.Key(source, 0, 1), tiles[2]);
+        assertEquals("evictions", 0, cache.getEvictionCount());
+        cache.removeAll(source);
+        assertEquals(1, cache.size());
+        /*
+         * The budget is 3 tiles. After the removal of 2 tiles, there is room for 2 more tiles.
+         * The next one shall cause the eviction of the eldest tile, which is the first one.
+         */
+        cache.put(new TileCache.Key(other, 0, 1), tiles[3]);
+        cache.put(new TileCache.Key(other, 0, 2), tiles[4]);
+        assertEquals("evictions", 0, cache.getEvictionCount());
+        cache.put(new TileCache.Key(other, 0, 3), tiles[5]);
+        assertEquals("evictions", 1, cache.getEvictionCount());
+        assertSame(tiles[0], cache.peek(new TileCache.Key(other, 0, 0)));      // Still reachable by weak reference.
+        assertEquals(4, cache.size());
+    }
+
+    /**
+     * Tests that a tile under loading when its source is closed is not kept in the cache,
+     * and that tiles requested after the source has been closed are not cached either.
+     *
+     * @throws Exception if an error occurred in the loading thread.
+     */
+    @Test
+    @DependsOnMethod("testRemoveAll")
+    public void testRemoveAllDuringLoad() throws Exception {
+        final TileCache cache = new TileCache(30000, false);
+        final Object source = new Object();
+        final TileCache.Key key = new TileCache.Key(source, 0, 0);
+        final Raster tile = tile(DataBuffer.TYPE_BYTE);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Raster[] loaded = new Raster[1];
+        final Exception[] failure = new Exception[1];
+        final Thread loader = new Thread("TileCacheTest loader") {
+            @Override public void run() {
+                try {
+                    loaded[0] = cache.getOrCreate(key, new Callable<Raster>() {
+                        @Override public Raster call() throws InterruptedException {
+                            started.countDown();
+                            release.await();
+                            return tile;
+                        }
+                    });
+                } catch (Exception e) {
+                    failure[0] = e;
+                }
+            }
+        };
+        final Thread closer = new Thread("TileCacheTest closer") {
+            @Override public void run() {
+                cache.removeAll(source);
+            }
+        };
+        loader.start();
+        started.await();
+        closer.start();
+        release.countDown();
+        loader.join();
+        closer.join();
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        assertSame("The caller shall get the tile.", tile, loaded[0]);
+        assertFalse("The tile shall not be cached.", cache.containsKey(key));
+        /*
+         * Tiles loaded after the source has been closed shall not be cached.
+         */
+        final TileCache.Key next = new TileCache.Key(source, 0, 1);
+        assertSame(tile, cache.getOrCreate(next, new Callable<Raster>() {
+            @Override public Raster call() {
+                return tile;
+            }
+        }));
+        assertTrue(cache.isEmpty());
+    }
+}
@@ -16,6 +16,10 @@
  */
 package org.apache.sis.internal.storage.csv;
 
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.io.StringReader;
 import org.opengis.metadata.Metadata;
@@ -23,6 +27,7 @@ import org.opengis.metadata.extent.Extent;
 import org.opengis.metadata.extent.GeographicBoundingBox;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.StorageConnector;
+import org.apache.sis.test.DependsOnMethod;
 import org.apache.sis.test.TestCase;
 import org.junit.Test;
 
@@ -37,6 +42,7 @@ import org.apache.sis.feature.DefaultAttributeType;
 import org.apache.sis.feature.DefaultFeatureType;
 import org.apache.sis.metadata.iso.identification.AbstractIdentification;
 import org.apache.sis.internal.jdk8.Instant;
+import org.apache.sis.internal.jdk8.Consumer;
 
 
 /**
@@ -109,6 +115,65 @@ public final strictfp class StoreTest extends TestCase {
         }
     }
 
+    /**
+     * Tests {@link Store#features()} on a parallel stream. The file is large enough for being split
+     * in many batches of lines, and some lines omit values which must be taken from previous lines
+     * (possibly in a previous batch).
+     *
+     * @throws DataStoreException if an error occurred while parsing the data.
+     */
+    @Test
+    @DependsOnMethod("testGetFeatures")
+    public void testParallelFeatures() throws DataStoreException {
+        final StringBuilder data = new StringBuilder(
+            "@stboundedby, urn:ogc:def:crs:CRS:1.3:84, 2D,  50.23 9.23,  50.31 9.27,  2012-01-17T12:33:41Z, 2012-01-17T12:37:00Z, sec\n" +
+            "@columns, mfidref, trajectory, state,xsd:string, \"\"\"type\"\" code\",xsd:integer\n" +
+            "@foliation,Time\n");
+        for (int i=0; i<5000; i++) {
+            data.append('f').append(i).append(", ").append(i).append(", ").append(i+1).append(", ").append(i).append(" 2.0 ").append(i).append(" 3.0");
+            if (i % 7 != 0) {
+                data.append(", s").append(i / 7);
+                if (i % 3 != 0) {
+                    data.append(", ").append(i % 100);
+                }
+            }
+            data.append('\n');
+        }
+        final List<String> expected = features(data, false, true);
+        assertEquals(5000, expected.size());
+        assertEquals(expected, features(data, true, true));
+        final List<String> unordered = features(data, true, false);
+        Collections.sort(expected);
+        Collections.sort(unordered);
+        assertEquals(expected, unordered);
+    }
+
+    /**
+     * Returns a string representation of all features in the given CSV data.
+     */
+    private static List<String> features(final CharSequence data, final boolean parallel, final boolean ordered)
+            throws DataStoreException
+    {
+        final List<String> features = Collections.synchronizedList(new ArrayList<String>());
+        final Consumer<AbstractFeature> action = new Consumer<AbstractFeature>() {
+            @Override public void accept(final AbstractFeature f) {
+                features.add(f.getPropertyValue("mfidref") + " " + f.getPropertyValue("startTime") + ' '
+                        + Arrays.toString((double[]) f.getPropertyValue("trajectory")) + ' '
+                        + f.getPropertyValue("state") + ' ' + f.getPropertyValue("\"type\" code"));
+            }
+        };
+        try (Store store = new Store(null, new StorageConnector(new StringReader(data.toString())))) {
+            if (!parallel) {
+                store.features().forEachOrdered(action);
+            } else if (ordered) {
+                store.features().parallel().forEachOrdered(action);
+            } else {
+                store.features().parallel().forEach(action);
+            }
+        }
+        return features;
+    }
+
     /**
      * Verifies that the feature type is equal to the expected one.
      */
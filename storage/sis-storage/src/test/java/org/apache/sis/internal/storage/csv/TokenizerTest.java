@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.csv;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Locale;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestUtilities;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link Tokenizer}.
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final strictfp class TokenizerTest extends TestCase {
+    /**
+     * Tests {@link Tokenizer#split(String)} and {@link Tokenizer#text(int)}.
+     * The result shall be the same than {@link Store#split(String, List)}.
+     */
+    @Test
+    public void testSplit() {
+        final String[] lines = {
+            "a, b ,c",
+            "a,\"b, c\",d",
+            "a,\"b \"\"quoted\"\" c\", d",
+            " , ,",
+            "single",
+            ""
+        };
+        final Tokenizer tokenizer = new Tokenizer(4);
+        final List<String> expected = new ArrayList<>();
+        for (final String line : lines) {
+            expected.clear();
+            Store.split(line, expected);
+            final int n = tokenizer.split(line);
+            assertEquals(line, expected.size(), n);
+            for (int i=0; i<n; i++) {
+                assertEquals(line, expected.get(i), tokenizer.text(i));
+                assertEquals(line, expected.get(i).isEmpty(), tokenizer.isEmpty(i));
+            }
+        }
+        assertEquals("Fields after the maximum shall be ignored.", 4, tokenizer.split("1,2,3,4,5,6"));
+        assertEquals("4", tokenizer.text(3));
+    }
+
+    /**
+     * Tests {@link Tokenizer#parseDouble(CharSequence, int, int)} on values handled by the fast path
+     * and on values delegated to {@link Double#parseDouble(String)}.
+     */
+    @Test
+    public void testParseDouble() {
+        final String[] values = {
+            "0", "-0", "+0.0", "1", "-1", "1.", ".5", "0.001", "12.5", "-273.15", "1E3", "1e-3", "2.5E+10",
+            "123456789012345", "1234567890123456789", "0.1234567890123456789", "1E22", "1E23", "1E-22", "1E-23",
+            "4.9E-324", "1.7976931348623157E308", "NaN", "-Infinity", "0x1.8p1", "1d", "1f"
+        };
+        for (final String value : values) {
+            assertEquals(value, Double.parseDouble(value), Tokenizer.parseDouble(value, 0, value.length()), 0);
+        }
+        assertEquals("Shall parse only the given range.", 34.5, Tokenizer.parseDouble("12 34.5 67", 3, 7), 0);
+        for (final String value : new String[] {"", "-", ".", "1e", "1e+", "1.2.3", "1a"}) {
+            try {
+                Tokenizer.parseDouble(value, 0, value.length());
+                fail("Expected an exception for \"" + value + '"');
+            } catch (NumberFormatException e) {
+                // This is the expected exception.
+            }
+        }
+    }
+
+    /**
+     * Compares {@link Tokenizer#parseDouble(CharSequence, int, int)} with {@link Double#parseDouble(String)}
+     * for random numbers formatted with various number of fraction digits.
+     */
+    @Test
+    @DependsOnMethod("testParseDouble")
+    public void testParseRandomDoubles() {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        for (int i=0; i<10000; i++) {
+            final double value = (random.nextDouble() - 0.5) * StrictMath.pow(10, random.nextInt(20) - 10);
+            final String text = String.format(Locale.US, "%." + random.nextInt(16) + 'f', value);
+            assertEquals(text, Double.parseDouble(text), Tokenizer.parseDouble(text, 0, text.length()), 0);
+        }
+    }
+
+    /**
+     * Tests {@link Tokenizer#parseInt(int)} and {@link Tokenizer#parseOrdinates(int)}.
+     */
+    @Test
+    @DependsOnMethod({"testSplit", "testParseDouble"})
+    public void testParseFields() {
+        final Tokenizer tokenizer = new Tokenizer(5);
+        assertEquals(5, tokenizer.split("42, -7 ,\"15\",2147483647,1 2  3.5 -4"));
+        assertEquals(42,                tokenizer.parseInt(0));
+        assertEquals(-7,                tokenizer.parseInt(1));
+        assertEquals(15,                tokenizer.parseInt(2));
+        assertEquals(Integer.MAX_VALUE, tokenizer.parseInt(3));
+        assertArrayEquals(new double[] {1, 2, 3.5, -4}, tokenizer.parseOrdinates(4), 0);
+        assertArrayEquals(new double[] {42}, tokenizer.parseOrdinates(0), 0);
+        assertEquals(1, tokenizer.split("\"1 2\""));
+        assertArrayEquals(new double[] {1, 2}, tokenizer.parseOrdinates(0), 0);
+        try {
+            tokenizer.split("1x");
+            tokenizer.parseInt(0);
+            fail("Expected an exception.");
+        } catch (NumberFormatException e) {
+            // This is the expected exception.
+        }
+    }
+}
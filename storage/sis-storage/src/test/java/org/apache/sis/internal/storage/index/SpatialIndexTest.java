@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.index;
+
+import java.util.List;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.apache.sis.geometry.Envelope2D;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestUtilities;
+import org.apache.sis.test.TestCase;
+import org.apache.sis.util.collection.BackingStoreException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+// Branch-dependent imports
+import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.AbstractIdentifiedType;
+import org.apache.sis.feature.DefaultAttributeType;
+import org.apache.sis.feature.DefaultFeatureType;
+import org.apache.sis.internal.jdk8.Stream;
+
+
+/**
+ * Tests {@link SpatialIndex}.
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+@DependsOn(ZOrderTest.class)
+public final strictfp class SpatialIndexTest extends TestCase {
+    /**
+     * Creates random features with points, polylines or no geometry.
+     * The geometries are arrays of (x,y) tuples, as produced by the Moving Features CSV reader.
+     */
+    private static List<AbstractFeature> createFeatures(final Random random, final int count) {
+        final DefaultFeatureType type = new DefaultFeatureType(
+                Collections.singletonMap(AbstractIdentifiedType.NAME_KEY, "Test"), false, null,
+                new DefaultAttributeType<>(Collections.singletonMap(AbstractIdentifiedType.NAME_KEY, "trajectory"),
+                                           double[].class, 0, 1, null));
+        final List<AbstractFeature> features = new ArrayList<>(count);
+        for (int i=0; i<count; i++) {
+            final AbstractFeature feature = type.newInstance();
+            final int n = random.nextInt(4);
+            if (n != 0) {
+                final double[] trajectory = new double[n*2];
+                double x = random.nextDouble() * 360 - 180;
+                double y = random.nextDouble() * 180 -  90;
+                for (int j=0; j<trajectory.length;) {
+                    trajectory[j++] = x;
+                    trajectory[j++] = y;
+                    x += random.nextDouble() * 4;
+                    y += random.nextDouble() * 2;
+                }
+                feature.setPropertyValue("trajectory", trajectory);
+            }
+            features.add(feature);
+        }
+        return features;
+    }
+
+    /**
+     * Returns the ordinals of features intersecting the given area by a full scan.
+     */
+    private static long[] scan(final List<AbstractFeature> features, final Envelope2D area) {
+        final double[] bounds = new double[4];
+        long[] selected = new long[features.size()];
+        int n = 0;
+        for (int i=0; i<features.size(); i++) {
+            if (SpatialIndex.envelope(features.get(i).getPropertyValue("trajectory"), bounds)) {
+                if (bounds[0] <= area.getMaxX() && bounds[1] <= area.getMaxY() &&
+                    bounds[2] >= area.getMinX() && bounds[3] >= area.getMinY())
+                {
+                    selected[n++] = i;
+                }
+            }
+        }
+        return Arrays.copyOf(selected, n);
+    }
+
+    /**
+     * Creates an index using the given maximal number of records in memory,
+     * and compares the results of random queries with the results of full scans.
+     */
+    private static void testQueries(final int runLength) throws Exception {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final List<AbstractFeature> features = createFeatures(random, 5000);
+        final Path file = Files.createTempFile("SpatialIndex", ".idx");
+        try {
+            try (SpatialIndex index = SpatialIndex.create(Stream.create(features), null, null, file, runLength)) {
+                assertEquals("size", scan(features, new Envelope2D(null, -400, -400, 800, 800)).length, index.size());
+                for (int i=0; i<50; i++) {
+                    final Envelope2D area = new Envelope2D(null,
+                            random.nextDouble() * 360 - 180,
+                            random.nextDouble() * 180 -  90,
+                            random.nextDouble() * 60,
+                            random.nextDouble() * 30);
+                    assertArrayEquals(area.toString(), scan(features, area), index.query(area));
+                }
+            }
+            try (SpatialIndex index = SpatialIndex.open(file)) {
+                final Envelope2D area = new Envelope2D(null, -20, -10, 40, 20);
+                assertArrayEquals("Reopened index", scan(features, area), index.query(area));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests index creation and queries when all records fit in memory.
+     *
+     * @throws Exception if an error occurred while creating or reading the index.
+     */
+    @Test
+    public void testQuery() throws Exception {
+        testQueries(10000);
+    }
+
+    /**
+     * Tests index creation with an external merge sort of many runs, then queries.
+     *
+     * @throws Exception if an error occurred while creating or reading the index.
+     */
+    @Test
+    public void testQueryWithMergeSort() throws Exception {
+        testQueries(700);
+    }
+
+    /**
+     * Verifies that opening a file which is not an index fails.
+     *
+     * @throws Exception if an error occurred while creating the temporary file.
+     */
+    @Test
+    public void testInvalidFile() throws Exception {
+        final Path file = Files.createTempFile("SpatialIndex", ".idx");
+        try {
+            Files.write(file, new byte[SpatialIndex.HEADER_LENGTH]);
+            try {
+                SpatialIndex.open(file).close();
+                fail("Expected an exception.");
+            } catch (DataStoreException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(file.getFileName().toString()));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Verifies that the temporary files are deleted when the feature stream fails during the index creation.
+     *
+     * @throws Exception if an error occurred while creating or listing the temporary files.
+     */
+    @Test
+    @DependsOnMethod("testQueryWithMergeSort")
+    public void testFailure() throws Exception {
+        final List<AbstractFeature> features = createFeatures(TestUtilities.createRandomNumberGenerator(), 3000);
+        final List<AbstractFeature> failing = new AbstractList<AbstractFeature>() {
+            @Override public int size() {
+                return features.size() + 1;
+            }
+
+            @Override public AbstractFeature get(final int i) {
+                if (i == features.size()) {
+                    throw new BackingStoreException(new DataStoreException("Simulated failure."));
+                }
+                return features.get(i);
+            }
+        };
+        final int numRuns = countRuns();
+        final Path file = Files.createTempFile("SpatialIndex", ".idx");
+        try {
+            try {
+                SpatialIndex.create(Stream.create(failing), null, null, file, 700).close();
+                fail("Expected an exception.");
+            } catch (DataStoreException e) {
+                assertEquals("Simulated failure.", e.getMessage());
+            }
+            assertEquals("Temporary files", numRuns, countRuns());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Returns the number of temporary files created for the runs of the external merge sort.
+     */
+    private static int countRuns() throws Exception {
+        int n = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(
+                Paths.get(System.getProperty("java.io.tmpdir")), "SpatialIndex*.run"))
+        {
+            for (final Path file : files) {
+                n++;
+            }
+        }
+        return n;
+    }
+}
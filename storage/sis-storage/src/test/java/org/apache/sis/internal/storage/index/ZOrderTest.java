@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.index;
+
+import java.util.Random;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestUtilities;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link ZOrder}.
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final strictfp class ZOrderTest extends TestCase {
+    /**
+     * Tests {@link ZOrder#interleave(int, int)}.
+     */
+    @Test
+    public void testInterleave() {
+        assertEquals(0,    ZOrder.interleave(0, 0));
+        assertEquals(2,    ZOrder.interleave(1, 0));
+        assertEquals(1,    ZOrder.interleave(0, 1));
+        assertEquals(0xB,  ZOrder.interleave(3, 1));
+        assertEquals((1L << 62) - 1, ZOrder.interleave(Integer.MAX_VALUE, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Tests {@link ZOrder#key(double, double)} against Morton keys computed by hand.
+     * In the first domain, the column and row indices are the integer parts of the coordinates.
+     */
+    @Test
+    @DependsOnMethod("testInterleave")
+    public void testPointKey() {
+        ZOrder zorder = new ZOrder(0, 0, 1L << ZOrder.BITS_PER_DIMENSION, 1L << ZOrder.BITS_PER_DIMENSION);
+        assertEquals(0,    zorder.key(0.5, 0.5));
+        assertEquals(0x27, zorder.key(5, 3));           // x = 101, y = 011  →  10 01 11
+        assertEquals(0x69, zorder.key(6.2, 9.8));       // x = 0110, y = 1001  →  01 10 10 01
+        /*
+         * Domain of 16×16 units: the 4 highest bits of the 31 bits column and row indices
+         * are the integer parts of the coordinates.
+         */
+        zorder = new ZOrder(0, 0, 16, 16);
+        assertEquals(0x1BL << 54,          zorder.key(3, 5));            // x = 0011, y = 0101  →  00 01 10 11
+        assertEquals(0x1555555555555555L,  zorder.key(-1, 100));         // Clamped to column 0 and last row.
+        assertEquals(0x2AAAAAAAAAAAAAAAL,  zorder.key(100, -1));         // Clamped to last column and row 0.
+    }
+
+    /**
+     * Verifies that the highest bits of keys are the same than the geohash bits,
+     * using geohashes published in the literature about that encoding.
+     */
+    @Test
+    @DependsOnMethod("testPointKey")
+    public void testGeohash() {
+        final ZOrder zorder = new ZOrder(-180, -90, 180, 90);
+        assertGeohashEquals("ezs42",       zorder.key(-5.6,     42.6));
+        assertGeohashEquals("u4pruydqqvj", zorder.key(10.40744, 57.64911));
+    }
+
+    /**
+     * Asserts that the highest bits of the given key are the bits of the given geohash.
+     */
+    private static void assertGeohashEquals(final String geohash, final long key) {
+        final String symbols = "0123456789bcdefghjkmnpqrstuvwxyz";
+        long expected = 0;
+        for (int i=0; i<geohash.length(); i++) {
+            expected = (expected << 5) | symbols.indexOf(geohash.charAt(i));
+        }
+        assertEquals(geohash, expected, key >>> (2*ZOrder.BITS_PER_DIMENSION - 5*geohash.length()));
+    }
+
+    /**
+     * Tests {@link ZOrder#key(double, double, double, double)} for envelopes.
+     */
+    @Test
+    @DependsOnMethod("testInterleave")
+    public void testEnvelopeKey() {
+        final ZOrder zorder = new ZOrder(0, 0, 16, 16);
+        assertEquals("Point",        zorder.key(3, 5),  zorder.key(3, 5, 3, 5));
+        assertEquals("Lower half",   0,                 zorder.key(1, 1, 7, 7));
+        assertEquals("Upper right",  zorder.key(8, 8),  zorder.key(9, 9, 15, 15));
+        assertEquals("Whole domain", 0,                 zorder.key(1, 1, 15, 15));
+        assertEquals("Outside",      zorder.key(16, 0), zorder.key(20, -5, 30, -1));
+    }
+
+    /**
+     * Tests {@link ZOrder#ranges(double, double, double, double, int)} by verifying that all envelopes
+     * intersecting random queries have their key in the returned ranges.
+     */
+    @Test
+    @DependsOnMethod("testEnvelopeKey")
+    public void testRanges() {
+        final ZOrder zorder = new ZOrder(0, 0, 1000, 1000);
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        for (int q=0; q<50; q++) {
+            final double qx = random.nextDouble() * 1000;
+            final double qy = random.nextDouble() * 1000;
+            final double qw = random.nextDouble() * 200;
+            final double qh = random.nextDouble() * 200;
+            final long[] ranges = zorder.ranges(qx, qy, qx + qw, qy + qh, ZOrder.DEFAULT_REFINEMENT);
+            for (int i=2; i<ranges.length; i += 2) {
+                assertTrue("Ranges shall be sorted and disjoint.", ranges[i] > ranges[i-1] + 1);
+            }
+            for (int i=0; i<200; i++) {
+                final double x = random.nextDouble() * 1200 - 100;
+                final double y = random.nextDouble() * 1200 - 100;
+                final double w = random.nextBoolean() ? 0 : random.nextDouble() * 50;
+                final double h = random.nextBoolean() ? 0 : random.nextDouble() * 50;
+                if (x <= qx + qw && y <= qy + qh && x + w >= qx && y + h >= qy) {
+                    final long key = zorder.key(x, y, x + w, y + h);
+                    boolean found = false;
+                    for (int j=0; j<ranges.length; j += 2) {
+                        if (key >= ranges[j] && key <= ranges[j+1]) {
+                            found = true;
+                            break;
+                        }
+                    }
+                    assertTrue("Key of an intersecting envelope is not in the ranges.", found);
+                }
+            }
+        }
+    }
+}
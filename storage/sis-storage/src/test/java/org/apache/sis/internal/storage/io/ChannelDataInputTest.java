@@ -20,7 +20,13 @@ import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.EOFException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.apache.sis.test.DependsOnMethod;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -31,7 +37,7 @@ import static org.junit.Assert.*;
  * of that buffer is used for the tests, while the original full buffer is used for comparison purpose.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.5
+ * @version 0.8
  * @since   0.3
  * @module
  */
@@ -133,6 +139,99 @@ public final strictfp class ChannelDataInputTest extends ChannelDataTestCase {
         }
     }
 
+    /**
+     * Tests {@link ChannelDataInput#duplicate(boolean)} with positional reads and with a memory-mapped file.
+     * The duplicated inputs are tested with the same random operations than {@link #testAllReadMethods()},
+     * while the original input shall be unaffected by the reads performed by the duplicated inputs.
+     *
+     * @throws IOException if an error occurred while writing or reading the temporary file.
+     */
+    @Test
+    @DependsOnMethod("testAllReadMethods")
+    public void testDuplicate() throws IOException {
+        final byte[] array = createRandomArray(STREAM_LENGTH);
+        final Path file = Files.createTempFile("ChannelDataInput", ".raw");
+        try {
+            Files.write(file, array);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                final ChannelDataInput input = new ChannelDataInput("testDuplicate", channel, ByteBuffer.allocate(64), false);
+                assertEquals(array[0], input.readByte());
+                for (final boolean map : new boolean[] {false, true}) {
+                    referenceStream = new DataInputStream(new ByteArrayInputStream(array, 1, array.length - 1));
+                    testedStream = input.duplicate(map);
+                    assertEquals("getStreamPosition()", 1, testedStream.getStreamPosition());
+                    assertEquals("isReadOnly()", map, testedStream.buffer.isReadOnly());
+                    transferRandomData(testedStream, array.length - ARRAY_MAX_LENGTH, 16);
+                    /*
+                     * Reads at random positions, then verify that the end of file is detected.
+                     */
+                    final ByteBuffer expected = ByteBuffer.wrap(array);
+                    for (int i=0; i<100; i++) {
+                        final int position = random.nextInt(array.length - (Long.SIZE / Byte.SIZE));
+                        testedStream.seek(position);
+                        assertEquals(expected.getLong(position), testedStream.readLong());
+                    }
+                    testedStream.seek(array.length - 1);
+                    assertEquals(array[array.length - 1], testedStream.readByte());
+                    try {
+                        testedStream.readByte();
+                        fail("Expected end of file.");
+                    } catch (EOFException e) {
+                        assertNotNull(e.getMessage());
+                    }
+                }
+                /*
+                 * The original input shall continue where it was.
+                 */
+                assertEquals(array[1], input.readByte());
+                assertEquals(ByteBuffer.wrap(array).getInt(2), input.readInt());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests {@link ChannelDataInput#duplicate(boolean)} on an input which is itself a non-mapped duplicate.
+     * The mapped inputs created from that template shall see the file from the same origin than the template,
+     * which is not the beginning of the file in this test, and shall have positions independent of each other.
+     *
+     * @throws IOException if an error occurred while reading the temporary file.
+     */
+    @Test
+    @DependsOnMethod("testDuplicate")
+    public void testMappedDuplicateOfPositional() throws IOException {
+        final byte[] array = createRandomArray(STREAM_LENGTH);
+        final Path file = Files.createTempFile("ChannelDataInput", ".raw");
+        try {
+            Files.write(file, array);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                final int origin = 100;
+                channel.position(origin);
+                final ChannelDataInput input = new ChannelDataInput("testMappedDuplicate", channel, ByteBuffer.allocate(64), false);
+                final ChannelDataInput template = input.duplicate(false);
+                assertFalse("isReadOnly()", template.buffer.isReadOnly());
+                input.seek(200);
+                final ChannelDataInput first  = template.duplicate(true);
+                final ChannelDataInput second = template.duplicate(true);
+                assertTrue("isReadOnly()", first .buffer.isReadOnly());
+                assertTrue("isReadOnly()", second.buffer.isReadOnly());
+                assertEquals("getStreamPosition()", 0, first .getStreamPosition());
+                assertEquals("getStreamPosition()", 0, second.getStreamPosition());
+                final ByteBuffer expected = ByteBuffer.wrap(array);
+                first.seek(40);
+                assertEquals(expected.getLong(origin + 40), first.readLong());
+                assertEquals(expected.getLong(origin),      second.readLong());
+                assertEquals(expected.getInt (origin + 48), first.readInt());
+                second.seek(array.length - origin - 1);
+                assertEquals(array[array.length - 1], second.readByte());
+                assertEquals(array[200 + origin], input.readByte());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
     /**
      * Tests the {@link ChannelDataInput#readString(int, String)} method.
      *
@@ -22,6 +22,10 @@ import java.nio.ByteOrder;
 import java.nio.ByteBuffer;
 import java.nio.ShortBuffer;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import org.apache.sis.util.Numbers;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.test.DependsOnMethod;
@@ -38,7 +42,7 @@ import static org.junit.Assert.*;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 0.8
  * @since   0.7
  * @module
  */
@@ -70,6 +74,17 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
      */
     private HyperRectangleReader reader;
 
+    /**
+     * The bytes of the hyper-cube created by {@link #initialize(Random, boolean)}, together with the position
+     * of the first sample value in that array. Used for tests that need to write the data in a file.
+     */
+    private byte[] array;
+
+    /**
+     * Position of the first sample value in {@link #array}.
+     */
+    private int origin;
+
     /**
      * Encodes the given index in the sample values to be stored in the array of data.
      * We use a decimal encoding for making easier to compare the actual values with the expected ones.
@@ -111,8 +126,8 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
          * Put small amout of random value at the array beginning in order to test with an origin
          * different than zero.
          */
-        final int origin = random.nextInt(10);
-        final byte[] array = new byte[origin + length*(Short.SIZE / Byte.SIZE)];
+        origin = random.nextInt(10);
+        array  = new byte[origin + length*(Short.SIZE / Byte.SIZE)];
         for (int i=0; i<origin; i++) {
             array[i] = (byte) random.nextInt(0x100);
         }
@@ -217,4 +232,71 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
         initialize(TestUtilities.createRandomNumberGenerator(), false);
         verifyRegionRead();
     }
+
+    /**
+     * Tests reading data from a memory-mapped file. The origin is usually not a multiple of the
+     * {@code short} size, which forces the reader to create views that do not start at index 0.
+     *
+     * @throws IOException if an error occurred while writing or reading the temporary file.
+     * @throws DataStoreException should never happen.
+     */
+    @Test
+    @DependsOnMethod("testRandom")
+    public void testMappedFile() throws IOException, DataStoreException {
+        initialize(TestUtilities.createRandomNumberGenerator(), false);
+        final Path file = Files.createTempFile("HyperRectangle", ".raw");
+        try {
+            Files.write(file, array);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                final ByteBuffer buffer = ByteBuffer.allocate(20).order(ByteOrder.nativeOrder());
+                final ChannelDataInput input = new ChannelDataInput("HyperRectangle in file", channel, buffer, false);
+                reader = new HyperRectangleReader(Numbers.SHORT, input.duplicate(true), origin);
+                verifyRegionRead();
+                reader = new HyperRectangleReader(Numbers.SHORT, input.duplicate(false), origin);
+                verifyRegionRead();
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests {@link HyperRectangleReader#readConcurrently(Region)} by comparing its result with the sequential
+     * {@link HyperRectangleReader#read(Region)} method. The hyper-rectangle is large enough for causing the
+     * runs of contiguous values to be divided between many tasks.
+     *
+     * @throws IOException if an error occurred while writing or reading the temporary file.
+     * @throws DataStoreException should never happen.
+     */
+    @Test
+    @DependsOnMethod("testMappedFile")
+    public void testReadConcurrently() throws IOException, DataStoreException {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final long[] size = {300, 200, 20};
+        final byte[] data = new byte[3 + (int) (size[0] * size[1] * size[2]) * (Short.SIZE / Byte.SIZE)];
+        random.nextBytes(data);
+        final Path file = Files.createTempFile("HyperRectangle", ".raw");
+        try {
+            Files.write(file, data);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                final ByteBuffer buffer = ByteBuffer.allocate(100).order(ByteOrder.nativeOrder());
+                final ChannelDataInput input = new ChannelDataInput("HyperRectangle in file", channel, buffer, false);
+                reader = new HyperRectangleReader(Numbers.SHORT, input, 3);
+                for (int n=0; n<4; n++) {
+                    final long[] lower = new long[size.length];
+                    final long[] upper = new long[size.length];
+                    final int[]  sub   = new int [size.length];
+                    for (int i=0; i<size.length; i++) {
+                        lower[i] = random.nextInt((int) size[i] / 4);
+                        upper[i] = size[i] - random.nextInt((int) size[i] / 4);
+                        sub  [i] = random.nextInt(2) + 1;
+                    }
+                    final Region region = new Region(size, lower, upper, sub);
+                    assertArrayEquals((short[]) reader.read(region), (short[]) reader.readConcurrently(region));
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
 }
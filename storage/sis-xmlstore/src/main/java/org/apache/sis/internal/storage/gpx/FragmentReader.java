@@ -0,0 +1,672 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.gpx;
+
+import java.util.Set;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import org.apache.sis.internal.system.CommonExecutor;
+import org.apache.sis.util.collection.BackingStoreException;
+
+// Branch-dependent imports
+import org.apache.sis.internal.jdk8.Consumer;
+import org.apache.sis.internal.jdk8.Spliterator;
+import org.apache.sis.feature.AbstractFeature;
+
+
+/**
+ * Iterator over the features of a GPX file, which can be split in ranges of way points, routes and tracks
+ * parsed concurrently. The file is mapped in memory and scanned once for the byte positions of the {@code <wpt>},
+ * {@code <rte>} and {@code <trk>} elements directly under the {@code <gpx>} root element. This scan only matches
+ * tag delimiters; it does not decode characters or attributes. Each range of elements is then parsed by its own
+ * {@link Reader}, which receives the beginning of the file until the end of the root start tag (for the XML
+ * declaration and namespaces), followed by the range bytes and the root end tag.
+ *
+ * <p>The features are created with the same identifiers than if the whole file was read by a single reader,
+ * because the number of way points, routes and tracks before each range is known from the scan.
+ * The features are given in document order when the stream is consumed with {@code forEachOrdered}.</p>
+ *
+ * <p>This iterator can be used only with files encoded in UTF-8, ISO-8859-1 or any other encoding
+ * where the XML delimiters are single bytes. The scan does not resolve namespaces, so the way points,
+ * routes and tracks must use the same prefix than the root element. The {@link #create(Store, FileChannel)}
+ * method returns {@code null} if the file does not meet the conditions required by this class,
+ * in which case the caller should fallback on a single {@link Reader}.</p>
+ *
+ * <p>This iterator is also the action to register with {@code Stream.onClose(Runnable)}:
+ * running it closes the readers opened by this iterator and all iterators split from it.</p>
+ *
+ * @author  agent
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class FragmentReader implements Spliterator<AbstractFeature>, Runnable {
+    /**
+     * Minimal number of bytes in the ranges given to other threads. A small range is not worth
+     * the cost of creating a new XML reader, which parse again the beginning of the file.
+     */
+    private static final int MIN_BATCH = 0x10000;
+
+    /**
+     * Kinds of the elements recorded by the scan.
+     */
+    private static final byte WAY_POINT = 0, ROUTE = 1, TRACK = 2;
+
+    /**
+     * Value returned by {@link #kindOf kindOf(…)} for a way point, route or track element having a prefix
+     * different than the root element prefix. The scan can not determine if that prefix is bound to the GPX
+     * namespace, so the file shall be read by a single reader.
+     */
+    private static final int OTHER_PREFIX = -2;
+
+    /**
+     * The data store for which the readers are created.
+     */
+    private final Store owner;
+
+    /**
+     * The whole file content. Shared by all iterators, which read it only through duplicates.
+     */
+    private final ByteBuffer content;
+
+    /**
+     * Bytes from the beginning of the file to the end of the {@code <gpx>} start tag,
+     * and the {@code </gpx>} end tag with the same prefix than in the start tag.
+     */
+    private final byte[] header, footer;
+
+    /**
+     * Byte positions of the beginning and after the end of each way point, route or track element.
+     */
+    private final int[] starts, ends;
+
+    /**
+     * Kind of each element, as one of the {@link #WAY_POINT}, {@link #ROUTE} or {@link #TRACK} constants.
+     */
+    private final byte[] kinds;
+
+    /**
+     * Number of bytes given to the iterators created by {@link #trySplit()}.
+     */
+    private final int batchSize;
+
+    /**
+     * Index of the first element and index after the last element to read by this iterator.
+     */
+    private int lower, upper;
+
+    /**
+     * Number of way points, routes and tracks before the {@link #lower} element.
+     */
+    private int wayPointId, routeId, trackId;
+
+    /**
+     * The reader of the elements in the range of this iterator, created when first needed.
+     * After this reader has been created, this iterator can not be split anymore.
+     */
+    private Reader reader;
+
+    /**
+     * The readers opened by this iterator and by all iterators split from the same root iterator,
+     * and not yet closed. This set is shared by all those iterators; all accesses to it shall be
+     * synchronized on the set.
+     *
+     * @see #run()
+     */
+    private final Set<Reader> opened;
+
+    /**
+     * Creates an iterator over all elements found by the scan.
+     */
+    private FragmentReader(final Store owner, final ByteBuffer content, final byte[] header, final byte[] footer,
+                           final int[] starts, final int[] ends, final byte[] kinds, final int count)
+    {
+        this.owner     = owner;
+        this.content   = content;
+        this.header    = header;
+        this.footer    = footer;
+        this.starts    = starts;
+        this.ends      = ends;
+        this.kinds     = kinds;
+        this.upper     = count;
+        this.batchSize = Math.max(MIN_BATCH, content.limit() / (4 * CommonExecutor.parallelism()));
+        this.opened    = Collections.newSetFromMap(new IdentityHashMap<Reader,Boolean>());
+    }
+
+    /**
+     * Creates an iterator over a range of the elements of the given iterator.
+     */
+    private FragmentReader(final FragmentReader parent, final int upper) {
+        owner      = parent.owner;
+        content    = parent.content;
+        header     = parent.header;
+        footer     = parent.footer;
+        starts     = parent.starts;
+        ends       = parent.ends;
+        kinds      = parent.kinds;
+        batchSize  = parent.batchSize;
+        lower      = parent.lower;
+        wayPointId = parent.wayPointId;
+        routeId    = parent.routeId;
+        trackId    = parent.trackId;
+        opened     = parent.opened;
+        this.upper = upper;
+    }
+
+    /**
+     * Maps the given file in memory and scans it for the way points, routes and tracks.
+     * Returns {@code null} if the file is too large for being mapped in a single buffer,
+     * if the encoding is not compatible with this class or if the scan failed.
+     * In the later case, the error will be reported by the single reader used as a fallback.
+     *
+     * @param  owner    the data store for which to create the iterator.
+     * @param  channel  the channel to the file of the data store. Can be closed after this method call.
+     * @return the iterator, or {@code null} if the file can not be read by this class.
+     * @throws IOException if an error occurred while mapping the file.
+     */
+    static FragmentReader create(final Store owner, final FileChannel channel) throws IOException {
+        final long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            return null;
+        }
+        return scan(owner, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+    }
+
+    /**
+     * Scans the given file content for the elements directly under the root element.
+     * Returns {@code null} if the content does not look like a well-formed XML document
+     * in an encoding compatible with this class.
+     */
+    private static FragmentReader scan(final Store owner, final ByteBuffer content) {
+        final int length = content.limit();
+        if (length < 2) {
+            return null;
+        }
+        final int b0 = content.get(0) & 0xFF;
+        if (b0 == 0xFE || b0 == 0xFF || b0 == 0 || content.get(1) == 0) {
+            return null;                                    // UTF-16 or UTF-32 encoding.
+        }
+        /*
+         * Skip the XML declaration, processing instructions, comments and document type declaration
+         * until we find the root element. The header to give to each reader ends after the root tag.
+         */
+        int p = 0;
+        while ((p = indexOf(content, '<', p)) >= 0) {
+            if (startsWith(content, p, "<?")) {
+                p = skipPast(content, p + 2, "?>");
+            } else if (startsWith(content, p, "<!--")) {
+                p = skipPast(content, p + 4, "-->");
+            } else if (startsWith(content, p, "<!")) {
+                p = skipDeclaration(content, p + 2);
+            } else break;
+            if (p < 0) return null;
+        }
+        if (p < 0) return null;
+        final int nameStart  = p + 1;
+        final int nameEnd    = nameEnd(content, nameStart);
+        final int rootEnd    = tagEnd(content, nameEnd);
+        if (rootEnd < 0 || content.get(rootEnd - 2) == '/') {
+            return null;                                    // Truncated file or empty root element.
+        }
+        final byte[] header = new byte[rootEnd];
+        final byte[] footer = new byte[nameEnd - nameStart + 3];
+        ((ByteBuffer) content.duplicate().position(0)).get(header);
+        System.arraycopy(header, nameStart, footer, 2, footer.length - 3);
+        footer[0] = '<';
+        footer[1] = '/';
+        footer[footer.length - 1] = '>';
+        int prefixLength = 0;
+        for (int i=nameStart; i<nameEnd; i++) {
+            if (content.get(i) == ':') {
+                prefixLength = i - nameStart + 1;
+            }
+        }
+        /*
+         * Scan the root element content. We need to track the depth of nested elements, but only the
+         * elements at depth 1 are recorded. The scan stops at the end of the root element.
+         */
+        int[]  starts = new int[64];
+        int[]  ends   = new int[64];
+        byte[] kinds  = new byte[64];
+        int    count  = 0;
+        int    depth  = 1;
+        int    start  = -1;
+        byte   kind   = 0;
+        p = rootEnd;
+        while (depth != 0) {
+            p = indexOf(content, '<', p);
+            if (p < 0 || p + 1 >= length) {
+                return null;                                // Truncated file.
+            }
+            final int end;
+            boolean recorded = false;
+            switch (content.get(p + 1)) {
+                case '?': end = skipPast(content, p + 2, "?>"); break;
+                case '!': {
+                    if (startsWith(content, p, "<!--")) {
+                        end = skipPast(content, p + 4, "-->");
+                    } else if (startsWith(content, p, "<![CDATA[")) {
+                        end = skipPast(content, p + 9, "]]>");
+                    } else {
+                        end = tagEnd(content, p + 2);
+                    }
+                    break;
+                }
+                case '/': {
+                    end = tagEnd(content, p + 2);
+                    if (--depth == 1 && start >= 0) {
+                        recorded = true;
+                    }
+                    break;
+                }
+                default: {
+                    final int ne = nameEnd(content, p + 1);
+                    end = tagEnd(content, ne);
+                    if (end < 0) return null;
+                    final boolean empty = (content.get(end - 2) == '/');
+                    if (depth == 1) {
+                        final int k = kindOf(content, header, nameStart, prefixLength, p + 1, ne);
+                        if (k >= 0) {
+                            start = p;
+                            kind  = (byte) k;
+                            recorded = empty;
+                        } else if (k == OTHER_PREFIX) {
+                            return null;
+                        }
+                    }
+                    if (!empty) depth++;
+                    break;
+                }
+            }
+            if (end < 0) {
+                return null;
+            }
+            if (recorded) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                    ends   = Arrays.copyOf(ends,   count * 2);
+                    kinds  = Arrays.copyOf(kinds,  count * 2);
+                }
+                starts[count] = start;
+                ends  [count] = end;
+                kinds [count] = kind;
+                count++;
+                start = -1;
+            }
+            p = end;
+        }
+        return new FragmentReader(owner, content, header, footer, starts, ends, kinds, count);
+    }
+
+    /**
+     * Returns the kind of the element having the given name, or -1 if the element is not a way point,
+     * a route or a track. If the local name is the one of a way point, route or track but the prefix
+     * is not the same than the root element prefix, then this method returns {@link #OTHER_PREFIX}.
+     */
+    private static int kindOf(final ByteBuffer content, final byte[] header, final int rootName,
+            final int prefixLength, final int name, final int nameEnd)
+    {
+        int local = name;
+        for (int i=name; i<nameEnd; i++) {
+            if (content.get(i) == ':') {
+                local = i + 1;
+            }
+        }
+        if (nameEnd - local != 3) {
+            return -1;
+        }
+        final int kind;
+        if      (startsWith(content, local, Tags.WAY_POINT)) kind = WAY_POINT;
+        else if (startsWith(content, local, Tags.ROUTES))    kind = ROUTE;
+        else if (startsWith(content, local, Tags.TRACKS))    kind = TRACK;
+        else return -1;
+        if (local - name != prefixLength) {
+            return OTHER_PREFIX;
+        }
+        for (int i=0; i<prefixLength; i++) {
+            if (content.get(name + i) != header[rootName + i]) {
+                return OTHER_PREFIX;
+            }
+        }
+        return kind;
+    }
+
+    /**
+     * Returns the index of the given ASCII character at or after the given position, or -1 if none.
+     */
+    private static int indexOf(final ByteBuffer content, final char c, int p) {
+        final int length = content.limit();
+        while (p < length) {
+            if (content.get(p) == c) return p;
+            p++;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns {@code true} if the bytes at the given position are the given ASCII characters.
+     */
+    private static boolean startsWith(final ByteBuffer content, final int p, final String text) {
+        final int n = text.length();
+        if (p + n > content.limit()) {
+            return false;
+        }
+        for (int i=0; i<n; i++) {
+            if (content.get(p + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the position after the given ASCII delimiter at or after the given position, or -1 if none.
+     */
+    private static int skipPast(final ByteBuffer content, int p, final String delimiter) {
+        final char c = delimiter.charAt(0);
+        while ((p = indexOf(content, c, p)) >= 0) {
+            if (startsWith(content, p, delimiter)) {
+                return p + delimiter.length();
+            }
+            p++;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the position after the end of the element name starting at the given position.
+     */
+    private static int nameEnd(final ByteBuffer content, int p) {
+        final int length = content.limit();
+        while (p < length) {
+            final byte c = content.get(p);
+            if ((c >= 0 && c <= ' ') || c == '/' || c == '>') break;
+            p++;
+        }
+        return p;
+    }
+
+    /**
+     * Returns the position after the {@code '>'} character closing the tag, skipping quoted attribute values.
+     * Returns -1 if the end of the tag has not been found.
+     */
+    private static int tagEnd(final ByteBuffer content, int p) {
+        final int length = content.limit();
+        while (p < length) {
+            final byte c = content.get(p++);
+            if (c == '>') {
+                return p;
+            }
+            if (c == '"' || c == '\'') {
+                p = indexOf(content, (char) c, p);
+                if (p < 0) break;
+                p++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the position after the end of a {@code <!DOCTYPE …>} declaration,
+     * including the internal subset between {@code '['} and {@code ']'} if any.
+     */
+    private static int skipDeclaration(final ByteBuffer content, int p) {
+        final int length = content.limit();
+        int subset = 0;
+        while (p < length) {
+            final byte c = content.get(p++);
+            switch (c) {
+                case '[': subset++; break;
+                case ']': subset--; break;
+                case '>': if (subset <= 0) return p; break;
+                case '"':
+                case '\'': {
+                    p = indexOf(content, (char) c, p);
+                    if (p < 0) return -1;
+                    p++;
+                    break;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the next feature in the range of this iterator, if any.
+     *
+     * @param  action  the action to execute on the feature.
+     * @return {@code true} if a feature has been read.
+     * @throws BackingStoreException if an error occurred while parsing the GPX file.
+     */
+    @Override
+    public boolean tryAdvance(final Consumer<? super AbstractFeature> action) throws BackingStoreException {
+        if (reader == null) {
+            if (lower >= upper) {
+                return false;
+            }
+            open();
+        }
+        if (reader.tryAdvance(action)) {
+            return true;
+        }
+        close();
+        return false;
+    }
+
+    /**
+     * Reads all the remaining features in the range of this iterator.
+     *
+     * @param  action  the action to execute on each feature.
+     * @throws BackingStoreException if an error occurred while parsing the GPX file.
+     */
+    @Override
+    public void forEachRemaining(final Consumer<? super AbstractFeature> action) throws BackingStoreException {
+        if (reader == null) {
+            if (lower >= upper) {
+                return;
+            }
+            open();
+        }
+        reader.forEachRemaining(action);
+        close();
+    }
+
+    /**
+     * Creates the reader for all elements in the range of this iterator.
+     * The reader is positioned on the first way point, route or track.
+     */
+    private void open() throws BackingStoreException {
+        final ByteBuffer fragment = content.duplicate();
+        fragment.limit(ends[upper - 1]).position(starts[lower]);
+        final Input input = new Input(ByteBuffer.wrap(header), fragment, ByteBuffer.wrap(footer));
+        try {
+            reader = new Reader(owner, input, wayPointId, routeId, trackId);
+            synchronized (opened) {
+                opened.add(reader);
+            }
+            reader.initialize(false);
+        } catch (Exception e) {
+            synchronized (opened) {
+                opened.remove(reader);
+            }
+            if (reader != null) try {
+                reader.close();
+            } catch (Exception s) {
+                e.addSuppressed(s);
+            }
+            throw new BackingStoreException(e);
+        }
+        lower = upper;
+    }
+
+    /**
+     * Closes the reader after all elements in the range of this iterator have been read.
+     * This method does nothing if the reader has already been closed by {@link #run()}.
+     */
+    private void close() throws BackingStoreException {
+        final Reader r = reader;
+        reader = null;
+        final boolean open;
+        synchronized (opened) {
+            open = opened.remove(r);
+        }
+        if (open) try {
+            r.close();
+        } catch (Exception e) {
+            throw new BackingStoreException(e);
+        }
+    }
+
+    /**
+     * Closes all readers opened by this iterator and by the iterators split from the same root iterator,
+     * which have not been closed after the end of their range. This happen if the stream has not been
+     * fully consumed, or if the parsing failed. This method is invoked when the stream is closed.
+     *
+     * @throws BackingStoreException if an error occurred while closing a reader.
+     */
+    @Override
+    public void run() throws BackingStoreException {
+        final Reader[] readers;
+        synchronized (opened) {
+            readers = opened.toArray(new Reader[opened.size()]);
+            opened.clear();
+        }
+        BackingStoreException error = null;
+        for (final Reader r : readers) try {
+            r.close();
+        } catch (Exception e) {
+            if (error == null) {
+                error = new BackingStoreException(e);
+            } else {
+                error.addSuppressed(e);
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Gives the first remaining elements to a new iterator, to be parsed in another thread.
+     * The elements are selected for approximatively {@link #batchSize} bytes, but at least one element.
+     *
+     * @return iterator over the first remaining elements, or {@code null} if this iterator can not be split.
+     */
+    @Override
+    public Spliterator<AbstractFeature> trySplit() {
+        if (reader != null || upper - lower < 2) {
+            return null;
+        }
+        final int target = starts[lower] + Math.min(batchSize, (ends[upper - 1] - starts[lower]) / 2);
+        int mid = Arrays.binarySearch(starts, lower, upper, target);
+        if (mid < 0) mid = ~mid;
+        mid = Math.max(lower + 1, Math.min(upper - 1, mid));
+        final FragmentReader prefix = new FragmentReader(this, mid);
+        while (lower < mid) {
+            switch (kinds[lower++]) {
+                case WAY_POINT: wayPointId++; break;
+                case ROUTE:     routeId++;    break;
+                case TRACK:     trackId++;    break;
+            }
+        }
+        return prefix;
+    }
+
+    /**
+     * Returns the number of remaining way points, routes and tracks.
+     * This is zero after the parsing of the remaining elements started.
+     *
+     * @return number of remaining elements.
+     */
+    @Override
+    public long estimateSize() {
+        return upper - lower;
+    }
+
+    /**
+     * Returns the characteristics of the iteration over feature instances.
+     *
+     * @return the characteristics of this iterator.
+     */
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+
+    /**
+     * A stream reading the bytes of a sequence of buffers.
+     * Used for giving the range of an iterator enclosed in the root element to the XML reader.
+     */
+    private static final class Input extends InputStream {
+        /** The buffers to read in sequence. */
+        private final ByteBuffer[] buffers;
+
+        /** Index of the buffer to read. */
+        private int index;
+
+        /** Creates a stream reading the given buffers in sequence. */
+        Input(final ByteBuffer... buffers) {
+            this.buffers = buffers;
+        }
+
+        /** Returns the buffer having remaining bytes, or {@code null} if none. */
+        private ByteBuffer current() {
+            while (index < buffers.length) {
+                final ByteBuffer buffer = buffers[index];
+                if (buffer.hasRemaining()) {
+                    return buffer;
+                }
+                buffers[index++] = null;
+            }
+            return null;
+        }
+
+        /** Returns the next byte, or -1 on end of stream. */
+        @Override
+        public int read() {
+            final ByteBuffer buffer = current();
+            return (buffer != null) ? buffer.get() & 0xFF : -1;
+        }
+
+        /** Reads up to {@code length} bytes in the given array. */
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) {
+            if (length == 0) {
+                return 0;
+            }
+            final ByteBuffer buffer = current();
+            if (buffer == null) {
+                return -1;
+            }
+            final int n = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, n);
+            return n;
+        }
+
+        /** Returns the number of bytes which can be read without blocking. */
+        @Override
+        public int available() {
+            final ByteBuffer buffer = current();
+            return (buffer != null) ? buffer.remaining() : 0;
+        }
+    }
+}
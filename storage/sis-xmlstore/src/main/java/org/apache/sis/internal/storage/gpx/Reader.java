@@ -20,6 +20,7 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Objects;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.EOFException;
 import java.net.URISyntaxException;
 import javax.xml.stream.XMLStreamException;
@@ -105,6 +106,32 @@ final class Reader extends StaxStreamReader {
         super(owner);
     }
 
+    /**
+     * Creates a new GPX reader for a fragment of the file of the given data store.
+     * The given stream shall provide the {@code <gpx>} root element enclosing a sequence of way points,
+     * routes or tracks. The given identifiers are the ones of the last features before that fragment,
+     * so the features get the same identifiers than if the whole file was read by a single reader.
+     * The {@link #initialize(boolean)} method must be invoked after this constructor.
+     *
+     * @param  owner       the data store for which this reader is created.
+     * @param  input       the stream providing the fragment enclosed in the root element.
+     * @param  wayPointId  number of way points before the fragment.
+     * @param  routeId     number of routes before the fragment.
+     * @param  trackId     number of tracks before the fragment.
+     * @throws DataStoreException if the data store is closed.
+     * @throws XMLStreamException if an error occurred while creating the XML reader.
+     *
+     * @see FragmentReader
+     */
+    Reader(final Store owner, final InputStream input, final int wayPointId, final int routeId, final int trackId)
+            throws DataStoreException, XMLStreamException
+    {
+        super(owner, input);
+        this.wayPointId = wayPointId;
+        this.routeId    = routeId;
+        this.trackId    = trackId;
+    }
+
     /**
      * Returns {@code true} if the given namespace is a GPX namespace or is null.
      */
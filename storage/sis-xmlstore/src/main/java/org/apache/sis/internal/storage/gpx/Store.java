@@ -16,6 +16,8 @@
  */
 package org.apache.sis.internal.storage.gpx;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.net.URISyntaxException;
 import org.opengis.metadata.Metadata;
 import org.opengis.metadata.distribution.Format;
@@ -190,6 +192,33 @@ public final class Store extends StaxDataStore {
         return features.onClose(r);
     }
 
+    /**
+     * Returns the stream of features, optionally parsed by many threads. If {@code parallel} is {@code true}
+     * and the storage is a file, then the way points, routes and tracks are located by a quick scan of the file
+     * and ranges of those elements are parsed concurrently. The features have the same identifiers and are
+     * given in the same order (when using {@code forEachOrdered}) than in a sequential stream.
+     * If the file can not be read that way, this method fallbacks on {@link #features()}.
+     * The stream should be closed after use, for closing the readers of the ranges not fully consumed.
+     *
+     * @param  parallel  {@code true} for parsing the features in many threads if possible.
+     * @return a stream over all features in the XML file.
+     * @throws DataStoreException if an error occurred while creating the feature stream.
+     */
+    public synchronized Stream<AbstractFeature> features(final boolean parallel) throws DataStoreException {
+        if (parallel) {
+            final FragmentReader r;
+            try (FileChannel channel = openFileChannel()) {
+                r = (channel != null) ? FragmentReader.create(this, channel) : null;
+            } catch (IOException e) {
+                throw new DataStoreException(e);
+            }
+            if (r != null) {
+                return StreamSupport.stream(r, true).onClose(r);
+            }
+        }
+        return features();
+    }
+
     /**
      * Replaces the content of this GPX file by the given metadata and features.
      *
@@ -25,6 +25,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.nio.charset.Charset;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.StandardOpenOption;
 import javax.xml.stream.Location;
 import javax.xml.stream.XMLReporter;
@@ -523,6 +525,53 @@ public abstract class StaxDataStore extends FeatureStore {
         return reader;
     }
 
+    /**
+     * Creates a new XML stream reader for reading a part of the XML document provided by the given stream.
+     * This is used by readers parsing fragments of the document concurrently. The given stream is independent
+     * of the storage stream, so this method does not change the state of this data store.
+     *
+     * @param  target  the reader which will store the {@code XMLStreamReader} reference.
+     * @param  input   the stream providing the XML fragment, to be closed by the {@code target} reader.
+     * @return a new reader for reading the XML fragment.
+     * @throws DataStoreException if the data store is closed.
+     * @throws XMLStreamException if an error occurred while creating the XML reader.
+     */
+    final synchronized XMLStreamReader createReader(final StaxStreamReader target, final InputStream input)
+            throws DataStoreException, XMLStreamException
+    {
+        if (storage == null) {
+            throw new DataStoreClosedException(getLocale(), getFormatName(), StandardOpenOption.READ);
+        }
+        final XMLStreamReader reader = InputType.STREAM.create(this, input);
+        target.stream = input;
+        return reader;
+    }
+
+    /**
+     * Opens a new channel on the file given as the storage, independently of the stream used by this data store.
+     * This is used by readers which can read different parts of the file concurrently. This method returns
+     * {@code null} if the storage is a stream, a reader or another object which can not be opened twice,
+     * or if the storage is not a file.
+     *
+     * @return a new channel to be closed by the caller, or {@code null} if the storage is not a file.
+     * @throws DataStoreException if the data store is closed.
+     * @throws IOException if an error occurred while opening the channel.
+     */
+    protected final synchronized FileChannel openFileChannel() throws DataStoreException, IOException {
+        if (storage == null) {
+            throw new DataStoreClosedException(getLocale(), getFormatName(), StandardOpenOption.READ);
+        }
+        if (storageToReader != null || storageToWriter != null || channelFactory == null) {
+            return null;
+        }
+        final ReadableByteChannel channel = channelFactory.reader(getDisplayName());
+        if (channel instanceof FileChannel) {
+            return (FileChannel) channel;
+        }
+        channel.close();
+        return null;
+    }
+
     /**
      * Creates a new XML stream writer for writing the XML document.
      * If another {@code XMLStreamWriter} has already been created before this method call,
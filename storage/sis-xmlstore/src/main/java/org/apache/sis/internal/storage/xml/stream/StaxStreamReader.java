@@ -23,6 +23,7 @@ import java.util.Arrays;
 import java.util.NoSuchElementException;
 import java.net.URI;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.EOFException;
 import java.net.URISyntaxException;
 import javax.xml.namespace.QName;
@@ -148,6 +149,23 @@ public abstract class StaxStreamReader extends StaxStreamIO implements XMLStream
         reader = owner.createReader(this);      // Okay because will not store the 'this' reference.
     }
 
+    /**
+     * Creates a new XML reader for a part of the XML document of the given data store.
+     * The given stream shall provide a well-formed XML document, typically the root element
+     * of the data store document enclosing a fragment of its content. That stream will be
+     * closed by {@link #close()}.
+     *
+     * @param  owner  the data store for which this reader is created.
+     * @param  input  the stream providing the XML fragment.
+     * @throws DataStoreException if the data store is closed.
+     * @throws XMLStreamException if an error occurred while creating the XML reader.
+     */
+    @SuppressWarnings("ThisEscapedInObjectConstruction")
+    protected StaxStreamReader(final StaxDataStore owner, final InputStream input) throws DataStoreException, XMLStreamException {
+        super(owner);
+        reader = owner.createReader(this, input);   // Okay because will not store the 'this' reference.
+    }
+
     /**
      * Returns the characteristics of the iteration over feature instances.
      * The iteration is assumed {@link #ORDERED} in the declaration order in the XML file.
@@ -16,6 +16,13 @@
  */
 package org.apache.sis.internal.storage.gpx;
 
+import java.util.ArrayList;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -40,6 +47,7 @@ import static org.apache.sis.test.TestUtilities.getSingleton;
 
 // Branch-dependent imports
 import org.apache.sis.internal.jdk8.Stream;
+import org.apache.sis.internal.jdk8.Consumer;
 import org.apache.sis.internal.jdk8.Instant;
 import org.apache.sis.feature.AbstractFeature;
 import org.opengis.util.GenericName;
@@ -630,4 +638,67 @@ public final strictfp class ReaderTest extends TestCase {
             f3.close();
         }
     }
+
+    /**
+     * Tests parsing the routes in many threads. The data store is created from a URL for allowing
+     * the reader to map the file in memory. The routes shall be given in the same order and with
+     * the same properties than in a sequential read.
+     *
+     * @throws DataStoreException if reader failed to be created or failed at reading.
+     */
+    @Test
+    @DependsOnMethod("testSequentialReads")
+    public void testParallelReads() throws DataStoreException {
+        final List<AbstractFeature> routes = new ArrayList<>();
+        try (Store reader = createFromURL()) {
+            try (Stream<AbstractFeature> features = reader.features(true)) {
+                features.forEachOrdered(new Consumer<AbstractFeature>() {
+                    @Override public void accept(final AbstractFeature f) {
+                        routes.add(f);
+                    }
+                });
+            }
+            verifyRoute110(reader);
+        }
+        assertEquals("routes.size()", 2, routes.size());
+        verifyRoute(routes.get(0), true, 3);
+        verifyEmpty(routes.get(1), "rtept");
+    }
+
+    /**
+     * Tests parsing in many threads a file where the routes use a prefix different than the root element prefix.
+     * The quick scan of the file can not determine if that prefix is bound to the GPX namespace, so the store
+     * shall fallback on a sequential read instead of ignoring those routes.
+     *
+     * @throws IOException if the temporary file can not be written.
+     * @throws URISyntaxException if the URL to the test file can not be converted to a path.
+     * @throws DataStoreException if reader failed to be created or failed at reading.
+     */
+    @Test
+    @DependsOnMethod("testParallelReads")
+    public void testParallelReadsWithOtherPrefix() throws IOException, URISyntaxException, DataStoreException {
+        String xml = new String(Files.readAllBytes(Paths.get(ReaderTest.class.getResource("1.1/route.xml").toURI())),
+                                StandardCharsets.UTF_8);
+        xml = xml.replace("<gpx ", "<gpx xmlns:g=\"http://www.topografix.com/GPX/1/1\" ")
+                 .replace("<rte>", "<g:rte>").replace("</rte>", "</g:rte>");
+        final Path file = Files.createTempFile("ReaderTest", ".xml");
+        final List<AbstractFeature> routes = new ArrayList<>();
+        try {
+            Files.write(file, xml.getBytes(StandardCharsets.UTF_8));
+            try (Store reader = new Store(provider, new StorageConnector(file))) {
+                try (Stream<AbstractFeature> features = reader.features(true)) {
+                    features.forEachOrdered(new Consumer<AbstractFeature>() {
+                        @Override public void accept(final AbstractFeature f) {
+                            routes.add(f);
+                        }
+                    });
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+        assertEquals("routes.size()", 2, routes.size());
+        verifyRoute(routes.get(0), true, 3);
+        verifyEmpty(routes.get(1), "rtept");
+    }
 }